@@ -35,6 +35,8 @@ import org.kiwix.kiwixmobile.webserver.ZimHostModule
 import org.kiwix.kiwixmobile.zim_manager.ZimManageActivity
 import org.kiwix.kiwixmobile.zim_manager.fileselect_view.ZimFileSelectFragment
 import org.kiwix.kiwixmobile.zim_manager.fileselect_view.effects.DeleteFiles
+import org.kiwix.kiwixmobile.zim_manager.fileselect_view.effects.MoveFiles
+import org.kiwix.kiwixmobile.zim_manager.fileselect_view.effects.VerifyFiles
 import org.kiwix.kiwixmobile.zim_manager.library_view.LibraryFragment
 
 @ActivityScope
@@ -49,6 +51,8 @@ interface KiwixActivityComponent {
   fun inject(libraryFragment: LibraryFragment)
   fun inject(zimFileSelectFragment: ZimFileSelectFragment)
   fun inject(deleteFiles: DeleteFiles)
+  fun inject(verifyFiles: VerifyFiles)
+  fun inject(moveFiles: MoveFiles)
   fun inject(localFileTransferActivity: LocalFileTransferActivity)
   fun inject(zimManageActivity: ZimManageActivity)
   fun inject(languageActivity: LanguageActivity)
@@ -24,6 +24,7 @@ import android.net.wifi.WifiManager
 import dagger.Module
 import dagger.Provides
 import org.kiwix.kiwixmobile.core.utils.SharedPreferenceUtil
+import org.kiwix.kiwixmobile.core.utils.files.VolumeCapabilityCache
 import org.kiwix.kiwixmobile.di.KiwixScope
 import org.kiwix.kiwixmobile.zim_manager.Fat32Checker
 import org.kiwix.kiwixmobile.zim_manager.FileWritingFileSystemChecker
@@ -49,10 +50,14 @@ object KiwixModule {
   @JvmStatic
   internal fun provideFat32Checker(
     sharedPreferenceUtil: SharedPreferenceUtil,
-    mountPointProducer: MountPointProducer
+    mountPointProducer: MountPointProducer,
+    volumeCapabilityCache: VolumeCapabilityCache
   ): Fat32Checker =
     Fat32Checker(
       sharedPreferenceUtil,
-      listOf(MountFileSystemChecker(mountPointProducer), FileWritingFileSystemChecker())
+      listOf(
+        MountFileSystemChecker(mountPointProducer),
+        FileWritingFileSystemChecker(volumeCapabilityCache)
+      )
     )
 }
@@ -171,8 +171,7 @@ class KiwixReaderFragment : CoreReaderFragment() {
       getCurrentWebView().scrollY = positions.getInt(i)
       i++
       while (i < urls.length()) {
-        newTab(UpdateUtils.reformatProviderUrl(urls.getString(i)))
-        getCurrentWebView().scrollY = positions.getInt(i)
+        restoreTab(UpdateUtils.reformatProviderUrl(urls.getString(i)), positions.getInt(i))
         i++
       }
       selectTab(currentTab)
@@ -18,32 +18,19 @@
 
 package org.kiwix.kiwixmobile.zim_manager
 
-import android.util.Log
+import org.kiwix.kiwixmobile.core.utils.files.VolumeCapabilityCache
 import org.kiwix.kiwixmobile.zim_manager.FileSystemCapability.CANNOT_WRITE_4GB
 import org.kiwix.kiwixmobile.zim_manager.FileSystemCapability.CAN_WRITE_4GB
-import java.io.File
-import java.io.RandomAccessFile
+import org.kiwix.kiwixmobile.zim_manager.FileSystemCapability.INCONCLUSIVE
 
-class FileWritingFileSystemChecker : FileSystemChecker {
-  override fun checkFilesystemSupports4GbFiles(path: String): FileSystemCapability {
-    with(File("$path/large_file_test.txt")) {
-      deleteIfExists()
-      try {
-        RandomAccessFile(this.path, "rw").use {
-          it.setLength(Fat32Checker.FOUR_GIGABYTES_IN_BYTES)
-          return@checkFilesystemSupports4GbFiles CAN_WRITE_4GB
-        }
-      } catch (e: Exception) {
-        e.printStackTrace()
-        Log.d("Fat32Checker", e.message)
-        return@checkFilesystemSupports4GbFiles CANNOT_WRITE_4GB
-      } finally {
-        deleteIfExists()
-      }
-    }
-  }
-}
-
-private fun File.deleteIfExists() {
-  if (exists()) delete()
+/**
+ * Asks [VolumeCapabilityCache], which writes a 4GB file only the first time it sees a volume.
+ */
+class FileWritingFileSystemChecker(
+  private val volumeCapabilityCache: VolumeCapabilityCache
+) : FileSystemChecker {
+  override fun checkFilesystemSupports4GbFiles(path: String) =
+    volumeCapabilityCache.capabilitiesOf(path)
+      ?.let { if (it.supports4GbFiles) CAN_WRITE_4GB else CANNOT_WRITE_4GB }
+      ?: INCONCLUSIVE
 }
@@ -44,6 +44,8 @@ import org.kiwix.kiwixmobile.core.entity.LibraryNetworkEntity.Book
 import org.kiwix.kiwixmobile.core.extensions.calculateSearchMatches
 import org.kiwix.kiwixmobile.core.extensions.registerReceiver
 import org.kiwix.kiwixmobile.core.utils.BookUtils
+import org.kiwix.kiwixmobile.core.zim_manager.AvailableUpdate
+import org.kiwix.kiwixmobile.core.zim_manager.BookUpdateDetector
 import org.kiwix.kiwixmobile.core.zim_manager.Language
 import org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.SelectionMode.MULTI
 import org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.SelectionMode.NORMAL
@@ -53,17 +55,21 @@ import org.kiwix.kiwixmobile.zim_manager.Fat32Checker.FileSystemState
 import org.kiwix.kiwixmobile.zim_manager.NetworkState.CONNECTED
 import org.kiwix.kiwixmobile.zim_manager.ZimManageViewModel.FileSelectActions.MultiModeFinished
 import org.kiwix.kiwixmobile.zim_manager.ZimManageViewModel.FileSelectActions.RequestDeleteMultiSelection
+import org.kiwix.kiwixmobile.zim_manager.ZimManageViewModel.FileSelectActions.RequestMoveMultiSelection
 import org.kiwix.kiwixmobile.zim_manager.ZimManageViewModel.FileSelectActions.RequestMultiSelection
 import org.kiwix.kiwixmobile.zim_manager.ZimManageViewModel.FileSelectActions.RequestOpen
 import org.kiwix.kiwixmobile.zim_manager.ZimManageViewModel.FileSelectActions.RequestSelect
 import org.kiwix.kiwixmobile.zim_manager.ZimManageViewModel.FileSelectActions.RequestShareMultiSelection
+import org.kiwix.kiwixmobile.zim_manager.ZimManageViewModel.FileSelectActions.RequestVerifyMultiSelection
 import org.kiwix.kiwixmobile.zim_manager.ZimManageViewModel.FileSelectActions.RestartActionMode
 import org.kiwix.kiwixmobile.zim_manager.fileselect_view.FileSelectListState
 import org.kiwix.kiwixmobile.zim_manager.fileselect_view.effects.DeleteFiles
+import org.kiwix.kiwixmobile.zim_manager.fileselect_view.effects.MoveFiles
 import org.kiwix.kiwixmobile.zim_manager.fileselect_view.effects.None
 import org.kiwix.kiwixmobile.zim_manager.fileselect_view.effects.OpenFile
 import org.kiwix.kiwixmobile.zim_manager.fileselect_view.effects.ShareFiles
 import org.kiwix.kiwixmobile.zim_manager.fileselect_view.effects.StartMultiSelection
+import org.kiwix.kiwixmobile.zim_manager.fileselect_view.effects.VerifyFiles
 import org.kiwix.kiwixmobile.zim_manager.library_view.adapter.LibraryListItem
 import org.kiwix.kiwixmobile.zim_manager.library_view.adapter.LibraryListItem.BookItem
 import org.kiwix.kiwixmobile.zim_manager.library_view.adapter.LibraryListItem.DividerItem
@@ -74,6 +80,8 @@ import java.util.concurrent.TimeUnit.MILLISECONDS
 import java.util.concurrent.TimeUnit.SECONDS
 import javax.inject.Inject
 
+private const val UPDATES_SECTION_ID = Long.MAX_VALUE - 1
+
 class ZimManageViewModel @Inject constructor(
   private val downloadDao: FetchDownloadDao,
   private val bookDao: NewBookDao,
@@ -93,6 +101,8 @@ class ZimManageViewModel @Inject constructor(
     data class RequestMultiSelection(val bookOnDisk: BookOnDisk) : FileSelectActions()
     object RequestDeleteMultiSelection : FileSelectActions()
     object RequestShareMultiSelection : FileSelectActions()
+    object RequestVerifyMultiSelection : FileSelectActions()
+    object RequestMoveMultiSelection : FileSelectActions()
     object MultiModeFinished : FileSelectActions()
     object RestartActionMode : FileSelectActions()
   }
@@ -153,6 +163,8 @@ class ZimManageViewModel @Inject constructor(
         is RequestMultiSelection -> startMultiSelectionAndSelectBook(it.bookOnDisk)
         RequestDeleteMultiSelection -> DeleteFiles(selectionsFromState())
         RequestShareMultiSelection -> ShareFiles(selectionsFromState())
+        RequestVerifyMultiSelection -> VerifyFiles(selectionsFromState())
+        RequestMoveMultiSelection -> MoveFiles(selectionsFromState())
         MultiModeFinished -> noSideEffectAndClearSelectionState()
         is RequestSelect -> noSideEffectSelectBook(it.bookOnDisk)
         RestartActionMode -> StartMultiSelection(fileSelectActions)
@@ -164,12 +176,7 @@ class ZimManageViewModel @Inject constructor(
     bookOnDisk: BookOnDisk
   ): StartMultiSelection {
     fileSelectListStates.value?.let {
-      fileSelectListStates.postValue(
-        it.copy(
-          bookOnDiskListItems = selectBook(it, bookOnDisk),
-          selectionMode = MULTI
-        )
-      )
+      fileSelectListStates.postValue(selectBook(it, bookOnDisk).copy(selectionMode = MULTI))
     }
     return StartMultiSelection(fileSelectActions)
   }
@@ -177,18 +184,14 @@ class ZimManageViewModel @Inject constructor(
   private fun selectBook(
     it: FileSelectListState,
     bookOnDisk: BookOnDisk
-  ): List<BooksOnDiskListItem> {
-    return it.bookOnDiskListItems.map { listItem ->
-      if (listItem.id == bookOnDisk.id) listItem.apply { isSelected = !isSelected }
-      else listItem
-    }
-  }
+  ) = it.withSelection(
+    if (bookOnDisk.id in it.selectedIds) it.selectedIds - bookOnDisk.id
+    else it.selectedIds + bookOnDisk.id
+  )
 
   private fun noSideEffectSelectBook(bookOnDisk: BookOnDisk): SideEffect<Unit> {
     fileSelectListStates.value?.let {
-      fileSelectListStates.postValue(
-        it.copy(bookOnDiskListItems = selectBook(it, bookOnDisk))
-      )
+      fileSelectListStates.postValue(selectBook(it, bookOnDisk))
     }
     return None
   }
@@ -198,12 +201,7 @@ class ZimManageViewModel @Inject constructor(
   private fun noSideEffectAndClearSelectionState(): SideEffect<Unit> {
     fileSelectListStates.value?.let {
       fileSelectListStates.postValue(
-        it.copy(
-          bookOnDiskListItems = it.bookOnDiskListItems.map { booksOnDiskListItem ->
-            booksOnDiskListItem.apply { isSelected = false }
-          },
-          selectionMode = NORMAL
-        )
+        it.withSelection(emptySet()).copy(selectionMode = NORMAL)
       )
     }
     return None
@@ -346,21 +344,25 @@ class ZimManageViewModel @Inject constructor(
   ): List<LibraryListItem> {
     val activeLanguageCodes = allLanguages.filter(Language::active)
       .map(Language::languageCode)
+    val updates =
+      BookUpdateDetector.availableUpdates(booksOnFileSystem, libraryNetworkEntity.books)
     val booksUnfilteredByLanguage =
       applySearchFilter(
-        libraryNetworkEntity.books - booksOnFileSystem.map(BookOnDisk::book),
+        libraryNetworkEntity.books - booksOnFileSystem.map(BookOnDisk::book) -
+          updates.map(AvailableUpdate::update),
         filter
       )
 
     val booksWithActiveLanguages =
       booksUnfilteredByLanguage.filter { activeLanguageCodes.contains(it.language) }
-    return createLibrarySection(
-      booksWithActiveLanguages,
-      activeDownloads,
-      fileSystemState,
-      R.string.your_languages,
-      Long.MAX_VALUE
-    ) +
+    return createUpdatesSection(updates, activeDownloads, fileSystemState) +
+      createLibrarySection(
+        booksWithActiveLanguages,
+        activeDownloads,
+        fileSystemState,
+        R.string.your_languages,
+        Long.MAX_VALUE
+      ) +
       createLibrarySection(
         booksUnfilteredByLanguage - booksWithActiveLanguages,
         activeDownloads,
@@ -370,6 +372,26 @@ class ZimManageViewModel @Inject constructor(
       )
   }
 
+  private fun createUpdatesSection(
+    updates: List<AvailableUpdate>,
+    activeDownloads: List<DownloadModel>,
+    fileSystemState: FileSystemState
+  ) =
+    if (updates.isNotEmpty())
+      listOf(
+        DividerItem(
+          UPDATES_SECTION_ID,
+          R.string.updates_available,
+          BookUpdateDetector.totalSize(updates).humanReadable
+        )
+      ) +
+        updates.map { (installed, update) ->
+          activeDownloads.firstOrNull { download -> download.book == update }
+            ?.let(::LibraryDownloadItem)
+            ?: BookItem(update, fileSystemState, installedVersion = installed)
+        }
+    else emptyList()
+
   private fun createLibrarySection(
     books: List<Book>,
     activeDownloads: List<DownloadModel>,
@@ -410,12 +432,13 @@ class ZimManageViewModel @Inject constructor(
       .doOnNext { deviceListIsRefreshing.postValue(true) }
       .switchMap(
         {
+          // books stream in as they are found, the refresh lasts until the scan completes
           booksFromStorageNotIn(booksFromDao)
+            .doOnTerminate { deviceListIsRefreshing.postValue(false) }
         },
         1
       )
-      .onBackpressureDrop()
-      .doOnNext { deviceListIsRefreshing.postValue(false) }
+      .onBackpressureBuffer()
       .filter { it.isNotEmpty() }
       .map { it.distinctBy { bookOnDisk -> bookOnDisk.book.id } }
       .subscribe(
@@ -453,15 +476,6 @@ class ZimManageViewModel @Inject constructor(
 
   private fun inheritSelections(
     oldState: FileSelectListState,
-    newList: MutableList<BooksOnDiskListItem>
-  ): FileSelectListState {
-    return oldState.copy(
-      bookOnDiskListItems = newList.map { newBookOnDisk ->
-        val firstOrNull =
-          oldState.bookOnDiskListItems.firstOrNull { oldBookOnDisk ->
-            oldBookOnDisk.id == newBookOnDisk.id
-          }
-        newBookOnDisk.apply { isSelected = firstOrNull?.isSelected ?: false }
-      })
-  }
+    newList: List<BooksOnDiskListItem>
+  ) = oldState.copy(bookOnDiskListItems = newList).withSelection(oldState.selectedIds)
 }
@@ -24,12 +24,26 @@ import org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.adapter.BooksOnDis
 
 data class FileSelectListState(
   val bookOnDiskListItems: List<BooksOnDiskListItem>,
-  val selectionMode: SelectionMode = NORMAL
+  val selectionMode: SelectionMode = NORMAL,
+  val selectedIds: Set<Long> = emptySet()
 ) {
   val selectedBooks by lazy {
-    bookOnDiskListItems.filter(
-      BooksOnDiskListItem::isSelected
-    )
-      .filterIsInstance(BookOnDisk::class.java)
+    bookOnDiskListItems.filterIsInstance(BookOnDisk::class.java).filter { it.id in selectedIds }
   }
+
+  /**
+   * Only the books whose selection changes are copied, every other item stays the instance that
+   * is already shown so the adapter does not bind it again.
+   */
+  fun withSelection(selectedIds: Set<Long>) = copy(
+    bookOnDiskListItems = bookOnDiskListItems.map { item ->
+      val isSelected = item is BookOnDisk && item.id in selectedIds
+      if (item is BookOnDisk && item.isSelected != isSelected) {
+        item.copy().also { it.isSelected = isSelected }
+      } else {
+        item
+      }
+    },
+    selectedIds = selectedIds
+  )
 }
@@ -130,8 +130,12 @@ class ZimFileSelectFragment : BaseFragment() {
 
   private fun render(state: FileSelectListState) {
     val items = state.bookOnDiskListItems
-    bookDelegate.selectionMode = state.selectionMode
-    booksOnDiskAdapter.items = items
+    if (bookDelegate.selectionMode != state.selectionMode) {
+      bookDelegate.selectionMode = state.selectionMode
+      booksOnDiskAdapter.items = items
+    } else {
+      booksOnDiskAdapter.update(items)
+    }
     actionMode?.title = String.format("%d", state.selectedBooks.size)
     file_management_no_files.visibility = if (items.isEmpty()) View.VISIBLE else View.GONE
   }
@@ -0,0 +1,77 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.zim_manager.fileselect_view.effects
+
+import android.annotation.SuppressLint
+import android.view.LayoutInflater
+import android.widget.ProgressBar
+import android.widget.TextView
+import androidx.annotation.StringRes
+import androidx.appcompat.app.AlertDialog
+import androidx.appcompat.app.AppCompatActivity
+import io.reactivex.Flowable
+import io.reactivex.android.schedulers.AndroidSchedulers
+import org.kiwix.kiwixmobile.R
+
+/**
+ * A dialog showing how far an operation on books that the user waits for has come, shared by
+ * the side effects that verify, move and delete books.
+ */
+class BookOperationProgress(activity: AppCompatActivity, @StringRes title: Int) {
+
+  @SuppressLint("InflateParams") // dialogs have no parent to inflate into
+  private val view = LayoutInflater.from(activity)
+    .inflate(R.layout.dialog_book_operation_progress, null)
+  private val progressBar = view.findViewById<ProgressBar>(R.id.bookOperationProgressBar)
+  private val messageView = view.findViewById<TextView>(R.id.bookOperationProgressMessage)
+  private val dialog = AlertDialog.Builder(activity)
+    .setTitle(title)
+    .setView(view)
+    .create()
+
+  var progress: Int
+    get() = progressBar.progress
+    set(value) {
+      progressBar.progress = value
+    }
+
+  fun setMessage(message: String) {
+    messageView.text = message
+  }
+
+  /**
+   * Shows the dialog until [updates] complete and hands each update to [onUpdate] on the main
+   * thread. Cancelling the dialog stops the operation, unless it [keepsRunningWhenCancelled]
+   * and only the dialog is hidden.
+   */
+  fun <T> show(
+    updates: Flowable<T>,
+    keepsRunningWhenCancelled: Boolean = false,
+    onUpdate: BookOperationProgress.(T) -> Unit
+  ) {
+    val disposable = updates
+      .observeOn(AndroidSchedulers.mainThread())
+      .doFinally(dialog::dismiss)
+      .subscribe({ onUpdate(it) }, Throwable::printStackTrace)
+    if (!keepsRunningWhenCancelled) {
+      dialog.setOnCancelListener { disposable.dispose() }
+    }
+    dialog.show()
+  }
+}
@@ -19,14 +19,16 @@
 package org.kiwix.kiwixmobile.zim_manager.fileselect_view.effects
 
 import androidx.appcompat.app.AppCompatActivity
+import eu.mhutti1.utils.storage.Bytes
 import org.kiwix.kiwixmobile.R
 import org.kiwix.kiwixmobile.core.base.SideEffect
-import org.kiwix.kiwixmobile.core.dao.NewBookDao
 import org.kiwix.kiwixmobile.core.extensions.toast
 import org.kiwix.kiwixmobile.core.reader.ZimReaderContainer
 import org.kiwix.kiwixmobile.core.utils.DialogShower
 import org.kiwix.kiwixmobile.core.utils.KiwixDialog.DeleteZims
-import org.kiwix.kiwixmobile.core.utils.files.FileUtils
+import org.kiwix.kiwixmobile.core.zim_manager.BookDeleter
+import org.kiwix.kiwixmobile.core.zim_manager.BookDeletion.Deleted
+import org.kiwix.kiwixmobile.core.zim_manager.BookDeletion.InProgress
 import org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.adapter.BooksOnDiskListItem.BookOnDisk
 import org.kiwix.kiwixmobile.zim_manager.ZimManageActivity
 import javax.inject.Inject
@@ -35,7 +37,7 @@ data class DeleteFiles(private val booksOnDiskListItems: List<BookOnDisk>) :
   SideEffect<Unit> {
 
   @Inject lateinit var dialogShower: DialogShower
-  @Inject lateinit var newBookDao: NewBookDao
+  @Inject lateinit var bookDeleter: BookDeleter
   @Inject lateinit var zimReaderContainer: ZimReaderContainer
 
   override fun invokeWith(activity: AppCompatActivity) {
@@ -43,34 +45,31 @@ data class DeleteFiles(private val booksOnDiskListItems: List<BookOnDisk>) :
 
     val name = booksOnDiskListItems.joinToString(separator = "\n") { it.book.title }
 
-    dialogShower.show(DeleteZims(name), {
-      activity.toast(
-        if (booksOnDiskListItems.deleteAll()) {
-          R.string.delete_zims_toast
-        } else {
-          R.string.delete_zim_failed
-        }
-      )
-    })
+    dialogShower.show(DeleteZims(name), { deleteAll(activity) })
   }
 
-  private fun List<BookOnDisk>.deleteAll(): Boolean {
-    return fold(true) { acc, book ->
-      acc && deleteSpecificZimFile(book).also {
-        if (it && book.file.canonicalPath == zimReaderContainer.zimCanonicalPath) {
-          zimReaderContainer.setZimFile(null)
-        }
-      }
+  /**
+   * Cancelling the dialog only hides it, the deletion carries on in the background and
+   * still reports how it went.
+   */
+  private fun deleteAll(activity: AppCompatActivity) {
+    if (booksOnDiskListItems.any { it.file.canonicalPath == zimReaderContainer.zimCanonicalPath }) {
+      zimReaderContainer.setZimFile(null)
     }
-  }
-
-  private fun deleteSpecificZimFile(book: BookOnDisk): Boolean {
-    val file = book.file
-    FileUtils.deleteZimFile(file.path)
-    if (file.exists()) {
-      return false
+    BookOperationProgress(activity, R.string.deleting_zims).show(
+      bookDeleter.delete(booksOnDiskListItems),
+      keepsRunningWhenCancelled = true
+    ) {
+      when (it) {
+        is InProgress -> progress = it.progress
+        is Deleted -> activity.toast(
+          if (it.failedFiles.isEmpty()) {
+            activity.getString(R.string.delete_zims_freed, Bytes(it.freedBytes).humanReadable)
+          } else {
+            activity.getString(R.string.delete_zim_failed)
+          }
+        )
+      }
     }
-    newBookDao.delete(book.databaseId)
-    return true
   }
 }
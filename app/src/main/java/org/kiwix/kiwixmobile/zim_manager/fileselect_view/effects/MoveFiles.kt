@@ -0,0 +1,86 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.zim_manager.fileselect_view.effects
+
+import androidx.appcompat.app.AppCompatActivity
+import eu.mhutti1.utils.storage.Bytes
+import eu.mhutti1.utils.storage.StorageDevice
+import eu.mhutti1.utils.storage.StorageSelectDialog
+import io.reactivex.Flowable
+import org.kiwix.kiwixmobile.R
+import org.kiwix.kiwixmobile.core.base.SideEffect
+import org.kiwix.kiwixmobile.core.extensions.toast
+import org.kiwix.kiwixmobile.core.reader.ZimReaderContainer
+import org.kiwix.kiwixmobile.core.zim_manager.BookMove
+import org.kiwix.kiwixmobile.core.zim_manager.BookMove.InProgress
+import org.kiwix.kiwixmobile.core.zim_manager.BookMove.Moved
+import org.kiwix.kiwixmobile.core.zim_manager.BookMove.NotEnoughSpace
+import org.kiwix.kiwixmobile.core.zim_manager.BookMove.StillDownloading
+import org.kiwix.kiwixmobile.core.zim_manager.BookMover
+import org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.adapter.BooksOnDiskListItem.BookOnDisk
+import org.kiwix.kiwixmobile.zim_manager.ZimManageActivity
+import javax.inject.Inject
+
+data class MoveFiles(private val booksOnDisk: List<BookOnDisk>) : SideEffect<Unit> {
+
+  @Inject lateinit var bookMover: BookMover
+  @Inject lateinit var zimReaderContainer: ZimReaderContainer
+
+  override fun invokeWith(activity: AppCompatActivity) {
+    (activity as ZimManageActivity).cachedComponent.inject(this)
+    StorageSelectDialog()
+      .apply { onSelectAction = { moveTo(activity, it) } }
+      .show(activity.supportFragmentManager, activity.getString(R.string.move_to_storage))
+  }
+
+  private fun moveTo(activity: AppCompatActivity, storageDevice: StorageDevice) {
+    val moves = Flowable.fromIterable(booksOnDisk)
+      .concatMap { book ->
+        bookMover.move(book, storageDevice.file)
+          .doOnError(Throwable::printStackTrace)
+          .map<Pair<BookOnDisk, BookMove?>> { book to it }
+          .onErrorReturnItem(book to null)
+      }
+    BookOperationProgress(activity, R.string.moving_zims).show(moves) { (book, move) ->
+      when (move) {
+        is InProgress -> {
+          setMessage(book.book.title)
+          progress = move.progress
+        }
+        is Moved -> {
+          if (zimReaderContainer.zimCanonicalPath == book.file.canonicalPath) {
+            zimReaderContainer.setZimFile(move.bookOnDisk.file)
+          }
+          activity.toast(activity.getString(R.string.move_zim_done, book.book.title))
+        }
+        is NotEnoughSpace -> activity.toast(
+          activity.getString(
+            R.string.move_zim_no_space,
+            book.book.title,
+            Bytes(move.requiredBytes).humanReadable,
+            Bytes(move.availableBytes).humanReadable
+          )
+        )
+        StillDownloading ->
+          activity.toast(activity.getString(R.string.move_zim_downloading, book.book.title))
+        null -> activity.toast(activity.getString(R.string.move_zim_failed, book.book.title))
+      }
+    }
+  }
+}
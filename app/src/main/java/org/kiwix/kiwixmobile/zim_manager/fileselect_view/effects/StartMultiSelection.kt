@@ -27,7 +27,9 @@ import org.kiwix.kiwixmobile.core.extensions.ActivityExtensions.startActionMode
 import org.kiwix.kiwixmobile.zim_manager.ZimManageViewModel.FileSelectActions
 import org.kiwix.kiwixmobile.zim_manager.ZimManageViewModel.FileSelectActions.MultiModeFinished
 import org.kiwix.kiwixmobile.zim_manager.ZimManageViewModel.FileSelectActions.RequestDeleteMultiSelection
+import org.kiwix.kiwixmobile.zim_manager.ZimManageViewModel.FileSelectActions.RequestMoveMultiSelection
 import org.kiwix.kiwixmobile.zim_manager.ZimManageViewModel.FileSelectActions.RequestShareMultiSelection
+import org.kiwix.kiwixmobile.zim_manager.ZimManageViewModel.FileSelectActions.RequestVerifyMultiSelection
 
 data class StartMultiSelection(
   val fileSelectActions: PublishProcessor<FileSelectActions>
@@ -37,7 +39,9 @@ data class StartMultiSelection(
       R.menu.menu_zim_files_contextual,
       mapOf(
         R.id.zim_file_delete_item to { fileSelectActions.offer(RequestDeleteMultiSelection) },
-        R.id.zim_file_share_item to { fileSelectActions.offer(RequestShareMultiSelection) }
+        R.id.zim_file_share_item to { fileSelectActions.offer(RequestShareMultiSelection) },
+        R.id.zim_file_verify_item to { fileSelectActions.offer(RequestVerifyMultiSelection) },
+        R.id.zim_file_move_item to { fileSelectActions.offer(RequestMoveMultiSelection) }
       )
     ) { fileSelectActions.offer(MultiModeFinished) }
 }
@@ -0,0 +1,83 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.zim_manager.fileselect_view.effects
+
+import androidx.appcompat.app.AppCompatActivity
+import io.reactivex.Flowable
+import org.kiwix.kiwixmobile.R
+import org.kiwix.kiwixmobile.core.base.SideEffect
+import org.kiwix.kiwixmobile.core.downloader.verification.BookVerification
+import org.kiwix.kiwixmobile.core.downloader.verification.BookVerification.Corrupt
+import org.kiwix.kiwixmobile.core.downloader.verification.BookVerification.InProgress
+import org.kiwix.kiwixmobile.core.downloader.verification.BookVerification.NoHashAvailable
+import org.kiwix.kiwixmobile.core.downloader.verification.BookVerification.Verified
+import org.kiwix.kiwixmobile.core.downloader.verification.BookVerification.WrongSize
+import org.kiwix.kiwixmobile.core.downloader.verification.BookVerifier
+import org.kiwix.kiwixmobile.core.extensions.toast
+import org.kiwix.kiwixmobile.core.zim_manager.KiloByte
+import org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.adapter.BooksOnDiskListItem.BookOnDisk
+import org.kiwix.kiwixmobile.zim_manager.ZimManageActivity
+import javax.inject.Inject
+
+data class VerifyFiles(private val booksOnDisk: List<BookOnDisk>) : SideEffect<Unit> {
+
+  @Inject lateinit var bookVerifier: BookVerifier
+
+  override fun invokeWith(activity: AppCompatActivity) {
+    (activity as ZimManageActivity).cachedComponent.inject(this)
+    val verifications = Flowable.fromIterable(booksOnDisk)
+      .concatMap { book ->
+        bookVerifier.verify(book)
+          .doOnError(Throwable::printStackTrace)
+          .map<Pair<BookOnDisk, BookVerification?>> { book to it }
+          .onErrorReturnItem(book to null)
+      }
+    val progressDialog = BookOperationProgress(activity, R.string.verifying_zims)
+    progressDialog.show(verifications) { (book, verification) ->
+      if (verification is InProgress) {
+        progress = verification.progress
+        setMessage(
+          activity.getString(
+            R.string.verifying_zim_throughput,
+            book.book.title,
+            KiloByte("${(verification.bytesPerSecond / 1024).coerceAtLeast(1)}").humanReadable
+          )
+        )
+      } else {
+        activity.toast(messageFor(activity, book, verification))
+      }
+    }
+  }
+
+  private fun messageFor(
+    activity: AppCompatActivity,
+    bookOnDisk: BookOnDisk,
+    verification: BookVerification?
+  ) = bookOnDisk.book.title.let { title ->
+    when (verification) {
+      is Corrupt -> activity.getString(
+        R.string.verify_zim_corrupt, title, verification.corruptPieces, verification.pieceCount
+      )
+      Verified -> activity.getString(R.string.verify_zim_ok, title)
+      WrongSize -> activity.getString(R.string.verify_zim_wrong_size, title)
+      NoHashAvailable, is InProgress -> activity.getString(R.string.verify_zim_no_hash, title)
+      null -> activity.getString(R.string.verify_zim_failed, title)
+    }
+  }
+}
@@ -39,7 +39,6 @@ import org.kiwix.kiwixmobile.R
 import org.kiwix.kiwixmobile.core.base.BaseActivity
 import org.kiwix.kiwixmobile.core.base.BaseFragment
 import org.kiwix.kiwixmobile.core.downloader.Downloader
-import org.kiwix.kiwixmobile.core.entity.LibraryNetworkEntity.Book
 import org.kiwix.kiwixmobile.core.extensions.ActivityExtensions.viewModel
 import org.kiwix.kiwixmobile.core.extensions.snack
 import org.kiwix.kiwixmobile.core.utils.BookUtils
@@ -59,6 +58,7 @@ import org.kiwix.kiwixmobile.zim_manager.library_view.adapter.LibraryDelegate.Di
 import org.kiwix.kiwixmobile.zim_manager.library_view.adapter.LibraryDelegate.DownloadDelegate
 import org.kiwix.kiwixmobile.zim_manager.library_view.adapter.LibraryListItem
 import org.kiwix.kiwixmobile.zim_manager.library_view.adapter.LibraryListItem.BookItem
+import org.kiwix.kiwixmobile.zim_manager.library_view.adapter.LibraryListItem.DividerItem
 import javax.inject.Inject
 
 class LibraryFragment : BaseFragment() {
@@ -85,6 +85,8 @@ class LibraryFragment : BaseFragment() {
     )
   }
 
+  private var updatesAnnounced = false
+
   private val noWifiWithWifiOnlyPreferenceSet
     get() = sharedPreferenceUtil.prefWifiOnly && !NetworkUtils.isWiFi(requireContext())
 
@@ -161,6 +163,33 @@ class LibraryFragment : BaseFragment() {
     } else {
       libraryErrorText.visibility = GONE
     }
+    announceUpdates(it)
+  }
+
+  private fun announceUpdates(items: List<LibraryListItem>) {
+    val updates = items.filterIsInstance<BookItem>().filter { it.installedVersion != null }
+    if (updatesAnnounced || updates.isEmpty()) return
+    updatesAnnounced = true
+    val totalSize = items.filterIsInstance<DividerItem>()
+      .firstOrNull { it.stringId == R.string.updates_available }
+      ?.formatArgument
+    libraryList.snack(
+      resources.getQuantityString(
+        R.plurals.updates_available_count, updates.size, updates.size, totalSize.orEmpty()
+      ),
+      R.string.update_all
+    ) { updateAll(updates) }
+  }
+
+  /**
+   * Queues every update at once, the queue waits for the network and time the download
+   * settings allow, so there is nothing to ask for each book.
+   */
+  private fun updateAll(updates: List<BookItem>) {
+    updates.forEach { item -> item.installedVersion?.let { downloader.update(item.book, it) } }
+    view?.snack(
+      resources.getQuantityString(R.plurals.updates_queued, updates.size, updates.size)
+    )
   }
 
   private fun refreshFragment() {
@@ -171,8 +200,13 @@ class LibraryFragment : BaseFragment() {
     }
   }
 
-  private fun downloadFile(book: Book) {
-    downloader.download(book)
+  private fun downloadFile(item: BookItem) {
+    val installedVersion = item.installedVersion
+    if (installedVersion == null) {
+      downloader.download(item.book)
+      return
+    }
+    downloader.update(item.book, installedVersion)
   }
 
   private fun storeDeviceInPreferences(storageDevice: StorageDevice) {
@@ -194,12 +228,12 @@ class LibraryFragment : BaseFragment() {
       noWifiWithWifiOnlyPreferenceSet -> {
         dialogShower.show(WifiOnly, {
           sharedPreferenceUtil.putPrefWifiOnly(false)
-          downloadFile(item.book)
+          downloadFile(item)
         })
         return
       }
       else -> availableSpaceCalculator.hasAvailableSpaceFor(item,
-        { downloadFile(item.book) },
+        { downloadFile(item) },
         {
           libraryList.snack(
             getString(R.string.download_no_space) +
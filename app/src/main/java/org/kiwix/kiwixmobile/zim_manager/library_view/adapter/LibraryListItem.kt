@@ -25,6 +25,7 @@ import org.kiwix.kiwixmobile.core.downloader.model.DownloadState
 import org.kiwix.kiwixmobile.core.downloader.model.Seconds
 import org.kiwix.kiwixmobile.core.entity.LibraryNetworkEntity.Book
 import org.kiwix.kiwixmobile.core.zim_manager.KiwixTag
+import org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.adapter.BooksOnDiskListItem.BookOnDisk
 import org.kiwix.kiwixmobile.zim_manager.Fat32Checker
 import org.kiwix.kiwixmobile.zim_manager.Fat32Checker.FileSystemState
 import org.kiwix.kiwixmobile.zim_manager.Fat32Checker.FileSystemState.CanWrite4GbFile
@@ -37,14 +38,16 @@ sealed class LibraryListItem {
 
   data class DividerItem constructor(
     override val id: Long,
-    @StringRes val stringId: Int
+    @StringRes val stringId: Int,
+    val formatArgument: String? = null
   ) : LibraryListItem()
 
   data class BookItem constructor(
     val book: Book,
     val fileSystemState: FileSystemState,
     val tags: List<KiwixTag> = KiwixTag.from(book.tags),
-    override val id: Long = book.id.hashCode().toLong()
+    override val id: Long = book.id.hashCode().toLong(),
+    val installedVersion: BookOnDisk? = null
   ) : LibraryListItem() {
 
     val canBeDownloaded: Boolean = when (fileSystemState) {
@@ -74,7 +74,10 @@ sealed class LibraryViewHolder<in T : LibraryListItem>(containerView: View) :
       libraryBookSize.setTextAndVisibility(KiloByte(item.book.size).humanReadable)
       libraryBookLanguage.text = bookUtils.getLanguage(item.book.getLanguage())
       libraryBookFileName.text = NetworkUtils.parseURL(CoreApp.instance, item.book.url)
-      libraryBookFavicon.setBitmap(Base64String(item.book.favicon))
+      libraryBookFavicon.setBitmap(
+        Base64String(item.book.favicon),
+        placeholder = R.mipmap.ic_launcher
+      )
 
       containerView.setOnClickListener { clickAction.invoke(item) }
       containerView.isClickable = item.canBeDownloaded
@@ -99,7 +102,7 @@ sealed class LibraryViewHolder<in T : LibraryListItem>(containerView: View) :
     LibraryViewHolder<LibraryDownloadItem>(view) {
 
     override fun bind(item: LibraryDownloadItem) {
-      libraryDownloadFavicon.setBitmap(item.favIcon)
+      libraryDownloadFavicon.setBitmap(item.favIcon, placeholder = R.mipmap.ic_launcher)
       libraryDownloadTitle.text = item.title
       libraryDownloadDescription.text = item.description
       downloadProgress.progress = item.progress
@@ -111,7 +114,9 @@ sealed class LibraryViewHolder<in T : LibraryListItem>(containerView: View) :
 
   class LibraryDividerViewHolder(view: View) : LibraryViewHolder<DividerItem>(view) {
     override fun bind(item: DividerItem) {
-      divider_text.setText(item.stringId)
+      divider_text.text = item.formatArgument
+        ?.let { containerView.context.getString(item.stringId, it) }
+        ?: containerView.context.getString(item.stringId)
     }
   }
 }
@@ -28,6 +28,7 @@ import io.reactivex.Single
 import io.reactivex.processors.BehaviorProcessor
 import io.reactivex.processors.PublishProcessor
 import io.reactivex.schedulers.TestScheduler
+import org.assertj.core.api.Assertions.assertThat
 import org.junit.jupiter.api.AfterAll
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Nested
@@ -172,6 +173,18 @@ class ZimManageViewModelTest {
         .assertValue(FileSelectListState(expectedList))
     }
 
+    @Test
+    fun `selections are carried over to new emissions by id`() {
+      val selectedBook = bookOnDisk(0L)
+      viewModel.fileSelectListStates.value =
+        FileSelectListState(listOf(selectedBook), MULTI, setOf(0L))
+      booksOnDiskListItems.onNext(listOf(bookOnDisk(0L), bookOnDisk(1L)))
+      testScheduler.triggerActions()
+      viewModel.fileSelectListStates.test()
+        .assertValue(FileSelectListState(listOf(selectedBook, bookOnDisk(1L)), MULTI, setOf(0L)))
+      assertThat(viewModel.fileSelectListStates.value!!.selectedBooks).containsExactly(selectedBook)
+    }
+
     @Test
     fun `books found on filesystem are filtered by books already in db`() {
       every { application.getString(any()) } returns ""
@@ -444,18 +457,15 @@ class ZimManageViewModelTest {
         .assertValues(StartMultiSelection(viewModel.fileSelectActions))
       viewModel.fileSelectListStates.test()
         .assertValue(
-          FileSelectListState(
-            listOf(bookToSelect.apply { isSelected = !isSelected }, unSelectedBook),
-            MULTI
-          )
+          FileSelectListState(listOf(bookToSelect, unSelectedBook), MULTI, setOf(0L))
         )
     }
 
     @Test
     fun `RequestDeleteMultiSelection offers DeleteFiles with selected books`() {
-      val selectedBook = bookOnDisk().apply { isSelected = true }
+      val selectedBook = bookOnDisk(0L)
       viewModel.fileSelectListStates.value =
-        FileSelectListState(listOf(selectedBook, bookOnDisk()), NORMAL)
+        FileSelectListState(listOf(selectedBook, bookOnDisk(1L)), NORMAL, setOf(0L))
       viewModel.sideEffects.test()
         .also { viewModel.fileSelectActions.offer(RequestDeleteMultiSelection) }
         .assertValues(DeleteFiles(listOf(selectedBook)))
@@ -463,9 +473,9 @@ class ZimManageViewModelTest {
 
     @Test
     fun `RequestShareMultiSelection offers ShareFiles with selected books`() {
-      val selectedBook = bookOnDisk().apply { isSelected = true }
+      val selectedBook = bookOnDisk(0L)
       viewModel.fileSelectListStates.value =
-        FileSelectListState(listOf(selectedBook, bookOnDisk()), NORMAL)
+        FileSelectListState(listOf(selectedBook, bookOnDisk(1L)), NORMAL, setOf(0L))
       viewModel.sideEffects.test()
         .also { viewModel.fileSelectActions.offer(RequestShareMultiSelection) }
         .assertValues(ShareFiles(listOf(selectedBook)))
@@ -473,38 +483,30 @@ class ZimManageViewModelTest {
 
     @Test
     fun `MultiModeFinished offers None`() {
-      val selectedBook = bookOnDisk().apply { isSelected = true }
+      val selectedBook = bookOnDisk(0L)
       viewModel.fileSelectListStates.value =
-        FileSelectListState(listOf(selectedBook, bookOnDisk()), NORMAL)
+        FileSelectListState(listOf(selectedBook, bookOnDisk(1L)), MULTI, setOf(0L))
       viewModel.sideEffects.test()
         .also { viewModel.fileSelectActions.offer(MultiModeFinished) }
         .assertValues(None)
       viewModel.fileSelectListStates.test().assertValue(
-        FileSelectListState(
-          listOf(
-            selectedBook.apply { isSelected = false },
-            bookOnDisk()
-          )
-        )
+        FileSelectListState(listOf(selectedBook, bookOnDisk(1L)))
       )
     }
 
     @Test
     fun `RequestSelect offers None and inverts selection`() {
-      val selectedBook = bookOnDisk(0L).apply { isSelected = true }
+      val selectedBook = bookOnDisk(0L)
       viewModel.fileSelectListStates.value =
-        FileSelectListState(listOf(selectedBook, bookOnDisk(1L)), NORMAL)
+        FileSelectListState(listOf(selectedBook, bookOnDisk(1L)), NORMAL, setOf(0L))
       viewModel.sideEffects.test()
         .also { viewModel.fileSelectActions.offer(RequestSelect(selectedBook)) }
         .assertValues(None)
       viewModel.fileSelectListStates.test().assertValue(
-        FileSelectListState(
-          listOf(
-            selectedBook.apply { isSelected = false },
-            bookOnDisk(1L)
-          )
-        )
+        FileSelectListState(listOf(selectedBook, bookOnDisk(1L)))
       )
+      assertThat(viewModel.fileSelectListStates.value!!.bookOnDiskListItems[0].isSelected)
+        .isFalse()
     }
 
     @Test
@@ -36,6 +36,7 @@ import kotlinx.android.synthetic.main.storage_select_dialog.title
 import org.kiwix.kiwixmobile.core.CoreApp
 import org.kiwix.kiwixmobile.core.R
 import org.kiwix.kiwixmobile.core.settings.StorageCalculator
+import org.kiwix.kiwixmobile.core.utils.files.VolumeCapabilityCache
 import javax.inject.Inject
 
 class StorageSelectDialog : DialogFragment() {
@@ -43,12 +44,13 @@ class StorageSelectDialog : DialogFragment() {
   var onSelectAction: ((StorageDevice) -> Unit)? = null
 
   @Inject lateinit var storageCalculator: StorageCalculator
+  @Inject lateinit var volumeCapabilityCache: VolumeCapabilityCache
 
   private var aTitle: String? = null
 
   private val storageAdapter: StorageAdapter by lazy {
     StorageAdapter(
-      StorageDelegate(storageCalculator) {
+      StorageDelegate(storageCalculator, volumeCapabilityCache) {
         onSelectAction?.invoke(it)
         dismiss()
       }
@@ -71,6 +73,7 @@ class StorageSelectDialog : DialogFragment() {
       setHasFixedSize(true)
     }
     Flowable.fromCallable { StorageDeviceUtils.getWritableStorage(requireActivity()) }
+      .map { devices -> devices.onEach { volumeCapabilityCache.capabilitiesOf(it.file.path) } }
       .subscribeOn(Schedulers.io())
       .observeOn(AndroidSchedulers.mainThread())
       .subscribe(
@@ -25,15 +25,18 @@ import org.kiwix.kiwixmobile.core.R
 import org.kiwix.kiwixmobile.core.base.adapter.AdapterDelegate
 import org.kiwix.kiwixmobile.core.extensions.ViewGroupExtensions.inflate
 import org.kiwix.kiwixmobile.core.settings.StorageCalculator
+import org.kiwix.kiwixmobile.core.utils.files.VolumeCapabilityCache
 
 class StorageDelegate(
   private val storageCalculator: StorageCalculator,
+  private val volumeCapabilityCache: VolumeCapabilityCache,
   private val onClickAction: (StorageDevice) -> Unit
 ) : AdapterDelegate<StorageDevice> {
   override fun createViewHolder(parent: ViewGroup): ViewHolder =
     StorageViewHolder(
       parent.inflate(R.layout.device_item, false),
       storageCalculator,
+      volumeCapabilityCache,
       onClickAction
     )
 
@@ -26,18 +26,24 @@ import kotlinx.android.synthetic.main.device_item.file_size
 import org.kiwix.kiwixmobile.core.R
 import org.kiwix.kiwixmobile.core.base.adapter.BaseViewHolder
 import org.kiwix.kiwixmobile.core.settings.StorageCalculator
+import org.kiwix.kiwixmobile.core.utils.files.VolumeCapabilityCache
 
 @SuppressLint("SetTextI18n")
 internal class StorageViewHolder(
   override val containerView: View,
   private val storageCalculator: StorageCalculator,
+  private val volumeCapabilityCache: VolumeCapabilityCache,
   private val onClickAction: (StorageDevice) -> Unit
 ) : BaseViewHolder<StorageDevice>(containerView) {
   override fun bind(item: StorageDevice) {
-    file_name.setText(
+    val name = containerView.context.getString(
       if (item.isInternal) R.string.internal_storage
       else R.string.external_storage
     )
+    file_name.text =
+      if (volumeCapabilityCache.knownCapabilitiesOf(item.file.path)?.supports4GbFiles == false)
+        containerView.context.getString(R.string.storage_with_4gb_limit, name)
+      else name
     file_size.text = storageCalculator.calculateAvailableSpace(item.file) + " / " +
       storageCalculator.calculateTotalSpace(item.file)
     containerView.setOnClickListener { onClickAction.invoke(item) }
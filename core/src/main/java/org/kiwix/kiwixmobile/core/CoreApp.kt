@@ -27,10 +27,14 @@ import android.util.Log
 import androidx.appcompat.app.AppCompatDelegate
 import androidx.multidex.MultiDex
 import com.jakewharton.threetenabp.AndroidThreeTen
+import org.kiwix.kiwixmobile.core.dao.FaviconMigration
 import org.kiwix.kiwixmobile.core.data.local.KiwixDatabase
 import org.kiwix.kiwixmobile.core.di.components.CoreComponent
 import org.kiwix.kiwixmobile.core.di.components.DaggerCoreComponent
 import org.kiwix.kiwixmobile.core.downloader.DownloadMonitor
+import org.kiwix.kiwixmobile.core.downloader.scheduler.DownloadScheduler
+import org.kiwix.kiwixmobile.core.utils.files.BookPresenceTracker
+import org.kiwix.kiwixmobile.core.zim_manager.BookDeleter
 import java.io.File
 import java.io.IOException
 import javax.inject.Inject
@@ -57,6 +61,18 @@ abstract class CoreApp : Application() {
   @Inject
   lateinit var kiwixDatabase: KiwixDatabase
 
+  @Inject
+  lateinit var faviconMigration: FaviconMigration
+
+  @Inject
+  lateinit var downloadScheduler: DownloadScheduler
+
+  @Inject
+  lateinit var bookPresenceTracker: BookPresenceTracker
+
+  @Inject
+  lateinit var bookDeleter: BookDeleter
+
   /**
    * The init of this class does the work of initializing,
    * simply injecting it is all that there is to be done
@@ -81,7 +97,11 @@ abstract class CoreApp : Application() {
     writeLogFile()
     coreComponent.inject(this)
     kiwixDatabase.forceMigration()
+    faviconMigration.migrate()
     downloadMonitor.init()
+    downloadScheduler.start()
+    bookPresenceTracker.start()
+    bookDeleter.resumePendingDeletions()
     nightModeConfig.init()
     configureStrictMode()
   }
@@ -19,28 +19,54 @@
 package org.kiwix.kiwixmobile.core
 
 import io.reactivex.Flowable
+import io.reactivex.Maybe
 import io.reactivex.functions.BiFunction
 import io.reactivex.schedulers.Schedulers
 import org.kiwix.kiwixmobile.core.dao.FetchDownloadDao
+import org.kiwix.kiwixmobile.core.dao.NewBookDao
+import org.kiwix.kiwixmobile.core.dao.PendingDeletionDao
 import org.kiwix.kiwixmobile.core.downloader.model.DownloadModel
 import org.kiwix.kiwixmobile.core.reader.ZimFileReader
+import org.kiwix.kiwixmobile.core.reader.ZimMetadataCache
+import org.kiwix.kiwixmobile.core.reader.ZimMetadataReader
 import org.kiwix.kiwixmobile.core.utils.files.FileSearch
 import org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.adapter.BooksOnDiskListItem.BookOnDisk
 import java.io.File
 import javax.inject.Inject
 
+private const val MAX_PARALLEL_READERS = 4
+
 class StorageObserver @Inject constructor(
   private val downloadDao: FetchDownloadDao,
   private val fileSearch: FileSearch,
-  private val zimReaderFactory: ZimFileReader.Factory
+  private val zimReaderFactory: ZimFileReader.Factory,
+  private val zimMetadataCache: ZimMetadataCache,
+  private val zimMetadataReader: ZimMetadataReader,
+  private val pendingDeletionDao: PendingDeletionDao,
+  private val newBookDao: NewBookDao
 ) {
 
   val booksOnFileSystem: Flowable<List<BookOnDisk>>
     get() = scanFiles()
       .withLatestFrom(downloadDao.downloads(), BiFunction(::toFilesThatAreNotDownloading))
-      .map { it.mapNotNull(::convertToBookOnDisk) }
+      .concatMapSingle(::toBooksOnDisk)
+
+  /**
+   * Only files that have no book in [NewBookDao] need reading. That is decided against the
+   * database rather than the previous scan, so a file that was found before but is not listed
+   * (its storage was remounted, or it was still being copied and could not be read) is read
+   * again. Books whose files were removed are dropped by [NewBookDao] itself.
+   */
+  private fun scanFiles() = fileSearch.scan()
+    .map { it.added + it.unchanged }
+    .map(::toFilesWithoutBooks)
+    .subscribeOn(Schedulers.io())
 
-  private fun scanFiles() = fileSearch.scan().subscribeOn(Schedulers.io())
+  private fun toFilesWithoutBooks(files: List<File>): List<File> {
+    if (files.isEmpty()) return files
+    val known = newBookDao.filePaths() + pendingDeletionDao.paths()
+    return files.filterNot { it.path in known }
+  }
 
   private fun toFilesThatAreNotDownloading(files: List<File>, downloads: List<DownloadModel>) =
     files.filter { fileHasNoMatchingDownload(downloads, it) }
@@ -48,7 +74,22 @@ class StorageObserver @Inject constructor(
   private fun fileHasNoMatchingDownload(downloads: List<DownloadModel>, file: File) =
     downloads.firstOrNull { file.absolutePath.endsWith(it.fileNameFromUrl) } == null
 
+  private fun toBooksOnDisk(files: List<File>) =
+    Flowable.fromIterable(files)
+      .flatMapMaybe(
+        { file ->
+          Maybe.fromCallable<BookOnDisk> { convertToBookOnDisk(file) }
+            .subscribeOn(Schedulers.io())
+        },
+        false,
+        MAX_PARALLEL_READERS
+      )
+      .toList()
+
   private fun convertToBookOnDisk(file: File) =
-    zimReaderFactory.create(file)
-      ?.let { zimFileReader -> BookOnDisk(file, zimFileReader).also { zimFileReader.dispose() } }
+    zimMetadataCache.bookFor(file, ::readBook)?.let { BookOnDisk(book = it, file = file) }
+
+  private fun readBook(file: File) =
+    zimMetadataReader.read(file) ?: zimReaderFactory.create(file)
+      ?.let { zimFileReader -> zimFileReader.toBook().also { zimFileReader.dispose() } }
 }
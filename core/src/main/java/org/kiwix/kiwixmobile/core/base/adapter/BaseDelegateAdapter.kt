@@ -18,6 +18,7 @@
 package org.kiwix.kiwixmobile.core.base.adapter
 
 import android.view.ViewGroup
+import androidx.recyclerview.widget.DiffUtil
 import androidx.recyclerview.widget.RecyclerView.Adapter
 import androidx.recyclerview.widget.RecyclerView.ViewHolder
 
@@ -31,12 +32,36 @@ abstract class BaseDelegateAdapter<ITEM>(
     setHasStableIds(true)
   }
 
-  var items: List<ITEM> = mutableListOf()
+  private var shownItems: List<ITEM> = mutableListOf()
+
+  var items: List<ITEM>
+    get() = shownItems
     set(value) {
-      field = value
+      shownItems = value
       notifyDataSetChanged()
     }
 
+  /**
+   * Replaces [items] but only notifies the rows [itemCallback] finds were inserted, removed or
+   * changed, so the others are not bound again.
+   */
+  fun updateItems(newItems: List<ITEM>, itemCallback: DiffUtil.ItemCallback<ITEM>) {
+    val oldItems = shownItems
+    val diffResult = DiffUtil.calculateDiff(object : DiffUtil.Callback() {
+      override fun getOldListSize() = oldItems.size
+
+      override fun getNewListSize() = newItems.size
+
+      override fun areItemsTheSame(oldPosition: Int, newPosition: Int) =
+        itemCallback.areItemsTheSame(oldItems[oldPosition], newItems[newPosition])
+
+      override fun areContentsTheSame(oldPosition: Int, newPosition: Int) =
+        itemCallback.areContentsTheSame(oldItems[oldPosition], newItems[newPosition])
+    }, false)
+    shownItems = newItems
+    diffResult.dispatchUpdatesTo(this)
+  }
+
   override fun onCreateViewHolder(
     parent: ViewGroup,
     viewType: Int
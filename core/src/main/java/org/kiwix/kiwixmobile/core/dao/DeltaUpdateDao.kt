@@ -0,0 +1,59 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.dao
+
+import io.objectbox.Box
+import io.objectbox.kotlin.query
+import org.kiwix.kiwixmobile.core.dao.entities.DeltaUpdateEntity
+import org.kiwix.kiwixmobile.core.dao.entities.DeltaUpdateEntity_
+import org.kiwix.kiwixmobile.core.entity.LibraryNetworkEntity.Book
+import org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.adapter.BooksOnDiskListItem.BookOnDisk
+import javax.inject.Inject
+
+class DeltaUpdateDao @Inject constructor(
+  private val box: Box<DeltaUpdateEntity>,
+  private val faviconDao: FaviconDao
+) {
+
+  fun next(): DeltaUpdateEntity? = box.query { order(DeltaUpdateEntity_.id) }.findFirst()
+
+  fun add(bookOnDisk: BookOnDisk, book: Book, downloadUrl: String) {
+    box.store.callInTx {
+      if (box.query { equal(DeltaUpdateEntity_.bookOnDiskId, bookOnDisk.databaseId) }
+          .count() == 0L
+      ) {
+        box.put(
+          DeltaUpdateEntity(
+            bookOnDisk.databaseId,
+            downloadUrl,
+            book,
+            faviconDao.saveFavicon(book.favicon)
+          )
+        )
+      }
+    }
+  }
+
+  fun book(deltaUpdate: DeltaUpdateEntity) =
+    deltaUpdate.toBook(faviconDao.favicon(deltaUpdate.faviconHash))
+
+  fun remove(deltaUpdate: DeltaUpdateEntity) {
+    box.remove(deltaUpdate.id)
+  }
+}
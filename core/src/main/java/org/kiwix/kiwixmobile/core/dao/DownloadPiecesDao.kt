@@ -0,0 +1,67 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.dao
+
+import io.objectbox.Box
+import io.objectbox.kotlin.query
+import org.kiwix.kiwixmobile.core.dao.entities.DownloadPiecesEntity
+import org.kiwix.kiwixmobile.core.dao.entities.DownloadPiecesEntity_
+import org.kiwix.kiwixmobile.core.downloader.verification.PieceHashes
+import org.kiwix.kiwixmobile.core.downloader.verification.PieceVerifier
+import javax.inject.Inject
+
+class DownloadPiecesDao @Inject constructor(private val box: Box<DownloadPiecesEntity>) {
+
+  // shared by the slices of a download in progress, evicted once it is done with
+  private val verifiers = mutableMapOf<String, PieceVerifier>()
+
+  fun save(file: String, mirrors: List<String>, pieceHashes: PieceHashes) {
+    box.store.callInTx {
+      delete(file)
+      box.put(DownloadPiecesEntity(file, mirrors, pieceHashes))
+    }
+  }
+
+  fun verifierFor(file: String): PieceVerifier? = synchronized(verifiers) {
+    verifiers[file] ?: entityFor(file)?.toPieceVerifier()?.also { verifiers[file] = it }
+  }
+
+  fun mirrorsFor(file: String): List<String> = entityFor(file)?.mirrorList.orEmpty()
+
+  fun update(file: String, pieceVerifier: PieceVerifier) {
+    box.store.callInTx {
+      entityFor(file)?.let { box.put(it.updateWith(pieceVerifier)) }
+    }
+  }
+
+  fun delete(file: String) {
+    evict(file)
+    box.query { equal(DownloadPiecesEntity_.file, file) }.remove()
+  }
+
+  /**
+   * Drops the verifier of [file] from memory, its state stays persisted.
+   */
+  fun evict(file: String) {
+    synchronized(verifiers) { verifiers.remove(file) }
+  }
+
+  private fun entityFor(file: String) =
+    box.query { equal(DownloadPiecesEntity_.file, file) }.findFirst()
+}
@@ -0,0 +1,63 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.dao
+
+import androidx.collection.LruCache
+import io.objectbox.Box
+import io.objectbox.kotlin.query
+import org.kiwix.kiwixmobile.core.dao.entities.FaviconEntity
+import org.kiwix.kiwixmobile.core.dao.entities.FaviconEntity_
+import org.kiwix.kiwixmobile.core.downloader.model.Base64String
+import javax.inject.Inject
+
+/**
+ * Content addressed store for base64 favicons. Entities keep only the hash returned by
+ * [saveFavicon], so a favicon shared by many history entries or bookmarks is stored once. The
+ * most recently used favicons are kept in memory, the others are read from the box again.
+ */
+class FaviconDao @Inject constructor(private val box: Box<FaviconEntity>) {
+
+  private val faviconsByHash = object : LruCache<String, String>(MAX_CACHED_CHARS) {
+    override fun sizeOf(key: String, value: String) = value.length
+  }
+
+  fun saveFavicon(favicon: String?): String? = favicon?.let {
+    Base64String(it).contentHash()?.also { hash ->
+      if (faviconsByHash[hash] == null) {
+        box.store.callInTx {
+          if (box.query { equal(FaviconEntity_.hash, hash) }.count() == 0L) {
+            box.put(FaviconEntity(hash = hash, favicon = it))
+          }
+        }
+        faviconsByHash.put(hash, it)
+      }
+    }
+  }
+
+  fun favicon(hash: String?): String? = hash?.let {
+    faviconsByHash[it] ?: box.query { equal(FaviconEntity_.hash, it) }
+      .findFirst()
+      ?.favicon
+      ?.also { favicon -> faviconsByHash.put(it, favicon) }
+  }
+
+  companion object {
+    private const val MAX_CACHED_CHARS = 1 shl 20
+  }
+}
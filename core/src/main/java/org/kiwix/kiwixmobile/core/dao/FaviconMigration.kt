@@ -0,0 +1,42 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.dao
+
+import io.reactivex.Completable
+import io.reactivex.schedulers.Schedulers
+import javax.inject.Inject
+
+/**
+ * Moves favicons that older versions copied into every row into [FaviconDao].
+ */
+class FaviconMigration @Inject constructor(
+  private val historyDao: HistoryDao,
+  private val bookmarksDao: NewBookmarksDao,
+  private val bookDao: NewBookDao
+) {
+  fun migrate() {
+    Completable.fromAction {
+      bookDao.migrateFavicons()
+      historyDao.migrateFavicons()
+      bookmarksDao.migrateFavicons()
+    }
+      .subscribeOn(Schedulers.io())
+      .subscribe({}, Throwable::printStackTrace)
+  }
+}
@@ -21,6 +21,7 @@ import com.tonyodev.fetch2.Download
 import com.tonyodev.fetch2.Status.COMPLETED
 import io.objectbox.Box
 import io.objectbox.kotlin.equal
+import io.objectbox.kotlin.inValues
 import io.objectbox.kotlin.query
 import io.reactivex.Flowable
 import io.reactivex.Single
@@ -29,6 +30,7 @@ import org.kiwix.kiwixmobile.core.dao.entities.FetchDownloadEntity_
 import org.kiwix.kiwixmobile.core.downloader.DownloadRequester
 import org.kiwix.kiwixmobile.core.downloader.model.DownloadModel
 import org.kiwix.kiwixmobile.core.downloader.model.DownloadRequest
+import org.kiwix.kiwixmobile.core.downloader.scheduler.DownloadEtaEstimator
 import org.kiwix.kiwixmobile.core.entity.LibraryNetworkEntity.Book
 import org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.adapter.BooksOnDiskListItem.BookOnDisk
 import javax.inject.Inject
@@ -42,7 +44,7 @@ class FetchDownloadDao @Inject constructor(
     box.asFlowable()
       .distinctUntilChanged()
       .doOnNext(::moveCompletedToBooksOnDiskDao)
-      .map { it.map(::DownloadModel) }
+      .map { DownloadEtaEstimator.estimate(it.map(::DownloadModel)) }
 
   fun allDownloads() = Single.fromCallable { box.all.map(::DownloadModel) }
 
@@ -56,20 +58,29 @@ class FetchDownloadDao @Inject constructor(
   }
 
   fun update(download: Download) {
+    update(listOf(download))
+  }
+
+  /**
+   * @param corruptDownloadIds completed downloads that failed verification, they are stored as
+   * failed so they never move to the books on disk
+   */
+  fun update(downloads: List<Download>, corruptDownloadIds: Set<Int> = emptySet()) {
+    val downloadsById = downloads.associateBy { it.id.toLong() }
     box.store.callInTx {
-      getEntityFor(download)?.let { dbEntity ->
-        dbEntity.updateWith(download)
-          .takeIf { updatedEntity -> updatedEntity != dbEntity }
-          ?.let(box::put)
-      }
+      box.query {
+        inValues(FetchDownloadEntity_.downloadId, downloadsById.keys.toLongArray())
+      }.find()
+        .mapNotNull { dbEntity ->
+          val download = downloadsById.getValue(dbEntity.downloadId)
+          dbEntity.updateWith(download, isCorrupt = download.id in corruptDownloadIds)
+            .takeIf { updatedEntity -> updatedEntity != dbEntity }
+        }
+        .takeIf { it.isNotEmpty() }
+        ?.let { box.put(it) }
     }
   }
 
-  private fun getEntityFor(download: Download) =
-    box.query {
-      equal(FetchDownloadEntity_.downloadId, download.id)
-    }.find().getOrNull(0)
-
   fun insert(downloadId: Long, book: Book) {
     box.put(FetchDownloadEntity(downloadId, book))
   }
@@ -81,14 +92,14 @@ class FetchDownloadDao @Inject constructor(
   }
 
   fun addIfDoesNotExist(
-    url: String,
+    downloadRequest: DownloadRequest,
     book: Book,
     downloadRequester: DownloadRequester
   ) {
     box.store.callInTx {
       if (doesNotAlreadyExist(book)) {
         insert(
-          downloadRequester.enqueue(DownloadRequest(url)),
+          downloadRequester.enqueue(downloadRequest),
           book = book
         )
       }
@@ -24,13 +24,19 @@ import org.kiwix.kiwixmobile.core.dao.entities.HistoryEntity_
 import org.kiwix.kiwixmobile.core.page.history.adapter.HistoryListItem.HistoryItem
 import javax.inject.Inject
 
-class HistoryDao @Inject constructor(val box: Box<HistoryEntity>) {
+class HistoryDao @Inject constructor(
+  val box: Box<HistoryEntity>,
+  private val faviconDao: FaviconDao
+) {
 
   fun history() = box.asFlowable(
     box.query {
       orderDesc(HistoryEntity_.timeStamp)
     }
-  ).map { it.map(::HistoryItem) }
+  ).map { it.map(::toHistoryItem) }
+
+  private fun toHistoryItem(entity: HistoryEntity) =
+    HistoryItem(entity, faviconDao.favicon(entity.faviconHash) ?: entity.favicon)
 
   fun saveHistory(historyItem: HistoryItem) {
     box.store.callInTx {
@@ -40,7 +46,17 @@ class HistoryDao @Inject constructor(val box: Box<HistoryEntity>) {
             .equal(HistoryEntity_.dateString, historyItem.dateString)
         }
         .remove()
-      box.put(HistoryEntity(historyItem))
+      box.put(HistoryEntity(historyItem, faviconDao.saveFavicon(historyItem.favicon)))
+    }
+  }
+
+  fun updateZimFilePath(oldPaths: Collection<String>, newPath: String) {
+    box.store.callInTx {
+      box.put(
+        box.query { inValues(HistoryEntity_.zimFilePath, oldPaths.toTypedArray()) }
+          .find()
+          .map { it.copy(zimFilePath = newPath) }
+      )
     }
   }
 
@@ -51,4 +67,14 @@ class HistoryDao @Inject constructor(val box: Box<HistoryEntity>) {
   fun deleteAllHistory() {
     box.removeAll()
   }
+
+  fun migrateFavicons() {
+    box.store.callInTx {
+      box.put(
+        box.query { notNull(HistoryEntity_.favicon) }
+          .find()
+          .map { it.copy(favicon = null, faviconHash = faviconDao.saveFavicon(it.favicon)) }
+      )
+    }
+  }
 }
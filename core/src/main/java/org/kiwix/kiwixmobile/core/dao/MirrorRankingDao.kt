@@ -0,0 +1,54 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.dao
+
+import io.objectbox.Box
+import io.objectbox.kotlin.inValues
+import io.objectbox.kotlin.query
+import org.kiwix.kiwixmobile.core.dao.entities.MirrorRankingEntity
+import org.kiwix.kiwixmobile.core.dao.entities.MirrorRankingEntity_
+import javax.inject.Inject
+
+class MirrorRankingDao @Inject constructor(private val box: Box<MirrorRankingEntity>) {
+
+  fun rankings(hosts: Collection<String>): Map<String, MirrorRankingEntity> =
+    box.query { inValues(MirrorRankingEntity_.host, hosts.toTypedArray()) }
+      .find()
+      .associateBy(MirrorRankingEntity::host)
+
+  fun record(
+    host: String,
+    bytesPerSecond: Double,
+    timeToFirstByteMillis: Long?,
+    now: Long = System.currentTimeMillis()
+  ) {
+    box.store.callInTx {
+      box.put(
+        box.query { equal(MirrorRankingEntity_.host, host) }.findFirst()
+          ?.updatedWith(bytesPerSecond, timeToFirstByteMillis, now)
+          ?: MirrorRankingEntity(
+            host = host,
+            bytesPerSecond = bytesPerSecond,
+            timeToFirstByteMillis = timeToFirstByteMillis ?: 0L,
+            updatedAt = now
+          )
+      )
+    }
+  }
+}
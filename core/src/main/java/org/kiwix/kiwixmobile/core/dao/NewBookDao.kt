@@ -24,23 +24,43 @@ import org.kiwix.kiwixmobile.core.dao.entities.BookOnDiskEntity
 import org.kiwix.kiwixmobile.core.dao.entities.BookOnDiskEntity_
 import org.kiwix.kiwixmobile.core.data.local.entity.Bookmark
 import org.kiwix.kiwixmobile.core.entity.LibraryNetworkEntity.Book
+import org.kiwix.kiwixmobile.core.reader.FileStamp
 import org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.adapter.BooksOnDiskListItem.BookOnDisk
+import java.io.File
 import javax.inject.Inject
 
-class NewBookDao @Inject constructor(private val box: Box<BookOnDiskEntity>) {
+class NewBookDao @Inject constructor(
+  private val box: Box<BookOnDiskEntity>,
+  private val faviconDao: FaviconDao
+) {
 
   fun books() = box.asFlowable()
-    .doOnNext(::removeBooksThatDoNotExist)
-    .map { books -> books.filter { it.file.exists() } }
-    .map { it.map(::BookOnDisk) }
+    .map { it.map(::toBookOnDisk) }
 
-  fun getBooks() = box.all.map(::BookOnDisk)
+  fun bookFiles() = box.asFlowable()
+    .map { books -> books.map(BookOnDiskEntity::file) }
+
+  fun getBooks() = box.all.map(::toBookOnDisk)
+
+  fun getBook(databaseId: Long) = box.get(databaseId)?.let(::toBookOnDisk)
+
+  fun filePaths() = box.all.mapTo(HashSet()) { it.file.path }
+
+  fun booksWithFileStamps() = box.all
+    .filter { it.fileLastModified > 0L }
+    .map { toBookOnDisk(it) to FileStamp(it.fileLength, it.fileLastModified) }
+
+  private fun toBookOnDisk(entity: BookOnDiskEntity) =
+    BookOnDisk(entity, faviconDao.favicon(entity.faviconHash) ?: entity.favIcon)
 
   fun insert(booksOnDisk: List<BookOnDisk>) {
     box.store.callInTx {
       val uniqueBooks = uniqueBooksByFile(booksOnDisk)
       removeEntriesWithMatchingIds(uniqueBooks)
-      box.put(uniqueBooks.distinctBy { it.book.id }.map(::BookOnDiskEntity))
+      box.put(
+        uniqueBooks.distinctBy { it.book.id }
+          .map { BookOnDiskEntity(it, faviconDao.saveFavicon(it.book.favicon)) }
+      )
     }
   }
 
@@ -66,26 +86,47 @@ class NewBookDao @Inject constructor(private val box: Box<BookOnDiskEntity>) {
     box.remove(databaseId)
   }
 
-  fun migrationInsert(books: List<Book>) {
-    insert(books.map { BookOnDisk(book = it, file = it.file) })
+  fun replace(oldBookOnDisk: BookOnDisk, newBookOnDisk: BookOnDisk) {
+    box.store.callInTx {
+      delete(oldBookOnDisk.databaseId)
+      insert(listOf(newBookOnDisk))
+    }
   }
 
-  private fun removeBooksThatDoNotExist(books: MutableList<BookOnDiskEntity>) {
-    delete(books.filterNot { it.file.exists() })
+  fun updateFile(databaseId: Long, file: File) {
+    box.store.callInTx {
+      box.get(databaseId)?.let { box.put(it.copy(file = file)) }
+    }
+  }
+
+  fun migrationInsert(books: List<Book>) {
+    insert(books.map { BookOnDisk(book = it, file = it.file) })
   }
 
-  private fun delete(books: List<BookOnDiskEntity>) {
-    box.remove(books)
+  fun deleteBooksWithFiles(paths: Collection<String>) {
+    box.query { inValues(BookOnDiskEntity_.file, paths.toTypedArray()) }.remove()
   }
 
-  fun getFavIconAndZimFile(it: Bookmark): Pair<String?, String?> {
+  fun getFavIconHashAndZimFile(it: Bookmark): Pair<String?, String?> {
     val bookOnDiskEntity = box.query {
       equal(BookOnDiskEntity_.bookId, it.zimId)
     }.find().getOrNull(0)
-    return bookOnDiskEntity?.let { Pair(it.favIcon, it.file.path) } ?: Pair(null, null)
+    return bookOnDiskEntity?.let {
+      Pair(it.faviconHash ?: faviconDao.saveFavicon(it.favIcon), it.file.path)
+    } ?: Pair(null, null)
   }
 
   fun bookMatching(downloadTitle: String) = box.query {
     endsWith(BookOnDiskEntity_.file, downloadTitle)
   }.findFirst()
+
+  fun migrateFavicons() {
+    box.store.callInTx {
+      box.put(
+        box.query { notNull(BookOnDiskEntity_.favIcon) }
+          .find()
+          .map { it.copy(favIcon = null, faviconHash = faviconDao.saveFavicon(it.favIcon)) }
+      )
+    }
+  }
 }
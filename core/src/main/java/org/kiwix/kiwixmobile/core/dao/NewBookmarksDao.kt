@@ -28,10 +28,16 @@ import org.kiwix.kiwixmobile.core.page.bookmark.adapter.BookmarkItem
 import org.kiwix.kiwixmobile.core.reader.ZimFileReader
 import javax.inject.Inject
 
-class NewBookmarksDao @Inject constructor(val box: Box<BookmarkEntity>) {
+class NewBookmarksDao @Inject constructor(
+  val box: Box<BookmarkEntity>,
+  private val faviconDao: FaviconDao
+) {
   fun bookmarks() = box.asFlowable(box.query {
     order(BookmarkEntity_.bookmarkTitle)
-  }).map { it.map(::BookmarkItem) }
+  }).map { it.map(::toBookmarkItem) }
+
+  private fun toBookmarkItem(entity: BookmarkEntity) =
+    BookmarkItem(entity, faviconDao.favicon(entity.faviconHash) ?: entity.favicon)
 
   fun getCurrentZimBookmarksUrl(zimFileReader: ZimFileReader?) = box.query {
     equal(BookmarkEntity_.zimId, zimFileReader?.id ?: "")
@@ -54,7 +60,17 @@ class NewBookmarksDao @Inject constructor(val box: Box<BookmarkEntity>) {
       .subscribeOn(Schedulers.io())
 
   fun saveBookmark(bookmarkItem: BookmarkItem) {
-    box.put(BookmarkEntity(bookmarkItem))
+    box.put(BookmarkEntity(bookmarkItem, faviconDao.saveFavicon(bookmarkItem.favicon)))
+  }
+
+  fun updateZimFilePath(oldPaths: Collection<String>, newPath: String) {
+    box.store.callInTx {
+      box.put(
+        box.query { inValues(BookmarkEntity_.zimFilePath, oldPaths.toTypedArray()) }
+          .find()
+          .map { it.copy(zimFilePath = newPath) }
+      )
+    }
   }
 
   fun deleteBookmarks(bookmarks: List<BookmarkItem>) {
@@ -71,6 +87,16 @@ class NewBookmarksDao @Inject constructor(val box: Box<BookmarkEntity>) {
     bookmarks: MutableList<Bookmark>,
     bookDao: NewBookDao
   ) {
-    box.put(bookmarks.zip(bookmarks.map(bookDao::getFavIconAndZimFile)).map(::BookmarkEntity))
+    box.put(bookmarks.zip(bookmarks.map(bookDao::getFavIconHashAndZimFile)).map(::BookmarkEntity))
+  }
+
+  fun migrateFavicons() {
+    box.store.callInTx {
+      box.put(
+        box.query { notNull(BookmarkEntity_.favicon) }
+          .find()
+          .map { it.copy(favicon = null, faviconHash = faviconDao.saveFavicon(it.favicon)) }
+      )
+    }
   }
 }
@@ -0,0 +1,49 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.dao
+
+import io.objectbox.Box
+import io.objectbox.kotlin.query
+import org.kiwix.kiwixmobile.core.dao.entities.PendingDeletionEntity
+import org.kiwix.kiwixmobile.core.dao.entities.PendingDeletionEntity_
+import javax.inject.Inject
+
+class PendingDeletionDao @Inject constructor(private val box: Box<PendingDeletionEntity>) {
+
+  fun paths() = box.all.map(PendingDeletionEntity::path)
+
+  /**
+   * Records [paths] for deletion in the same transaction as [alsoInTransaction], so a book never
+   * loses its database entry without its files being queued for deletion.
+   */
+  fun add(paths: List<String>, alsoInTransaction: () -> Unit) {
+    box.store.callInTx {
+      val pending = paths()
+      box.put(paths.filterNot(pending::contains).map { PendingDeletionEntity(path = it) })
+      alsoInTransaction()
+    }
+  }
+
+  fun remove(path: String, alsoInTransaction: () -> Unit = {}) {
+    box.store.callInTx {
+      box.query { equal(PendingDeletionEntity_.path, path) }.remove()
+      alsoInTransaction()
+    }
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.dao
+
+import io.objectbox.Box
+import io.objectbox.kotlin.query
+import org.kiwix.kiwixmobile.core.dao.entities.VerifiedBookEntity
+import org.kiwix.kiwixmobile.core.dao.entities.VerifiedBookEntity_
+import java.io.File
+import javax.inject.Inject
+
+class VerifiedBookDao @Inject constructor(private val box: Box<VerifiedBookEntity>) {
+
+  fun isVerified(parts: List<File>) = parts.isNotEmpty() &&
+    entityFor(parts.first())?.let {
+      it.size == parts.totalSize() && it.lastModified == parts.lastModified()
+    } == true
+
+  fun markVerified(parts: List<File>, now: Long = System.currentTimeMillis()) {
+    box.store.callInTx {
+      val path = parts.first().path
+      box.put(
+        VerifiedBookEntity(
+          id = entityFor(parts.first())?.id ?: 0L,
+          path = path,
+          size = parts.totalSize(),
+          lastModified = parts.lastModified(),
+          verifiedAt = now
+        )
+      )
+    }
+  }
+
+  private fun entityFor(file: File) =
+    box.query { equal(VerifiedBookEntity_.path, file.path) }.findFirst()
+
+  private fun List<File>.totalSize() = fold(0L) { sum, file -> sum + file.length() }
+
+  private fun List<File>.lastModified() = map(File::lastModified).max() ?: 0L
+}
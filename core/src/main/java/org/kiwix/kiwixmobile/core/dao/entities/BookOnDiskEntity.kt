@@ -43,10 +43,15 @@ data class BookOnDiskEntity(
   val mediaCount: String?,
   val size: String,
   val name: String?,
-  val favIcon: String,
-  val tags: String? = null
+  // only read to migrate rows written before favicons moved to FaviconEntity
+  val favIcon: String?,
+  val tags: String? = null,
+  val faviconHash: String? = null,
+  // the file as it was when the book was added, 0 for books added before this was recorded
+  val fileLength: Long = 0L,
+  val fileLastModified: Long = 0L
 ) {
-  constructor(bookOnDisk: BookOnDisk) : this(
+  constructor(bookOnDisk: BookOnDisk, faviconHash: String? = null) : this(
     0,
     bookOnDisk.file,
     bookOnDisk.book.getId(),
@@ -61,11 +66,14 @@ data class BookOnDiskEntity(
     bookOnDisk.book.getMediaCount(),
     bookOnDisk.book.getSize(),
     bookOnDisk.book.name,
-    bookOnDisk.book.getFavicon(),
-    bookOnDisk.book.tags
+    null,
+    bookOnDisk.book.tags,
+    faviconHash,
+    bookOnDisk.file.length(),
+    bookOnDisk.file.lastModified()
   )
 
-  fun toBook() = Book().apply {
+  fun toBook(favicon: String? = favIcon) = Book().apply {
     id = bookId
     title = this@BookOnDiskEntity.title
     description = this@BookOnDiskEntity.description
@@ -78,7 +86,7 @@ data class BookOnDiskEntity(
     mediaCount = this@BookOnDiskEntity.mediaCount
     size = this@BookOnDiskEntity.size
     bookName = name
-    favicon = favIcon
+    this.favicon = favicon
     tags = this@BookOnDiskEntity.tags
   }
 }
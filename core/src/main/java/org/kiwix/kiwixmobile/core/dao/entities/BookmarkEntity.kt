@@ -30,31 +30,35 @@ data class BookmarkEntity(
   var zimFilePath: String?,
   var bookmarkUrl: String,
   var bookmarkTitle: String,
-  var favicon: String?
+  // only read to migrate rows written before favicons moved to FaviconEntity
+  var favicon: String?,
+  var faviconHash: String? = null
 ) {
-  constructor(item: BookmarkItem) : this(
+  constructor(item: BookmarkItem, faviconHash: String? = null) : this(
     item.databaseId,
     item.zimId,
     item.zimName,
     item.zimFilePath,
     item.bookmarkUrl,
     item.bookmarkTitle,
-    item.favicon
+    null,
+    faviconHash
   )
 
-  private constructor(bookmark: Bookmark, zimFilePath: String?, favicon: String?) : this(
+  private constructor(bookmark: Bookmark, zimFilePath: String?, faviconHash: String?) : this(
     0,
     bookmark.zimId,
     bookmark.zimName,
     zimFilePath,
     bookmark.bookmarkUrl,
     bookmark.bookmarkTitle,
-    favicon
+    null,
+    faviconHash
   )
 
-  constructor(bookmarkWithFavIconAndFile: Pair<Bookmark, Pair<String?, String?>>) : this(
-    bookmarkWithFavIconAndFile.first,
-    bookmarkWithFavIconAndFile.second.first,
-    bookmarkWithFavIconAndFile.second.second
+  constructor(bookmarkWithFavIconHashAndFile: Pair<Bookmark, Pair<String?, String?>>) : this(
+    bookmarkWithFavIconHashAndFile.first,
+    bookmarkWithFavIconHashAndFile.second.second,
+    bookmarkWithFavIconHashAndFile.second.first
   )
 }
@@ -0,0 +1,91 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.dao.entities
+
+import io.objectbox.annotation.Entity
+import io.objectbox.annotation.Id
+import io.objectbox.annotation.Index
+import org.kiwix.kiwixmobile.core.entity.LibraryNetworkEntity.Book
+
+/**
+ * A book on disk queued to be updated to a newer version with a delta. It is kept until the
+ * update completes or falls back to a full download, so updates survive the app being stopped.
+ */
+@Entity
+data class DeltaUpdateEntity(
+  @Id var id: Long = 0L,
+  @Index val bookOnDiskId: Long,
+  // where the new version was resolved to, its block map is expected at <downloadUrl>.zsync
+  val downloadUrl: String,
+  val bookId: String,
+  val title: String,
+  val description: String?,
+  val language: String,
+  val creator: String,
+  val publisher: String,
+  val date: String,
+  val url: String?,
+  val articleCount: String?,
+  val mediaCount: String?,
+  val size: String,
+  val name: String?,
+  val tags: String? = null,
+  val faviconHash: String? = null
+) {
+  constructor(
+    bookOnDiskId: Long,
+    downloadUrl: String,
+    book: Book,
+    faviconHash: String?
+  ) : this(
+    bookOnDiskId = bookOnDiskId,
+    downloadUrl = downloadUrl,
+    bookId = book.getId(),
+    title = book.getTitle(),
+    description = book.getDescription(),
+    language = book.getLanguage(),
+    creator = book.getCreator(),
+    publisher = book.getPublisher(),
+    date = book.getDate(),
+    url = book.getUrl(),
+    articleCount = book.getArticleCount(),
+    mediaCount = book.getMediaCount(),
+    size = book.getSize(),
+    name = book.name,
+    tags = book.tags,
+    faviconHash = faviconHash
+  )
+
+  fun toBook(favicon: String?) = Book().apply {
+    id = bookId
+    title = this@DeltaUpdateEntity.title
+    description = this@DeltaUpdateEntity.description
+    language = this@DeltaUpdateEntity.language
+    creator = this@DeltaUpdateEntity.creator
+    publisher = this@DeltaUpdateEntity.publisher
+    date = this@DeltaUpdateEntity.date
+    url = this@DeltaUpdateEntity.url
+    articleCount = this@DeltaUpdateEntity.articleCount
+    mediaCount = this@DeltaUpdateEntity.mediaCount
+    size = this@DeltaUpdateEntity.size
+    bookName = name
+    this.favicon = favicon
+    tags = this@DeltaUpdateEntity.tags
+  }
+}
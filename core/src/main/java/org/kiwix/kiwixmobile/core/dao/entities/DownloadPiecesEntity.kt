@@ -0,0 +1,77 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.dao.entities
+
+import io.objectbox.annotation.Entity
+import io.objectbox.annotation.Id
+import io.objectbox.annotation.Index
+import org.kiwix.kiwixmobile.core.downloader.verification.PieceHashes
+import org.kiwix.kiwixmobile.core.downloader.verification.PieceVerifier
+import java.util.BitSet
+
+private const val SEPARATOR = "\n"
+
+@Entity
+data class DownloadPiecesEntity(
+  @Id var id: Long = 0L,
+  @Index val file: String,
+  val mirrors: String,
+  val fileSize: Long,
+  val pieceLength: Long,
+  val hashType: String,
+  val pieceHashes: String,
+  val verifiedPieces: ByteArray = ByteArray(0),
+  val failedPieces: ByteArray = ByteArray(0),
+  val fileHash: String = "",
+  val fileHashState: ByteArray = ByteArray(0)
+) {
+  constructor(file: String, mirrors: List<String>, pieceHashes: PieceHashes) : this(
+    file = file,
+    mirrors = mirrors.joinToString(SEPARATOR),
+    fileSize = pieceHashes.fileSize,
+    pieceLength = pieceHashes.pieceLength,
+    hashType = pieceHashes.hashType,
+    pieceHashes = pieceHashes.hashes.joinToString(SEPARATOR),
+    fileHash = pieceHashes.fileHash.orEmpty()
+  )
+
+  val mirrorList get() = mirrors.split(SEPARATOR).filter(String::isNotBlank)
+
+  fun toPieceVerifier() = PieceVerifier(
+    PieceHashes(
+      fileSize,
+      pieceLength,
+      hashType,
+      pieceHashes.split(SEPARATOR).filter(String::isNotEmpty),
+      fileHash.takeIf(String::isNotEmpty)
+    ),
+    BitSet.valueOf(verifiedPieces),
+    BitSet.valueOf(failedPieces),
+    fileHashState
+  )
+
+  fun updateWith(pieceVerifier: PieceVerifier) =
+    pieceVerifier.snapshot().let {
+      copy(
+        verifiedPieces = it.verified.toByteArray(),
+        failedPieces = it.failed.toByteArray(),
+        fileHashState = it.fileHashState
+      )
+    }
+}
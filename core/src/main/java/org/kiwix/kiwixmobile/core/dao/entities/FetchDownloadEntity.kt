@@ -23,13 +23,14 @@ import com.tonyodev.fetch2.Status
 import io.objectbox.annotation.Convert
 import io.objectbox.annotation.Entity
 import io.objectbox.annotation.Id
+import io.objectbox.annotation.Index
 import io.objectbox.converter.PropertyConverter
 import org.kiwix.kiwixmobile.core.entity.LibraryNetworkEntity.Book
 
 @Entity
 data class FetchDownloadEntity(
   @Id var id: Long = 0,
-  var downloadId: Long,
+  @Index var downloadId: Long,
   val file: String? = null,
   val etaInMilliSeconds: Long = -1L,
   val bytesDownloaded: Long = -1L,
@@ -89,13 +90,13 @@ data class FetchDownloadEntity(
     tags = this@FetchDownloadEntity.tags
   }
 
-  fun updateWith(download: Download) = copy(
+  fun updateWith(download: Download, isCorrupt: Boolean = false) = copy(
     file = download.file,
     etaInMilliSeconds = download.etaInMilliSeconds,
     bytesDownloaded = download.downloaded,
     totalSizeOfDownload = download.total,
-    status = download.status,
-    error = download.error,
+    status = if (isCorrupt) Status.FAILED else download.status,
+    error = if (isCorrupt) Error.INVALID_CONTENT_HASH else download.error,
     progress = download.progress
   )
 }
@@ -27,21 +27,24 @@ data class HistoryEntity(
   val zimId: String,
   val zimName: String,
   val zimFilePath: String,
+  // only read to migrate rows written before favicons moved to FaviconEntity
   val favicon: String?,
   val historyUrl: String,
   val historyTitle: String,
   val dateString: String,
-  val timeStamp: Long
+  val timeStamp: Long,
+  val faviconHash: String? = null
 ) {
-  constructor(historyItem: HistoryItem) : this(
+  constructor(historyItem: HistoryItem, faviconHash: String? = null) : this(
     historyItem.databaseId,
     historyItem.zimId,
     historyItem.zimName,
     historyItem.zimFilePath,
-    historyItem.favicon,
+    null,
     historyItem.historyUrl,
     historyItem.historyTitle,
     historyItem.dateString,
-    historyItem.timeStamp
+    historyItem.timeStamp,
+    faviconHash
   )
 }
@@ -0,0 +1,77 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.dao.entities
+
+import io.objectbox.annotation.Entity
+import io.objectbox.annotation.Id
+import io.objectbox.annotation.Index
+import io.objectbox.annotation.Unique
+import kotlin.math.pow
+
+@Entity
+data class MirrorRankingEntity(
+  @Id var id: Long = 0L,
+  @Index @Unique val host: String,
+  val bytesPerSecond: Double,
+  val timeToFirstByteMillis: Long,
+  val updatedAt: Long
+) {
+  /**
+   * How fast a typical piece of [REFERENCE_BYTES] arrives from this host, combining latency and
+   * throughput.
+   */
+  val score: Double
+    get() = if (bytesPerSecond <= 0.0) 0.0
+    else REFERENCE_BYTES /
+      (timeToFirstByteMillis / MILLIS_PER_SECOND + REFERENCE_BYTES / bytesPerSecond)
+
+  fun isStale(now: Long) = now - updatedAt > STALE_AFTER_MILLIS
+
+  /**
+   * Blends in a new measurement. The stored one counts for less the older it is, so a mirror
+   * that got faster or slower is re-ranked within days rather than never.
+   */
+  fun updatedWith(
+    bytesPerSecond: Double,
+    timeToFirstByteMillis: Long?,
+    now: Long
+  ): MirrorRankingEntity {
+    val historyWeight = HISTORY_WEIGHT *
+      0.5.pow((now - updatedAt).coerceAtLeast(0L) / HALF_LIFE_MILLIS.toDouble())
+    return copy(
+      bytesPerSecond = blend(this.bytesPerSecond, bytesPerSecond, historyWeight),
+      timeToFirstByteMillis = timeToFirstByteMillis
+        ?.let { blend(this.timeToFirstByteMillis.toDouble(), it.toDouble(), historyWeight) }
+        ?.toLong()
+        ?: this.timeToFirstByteMillis,
+      updatedAt = now
+    )
+  }
+
+  private fun blend(old: Double, new: Double, historyWeight: Double) =
+    old * historyWeight + new * (1 - historyWeight)
+
+  companion object {
+    private const val REFERENCE_BYTES = 4.0 * 1024 * 1024
+    private const val MILLIS_PER_SECOND = 1000.0
+    private const val HISTORY_WEIGHT = 0.7
+    private const val HALF_LIFE_MILLIS = 7L * 24 * 60 * 60 * 1000
+    private const val STALE_AFTER_MILLIS = 24L * 60 * 60 * 1000
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.dao.entities
+
+import io.objectbox.annotation.Entity
+import io.objectbox.annotation.Id
+import io.objectbox.annotation.Index
+import io.objectbox.annotation.Unique
+
+private const val SEPARATOR = "\n"
+
+/**
+ * The listing of a directory as of its [lastModified] time, only the names of its
+ * subdirectories and of the ZIM files in it are kept.
+ */
+@Entity
+data class ScannedDirectoryEntity(
+  @Id var id: Long = 0L,
+  @Index @Unique val path: String,
+  val lastModified: Long,
+  val directories: String,
+  val zimFiles: String
+) {
+  constructor(
+    id: Long,
+    path: String,
+    lastModified: Long,
+    directories: List<String>,
+    zimFiles: List<String>
+  ) : this(
+    id,
+    path,
+    lastModified,
+    directories.joinToString(SEPARATOR),
+    zimFiles.joinToString(SEPARATOR)
+  )
+
+  val directoryNames get() = directories.split(SEPARATOR).filter(String::isNotEmpty)
+
+  val zimFileNames get() = zimFiles.split(SEPARATOR).filter(String::isNotEmpty)
+}
@@ -29,15 +29,14 @@ import org.kiwix.kiwixmobile.core.dao.NewLanguagesDao
 import org.kiwix.kiwixmobile.core.dao.NewRecentSearchDao
 import org.kiwix.kiwixmobile.core.di.qualifiers.IO
 import org.kiwix.kiwixmobile.core.di.qualifiers.MainThread
-import org.kiwix.kiwixmobile.core.extensions.HeaderizableList
 import org.kiwix.kiwixmobile.core.page.bookmark.adapter.BookmarkItem
 import org.kiwix.kiwixmobile.core.page.history.adapter.HistoryListItem
 import org.kiwix.kiwixmobile.core.page.history.adapter.HistoryListItem.HistoryItem
 import org.kiwix.kiwixmobile.core.reader.ZimReaderContainer
 import org.kiwix.kiwixmobile.core.zim_manager.Language
+import org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.BooksOnDiskSnapshot
 import org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.adapter.BooksOnDiskListItem
 import org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.adapter.BooksOnDiskListItem.BookOnDisk
-import org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.adapter.BooksOnDiskListItem.LanguageItem
 import javax.inject.Inject
 import javax.inject.Singleton
 
@@ -64,13 +63,10 @@ class Repository @Inject internal constructor(
       .observeOn(mainThread)
 
   override fun booksOnDiskAsListItems(): Flowable<List<BooksOnDiskListItem>> = bookDao.books()
-    .map { it.sortedBy { bookOnDisk -> bookOnDisk.book.language + bookOnDisk.book.title } }
-    .map {
-      HeaderizableList<BooksOnDiskListItem, BookOnDisk, LanguageItem>(it).foldOverAddingHeaders(
-        { bookOnDisk -> LanguageItem(bookOnDisk.locale) },
-        { current, next -> current.locale.displayName != next.locale.displayName })
-    }
-    .map { it.toList() }
+    .scan(BooksOnDiskSnapshot.EMPTY, BooksOnDiskSnapshot::update)
+    .skip(1)
+    .distinctUntilChanged()
+    .map(BooksOnDiskSnapshot::items)
 
   override fun saveBooks(books: List<BookOnDisk>) =
     Completable.fromAction { bookDao.insert(books) }
@@ -0,0 +1,56 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.data.remote
+
+import okhttp3.Dns
+import java.net.InetAddress
+import java.net.UnknownHostException
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit.MINUTES
+
+/**
+ * Remembers resolved addresses for [ttlMillis] so the catalog, metalink and mirror requests of
+ * a session resolve each host once. When a lookup fails the last known addresses are used,
+ * which keeps downloads going through short resolver outages on flaky networks.
+ */
+class CachingDns(
+  private val delegate: Dns,
+  private val httpMetrics: HttpMetrics,
+  private val ttlMillis: Long = MINUTES.toMillis(10),
+  private val clock: () -> Long = System::currentTimeMillis
+) : Dns {
+  private val entries = ConcurrentHashMap<String, Entry>()
+
+  override fun lookup(hostname: String): List<InetAddress> {
+    val now = clock()
+    val entry = entries[hostname]
+    val fresh = entry?.takeIf { now < it.expiresAt }
+    httpMetrics.recordDnsLookup(fromCache = fresh != null)
+    if (fresh != null) {
+      return fresh.addresses
+    }
+    return try {
+      delegate.lookup(hostname).also { entries[hostname] = Entry(it, now + ttlMillis) }
+    } catch (unknownHostException: UnknownHostException) {
+      entry?.addresses ?: throw unknownHostException
+    }
+  }
+
+  private class Entry(val addresses: List<InetAddress>, val expiresAt: Long)
+}
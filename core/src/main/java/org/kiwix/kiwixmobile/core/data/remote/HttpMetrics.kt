@@ -0,0 +1,129 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.data.remote
+
+import okhttp3.Call
+import okhttp3.Connection
+import okhttp3.EventListener
+import okhttp3.Interceptor
+import okhttp3.Protocol
+import okhttp3.Response
+import java.net.HttpURLConnection.HTTP_NOT_MODIFIED
+import java.net.InetSocketAddress
+import java.net.Proxy
+import java.util.concurrent.atomic.AtomicLong
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Counts how well the shared HTTP stack reuses what it has: connections taken from the pool
+ * instead of opened, responses served or revalidated from the disk cache and host names
+ * answered by [CachingDns]. Installed both as the client's event listener and as an
+ * application interceptor, the only place that sees whether a response came from the cache.
+ * Range requests never come from the cache and are left out of the cache figures.
+ */
+@Singleton
+class HttpMetrics @Inject constructor() : EventListener.Factory, Interceptor {
+  private val connectionsAcquired = AtomicLong()
+  private val connectionsOpened = AtomicLong()
+  private val http2ConnectionsAcquired = AtomicLong()
+  private val cacheHits = AtomicLong()
+  private val conditionalCacheHits = AtomicLong()
+  private val cacheMisses = AtomicLong()
+  private val dnsLookups = AtomicLong()
+  private val dnsCacheHits = AtomicLong()
+
+  private val eventListener = object : EventListener() {
+    override fun connectEnd(
+      call: Call,
+      inetSocketAddress: InetSocketAddress,
+      proxy: Proxy,
+      protocol: Protocol?
+    ) {
+      connectionsOpened.incrementAndGet()
+    }
+
+    override fun connectionAcquired(call: Call, connection: Connection) {
+      connectionsAcquired.incrementAndGet()
+      if (connection.protocol() == Protocol.HTTP_2) {
+        http2ConnectionsAcquired.incrementAndGet()
+      }
+    }
+  }
+
+  override fun create(call: Call) = eventListener
+
+  override fun intercept(chain: Interceptor.Chain): Response =
+    chain.proceed(chain.request()).also { response ->
+      if (response.request().header("Range") != null || response.request().method() != "GET") {
+        return@also
+      }
+      val networkResponse = response.networkResponse()
+      when {
+        response.cacheResponse() == null -> cacheMisses
+        networkResponse == null -> cacheHits
+        networkResponse.code() == HTTP_NOT_MODIFIED -> conditionalCacheHits
+        else -> cacheMisses
+      }.incrementAndGet()
+    }
+
+  fun recordDnsLookup(fromCache: Boolean) {
+    dnsLookups.incrementAndGet()
+    if (fromCache) dnsCacheHits.incrementAndGet()
+  }
+
+  fun snapshot() = Snapshot(
+    connectionsAcquired.get(),
+    connectionsOpened.get(),
+    http2ConnectionsAcquired.get(),
+    cacheHits.get(),
+    conditionalCacheHits.get(),
+    cacheMisses.get(),
+    dnsLookups.get(),
+    dnsCacheHits.get()
+  )
+
+  data class Snapshot(
+    val connectionsAcquired: Long,
+    val connectionsOpened: Long,
+    val http2ConnectionsAcquired: Long,
+    val cacheHits: Long,
+    val conditionalCacheHits: Long,
+    val cacheMisses: Long,
+    val dnsLookups: Long,
+    val dnsCacheHits: Long
+  ) {
+    val connectionReuseRate
+      get() = rate(connectionsAcquired - connectionsOpened, connectionsAcquired)
+    val cacheHitRate
+      get() = rate(cacheHits + conditionalCacheHits, cacheHits + conditionalCacheHits + cacheMisses)
+    val dnsCacheHitRate get() = rate(dnsCacheHits, dnsLookups)
+
+    private fun rate(part: Long, total: Long) =
+      if (total <= 0L) 0.0 else part.coerceAtLeast(0L).toDouble() / total
+
+    override fun toString() =
+      "connections reused: ${percent(connectionReuseRate)} of $connectionsAcquired" +
+        " ($http2ConnectionsAcquired over HTTP/2)" +
+        ", cache hits: ${percent(cacheHitRate)} ($conditionalCacheHits revalidated)" +
+        ", dns cache hits: ${percent(dnsCacheHitRate)} of $dnsLookups"
+
+    private fun percent(rate: Double) = "${(rate * 100).toInt()}%"
+  }
+}
@@ -24,7 +24,7 @@ import dagger.Module
 import dagger.Provides
 import org.kiwix.kiwixmobile.core.data.DataSource
 import org.kiwix.kiwixmobile.core.di.ActivityScope
-import org.kiwix.kiwixmobile.core.main.KiwixWebView
+import org.kiwix.kiwixmobile.core.main.KiwixTab
 import org.kiwix.kiwixmobile.core.main.MainContract
 import org.kiwix.kiwixmobile.core.main.MainMenu
 import org.kiwix.kiwixmobile.core.main.MainMenu.Factory
@@ -55,7 +55,7 @@ abstract class ActivityModule {
       MainMenu.Factory = object : Factory {
       override fun create(
         menu: Menu,
-        webViews: MutableList<KiwixWebView>,
+        tabs: MutableList<KiwixTab>,
         urlIsValid: Boolean,
         menuClickListener: MenuClickListener,
         disableReadAloud: Boolean,
@@ -64,7 +64,7 @@ abstract class ActivityModule {
         activity,
         zimReaderContainer.zimFileReader,
         menu,
-        webViews,
+        tabs,
         urlIsValid,
         disableReadAloud,
         disableTabs,
@@ -22,12 +22,19 @@ import dagger.Module
 import dagger.Provides
 import io.objectbox.BoxStore
 import io.objectbox.kotlin.boxFor
+import org.kiwix.kiwixmobile.core.dao.DeltaUpdateDao
+import org.kiwix.kiwixmobile.core.dao.DownloadPiecesDao
+import org.kiwix.kiwixmobile.core.dao.FaviconDao
 import org.kiwix.kiwixmobile.core.dao.FetchDownloadDao
 import org.kiwix.kiwixmobile.core.dao.HistoryDao
+import org.kiwix.kiwixmobile.core.dao.MirrorRankingDao
 import org.kiwix.kiwixmobile.core.dao.NewBookDao
 import org.kiwix.kiwixmobile.core.dao.NewBookmarksDao
 import org.kiwix.kiwixmobile.core.dao.NewLanguagesDao
 import org.kiwix.kiwixmobile.core.dao.NewRecentSearchDao
+import org.kiwix.kiwixmobile.core.dao.PendingDeletionDao
+import org.kiwix.kiwixmobile.core.dao.ScannedDirectoryDao
+import org.kiwix.kiwixmobile.core.dao.VerifiedBookDao
 import org.kiwix.kiwixmobile.core.dao.entities.MyObjectBox
 import javax.inject.Singleton
 
@@ -45,21 +52,50 @@ open class DatabaseModule {
     return boxStore!!
   }
 
-  @Provides @Singleton fun providesNewBookDao(boxStore: BoxStore): NewBookDao =
-    NewBookDao(boxStore.boxFor())
+  @Provides @Singleton fun providesFaviconDao(boxStore: BoxStore): FaviconDao =
+    FaviconDao(boxStore.boxFor())
+
+  @Provides @Singleton fun providesNewBookDao(
+    boxStore: BoxStore,
+    faviconDao: FaviconDao
+  ): NewBookDao = NewBookDao(boxStore.boxFor(), faviconDao)
 
   @Provides @Singleton fun providesNewLanguagesDao(boxStore: BoxStore): NewLanguagesDao =
     NewLanguagesDao(boxStore.boxFor())
 
-  @Provides @Singleton fun providesNewHistoryDao(boxStore: BoxStore): HistoryDao =
-    HistoryDao(boxStore.boxFor())
+  @Provides @Singleton fun providesNewHistoryDao(
+    boxStore: BoxStore,
+    faviconDao: FaviconDao
+  ): HistoryDao = HistoryDao(boxStore.boxFor(), faviconDao)
 
-  @Provides @Singleton fun providesNewBookmarksDao(boxStore: BoxStore): NewBookmarksDao =
-    NewBookmarksDao(boxStore.boxFor())
+  @Provides @Singleton fun providesNewBookmarksDao(
+    boxStore: BoxStore,
+    faviconDao: FaviconDao
+  ): NewBookmarksDao = NewBookmarksDao(boxStore.boxFor(), faviconDao)
 
   @Provides @Singleton fun providesNewRecentSearchDao(boxStore: BoxStore): NewRecentSearchDao =
     NewRecentSearchDao(boxStore.boxFor())
 
+  @Provides @Singleton fun providesDownloadPiecesDao(boxStore: BoxStore): DownloadPiecesDao =
+    DownloadPiecesDao(boxStore.boxFor())
+
+  @Provides @Singleton fun providesMirrorRankingDao(boxStore: BoxStore): MirrorRankingDao =
+    MirrorRankingDao(boxStore.boxFor())
+
+  @Provides @Singleton fun providesVerifiedBookDao(boxStore: BoxStore): VerifiedBookDao =
+    VerifiedBookDao(boxStore.boxFor())
+
+  @Provides @Singleton fun providesScannedDirectoryDao(boxStore: BoxStore): ScannedDirectoryDao =
+    ScannedDirectoryDao(boxStore.boxFor())
+
+  @Provides @Singleton fun providesPendingDeletionDao(boxStore: BoxStore): PendingDeletionDao =
+    PendingDeletionDao(boxStore.boxFor())
+
+  @Provides @Singleton fun providesDeltaUpdateDao(
+    boxStore: BoxStore,
+    faviconDao: FaviconDao
+  ): DeltaUpdateDao = DeltaUpdateDao(boxStore.boxFor(), faviconDao)
+
   @Provides @Singleton fun providesFetchDownloadDao(
     boxStore: BoxStore,
     newBookDao: NewBookDao
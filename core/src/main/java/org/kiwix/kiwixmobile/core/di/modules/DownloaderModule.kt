@@ -18,6 +18,7 @@
 package org.kiwix.kiwixmobile.core.di.modules
 
 import android.content.Context
+import android.net.ConnectivityManager
 import com.tonyodev.fetch2.Fetch
 import com.tonyodev.fetch2.Fetch.Impl
 import com.tonyodev.fetch2.FetchConfiguration
@@ -27,14 +28,24 @@ import dagger.Module
 import dagger.Provides
 import okhttp3.OkHttpClient
 import org.kiwix.kiwixmobile.core.BuildConfig
+import org.kiwix.kiwixmobile.core.dao.DownloadPiecesDao
 import org.kiwix.kiwixmobile.core.dao.FetchDownloadDao
 import org.kiwix.kiwixmobile.core.data.remote.KiwixService
 import org.kiwix.kiwixmobile.core.downloader.DownloadRequester
 import org.kiwix.kiwixmobile.core.downloader.Downloader
 import org.kiwix.kiwixmobile.core.downloader.DownloaderImpl
+import org.kiwix.kiwixmobile.core.downloader.MirrorSelector
+import org.kiwix.kiwixmobile.core.downloader.MirrorTracker
+import org.kiwix.kiwixmobile.core.downloader.delta.DeltaUpdateQueue
 import org.kiwix.kiwixmobile.core.downloader.fetch.FetchDownloadNotificationManager
 import org.kiwix.kiwixmobile.core.downloader.fetch.FetchDownloadRequester
+import org.kiwix.kiwixmobile.core.downloader.fetch.KiwixOkHttpDownloader
+import org.kiwix.kiwixmobile.core.downloader.model.DownloadUpdateInterval
+import org.kiwix.kiwixmobile.core.downloader.scheduler.BandwidthLimiter
+import org.kiwix.kiwixmobile.core.downloader.scheduler.ConcurrencyTuner
+import org.kiwix.kiwixmobile.core.downloader.scheduler.DownloadScheduler
 import org.kiwix.kiwixmobile.core.utils.SharedPreferenceUtil
+import org.kiwix.kiwixmobile.core.utils.files.VolumeCapabilityCache
 import javax.inject.Singleton
 
 @Module
@@ -45,14 +56,36 @@ object DownloaderModule {
   fun providesDownloader(
     downloadRequester: DownloadRequester,
     downloadDao: FetchDownloadDao,
-    kiwixService: KiwixService
-  ): Downloader = DownloaderImpl(downloadRequester, downloadDao, kiwixService)
+    kiwixService: KiwixService,
+    mirrorSelector: MirrorSelector,
+    deltaUpdateQueue: DeltaUpdateQueue
+  ): Downloader =
+    DownloaderImpl(downloadRequester, downloadDao, kiwixService, mirrorSelector, deltaUpdateQueue)
 
   @JvmStatic
   @Provides
   @Singleton
-  fun providesDownloadRequester(fetch: Fetch, sharedPreferenceUtil: SharedPreferenceUtil):
-    DownloadRequester = FetchDownloadRequester(fetch, sharedPreferenceUtil)
+  fun providesDownloadRequester(downloadScheduler: DownloadScheduler): DownloadRequester =
+    downloadScheduler
+
+  @JvmStatic
+  @Provides
+  @Singleton
+  fun providesDownloadScheduler(
+    fetch: Fetch,
+    sharedPreferenceUtil: SharedPreferenceUtil,
+    downloadPiecesDao: DownloadPiecesDao,
+    bandwidthLimiter: BandwidthLimiter,
+    connectivityManager: ConnectivityManager,
+    deltaUpdateQueue: DeltaUpdateQueue
+  ): DownloadScheduler = DownloadScheduler(
+    FetchDownloadRequester(fetch, sharedPreferenceUtil, downloadPiecesDao),
+    fetch,
+    sharedPreferenceUtil,
+    bandwidthLimiter,
+    connectivityManager,
+    deltaUpdateQueue
+  )
 
   @JvmStatic
   @Provides
@@ -69,10 +102,12 @@ object DownloaderModule {
     fetchNotificationManager: FetchNotificationManager
   ): FetchConfiguration =
     FetchConfiguration.Builder(context).apply {
-      setDownloadConcurrentLimit(5)
+      // DownloadScheduler tunes the limit from here on
+      setDownloadConcurrentLimit(ConcurrencyTuner.DEFAULT_INITIAL_CONCURRENCY)
       enableLogging(BuildConfig.DEBUG)
       enableRetryOnNetworkGain(true)
       setHttpDownloader(okHttpDownloader)
+      // KiwixOkHttpDownloader reserves space itself, in chunks where the file system needs it
       preAllocateFileOnCreation(false)
       setNotificationManager(fetchNotificationManager)
     }.build().also(Impl::setDefaultInstanceConfiguration)
@@ -80,16 +115,31 @@ object DownloaderModule {
   @JvmStatic
   @Provides
   @Singleton
-  fun provideOkHttpDownloader() = OkHttpDownloader(
-    OkHttpClient.Builder()
-      .followRedirects(true)
-      .followSslRedirects(true)
-      .build()
-  )
+  fun provideOkHttpDownloader(
+    okHttpClient: OkHttpClient,
+    mirrorTracker: MirrorTracker,
+    downloadPiecesDao: DownloadPiecesDao,
+    bandwidthLimiter: BandwidthLimiter,
+    mirrorSelector: MirrorSelector,
+    volumeCapabilityCache: VolumeCapabilityCache
+  ): OkHttpDownloader =
+    KiwixOkHttpDownloader(
+      // shares the pool with catalog and metalink requests to the same hosts, never caches
+      okHttpClient.newBuilder()
+        .cache(null)
+        .build(),
+      mirrorTracker,
+      downloadPiecesDao,
+      bandwidthLimiter,
+      mirrorSelector,
+      volumeCapabilityCache
+    )
 
   @JvmStatic
   @Provides
   @Singleton
-  fun provideFetchDownloadNotificationManager(context: Context):
-    FetchNotificationManager = FetchDownloadNotificationManager(context)
+  fun provideFetchDownloadNotificationManager(
+    context: Context,
+    downloadUpdateInterval: DownloadUpdateInterval
+  ): FetchNotificationManager = FetchDownloadNotificationManager(context, downloadUpdateInterval)
 }
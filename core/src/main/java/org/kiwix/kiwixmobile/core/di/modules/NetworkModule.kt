@@ -17,30 +17,57 @@
  */
 package org.kiwix.kiwixmobile.core.di.modules
 
+import android.content.Context
 import dagger.Module
 import dagger.Provides
+import okhttp3.Cache
+import okhttp3.ConnectionPool
+import okhttp3.Dns
 import okhttp3.OkHttpClient
+import okhttp3.Protocol
 import okhttp3.logging.HttpLoggingInterceptor
 import okhttp3.logging.HttpLoggingInterceptor.Level.BASIC
 import okhttp3.logging.HttpLoggingInterceptor.Level.NONE
 import org.kiwix.kiwixmobile.core.BuildConfig
+import org.kiwix.kiwixmobile.core.data.remote.CachingDns
+import org.kiwix.kiwixmobile.core.data.remote.HttpMetrics
 import org.kiwix.kiwixmobile.core.data.remote.KiwixService
 import org.kiwix.kiwixmobile.core.data.remote.KiwixService.ServiceCreator
 import org.kiwix.kiwixmobile.core.data.remote.UserAgentInterceptor
+import java.io.File
+import java.util.concurrent.TimeUnit.MINUTES
 import java.util.concurrent.TimeUnit.SECONDS
 import javax.inject.Singleton
 
 private const val CONNECTION_TIMEOUT = 10L
 private const val READ_TIMEOUT = 60L
+private const val MAX_IDLE_CONNECTIONS = 16
+private const val KEEP_ALIVE_DURATION = 5L
+private const val HTTP_CACHE_DIRECTORY = "http"
+private const val HTTP_CACHE_SIZE = 50L * 1024 * 1024
 private const val USER_AGENT = "kiwix-android-version:${BuildConfig.VERSION_CODE}"
 private const val KIWIX_DOWNLOAD_URL = "http://mirror.download.kiwix.org/"
 
 @Module
 class NetworkModule {
-  @Provides @Singleton fun provideOkHttpClient(): OkHttpClient {
+  /**
+   * The one client of the app, catalog and metalink requests go through its disk cache and
+   * every other client is derived from it with [OkHttpClient.newBuilder] so they all share
+   * its connection pool, dispatcher and resolved host names.
+   */
+  @Provides @Singleton fun provideOkHttpClient(
+    context: Context,
+    httpMetrics: HttpMetrics
+  ): OkHttpClient {
     return OkHttpClient().newBuilder().followRedirects(true).followSslRedirects(true)
       .connectTimeout(CONNECTION_TIMEOUT, SECONDS)
       .readTimeout(READ_TIMEOUT, SECONDS)
+      .connectionPool(ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_DURATION, MINUTES))
+      .protocols(listOf(Protocol.HTTP_2, Protocol.HTTP_1_1))
+      .dns(CachingDns(Dns.SYSTEM, httpMetrics))
+      .cache(Cache(File(context.cacheDir, HTTP_CACHE_DIRECTORY), HTTP_CACHE_SIZE))
+      .eventListenerFactory(httpMetrics)
+      .addInterceptor(httpMetrics)
       .addNetworkInterceptor(HttpLoggingInterceptor().apply {
         level = if (BuildConfig.DEBUG) BASIC else NONE
       })
@@ -25,6 +25,7 @@ object ChunkUtils {
   private const val ZIM_EXTENSION = ".zim"
   const val PART = ".part.part"
   const val CHUNK_SIZE = 1024L * 1024L * 1024L * 2L
+  internal const val MAX_CHUNK_COUNT = ALPHABET_SIZE * ALPHABET_SIZE
 
   fun getChunks(
     url: String?,
@@ -67,7 +68,7 @@ object ChunkUtils {
     return if (hasRemainder) fits + 1 else fits
   }
 
-  private fun getZimChunkFileNames(
+  internal fun getZimChunkFileNames(
     fileName: String,
     count: Int
   ): Array<String?> {
@@ -0,0 +1,234 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader
+
+import android.os.Build
+import android.system.ErrnoException
+import android.system.Os
+import android.system.OsConstants
+import org.kiwix.kiwixmobile.core.downloader.ChunkUtils.CHUNK_SIZE
+import org.kiwix.kiwixmobile.core.downloader.ChunkUtils.PART
+import org.kiwix.kiwixmobile.core.utils.files.VolumeCapabilities
+import java.io.Closeable
+import java.io.File
+import java.io.IOException
+import java.io.RandomAccessFile
+
+/**
+ * The file a download is written to. When the file system cannot hold the download in one file
+ * it is split into the chunks [ChunkUtils.getChunks] describes, each carrying the [PART] suffix
+ * until [complete] renames them. Writes and reads address the download as a whole and land in
+ * whichever chunk holds that range, so ranges can be filled in any order and in parallel.
+ */
+class ChunkedFile private constructor(
+  private val files: List<RandomAccessFile>,
+  private val chunkLength: Long
+) : Closeable {
+
+  val length: Long get() = synchronized(this) { files.fold(0L) { sum, it -> sum + it.length() } }
+
+  @Synchronized fun write(position: Long, bytes: ByteArray, offset: Int, length: Int) {
+    forEachChunkRange(position, length) { file, positionInChunk, done, count ->
+      file.seek(positionInChunk)
+      file.write(bytes, offset + done, count)
+    }
+  }
+
+  @Synchronized fun readFully(position: Long, bytes: ByteArray) {
+    forEachChunkRange(position, bytes.size) { file, positionInChunk, done, count ->
+      file.seek(positionInChunk)
+      file.readFully(bytes, done, count)
+    }
+  }
+
+  override fun close() {
+    files.forEach(RandomAccessFile::close)
+  }
+
+  private inline fun forEachChunkRange(
+    position: Long,
+    length: Int,
+    action: (file: RandomAccessFile, positionInChunk: Long, done: Int, count: Int) -> Unit
+  ) {
+    var done = 0
+    while (done < length) {
+      val index = ((position + done) / chunkLength).toInt()
+      if (index >= files.size) {
+        throw IOException("Position ${position + done} is past the last chunk")
+      }
+      val positionInChunk = position + done - index * chunkLength
+      val count = minOf((length - done).toLong(), chunkLength - positionInChunk).toInt()
+      action(files[index], positionInChunk, done, count)
+      done += count
+    }
+  }
+
+  companion object {
+    private const val CHUNK_LENGTH = CHUNK_SIZE + 1
+    private const val SINGLE_FILE = Long.MAX_VALUE
+    private const val FAT32_MAX_FILE_SIZE = 4L * 1024L * 1024L * 1024L - 1L
+
+    // Fetch reports an error carrying this message as Error.NO_STORAGE_SPACE
+    private const val NO_SPACE_LEFT_ON_DEVICE = "No space left on device"
+
+    /**
+     * Opens [file] for a download of [contentLength] bytes and reserves the space it needs up
+     * front, as one file where the file system allows it and as chunks where it does not.
+     * Known [volumeCapabilities] spare the attempt at a file the volume cannot hold, and the
+     * zero filling of files that the volume cannot keep sparse.
+     *
+     * @throws IOException if there is not enough free space for the rest of the download
+     */
+    fun create(
+      file: String,
+      contentLength: Long,
+      volumeCapabilities: VolumeCapabilities? = null
+    ): ChunkedFile {
+      val target = File(file)
+      target.parentFile?.mkdirs()
+      val chunks = chunksOf(target)
+      if (chunks.isNotEmpty() ||
+        volumeCapabilities?.supports4GbFiles == false &&
+        contentLength > FAT32_MAX_FILE_SIZE &&
+        target.length() == 0L
+      ) {
+        return reserveChunks(target, contentLength, volumeCapabilities)
+      }
+      requireSpace(target, contentLength - target.length())
+      val randomAccessFile = RandomAccessFile(target, "rw")
+      try {
+        randomAccessFile.reserve(contentLength, volumeCapabilities)
+        return ChunkedFile(listOf(randomAccessFile), SINGLE_FILE)
+      } catch (ioException: IOException) {
+        randomAccessFile.close()
+        if (contentLength <= FAT32_MAX_FILE_SIZE || target.length() > 0L) {
+          throw ioException
+        }
+      }
+      return reserveChunks(target, contentLength, volumeCapabilities)
+    }
+
+    /**
+     * Opens what has been written of the download to [file] so far, be it whole or in chunks.
+     */
+    fun open(file: String): ChunkedFile {
+      val chunks = chunksOf(File(file))
+      return if (chunks.isEmpty()) ChunkedFile(listOf(RandomAccessFile(file, "rw")), SINGLE_FILE)
+      else ChunkedFile(chunks.map { RandomAccessFile(it, "rw") }, CHUNK_LENGTH)
+    }
+
+    /**
+     * Gives a finished download's chunks their final names.
+     *
+     * @return the file the download can be opened from
+     */
+    fun complete(file: String): File {
+      val target = File(file)
+      val chunks = chunksOf(target)
+      if (chunks.isEmpty()) {
+        return target
+      }
+      if (target.length() == 0L) {
+        target.delete()
+      }
+      return chunks.map { chunk ->
+        File(chunk.path.removeSuffix(PART)).also { completed ->
+          if (chunk != completed) chunk.renameTo(completed)
+        }
+      }.first()
+    }
+
+    /**
+     * Removes the chunks of an unfinished download, Fetch only knows about [file] itself.
+     */
+    fun delete(file: String) {
+      chunksOf(File(file)).filter { it.path.endsWith(PART) }.forEach(File::delete)
+    }
+
+    private fun reserveChunks(
+      target: File,
+      contentLength: Long,
+      volumeCapabilities: VolumeCapabilities?
+    ): ChunkedFile {
+      // chunks hold CHUNK_LENGTH bytes but are counted by CHUNK_SIZE, just past a multiple of
+      // CHUNK_SIZE that leaves a last chunk starting past the end of the download
+      val chunks = ChunkUtils.getChunks(target.path, contentLength, 0)
+        .filter { it.startByte < contentLength }
+        .map {
+          File(target.parentFile, it.fileName) to minOf(it.size, contentLength - it.startByte)
+        }
+      requireSpace(
+        target,
+        chunks.fold(0L) { sum, (chunk, size) -> sum + (size - chunk.length()).coerceAtLeast(0L) }
+      )
+      return ChunkedFile(
+        chunks.map { (chunk, size) ->
+          RandomAccessFile(chunk, "rw").apply { reserve(size, volumeCapabilities) }
+        },
+        CHUNK_LENGTH
+      )
+    }
+
+    private fun chunksOf(target: File) =
+      ChunkUtils.getZimChunkFileNames(target.name, ChunkUtils.MAX_CHUNK_COUNT)
+        .asSequence()
+        .map { File(target.parentFile, it!!) }
+        .map { if (it.exists()) it else File(it.path.removeSuffix(PART)) }
+        .takeWhile(File::exists)
+        .toList()
+
+    private fun requireSpace(target: File, bytes: Long) {
+      val usableSpace = (target.parentFile ?: target).usableSpace
+      if (bytes > usableSpace) {
+        throw IOException(
+          "$NO_SPACE_LEFT_ON_DEVICE: ${target.name} needs $bytes more bytes, $usableSpace are free"
+        )
+      }
+    }
+
+    /**
+     * Allocates [length] bytes for the file, as real blocks where the file system supports
+     * fallocate and by extending it, sparse where the file system allows, everywhere else. On a
+     * volume known to have no sparse files extending would write [length] zeros, there the file
+     * grows as the download is written instead.
+     *
+     * @throws IOException if fallocate fails for any reason but missing support, with the
+     * message Fetch reports as a full storage when the volume ran out of space
+     */
+    private fun RandomAccessFile.reserve(length: Long, volumeCapabilities: VolumeCapabilities?) {
+      if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+        try {
+          Os.posix_fallocate(fd, 0L, length)
+          return
+        } catch (errnoException: ErrnoException) {
+          when (errnoException.errno) {
+            // file system without fallocate support, extend the file instead
+            OsConstants.EOPNOTSUPP, OsConstants.ENOSYS -> Unit
+            OsConstants.ENOSPC ->
+              throw IOException("$NO_SPACE_LEFT_ON_DEVICE: reserving $length bytes failed")
+            else -> throw IOException(errnoException.message, errnoException)
+          }
+        }
+      }
+      if (length() < length && volumeCapabilities?.supportsSparseFiles != false) {
+        setLength(length)
+      }
+    }
+  }
+}
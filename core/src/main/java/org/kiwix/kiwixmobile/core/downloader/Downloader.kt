@@ -17,9 +17,16 @@
  */
 package org.kiwix.kiwixmobile.core.downloader
 
+import com.tonyodev.fetch2.Priority
 import org.kiwix.kiwixmobile.core.entity.LibraryNetworkEntity
+import org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.adapter.BooksOnDiskListItem.BookOnDisk
 
 interface Downloader {
-  fun download(book: LibraryNetworkEntity.Book)
+  /**
+   * @param priority orders [book] among the queued downloads, books the user asked for are
+   * [Priority.NORMAL] and go before the [Priority.LOW] ones updates fall back to
+   */
+  fun download(book: LibraryNetworkEntity.Book, priority: Priority = Priority.NORMAL)
+  fun update(book: LibraryNetworkEntity.Book, bookOnDisk: BookOnDisk)
   fun cancelDownload(downloadId: Long)
 }
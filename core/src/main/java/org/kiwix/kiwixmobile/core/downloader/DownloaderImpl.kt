@@ -18,33 +18,54 @@
 
 package org.kiwix.kiwixmobile.core.downloader
 
+import com.tonyodev.fetch2.Priority
 import io.reactivex.Observable
 import org.kiwix.kiwixmobile.core.dao.FetchDownloadDao
 import org.kiwix.kiwixmobile.core.data.remote.KiwixService
+import org.kiwix.kiwixmobile.core.downloader.delta.DeltaUpdateQueue
+import org.kiwix.kiwixmobile.core.downloader.model.DownloadRequest
 import org.kiwix.kiwixmobile.core.entity.LibraryNetworkEntity
 import org.kiwix.kiwixmobile.core.entity.LibraryNetworkEntity.Book
+import org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.adapter.BooksOnDiskListItem.BookOnDisk
 import javax.inject.Inject
 
 class DownloaderImpl @Inject constructor(
   private val downloadRequester: DownloadRequester,
   private val downloadDao: FetchDownloadDao,
-  private val kiwixService: KiwixService
+  private val kiwixService: KiwixService,
+  private val mirrorSelector: MirrorSelector,
+  private val deltaUpdateQueue: DeltaUpdateQueue
 ) : Downloader {
 
-  override fun download(book: LibraryNetworkEntity.Book) {
-    urlProvider(book)
+  override fun download(book: LibraryNetworkEntity.Book, priority: Priority) {
+    downloadRequestProvider(book)
       .take(1)
       .subscribe(
         {
-          downloadDao.addIfDoesNotExist(it, book, downloadRequester)
+          downloadDao.addIfDoesNotExist(it.copy(priority = priority), book, downloadRequester)
         },
         Throwable::printStackTrace
       )
   }
 
-  private fun urlProvider(book: Book): Observable<String> =
-    if (book.url.endsWith("meta4")) kiwixService.getMetaLinks(book.url).map { it.relevantUrl.value }
-    else Observable.just(book.url)
+  /**
+   * Queues [bookOnDisk] to be updated from the blocks it shares with [book], [DeltaUpdateQueue]
+   * falls back to downloading [book] in full when that is not possible.
+   */
+  override fun update(book: Book, bookOnDisk: BookOnDisk) {
+    downloadRequestProvider(book)
+      .take(1)
+      .subscribe(
+        { deltaUpdateQueue.enqueue(bookOnDisk, book, it.urlString) },
+        Throwable::printStackTrace
+      )
+  }
+
+  private fun downloadRequestProvider(book: Book): Observable<DownloadRequest> =
+    if (book.url.endsWith("meta4")) kiwixService.getMetaLinks(book.url)
+      .map(::DownloadRequest)
+      .flatMapSingle(mirrorSelector::rank)
+    else Observable.just(DownloadRequest(book.url))
 
   override fun cancelDownload(downloadId: Long) {
     downloadRequester.cancel(downloadId)
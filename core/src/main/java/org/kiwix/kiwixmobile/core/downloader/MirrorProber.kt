@@ -0,0 +1,95 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader
+
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import java.io.IOException
+import java.io.InputStream
+import java.util.concurrent.TimeUnit.SECONDS
+import javax.inject.Inject
+
+data class MirrorProbe(
+  val mirror: String,
+  val timeToFirstByteMillis: Long,
+  val bytesPerSecond: Double
+) {
+  val isSuccessful get() = bytesPerSecond > 0.0
+
+  companion object {
+    fun failed(mirror: String, timeToFirstByteMillis: Long) =
+      MirrorProbe(mirror, timeToFirstByteMillis, 0.0)
+  }
+}
+
+/**
+ * Measures a mirror by fetching a small range from the start of the file: the time until the
+ * response arrives and the throughput of reading the range.
+ */
+class MirrorProber @Inject constructor(okHttpClient: OkHttpClient) {
+
+  private val probeClient = okHttpClient.newBuilder()
+    .callTimeout(PROBE_TIMEOUT_SECONDS, SECONDS)
+    .build()
+
+  fun probe(mirror: String): MirrorProbe {
+    val start = System.currentTimeMillis()
+    return try {
+      probeClient.newCall(
+        Request.Builder()
+          .url(mirror)
+          .header("Range", "bytes=0-${PROBE_BYTES - 1}")
+          .build()
+      ).execute().use { response ->
+        val firstByte = System.currentTimeMillis()
+        val body = response.body()
+        if (!response.isSuccessful || body == null) {
+          return MirrorProbe.failed(mirror, firstByte - start)
+        }
+        val bytes = body.byteStream().readAtMost(PROBE_BYTES)
+        val transferMillis = (System.currentTimeMillis() - firstByte).coerceAtLeast(1L)
+        MirrorProbe(mirror, firstByte - start, bytes * MILLIS_PER_SECOND / transferMillis)
+      }
+    } catch (ioException: IOException) {
+      MirrorProbe.failed(mirror, System.currentTimeMillis() - start)
+    } catch (illegalArgumentException: IllegalArgumentException) {
+      MirrorProbe.failed(mirror, 0L)
+    }
+  }
+
+  private fun InputStream.readAtMost(limit: Int): Int {
+    val buffer = ByteArray(BUFFER_SIZE)
+    var total = 0
+    while (total < limit) {
+      val read = read(buffer, 0, minOf(buffer.size, limit - total))
+      if (read < 0) {
+        break
+      }
+      total += read
+    }
+    return total
+  }
+
+  companion object {
+    private const val PROBE_BYTES = 256 * 1024
+    private const val BUFFER_SIZE = 16 * 1024
+    private const val PROBE_TIMEOUT_SECONDS = 10L
+    private const val MILLIS_PER_SECOND = 1000.0
+  }
+}
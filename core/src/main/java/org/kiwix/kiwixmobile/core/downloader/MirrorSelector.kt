@@ -0,0 +1,95 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader
+
+import io.reactivex.Observable
+import io.reactivex.Single
+import io.reactivex.schedulers.Schedulers
+import org.kiwix.kiwixmobile.core.dao.MirrorRankingDao
+import org.kiwix.kiwixmobile.core.dao.entities.MirrorRankingEntity
+import org.kiwix.kiwixmobile.core.downloader.model.DownloadRequest
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Orders the mirrors of a download by their persisted per host ranking before it is enqueued.
+ * Hosts without a recent ranking are probed first, and every finished transfer feeds back into
+ * the ranking so it converges on the mirrors that are fastest from the user's network.
+ */
+@Singleton
+class MirrorSelector @Inject constructor(
+  private val mirrorRankingDao: MirrorRankingDao,
+  private val mirrorProber: MirrorProber,
+  private val mirrorTracker: MirrorTracker
+) {
+
+  fun rank(downloadRequest: DownloadRequest): Single<DownloadRequest> =
+    if (downloadRequest.mirrors.size < 2) Single.just(downloadRequest)
+    else rank(downloadRequest.mirrors)
+      .map { downloadRequest.copy(urlString = it.first(), mirrors = it) }
+      .onErrorReturnItem(downloadRequest)
+
+  fun rank(mirrors: List<String>, now: Long = System.currentTimeMillis()): Single<List<String>> =
+    Single.fromCallable { rankingsFor(mirrors) }
+      .flatMap { rankings ->
+        Observable.fromIterable(mirrors.filter { rankings[hostOf(it)]?.isStale(now) != false })
+          .take(MAX_PROBES)
+          .flatMap(
+            { Observable.fromCallable { mirrorProber.probe(it) }.subscribeOn(Schedulers.io()) },
+            MAX_PARALLEL_PROBES
+          )
+          .doOnNext {
+            mirrorRankingDao.record(hostOf(it.mirror), it.bytesPerSecond, it.timeToFirstByteMillis)
+          }
+          .toList()
+          .map { rankingsFor(mirrors) }
+      }
+      .map { rankings -> order(mirrors, rankings) }
+      .subscribeOn(Schedulers.io())
+
+  /**
+   * Records the throughput of a real transfer. Short transfers are mostly connection set up
+   * and would unfairly drag a mirror down.
+   */
+  fun onTransfer(mirror: String, bytes: Long, durationMillis: Long) {
+    if (bytes >= MIN_FEEDBACK_BYTES && durationMillis > 0) {
+      mirrorRankingDao.record(hostOf(mirror), bytes * MILLIS_PER_SECOND / durationMillis, null)
+    }
+  }
+
+  private fun rankingsFor(mirrors: List<String>) =
+    mirrorRankingDao.rankings(mirrors.map(::hostOf).distinct())
+
+  private fun order(
+    mirrors: List<String>,
+    rankings: Map<String, MirrorRankingEntity>
+  ): List<String> {
+    mirrors.forEach { mirror ->
+      rankings[hostOf(mirror)]?.let { mirrorTracker.seed(mirror, it.bytesPerSecond) }
+    }
+    return mirrors.sortedByDescending { rankings[hostOf(it)]?.score ?: 0.0 }
+  }
+
+  companion object {
+    private const val MAX_PROBES = 8
+    private const val MAX_PARALLEL_PROBES = 4
+    private const val MIN_FEEDBACK_BYTES = 1024L * 1024L
+    private const val MILLIS_PER_SECOND = 1000.0
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader
+
+import java.net.MalformedURLException
+import java.net.URL
+import javax.inject.Inject
+import javax.inject.Singleton
+
+fun hostOf(mirror: String): String = try {
+  URL(mirror).host
+} catch (malformedUrlException: MalformedURLException) {
+  mirror
+}
+
+/**
+ * Keeps per host throughput and failure statistics for the mirrors of a segmented download
+ * and decides which mirror the next segment should be fetched from.
+ */
+@Singleton
+class MirrorTracker @Inject constructor() {
+
+  private val statistics = mutableMapOf<String, MirrorStatistics>()
+
+  /**
+   * Picks the mirror for a new segment. Mirrors that are backing off after failures are only
+   * used if nothing else is left, unmeasured mirrors are tried in metalink priority order and
+   * the rest are ranked by measured throughput shared by the segments already using them.
+   */
+  @Synchronized
+  fun acquire(mirrors: List<String>, now: Long = System.currentTimeMillis()): String {
+    val candidates = mirrors.filterNot { statisticsFor(it).isBackingOff(now) }.ifEmpty { mirrors }
+    val mirror = candidates.firstOrNull { statisticsFor(it).isUnmeasured }
+      ?: candidates.maxBy { statisticsFor(it).throughputPerSegment }
+      ?: mirrors.first()
+    statisticsFor(mirror).activeSegments++
+    return mirror
+  }
+
+  @Synchronized
+  fun release(mirror: String, bytes: Long, durationMillis: Long) {
+    statisticsFor(mirror).apply {
+      activeSegments = (activeSegments - 1).coerceAtLeast(0)
+      consecutiveFailures = 0
+      record(bytes, durationMillis)
+    }
+  }
+
+  @Synchronized
+  fun fail(mirror: String, now: Long = System.currentTimeMillis()) {
+    statisticsFor(mirror).apply {
+      activeSegments = (activeSegments - 1).coerceAtLeast(0)
+      consecutiveFailures++
+      backOffUntil = now + backOffFor(consecutiveFailures)
+    }
+  }
+
+  /**
+   * A running segment is worth abandoning when, after a warm up, its mirror delivers only a
+   * fraction of what the best other mirror currently achieves.
+   */
+  @Synchronized
+  fun isTooSlow(
+    mirror: String,
+    bytes: Long,
+    durationMillis: Long,
+    mirrors: List<String>
+  ): Boolean {
+    if (durationMillis < SLOW_SEGMENT_WARM_UP_MILLIS) {
+      return false
+    }
+    val fastestOther = mirrors.filterNot { hostOf(it) == hostOf(mirror) }
+      .map { statisticsFor(it).throughput }
+      .max() ?: return false
+    return bytesPerSecond(bytes, durationMillis) * SLOW_SEGMENT_FACTOR < fastestOther
+  }
+
+  @Synchronized
+  fun throughputOf(mirror: String) = statisticsFor(mirror).throughput
+
+  /**
+   * Starts a mirror that was not measured in this session from a previously persisted
+   * throughput, so segments go to the historically fastest mirror straight away.
+   */
+  @Synchronized
+  fun seed(mirror: String, bytesPerSecond: Double) {
+    statisticsFor(mirror).takeIf { it.throughput == 0.0 }?.throughput = bytesPerSecond
+  }
+
+  private fun statisticsFor(mirror: String) =
+    statistics.getOrPut(hostOf(mirror)) { MirrorStatistics() }
+
+  private fun backOffFor(failures: Int) =
+    (BASE_BACK_OFF_MILLIS shl (failures - 1).coerceAtMost(MAX_BACK_OFF_SHIFT))
+
+  private class MirrorStatistics {
+    var activeSegments = 0
+    var consecutiveFailures = 0
+    var backOffUntil = 0L
+    var throughput = 0.0
+    val isUnmeasured get() = throughput == 0.0 && activeSegments == 0
+    val throughputPerSegment get() = throughput / (activeSegments + 1)
+
+    fun isBackingOff(now: Long) = now < backOffUntil
+
+    fun record(bytes: Long, durationMillis: Long) {
+      if (bytes <= 0 || durationMillis <= 0) {
+        return
+      }
+      val sample = bytesPerSecond(bytes, durationMillis)
+      throughput = if (throughput == 0.0) sample
+      else throughput + SMOOTHING_FACTOR * (sample - throughput)
+    }
+  }
+
+  companion object {
+    private const val BASE_BACK_OFF_MILLIS = 5_000L
+    private const val MAX_BACK_OFF_SHIFT = 6
+    private const val SMOOTHING_FACTOR = 0.3
+    private const val SLOW_SEGMENT_WARM_UP_MILLIS = 30_000L
+    private const val SLOW_SEGMENT_FACTOR = 4
+    private const val MILLIS_PER_SECOND = 1000.0
+
+    private fun bytesPerSecond(bytes: Long, durationMillis: Long) =
+      bytes * MILLIS_PER_SECOND / durationMillis
+  }
+}
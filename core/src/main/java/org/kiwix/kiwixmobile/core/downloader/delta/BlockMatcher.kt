@@ -0,0 +1,224 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.delta
+
+import java.io.File
+import java.io.InputStream
+import java.util.Arrays
+import java.util.BitSet
+
+/**
+ * Finds, anywhere in a local file, the blocks of a new version described by a
+ * [ZsyncControlFile]. Like zsync it slides a rolling checksum over the file one byte at a time,
+ * looks candidates up through a bit filter and confirms them with MD4. With two sequence
+ * matches a candidate has to match together with the block that follows it, which keeps the
+ * short rolling checksums of large files from producing too many candidates to confirm.
+ */
+internal class BlockMatcher(private val controlFile: ZsyncControlFile) {
+  private val blockSize = controlFile.blockSize
+  private val inPairs = controlFile.sequenceMatches > 1
+  private val windowSize = if (inPairs) 2 * blockSize else blockSize
+  private val candidates: LongArray
+  private val filter: BitSet
+  private val filterMask: Int
+  private val md4 = Md4()
+
+  init {
+    // only full blocks can turn up at arbitrary offsets, so a short last block is never a candidate
+    val candidateCount =
+      (controlFile.blockCount - if (inPairs) 1 else 0).coerceAtLeast(0)
+        .let { count -> if (count > 0 && !isFull(count - 1)) count - 1 else count }
+    candidates = LongArray(candidateCount) { (keyOf(it).toLong() shl Int.SIZE_BITS) or it.toLong() }
+      .also(Arrays::sort)
+    val filterSize = Integer.highestOneBit((candidates.size * FILTER_BITS_PER_BLOCK)
+      .coerceAtLeast(Long.SIZE_BITS)) * 2
+    filterMask = filterSize - 1
+    filter = BitSet(filterSize).apply {
+      candidates.forEach { set((it shr Int.SIZE_BITS).toInt() and filterMask) }
+    }
+  }
+
+  /**
+   * @return for every block of the new version its offset in [file], or [NOT_FOUND]
+   */
+  fun match(file: File): LongArray = file.inputStream().use(::match)
+
+  fun match(inputStream: InputStream): LongArray {
+    val offsets = LongArray(controlFile.blockCount) { NOT_FOUND }
+    val buffer = ByteArray(maxOf(BUFFER_SIZE, windowSize * 2))
+    val window = RollingWindow()
+    var bufferStart = 0L
+    var length = 0
+    var position = 0
+    var isEndOfFile = false
+    while (true) {
+      if (!isEndOfFile && length - position <= windowSize) {
+        System.arraycopy(buffer, position, buffer, 0, length - position)
+        bufferStart += position
+        length -= position
+        position = 0
+        while (length < buffer.size) {
+          val read = inputStream.read(buffer, length, buffer.size - length)
+          if (read < 0) {
+            isEndOfFile = true
+            break
+          }
+          length += read
+        }
+      }
+      if (length - position < windowSize) {
+        break
+      }
+      if (!window.isCalculated) {
+        window.calculate(buffer, position)
+      }
+      if (matchAt(buffer, position, bufferStart + position, window, offsets)) {
+        position += blockSize
+        window.isCalculated = false
+      } else if (length - position > windowSize) {
+        window.roll(buffer, position)
+        position++
+      } else if (isEndOfFile) {
+        break
+      }
+    }
+    return offsets
+  }
+
+  private fun matchAt(
+    buffer: ByteArray,
+    position: Int,
+    fileOffset: Long,
+    window: RollingWindow,
+    offsets: LongArray
+  ): Boolean {
+    val first = window.first and controlFile.rsumMask
+    val second = if (inPairs) window.second and controlFile.rsumMask else 0
+    val key = keyOf(first, second)
+    if (!filter.get(key and filterMask)) {
+      return false
+    }
+    var firstMd4: ByteArray? = null
+    var secondMd4: ByteArray? = null
+    var matched = false
+    var index = lowerBound(key.toLong() shl Int.SIZE_BITS)
+    while (index < candidates.size && (candidates[index] shr Int.SIZE_BITS).toInt() == key) {
+      val block = candidates[index].toInt()
+      index++
+      if (controlFile.rsums[block] != first ||
+        inPairs && controlFile.rsums[block + 1] != second ||
+        offsets[block] != NOT_FOUND && (!inPairs || offsets[block + 1] != NOT_FOUND)
+      ) {
+        continue
+      }
+      val firstChecksum = firstMd4 ?: md4Of(buffer, position).also { firstMd4 = it }
+      if (!controlFile.checksumMatches(block, firstChecksum)) {
+        continue
+      }
+      if (inPairs) {
+        val secondChecksum =
+          secondMd4 ?: md4Of(buffer, position + blockSize).also { secondMd4 = it }
+        if (!controlFile.checksumMatches(block + 1, secondChecksum)) {
+          continue
+        }
+        offsets[block + 1] = fileOffset + blockSize
+      }
+      offsets[block] = fileOffset
+      matched = true
+    }
+    return matched
+  }
+
+  private fun lowerBound(value: Long): Int {
+    var low = 0
+    var high = candidates.size
+    while (low < high) {
+      val middle = (low + high) ushr 1
+      if (candidates[middle] < value) low = middle + 1 else high = middle
+    }
+    return low
+  }
+
+  private fun md4Of(buffer: ByteArray, position: Int): ByteArray {
+    md4.update(buffer, position, blockSize)
+    return md4.digest()
+  }
+
+  private fun isFull(candidate: Int) =
+    controlFile.lengthOf(candidate + if (inPairs) 1 else 0) == blockSize
+
+  private fun keyOf(block: Int) =
+    keyOf(controlFile.rsums[block], if (inPairs) controlFile.rsums[block + 1] else 0)
+
+  private fun keyOf(first: Int, second: Int) = first * KEY_MULTIPLIER xor second
+
+  /**
+   * zsync's rolling checksum of the window's first and, for sequence matches, second block.
+   * Only the low 16 bits of each half are significant, overflow is harmless.
+   */
+  private inner class RollingWindow {
+    var isCalculated = false
+    private var firstA = 0
+    private var firstB = 0
+    private var secondA = 0
+    private var secondB = 0
+
+    val first get() = rsum(firstA, firstB)
+    val second get() = rsum(secondA, secondB)
+
+    fun calculate(buffer: ByteArray, position: Int) {
+      firstA = 0
+      firstB = 0
+      secondA = 0
+      secondB = 0
+      for (i in 0 until blockSize) {
+        val byte = buffer[position + i].toInt() and 0xff
+        firstA += byte
+        firstB += (blockSize - i) * byte
+        if (inPairs) {
+          val nextByte = buffer[position + blockSize + i].toInt() and 0xff
+          secondA += nextByte
+          secondB += (blockSize - i) * nextByte
+        }
+      }
+      isCalculated = true
+    }
+
+    fun roll(buffer: ByteArray, position: Int) {
+      val oldByte = buffer[position].toInt() and 0xff
+      val newByte = buffer[position + blockSize].toInt() and 0xff
+      firstA += newByte - oldByte
+      firstB += firstA - blockSize * oldByte
+      if (inPairs) {
+        val nextNewByte = buffer[position + 2 * blockSize].toInt() and 0xff
+        secondA += nextNewByte - newByte
+        secondB += secondA - blockSize * newByte
+      }
+    }
+
+    private fun rsum(a: Int, b: Int) = (a and 0xffff shl 16) or (b and 0xffff)
+  }
+
+  companion object {
+    const val NOT_FOUND = -1L
+    private const val BUFFER_SIZE = 1024 * 1024
+    private const val FILTER_BITS_PER_BLOCK = 8
+    private const val KEY_MULTIPLIER = -0x61c88647
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.delta
+
+import android.app.NotificationManager
+import android.content.Context
+import android.os.SystemClock
+import androidx.core.app.NotificationCompat
+import com.tonyodev.fetch2.FetchNotificationManager
+import org.kiwix.kiwixmobile.core.R
+import org.kiwix.kiwixmobile.core.dao.entities.DeltaUpdateEntity
+import org.kiwix.kiwixmobile.core.downloader.model.BookUpdate
+import org.kiwix.kiwixmobile.core.downloader.model.DownloadUpdateInterval
+import javax.inject.Inject
+
+/**
+ * Shows delta updates next to regular downloads, in the channel Fetch posts those to.
+ */
+class DeltaUpdateNotifier @Inject constructor(
+  private val context: Context,
+  private val notificationManager: NotificationManager,
+  private val fetchNotificationManager: FetchNotificationManager,
+  private val updateInterval: DownloadUpdateInterval
+) {
+  private var lastProgressMillis = 0L
+
+  fun onProgress(deltaUpdate: DeltaUpdateEntity, bytesDone: Long, bytesTotal: Long) {
+    val now = SystemClock.elapsedRealtime()
+    if (now - lastProgressMillis < updateInterval.millis) {
+      return
+    }
+    lastProgressMillis = now
+    notify(
+      deltaUpdate,
+      builder(deltaUpdate, R.string.update_in_progress)
+        .setSmallIcon(android.R.drawable.stat_sys_download)
+        .setOngoing(true)
+        .setProgress(PERCENT, (bytesDone * PERCENT / bytesTotal.coerceAtLeast(1L)).toInt(), false)
+    )
+  }
+
+  fun onPaused(deltaUpdate: DeltaUpdateEntity) {
+    lastProgressMillis = 0L
+    notify(
+      deltaUpdate,
+      builder(deltaUpdate, R.string.update_waiting)
+        .setSmallIcon(android.R.drawable.stat_sys_download)
+    )
+  }
+
+  fun onUpdated(deltaUpdate: DeltaUpdateEntity, bookUpdate: BookUpdate) {
+    notify(
+      deltaUpdate,
+      builder(deltaUpdate, R.string.update_saved, bookUpdate.savedPercentage)
+        .setSmallIcon(android.R.drawable.stat_sys_download_done)
+        .setAutoCancel(true)
+    )
+  }
+
+  fun cancel(deltaUpdate: DeltaUpdateEntity) {
+    notificationManager.cancel(notificationId(deltaUpdate))
+  }
+
+  private fun builder(deltaUpdate: DeltaUpdateEntity, textId: Int, vararg formatArgs: Any) =
+    NotificationCompat.Builder(
+      context,
+      context.getString(R.string.fetch_notification_default_channel_id)
+    )
+      .setContentTitle(deltaUpdate.title)
+      .setContentText(context.getString(textId, *formatArgs))
+      .setPriority(NotificationCompat.PRIORITY_DEFAULT)
+
+  private fun notify(deltaUpdate: DeltaUpdateEntity, builder: NotificationCompat.Builder) {
+    fetchNotificationManager.createNotificationChannels(context, notificationManager)
+    notificationManager.notify(notificationId(deltaUpdate), builder.build())
+  }
+
+  // Fetch uses download ids, hashes of the url and file, as notification ids
+  private fun notificationId(deltaUpdate: DeltaUpdateEntity) =
+    "$NOTIFICATION_TAG${deltaUpdate.id}".hashCode()
+
+  companion object {
+    private const val NOTIFICATION_TAG = "delta_update_"
+    private const val PERCENT = 100
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.delta
+
+import com.tonyodev.fetch2.Priority
+import dagger.Lazy
+import io.reactivex.Single
+import io.reactivex.schedulers.Schedulers
+import org.kiwix.kiwixmobile.core.dao.DeltaUpdateDao
+import org.kiwix.kiwixmobile.core.dao.NewBookDao
+import org.kiwix.kiwixmobile.core.dao.entities.DeltaUpdateEntity
+import org.kiwix.kiwixmobile.core.downloader.Downloader
+import org.kiwix.kiwixmobile.core.entity.LibraryNetworkEntity.Book
+import org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.adapter.BooksOnDiskListItem.BookOnDisk
+import java.io.IOException
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Runs the queued delta updates one at a time, while the
+ * [org.kiwix.kiwixmobile.core.downloader.scheduler.DownloadScheduler] finds the download settings
+ * allow it. An update the settings stop, or one interrupted by the network, stays queued and
+ * resumes from its `.part` file; an update no delta can be used for is downloaded in full.
+ */
+@Singleton
+class DeltaUpdateQueue @Inject constructor(
+  private val deltaUpdater: DeltaUpdater,
+  private val deltaUpdateDao: DeltaUpdateDao,
+  private val newBookDao: NewBookDao,
+  private val downloader: Lazy<Downloader>,
+  private val notifier: DeltaUpdateNotifier
+) {
+  @Volatile private var isAllowed = false
+  private var isRunning = false
+  private val failedAttempts = mutableMapOf<Long, Int>()
+
+  fun enqueue(bookOnDisk: BookOnDisk, book: Book, downloadUrl: String) {
+    deltaUpdateDao.add(bookOnDisk, book, downloadUrl)
+    runNext()
+  }
+
+  /**
+   * Called on every tick of the scheduler, a running update pauses once [isAllowed] is false.
+   */
+  fun onPolicyChecked(isAllowed: Boolean) {
+    this.isAllowed = isAllowed
+    runNext()
+  }
+
+  @Synchronized
+  private fun runNext() {
+    if (!isAllowed || isRunning) {
+      return
+    }
+    val deltaUpdate = deltaUpdateDao.next() ?: return
+    isRunning = true
+    Single.fromCallable { run(deltaUpdate) }
+      .subscribeOn(Schedulers.io())
+      .subscribe(
+        { isDone -> if (isDone) runNext() },
+        Throwable::printStackTrace
+      )
+  }
+
+  /**
+   * @return whether [deltaUpdate] left the queue, otherwise it is retried on the next tick
+   */
+  private fun run(deltaUpdate: DeltaUpdateEntity): Boolean {
+    try {
+      val bookOnDisk = newBookDao.getBook(deltaUpdate.bookOnDiskId)
+      if (bookOnDisk == null) {
+        // deleted while queued
+        remove(deltaUpdate)
+        notifier.cancel(deltaUpdate)
+        return true
+      }
+      val bookUpdate = deltaUpdater.update(
+        bookOnDisk,
+        deltaUpdateDao.book(deltaUpdate),
+        deltaUpdate.downloadUrl,
+        listener(deltaUpdate)
+      )
+      remove(deltaUpdate)
+      notifier.onUpdated(deltaUpdate, bookUpdate)
+      return true
+    } catch (unavailable: DeltaUpdater.Unavailable) {
+      unavailable.printStackTrace()
+      downloadInFull(deltaUpdate)
+      return true
+    } catch (ioException: IOException) {
+      if (!isAllowed) {
+        notifier.onPaused(deltaUpdate)
+        return false
+      }
+      ioException.printStackTrace()
+      val attempts = synchronized(this) {
+        (failedAttempts[deltaUpdate.id] ?: 0).inc().also { failedAttempts[deltaUpdate.id] = it }
+      }
+      if (attempts < MAX_ATTEMPTS) {
+        notifier.onPaused(deltaUpdate)
+        return false
+      }
+      downloadInFull(deltaUpdate)
+      return true
+    } finally {
+      synchronized(this) { isRunning = false }
+    }
+  }
+
+  private fun downloadInFull(deltaUpdate: DeltaUpdateEntity) {
+    remove(deltaUpdate)
+    notifier.cancel(deltaUpdate)
+    downloader.get().download(deltaUpdateDao.book(deltaUpdate), Priority.LOW)
+  }
+
+  private fun remove(deltaUpdate: DeltaUpdateEntity) {
+    deltaUpdateDao.remove(deltaUpdate)
+    synchronized(this) { failedAttempts.remove(deltaUpdate.id) }
+  }
+
+  private fun listener(deltaUpdate: DeltaUpdateEntity) = object : DeltaUpdater.Listener {
+    override val isPaused get() = !isAllowed
+
+    override fun onProgress(bytesDone: Long, bytesTotal: Long) {
+      notifier.onProgress(deltaUpdate, bytesDone, bytesTotal)
+    }
+  }
+
+  companion object {
+    // network failures in a row, with a tick in between, before giving up on the delta
+    private const val MAX_ATTEMPTS = 5
+  }
+}
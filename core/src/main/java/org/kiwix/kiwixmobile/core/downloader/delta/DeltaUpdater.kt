@@ -0,0 +1,314 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.delta
+
+import android.util.Log
+import okhttp3.HttpUrl
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import org.kiwix.kiwixmobile.core.dao.NewBookDao
+import org.kiwix.kiwixmobile.core.downloader.delta.BlockMatcher.Companion.NOT_FOUND
+import org.kiwix.kiwixmobile.core.downloader.model.BookUpdate
+import org.kiwix.kiwixmobile.core.downloader.scheduler.BandwidthLimiter
+import org.kiwix.kiwixmobile.core.downloader.verification.messageDigestFor
+import org.kiwix.kiwixmobile.core.downloader.verification.toHexString
+import org.kiwix.kiwixmobile.core.entity.LibraryNetworkEntity.Book
+import org.kiwix.kiwixmobile.core.utils.StorageUtils
+import org.kiwix.kiwixmobile.core.utils.TAG_KIWIX
+import org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.adapter.BooksOnDiskListItem.BookOnDisk
+import java.io.File
+import java.io.IOException
+import java.io.InputStream
+import java.io.InterruptedIOException
+import java.io.RandomAccessFile
+import javax.inject.Inject
+
+/**
+ * Updates a book on disk to a new version zsync style: the block map published next to the new
+ * file as `<url>.zsync` is matched against the old file, the blocks found there are copied and
+ * only the rest is fetched with range requests. The new file is assembled next to the old one
+ * and only replaces it once its SHA-1 matches the block map.
+ *
+ * The new file is assembled as a `.part` file that is kept when the update is interrupted, by a
+ * network error or by the app being stopped. Updating to the same version again picks it up:
+ * blocks already in place there are neither copied nor fetched again.
+ *
+ * Updates are run by [DeltaUpdateQueue], which pauses them through [Listener.isPaused] whenever
+ * the download policy stops downloads. Fetched blocks are paced by the [BandwidthLimiter] like
+ * any other download.
+ */
+class DeltaUpdater @Inject constructor(
+  private val okHttpClient: OkHttpClient,
+  private val newBookDao: NewBookDao,
+  private val bandwidthLimiter: BandwidthLimiter
+) {
+
+  interface Listener {
+    val isPaused: Boolean
+    fun onProgress(bytesDone: Long, bytesTotal: Long)
+  }
+
+  /**
+   * Blocks until [bookOnDisk] is replaced by [book] fetched from [url].
+   *
+   * @throws Unavailable when no delta can be used and [book] has to be downloaded in full
+   * @throws IOException when the update was interrupted and can be resumed later
+   */
+  @Throws(IOException::class)
+  fun update(bookOnDisk: BookOnDisk, book: Book, url: String, listener: Listener): BookUpdate {
+    val oldFile = bookOnDisk.file
+    if (!oldFile.isFile || !oldFile.name.endsWith(".zim")) {
+      throw Unavailable("${oldFile.path} is not a single file book")
+    }
+    val controlFileUrl = HttpUrl.get("$url$CONTROL_FILE_EXTENSION")
+    // read in full first, so a broken connection is not mistaken for a broken block map
+    val controlFileBytes = get(controlFileUrl.toString(), null) { it.readBytes() }
+    val controlFile = try {
+      ZsyncControlFile.parse(controlFileBytes.inputStream())
+    } catch (ioException: IOException) {
+      throw Unavailable("$controlFileUrl is not a usable block map", ioException)
+    }
+    val directory = oldFile.parentFile ?: throw IOException("${oldFile.path} has no directory")
+    val newFile = File(directory, StorageUtils.getFileNameFromUrl(url))
+    val partFile = File("${newFile.path}$PART_EXTENSION")
+    val isResumed = partFile.length() == controlFile.length
+    if (!isResumed) {
+      partFile.delete()
+    }
+    if (directory.usableSpace < controlFile.length - partFile.length()) {
+      throw Unavailable("Not enough space to assemble the new version next to the old one")
+    }
+    val blocksUrl = controlFile.url?.let(controlFileUrl::resolve)?.toString() ?: url
+    val offsets = BlockMatcher(controlFile).match(oldFile)
+    val progress = Progress(controlFile.length, listener)
+    val update = RandomAccessFile(partFile, "rw").use { output ->
+      if (isResumed) {
+        markBlocksInPlace(controlFile, offsets, output, progress)
+      }
+      output.setLength(controlFile.length)
+      val bytesReused = copyMatchedBlocks(oldFile, controlFile, offsets, output, progress)
+      val bytesDownloaded =
+        downloadMissingBlocks(blocksUrl, controlFile, offsets, output, progress)
+      BookUpdate(newFile, bytesDownloaded, bytesReused)
+    }
+    try {
+      verify(partFile, controlFile)
+    } catch (exception: Unavailable) {
+      partFile.delete()
+      throw exception
+    }
+    if (!partFile.renameTo(newFile)) {
+      partFile.delete()
+      throw IOException("Could not move ${partFile.path} to ${newFile.path}")
+    }
+    newBookDao.replace(bookOnDisk, BookOnDisk(book = book, file = newFile))
+    if (newFile != oldFile) {
+      oldFile.delete()
+    }
+    Log.d(
+      TAG_KIWIX,
+      "Updated ${newFile.name} fetching ${update.bytesDownloaded} bytes, " +
+        "reused ${update.bytesReused} (${update.savedPercentage}%)"
+    )
+    return update
+  }
+
+  /**
+   * Marks the blocks an interrupted update already wrote to [output] as [IN_PLACE].
+   */
+  private fun markBlocksInPlace(
+    controlFile: ZsyncControlFile,
+    offsets: LongArray,
+    output: RandomAccessFile,
+    progress: Progress
+  ) {
+    val md4 = Md4()
+    val buffer = ByteArray(controlFile.blockSize)
+    for (block in 0 until controlFile.blockCount) {
+      progress.throwIfPaused()
+      val length = controlFile.lengthOf(block)
+      // like zsync, a short last block is checksummed padded with zeros
+      buffer.fill(0, length)
+      output.seek(controlFile.startOf(block))
+      output.readFully(buffer, 0, length)
+      md4.update(buffer)
+      if (controlFile.checksumMatches(block, md4.digest())) {
+        offsets[block] = IN_PLACE
+        progress.advance(length.toLong())
+      }
+    }
+  }
+
+  private fun copyMatchedBlocks(
+    oldFile: File,
+    controlFile: ZsyncControlFile,
+    offsets: LongArray,
+    output: RandomAccessFile,
+    progress: Progress
+  ): Long {
+    val buffer = ByteArray(controlFile.blockSize)
+    var bytesReused = 0L
+    RandomAccessFile(oldFile, "r").use { input ->
+      offsets.forEachIndexed { block, offset ->
+        if (offset >= 0L) {
+          progress.throwIfPaused()
+          val length = controlFile.lengthOf(block)
+          input.seek(offset)
+          input.readFully(buffer, 0, length)
+          output.seek(controlFile.startOf(block))
+          output.write(buffer, 0, length)
+          bytesReused += length
+          progress.advance(length.toLong())
+        }
+      }
+    }
+    return bytesReused
+  }
+
+  private fun downloadMissingBlocks(
+    url: String,
+    controlFile: ZsyncControlFile,
+    offsets: LongArray,
+    output: RandomAccessFile,
+    progress: Progress
+  ): Long = missingRanges(controlFile, offsets).map { range ->
+    get(url, range) { input ->
+      output.seek(range.first)
+      bandwidthLimiter.streamOpened(BANDWIDTH_LIMITER_ID)
+      val copied = try {
+        input.copyTo(output, range.last - range.first + 1, progress)
+      } finally {
+        bandwidthLimiter.streamClosed(BANDWIDTH_LIMITER_ID)
+      }
+      if (copied != range.last - range.first + 1) {
+        throw IOException("Range $range of $url ended after $copied bytes")
+      }
+      copied
+    }
+  }.sum()
+
+  private fun missingRanges(controlFile: ZsyncControlFile, offsets: LongArray): List<LongRange> {
+    val ranges = mutableListOf<LongRange>()
+    var block = 0
+    while (block < offsets.size) {
+      if (offsets[block] == NOT_FOUND) {
+        val first = block
+        while (block < offsets.size && offsets[block] == NOT_FOUND) {
+          block++
+        }
+        ranges.add(
+          controlFile.startOf(first) until controlFile.startOf(block - 1) +
+            controlFile.lengthOf(block - 1)
+        )
+      } else {
+        block++
+      }
+    }
+    return ranges
+  }
+
+  private fun <T> get(url: String, range: LongRange?, read: (InputStream) -> T): T {
+    val request = Request.Builder().url(url).apply {
+      range?.let { header("Range", "bytes=${it.first}-${it.last}") }
+    }.build()
+    return okHttpClient.newCall(request).execute().use { response ->
+      val body = response.body()
+      if (response.code() in HTTP_NOT_AVAILABLE) {
+        throw Unavailable("Fetching $url failed with ${response.code()}")
+      }
+      if (!response.isSuccessful || body == null) {
+        throw IOException("Fetching $url failed with ${response.code()}")
+      }
+      if (range != null && response.code() != HTTP_PARTIAL_CONTENT) {
+        throw Unavailable("$url does not support range requests")
+      }
+      body.byteStream().use(read)
+    }
+  }
+
+  private fun verify(file: File, controlFile: ZsyncControlFile) {
+    val expected = controlFile.sha1 ?: throw Unavailable("Block map has no SHA-1 to verify with")
+    val digest = messageDigestFor(SHA_1)
+    file.inputStream().use { input ->
+      val buffer = ByteArray(BUFFER_SIZE)
+      var read = input.read(buffer)
+      while (read >= 0) {
+        digest.update(buffer, 0, read)
+        read = input.read(buffer)
+      }
+    }
+    if (digest.digest().toHexString() != expected) {
+      throw Unavailable("${file.path} does not match the SHA-1 of the new version")
+    }
+  }
+
+  private fun InputStream.copyTo(
+    output: RandomAccessFile,
+    limit: Long,
+    progress: Progress
+  ): Long {
+    val buffer = ByteArray(BUFFER_SIZE)
+    var copied = 0L
+    while (copied < limit) {
+      progress.throwIfPaused()
+      val read = read(buffer, 0, minOf(buffer.size.toLong(), limit - copied).toInt())
+      if (read < 0) {
+        break
+      }
+      bandwidthLimiter.onBytesRead(BANDWIDTH_LIMITER_ID, read)
+      output.write(buffer, 0, read)
+      copied += read
+      progress.advance(read.toLong())
+    }
+    return copied
+  }
+
+  private class Progress(private val bytesTotal: Long, private val listener: Listener) {
+    private var bytesDone = 0L
+
+    fun advance(bytes: Long) {
+      bytesDone += bytes
+      listener.onProgress(bytesDone, bytesTotal)
+    }
+
+    fun throwIfPaused() {
+      if (listener.isPaused) {
+        throw InterruptedIOException("Delta update paused")
+      }
+    }
+  }
+
+  /**
+   * The update cannot be done with a delta, retrying will not help.
+   */
+  class Unavailable(message: String, cause: Throwable? = null) : IOException(message, cause)
+
+  companion object {
+    // Fetch download ids are ints hashed from the url and file, only one update runs at a time
+    private const val BANDWIDTH_LIMITER_ID = Int.MIN_VALUE
+    // forbidden, not found and gone, unlike other failures these do not go away on a retry
+    private val HTTP_NOT_AVAILABLE = setOf(403, 404, 410)
+    private const val IN_PLACE = -2L
+    private const val CONTROL_FILE_EXTENSION = ".zsync"
+    private const val PART_EXTENSION = ".part"
+    private const val SHA_1 = "sha-1"
+    private const val HTTP_PARTIAL_CONTENT = 206
+    private const val BUFFER_SIZE = 64 * 1024
+  }
+}
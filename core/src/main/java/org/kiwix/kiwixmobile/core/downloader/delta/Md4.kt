@@ -0,0 +1,124 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.delta
+
+/**
+ * MD4 as specified by RFC 1320. zsync uses it for its strong block checksums and it is not one
+ * of the digests Android is required to provide.
+ */
+internal class Md4 {
+  private val state = IntArray(STATE_SIZE)
+  private val buffer = ByteArray(BLOCK_SIZE)
+  private val words = IntArray(WORDS_PER_BLOCK)
+  private var bufferLength = 0
+  private var byteCount = 0L
+
+  init {
+    reset()
+  }
+
+  fun reset() {
+    state[0] = 0x67452301
+    state[1] = 0xefcdab89.toInt()
+    state[2] = 0x98badcfe.toInt()
+    state[3] = 0x10325476
+    bufferLength = 0
+    byteCount = 0L
+  }
+
+  fun update(input: ByteArray, offset: Int = 0, length: Int = input.size) {
+    byteCount += length
+    var position = offset
+    val end = offset + length
+    while (position < end) {
+      val count = minOf(BLOCK_SIZE - bufferLength, end - position)
+      System.arraycopy(input, position, buffer, bufferLength, count)
+      bufferLength += count
+      position += count
+      if (bufferLength == BLOCK_SIZE) {
+        transform()
+        bufferLength = 0
+      }
+    }
+  }
+
+  fun digest(): ByteArray {
+    val bitLength = byteCount * Byte.SIZE_BITS
+    val padding = ByteArray(
+      if (bufferLength < LENGTH_OFFSET) LENGTH_OFFSET - bufferLength
+      else BLOCK_SIZE + LENGTH_OFFSET - bufferLength
+    )
+    padding[0] = 0x80.toByte()
+    update(padding)
+    update(ByteArray(Long.SIZE_BYTES) { (bitLength ushr (Byte.SIZE_BITS * it)).toByte() })
+    return ByteArray(STATE_SIZE * Int.SIZE_BYTES) {
+      (state[it / Int.SIZE_BYTES] ushr (Byte.SIZE_BITS * (it % Int.SIZE_BYTES))).toByte()
+    }.also { reset() }
+  }
+
+  @Suppress("ComplexMethod")
+  private fun transform() {
+    for (i in words.indices) {
+      words[i] = (buffer[i * 4].toInt() and 0xff) or
+        (buffer[i * 4 + 1].toInt() and 0xff shl 8) or
+        (buffer[i * 4 + 2].toInt() and 0xff shl 16) or
+        (buffer[i * 4 + 3].toInt() and 0xff shl 24)
+    }
+    var a = state[0]
+    var b = state[1]
+    var c = state[2]
+    var d = state[3]
+    for (i in 0 until 16 step 4) {
+      a = Integer.rotateLeft(a + f(b, c, d) + words[i], 3)
+      d = Integer.rotateLeft(d + f(a, b, c) + words[i + 1], 7)
+      c = Integer.rotateLeft(c + f(d, a, b) + words[i + 2], 11)
+      b = Integer.rotateLeft(b + f(c, d, a) + words[i + 3], 19)
+    }
+    for (i in 0 until 4) {
+      a = Integer.rotateLeft(a + g(b, c, d) + words[i] + ROUND_2, 3)
+      d = Integer.rotateLeft(d + g(a, b, c) + words[i + 4] + ROUND_2, 5)
+      c = Integer.rotateLeft(c + g(d, a, b) + words[i + 8] + ROUND_2, 9)
+      b = Integer.rotateLeft(b + g(c, d, a) + words[i + 12] + ROUND_2, 13)
+    }
+    for (i in ROUND_3_ORDER) {
+      a = Integer.rotateLeft(a + h(b, c, d) + words[i] + ROUND_3, 3)
+      d = Integer.rotateLeft(d + h(a, b, c) + words[i + 8] + ROUND_3, 9)
+      c = Integer.rotateLeft(c + h(d, a, b) + words[i + 4] + ROUND_3, 11)
+      b = Integer.rotateLeft(b + h(c, d, a) + words[i + 12] + ROUND_3, 15)
+    }
+    state[0] += a
+    state[1] += b
+    state[2] += c
+    state[3] += d
+  }
+
+  private fun f(x: Int, y: Int, z: Int) = (x and y) or (x.inv() and z)
+  private fun g(x: Int, y: Int, z: Int) = (x and y) or (x and z) or (y and z)
+  private fun h(x: Int, y: Int, z: Int) = x xor y xor z
+
+  companion object {
+    private const val STATE_SIZE = 4
+    private const val BLOCK_SIZE = 64
+    private const val WORDS_PER_BLOCK = 16
+    private const val LENGTH_OFFSET = 56
+    private const val ROUND_2 = 0x5a827999
+    private const val ROUND_3 = 0x6ed9eba1
+    private val ROUND_3_ORDER = intArrayOf(0, 2, 1, 3)
+  }
+}
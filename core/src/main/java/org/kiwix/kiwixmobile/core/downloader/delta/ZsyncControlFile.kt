@@ -0,0 +1,113 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.delta
+
+import java.io.DataInputStream
+import java.io.IOException
+import java.io.InputStream
+
+/**
+ * The block map of a file as published by zsyncmake: a text header followed, for every block,
+ * by the low [rsumBytes] bytes of its rolling checksum and the first [checksumBytes] bytes of
+ * its MD4.
+ */
+class ZsyncControlFile(
+  val length: Long,
+  val blockSize: Int,
+  val url: String?,
+  val sha1: String?,
+  val sequenceMatches: Int,
+  val rsumBytes: Int,
+  val checksumBytes: Int,
+  val rsums: IntArray,
+  val checksums: ByteArray
+) {
+  val blockCount get() = rsums.size
+  val rsumMask: Int = if (rsumBytes >= Int.SIZE_BYTES) -1 else (1 shl (rsumBytes * 8)) - 1
+
+  fun startOf(block: Int) = block.toLong() * blockSize
+
+  fun lengthOf(block: Int) = minOf(blockSize.toLong(), length - startOf(block)).toInt()
+
+  fun checksumMatches(block: Int, md4: ByteArray): Boolean {
+    val offset = block * checksumBytes
+    return (0 until checksumBytes).all { checksums[offset + it] == md4[it] }
+  }
+
+  companion object {
+    const val MAX_BLOCKS = 2_000_000
+    private const val MAX_HEADER_LINE = 4096
+
+    @Throws(IOException::class)
+    fun parse(inputStream: InputStream): ZsyncControlFile {
+      val dataInputStream = DataInputStream(inputStream.buffered())
+      val headers = generateSequence { dataInputStream.readHeaderLine() }
+        .takeWhile(String::isNotBlank)
+        .mapNotNull { line ->
+          line.indexOf(':').takeIf { it > 0 }
+            ?.let { line.substring(0, it).trim() to line.substring(it + 1).trim() }
+        }
+        .toMap()
+      val length = headers["Length"]?.toLongOrNull() ?: throw IOException("Missing Length")
+      val blockSize = headers["Blocksize"]?.toIntOrNull()?.takeIf { it > 0 }
+        ?: throw IOException("Missing Blocksize")
+      val (sequenceMatches, rsumBytes, checksumBytes) =
+        (headers["Hash-Lengths"] ?: "1,4,16").split(",").map { it.trim().toInt() }
+      if (sequenceMatches !in 1..2 || rsumBytes !in 1..4 || checksumBytes !in 1..16) {
+        throw IOException("Unsupported Hash-Lengths ${headers["Hash-Lengths"]}")
+      }
+      val blockCount = ((length + blockSize - 1) / blockSize)
+      if (blockCount > MAX_BLOCKS) {
+        throw IOException("$blockCount blocks are too many to match on this device")
+      }
+      val rsums = IntArray(blockCount.toInt())
+      val checksums = ByteArray(rsums.size * checksumBytes)
+      for (block in rsums.indices) {
+        var rsum = 0
+        repeat(rsumBytes) { rsum = (rsum shl 8) or dataInputStream.readUnsignedByte() }
+        rsums[block] = rsum
+        dataInputStream.readFully(checksums, block * checksumBytes, checksumBytes)
+      }
+      return ZsyncControlFile(
+        length,
+        blockSize,
+        headers["URL"],
+        headers["SHA-1"]?.toLowerCase(),
+        sequenceMatches,
+        rsumBytes,
+        checksumBytes,
+        rsums,
+        checksums
+      )
+    }
+
+    private fun DataInputStream.readHeaderLine(): String? {
+      val line = StringBuilder()
+      while (true) {
+        val byte = read()
+        when {
+          byte < 0 -> return if (line.isEmpty()) null else line.toString()
+          byte == '\n'.toInt() -> return line.toString()
+          line.length > MAX_HEADER_LINE -> throw IOException("Not a zsync control file")
+          else -> line.append(byte.toChar())
+        }
+      }
+    }
+  }
+}
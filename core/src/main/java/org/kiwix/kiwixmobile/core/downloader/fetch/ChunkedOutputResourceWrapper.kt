@@ -0,0 +1,48 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.fetch
+
+import com.tonyodev.fetch2core.OutputResourceWrapper
+import org.kiwix.kiwixmobile.core.downloader.ChunkedFile
+
+/**
+ * Writes a download through its [ChunkedFile] so every range lands in the chunk that holds it.
+ */
+class ChunkedOutputResourceWrapper(
+  private val chunkedFile: ChunkedFile
+) : OutputResourceWrapper() {
+  private var writeOffset = 0L
+
+  override fun write(byteArray: ByteArray, offSet: Int, length: Int) {
+    chunkedFile.write(writeOffset, byteArray, offSet, length)
+    writeOffset += length
+  }
+
+  override fun setWriteOffset(offset: Long) {
+    writeOffset = offset
+  }
+
+  override fun flush() {
+    // RandomAccessFile writes are not buffered
+  }
+
+  override fun close() {
+    chunkedFile.close()
+  }
+}
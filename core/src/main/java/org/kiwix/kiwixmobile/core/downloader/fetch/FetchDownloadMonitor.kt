@@ -21,16 +21,46 @@ import com.tonyodev.fetch2.Download
 import com.tonyodev.fetch2.Error
 import com.tonyodev.fetch2.Fetch
 import com.tonyodev.fetch2.FetchListener
+import com.tonyodev.fetch2.Status.COMPLETED
+import com.tonyodev.fetch2.Status.DOWNLOADING
 import com.tonyodev.fetch2core.DownloadBlock
+import io.reactivex.Single
 import io.reactivex.schedulers.Schedulers
 import io.reactivex.subjects.PublishSubject
+import org.kiwix.kiwixmobile.core.dao.DownloadPiecesDao
 import org.kiwix.kiwixmobile.core.dao.FetchDownloadDao
+import org.kiwix.kiwixmobile.core.downloader.ChunkedFile
 import org.kiwix.kiwixmobile.core.downloader.DownloadMonitor
+import org.kiwix.kiwixmobile.core.downloader.model.DownloadUpdateInterval
+import org.kiwix.kiwixmobile.core.downloader.verification.PieceRepairer
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit.MILLISECONDS
 import javax.inject.Inject
 
-class FetchDownloadMonitor @Inject constructor(fetch: Fetch, fetchDownloadDao: FetchDownloadDao) :
-  DownloadMonitor {
-  private val updater = PublishSubject.create<() -> Unit>()
+/**
+ * Persists the state of downloads as Fetch reports it. Progress is coalesced per download and
+ * written once per [DownloadUpdateInterval], every other change is written straight away.
+ *
+ * A completed download is only written once [PieceRepairer] has verified it, which reads the
+ * file and may fetch pieces again. That runs on a thread of its own, one download at a time,
+ * so the updates of every other download are persisted meanwhile.
+ */
+class FetchDownloadMonitor @Inject constructor(
+  fetch: Fetch,
+  private val fetchDownloadDao: FetchDownloadDao,
+  private val pieceRepairer: PieceRepairer,
+  private val downloadPiecesDao: DownloadPiecesDao,
+  private val updateInterval: DownloadUpdateInterval
+) : DownloadMonitor {
+  private val updater = PublishSubject.create<DownloadEvent>().toSerialized()
+  private val verificationScheduler = Schedulers.from(Executors.newSingleThreadExecutor())
+
+  // only touched from the single thread draining updater
+  private val pendingUpdates = LinkedHashMap<Int, Download>()
+  private val corruptDownloadIds = mutableSetOf<Int>()
+  private val verifyingDownloadIds = mutableSetOf<Int>()
+  private var isFlushScheduled = false
+
   private val fetchListener = object : FetchListener {
     override fun onAdded(download: Download) {}
 
@@ -95,18 +125,18 @@ class FetchDownloadMonitor @Inject constructor(fetch: Fetch, fetchDownloadDao: F
     }
 
     private fun update(download: Download) {
-      updater.onNext { fetchDownloadDao.update(download) }
+      updater.onNext(DownloadEvent.Update(download))
     }
 
     private fun delete(download: Download) {
-      updater.onNext { fetchDownloadDao.delete(download) }
+      updater.onNext(DownloadEvent.Delete(download))
     }
   }
 
   init {
     fetch.addListener(fetchListener, true)
-    updater.subscribeOn(Schedulers.io()).observeOn(Schedulers.io()).subscribe(
-      { it.invoke() },
+    updater.observeOn(Schedulers.io()).subscribe(
+      ::handle,
       Throwable::printStackTrace
     )
   }
@@ -114,4 +144,88 @@ class FetchDownloadMonitor @Inject constructor(fetch: Fetch, fetchDownloadDao: F
   override fun init() {
     // empty method to so class does not get reported unused
   }
+
+  private fun handle(event: DownloadEvent) {
+    when (event) {
+      is DownloadEvent.Update -> when (event.download.status) {
+        COMPLETED -> verify(event.download)
+        DOWNLOADING -> {
+          pendingUpdates[event.download.id] = event.download
+          scheduleFlush()
+        }
+        else -> {
+          pendingUpdates[event.download.id] = event.download
+          flush()
+        }
+      }
+      is DownloadEvent.Verified -> {
+        if (verifyingDownloadIds.remove(event.download.id)) {
+          pendingUpdates[event.download.id] = event.download
+          if (!event.isVerified) corruptDownloadIds.add(event.download.id)
+          flush()
+        }
+      }
+      is DownloadEvent.Delete -> {
+        pendingUpdates.remove(event.download.id)
+        verifyingDownloadIds.remove(event.download.id)
+        flush()
+        fetchDownloadDao.delete(event.download)
+        downloadPiecesDao.delete(event.download.file)
+        ChunkedFile.delete(event.download.file)
+      }
+      DownloadEvent.Flush -> {
+        isFlushScheduled = false
+        flush()
+      }
+    }
+  }
+
+  private fun scheduleFlush() {
+    if (!isFlushScheduled) {
+      isFlushScheduled = true
+      Schedulers.io().scheduleDirect(
+        { updater.onNext(DownloadEvent.Flush) },
+        updateInterval.millis,
+        MILLISECONDS
+      )
+    }
+  }
+
+  private fun flush() {
+    if (pendingUpdates.isEmpty()) {
+      return
+    }
+    fetchDownloadDao.update(pendingUpdates.values.toList(), corruptDownloadIds.toSet())
+    pendingUpdates.clear()
+    corruptDownloadIds.clear()
+  }
+
+  /**
+   * Until it is verified a completed download keeps the last progress that was written.
+   */
+  private fun verify(download: Download) {
+    pendingUpdates.remove(download.id)
+    if (!verifyingDownloadIds.add(download.id)) {
+      return
+    }
+    Single.fromCallable { isVerified(download.file) }
+      .subscribeOn(verificationScheduler)
+      .onErrorReturn { throwable ->
+        throwable.printStackTrace()
+        false
+      }
+      .subscribe { isVerified -> updater.onNext(DownloadEvent.Verified(download, isVerified)) }
+  }
+
+  private fun isVerified(file: String) =
+    pieceRepairer.repair(file).also { isVerified ->
+      if (isVerified) ChunkedFile.complete(file) else downloadPiecesDao.evict(file)
+    }
+
+  private sealed class DownloadEvent {
+    data class Update(val download: Download) : DownloadEvent()
+    data class Verified(val download: Download, val isVerified: Boolean) : DownloadEvent()
+    data class Delete(val download: Download) : DownloadEvent()
+    object Flush : DownloadEvent()
+  }
 }
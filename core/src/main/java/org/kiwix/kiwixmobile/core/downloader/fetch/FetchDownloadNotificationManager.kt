@@ -25,23 +25,72 @@ import android.content.Context
 import android.content.Intent
 import android.os.Build
 import android.os.Build.VERSION_CODES
+import android.os.SystemClock
 import androidx.annotation.RequiresApi
 import androidx.core.app.NotificationCompat
 import com.tonyodev.fetch2.DefaultFetchNotificationManager
+import com.tonyodev.fetch2.Download
 import com.tonyodev.fetch2.DownloadNotification
 import com.tonyodev.fetch2.Fetch
+import com.tonyodev.fetch2.Status
+import com.tonyodev.fetch2.Status.DOWNLOADING
 import com.tonyodev.fetch2.util.DEFAULT_NOTIFICATION_TIMEOUT_AFTER_RESET
+import io.reactivex.schedulers.Schedulers
 import org.kiwix.kiwixmobile.core.Intents
 import org.kiwix.kiwixmobile.core.R
 import org.kiwix.kiwixmobile.core.R.string
+import org.kiwix.kiwixmobile.core.downloader.model.DownloadUpdateInterval
 import org.kiwix.kiwixmobile.core.main.CoreMainActivity
+import java.util.concurrent.TimeUnit.MILLISECONDS
 
 const val DOWNLOAD_NOTIFICATION_TITLE = "OPEN_ZIM_FILE"
 
-class FetchDownloadNotificationManager(context: Context) :
-  DefaultFetchNotificationManager(context) {
+class FetchDownloadNotificationManager(
+  context: Context,
+  private val updateInterval: DownloadUpdateInterval
+) : DefaultFetchNotificationManager(context) {
+  // both guarded by lastPostedUpdates
+  private val lastPostedUpdates = mutableMapOf<Int, PostedUpdate>()
+  private val droppedUpdates = mutableMapOf<Int, Download>()
+
   override fun getFetchInstanceForNamespace(namespace: String) = Fetch.getDefaultInstance()
 
+  /**
+   * Progress is posted at most once per [DownloadUpdateInterval]. The latest progress dropped
+   * in between is posted once the interval is over, unless another state replaced it.
+   */
+  override fun postDownloadUpdate(download: Download): Boolean {
+    val now = SystemClock.elapsedRealtime()
+    synchronized(lastPostedUpdates) {
+      val lastPosted = lastPostedUpdates[download.id]
+      if (download.status == DOWNLOADING &&
+        lastPosted?.status == DOWNLOADING &&
+        now - lastPosted.timeMillis < updateInterval.millis
+      ) {
+        if (droppedUpdates.put(download.id, download) == null) {
+          scheduleDroppedUpdate(download.id, lastPosted.timeMillis + updateInterval.millis - now)
+        }
+        return false
+      }
+      droppedUpdates.remove(download.id)
+      if (download.status == DOWNLOADING) {
+        lastPostedUpdates[download.id] = PostedUpdate(download.status, now)
+      } else {
+        lastPostedUpdates.remove(download.id)
+      }
+    }
+    return super.postDownloadUpdate(download)
+  }
+
+  private fun scheduleDroppedUpdate(downloadId: Int, delayMillis: Long) {
+    Schedulers.io().scheduleDirect({ postDroppedUpdate(downloadId) }, delayMillis, MILLISECONDS)
+  }
+
+  private fun postDroppedUpdate(downloadId: Int) {
+    synchronized(lastPostedUpdates) { droppedUpdates.remove(downloadId) }
+      ?.let(::postDownloadUpdate)
+  }
+
   override fun createNotificationChannels(
     context: Context,
     notificationManager: NotificationManager
@@ -132,4 +181,6 @@ class FetchDownloadNotificationManager(context: Context) :
       setSound(null, null)
       enableVibration(false)
     }
+
+  private data class PostedUpdate(val status: Status, val timeMillis: Long)
 }
@@ -21,6 +21,8 @@ import com.tonyodev.fetch2.Fetch
 import com.tonyodev.fetch2.NetworkType.ALL
 import com.tonyodev.fetch2.NetworkType.WIFI_ONLY
 import com.tonyodev.fetch2.Request
+import com.tonyodev.fetch2core.Extras
+import org.kiwix.kiwixmobile.core.dao.DownloadPiecesDao
 import org.kiwix.kiwixmobile.core.downloader.DownloadRequester
 import org.kiwix.kiwixmobile.core.downloader.model.DownloadRequest
 import org.kiwix.kiwixmobile.core.utils.SharedPreferenceUtil
@@ -28,11 +30,15 @@ import javax.inject.Inject
 
 class FetchDownloadRequester @Inject constructor(
   private val fetch: Fetch,
-  private val sharedPreferenceUtil: SharedPreferenceUtil
+  private val sharedPreferenceUtil: SharedPreferenceUtil,
+  private val downloadPiecesDao: DownloadPiecesDao
 ) : DownloadRequester {
 
   override fun enqueue(downloadRequest: DownloadRequest): Long {
     val request = downloadRequest.toFetchRequest(sharedPreferenceUtil)
+    downloadRequest.pieceHashes?.let {
+      downloadPiecesDao.save(request.file, downloadRequest.mirrors, it)
+    }
     fetch.enqueue(request)
     return request.id.toLong()
   }
@@ -46,4 +52,8 @@ private fun DownloadRequest.toFetchRequest(sharedPreferenceUtil: SharedPreferenc
   Request("$uri", getDestination(sharedPreferenceUtil)).apply {
     networkType = if (sharedPreferenceUtil.prefWifiOnly) WIFI_ONLY else ALL
     autoRetryMaxAttempts = 10
+    priority = this@toFetchRequest.priority
+    if (mirrors.size > 1) {
+      extras = Extras(mapOf(MIRRORS_EXTRA to mirrors.toMirrorsExtra()))
+    }
   }
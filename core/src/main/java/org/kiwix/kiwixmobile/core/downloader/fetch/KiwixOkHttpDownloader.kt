@@ -0,0 +1,247 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.fetch
+
+import com.tonyodev.fetch2core.Downloader.FileDownloaderType
+import com.tonyodev.fetch2core.Downloader.FileDownloaderType.PARALLEL
+import com.tonyodev.fetch2core.Downloader.Response
+import com.tonyodev.fetch2core.Downloader.ServerRequest
+import com.tonyodev.fetch2core.InterruptMonitor
+import com.tonyodev.fetch2core.OutputResourceWrapper
+import com.tonyodev.fetch2okhttp.OkHttpDownloader
+import okhttp3.OkHttpClient
+import org.kiwix.kiwixmobile.core.dao.DownloadPiecesDao
+import org.kiwix.kiwixmobile.core.downloader.ChunkUtils.CHUNK_SIZE
+import org.kiwix.kiwixmobile.core.downloader.ChunkedFile
+import org.kiwix.kiwixmobile.core.downloader.MirrorSelector
+import org.kiwix.kiwixmobile.core.downloader.MirrorTracker
+import org.kiwix.kiwixmobile.core.downloader.scheduler.BandwidthLimiter
+import org.kiwix.kiwixmobile.core.utils.files.VolumeCapabilityCache
+import java.io.File
+import java.io.FilterInputStream
+import java.io.IOException
+import java.io.InputStream
+import java.io.InterruptedIOException
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicBoolean
+
+const val MIRRORS_EXTRA = "mirrors"
+private const val MIRROR_SEPARATOR = "\n"
+
+fun List<String>.toMirrorsExtra() = joinToString(MIRROR_SEPARATOR)
+
+/**
+ * Downloads requests that carry more than one mirror in [MIRRORS_EXTRA] in parallel segments,
+ * each segment being served by the mirror [MirrorTracker] considers best at that moment.
+ * A failing or comparatively slow segment is aborted so that Fetch retries its remaining
+ * range, which then lands on a different mirror.
+ *
+ * Every download is written through a [ChunkedFile] that reserves its space before the first
+ * byte arrives and splits it into chunks where the file system needs that. Large downloads are
+ * cut into as many slices as they have chunks so they fill in parallel, but Fetch slices evenly
+ * and not along the chunks, so a slice may write across the end of one chunk into the next.
+ * Downloads with metalink piece hashes are written through [PieceVerifyingOutputResourceWrapper]
+ * so pieces are verified as they land, and every response is read at the pace
+ * [BandwidthLimiter] allows.
+ */
+class KiwixOkHttpDownloader(
+  okHttpClient: OkHttpClient,
+  private val mirrorTracker: MirrorTracker,
+  private val downloadPiecesDao: DownloadPiecesDao,
+  private val bandwidthLimiter: BandwidthLimiter,
+  private val mirrorSelector: MirrorSelector,
+  private val volumeCapabilityCache: VolumeCapabilityCache
+) : OkHttpDownloader(okHttpClient) {
+
+  private val wrappedResponses = ConcurrentHashMap<Response, Response>()
+  private val contentLengths = ConcurrentHashMap<String, Long>()
+
+  override fun getRequestFileDownloaderType(
+    request: ServerRequest,
+    supportedFileDownloaderTypes: Set<FileDownloaderType>
+  ) = if (PARALLEL in supportedFileDownloaderTypes) PARALLEL
+  else super.getRequestFileDownloaderType(request, supportedFileDownloaderTypes)
+
+  override fun getFileSlicingCount(request: ServerRequest, contentLength: Long): Int? {
+    contentLengths[request.file] = contentLength
+    return if (request.mirrors.size > 1) segmentCount(request.mirrors.size, contentLength)
+    else chunkCount(contentLength)
+  }
+
+  override fun getRequestOutputResourceWrapper(request: ServerRequest): OutputResourceWrapper? {
+    val chunkedFile = contentLengths.remove(request.file)
+      ?.takeIf { it > 0L }
+      ?.let { ChunkedFile.create(request.file, it, volumeCapabilitiesOf(request.file)) }
+      ?: ChunkedFile.open(request.file)
+    return downloadPiecesDao.verifierFor(request.file)
+      ?.let { verifier ->
+        PieceVerifyingOutputResourceWrapper(request.file, chunkedFile, verifier, downloadPiecesDao)
+      }
+      ?: ChunkedOutputResourceWrapper(chunkedFile)
+  }
+
+  private fun volumeCapabilitiesOf(file: String) =
+    File(file).parentFile
+      ?.apply { mkdirs() }
+      ?.let { volumeCapabilityCache.capabilitiesOf(it.path) }
+
+  override fun execute(request: ServerRequest, interruptMonitor: InterruptMonitor): Response? {
+    val mirrors = request.mirrors
+    if (mirrors.size < 2) {
+      return super.execute(request, interruptMonitor)
+        ?.wrapStream { DownloadInputStream(it, request.id, request.url, mirrors) }
+    }
+    val mirror = mirrorTracker.acquire(mirrors)
+    val response = try {
+      super.execute(request.copy(url = mirror), interruptMonitor)
+    } catch (ioException: IOException) {
+      mirrorTracker.fail(mirror)
+      throw ioException
+    }
+    if (response?.isSuccessful != true || response.byteStream == null) {
+      mirrorTracker.fail(mirror)
+      return response
+    }
+    return response.wrapStream { DownloadInputStream(it, request.id, mirror, mirrors) }
+  }
+
+  override fun disconnect(response: Response) {
+    (response.byteStream as? DownloadInputStream)?.finish()
+    super.disconnect(wrappedResponses.remove(response) ?: response)
+  }
+
+  private fun Response.wrapStream(wrap: (InputStream) -> DownloadInputStream): Response {
+    val inputStream = byteStream
+    if (!isSuccessful || inputStream == null) {
+      return this
+    }
+    return withStream(wrap(inputStream)).also { wrappedResponses[it] = this }
+  }
+
+  private fun Response.withStream(downloadInputStream: DownloadInputStream) = Response(
+    code,
+    isSuccessful,
+    contentLength,
+    downloadInputStream,
+    request,
+    hash,
+    responseHeaders,
+    acceptsRanges,
+    errorResponse
+  )
+
+  /**
+   * Paces reads through [BandwidthLimiter] and reports the throughput of [url] to
+   * [MirrorSelector], and to [MirrorTracker] when it is one of several mirrors.
+   */
+  private inner class DownloadInputStream(
+    inputStream: InputStream,
+    private val downloadId: Int,
+    private val url: String,
+    private val mirrors: List<String>
+  ) : FilterInputStream(inputStream) {
+    private val isMirrored = mirrors.size > 1
+    private val startTime = System.currentTimeMillis()
+    private val finished = AtomicBoolean(false)
+    private var bytesRead = 0L
+    private var bytesAtLastCheck = 0L
+
+    // once the limiter held it back a stream measures the limit rather than its mirror
+    private var isThrottled = false
+
+    init {
+      bandwidthLimiter.streamOpened(downloadId)
+    }
+
+    override fun read(): Int = guarded { super.read().also { if (it >= 0) onRead(1) } }
+
+    override fun read(b: ByteArray, off: Int, len: Int): Int =
+      guarded { super.read(b, off, len).also { if (it > 0) onRead(it) } }
+
+    override fun close() {
+      finish()
+      super.close()
+    }
+
+    fun finish() {
+      if (finished.compareAndSet(false, true)) {
+        bandwidthLimiter.streamClosed(downloadId)
+        val bytesMeasured = if (isThrottled) 0L else bytesRead
+        mirrorSelector.onTransfer(url, bytesMeasured, elapsed())
+        if (isMirrored) {
+          mirrorTracker.release(url, bytesMeasured, elapsed())
+        }
+      }
+    }
+
+    private fun onRead(count: Int) {
+      bytesRead += count
+      if (bandwidthLimiter.onBytesRead(downloadId, count) > 0L) {
+        isThrottled = true
+      }
+      if (isMirrored && !isThrottled &&
+        bytesRead - bytesAtLastCheck >= SLOW_CHECK_INTERVAL_BYTES
+      ) {
+        bytesAtLastCheck = bytesRead
+        if (mirrorTracker.isTooSlow(url, bytesRead, elapsed(), mirrors)) {
+          throw IOException("Mirror $url is too slow, moving segment to another mirror")
+        }
+      }
+    }
+
+    private inline fun <T> guarded(read: () -> T): T = try {
+      read()
+    } catch (interruptedIOException: InterruptedIOException) {
+      finish()
+      throw interruptedIOException
+    } catch (ioException: IOException) {
+      if (finished.compareAndSet(false, true)) {
+        bandwidthLimiter.streamClosed(downloadId)
+        if (isMirrored) {
+          mirrorTracker.fail(url)
+        }
+      }
+      throw ioException
+    }
+
+    private fun elapsed() = System.currentTimeMillis() - startTime
+  }
+
+  companion object {
+    private const val SEGMENTS_PER_MIRROR = 2
+    private const val MAX_SEGMENTS = 8
+    private const val MIN_SEGMENT_SIZE = 16L * 1024L * 1024L
+    private const val SLOW_CHECK_INTERVAL_BYTES = 4L * 1024L * 1024L
+
+    internal fun segmentCount(mirrorCount: Int, contentLength: Long) =
+      minOf(
+        mirrorCount * SEGMENTS_PER_MIRROR,
+        MAX_SEGMENTS,
+        (contentLength / MIN_SEGMENT_SIZE).coerceAtMost(Int.MAX_VALUE.toLong()).toInt()
+      ).coerceAtLeast(1)
+
+    internal fun chunkCount(contentLength: Long) =
+      ((contentLength + CHUNK_SIZE - 1) / CHUNK_SIZE).toInt().coerceAtLeast(1)
+  }
+}
+
+private val ServerRequest.mirrors: List<String>
+  get() = extras.getString(MIRRORS_EXTRA, "")
+    .split(MIRROR_SEPARATOR)
+    .filter(String::isNotBlank)
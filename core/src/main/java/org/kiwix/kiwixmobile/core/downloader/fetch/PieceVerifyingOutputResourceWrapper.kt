@@ -0,0 +1,66 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.fetch
+
+import com.tonyodev.fetch2core.OutputResourceWrapper
+import org.kiwix.kiwixmobile.core.dao.DownloadPiecesDao
+import org.kiwix.kiwixmobile.core.downloader.ChunkedFile
+import org.kiwix.kiwixmobile.core.downloader.verification.PieceVerifier
+
+/**
+ * Writes a download through its [ChunkedFile] like [ChunkedOutputResourceWrapper] and hands
+ * every written range to the [PieceVerifier], persisting which pieces are verified every few
+ * seconds and on close.
+ */
+class PieceVerifyingOutputResourceWrapper(
+  private val file: String,
+  private val chunkedFile: ChunkedFile,
+  private val pieceVerifier: PieceVerifier,
+  private val downloadPiecesDao: DownloadPiecesDao
+) : OutputResourceWrapper() {
+  private var writeOffset = 0L
+  private var lastPersisted = System.currentTimeMillis()
+
+  override fun write(byteArray: ByteArray, offSet: Int, length: Int) {
+    chunkedFile.write(writeOffset, byteArray, offSet, length)
+    pieceVerifier.onWrite(writeOffset, byteArray, offSet, length)
+    writeOffset += length
+    if (System.currentTimeMillis() - lastPersisted > PERSIST_INTERVAL_MILLIS) {
+      lastPersisted = System.currentTimeMillis()
+      downloadPiecesDao.update(file, pieceVerifier)
+    }
+  }
+
+  override fun setWriteOffset(offset: Long) {
+    writeOffset = offset
+  }
+
+  override fun flush() {
+    // RandomAccessFile writes are not buffered
+  }
+
+  override fun close() {
+    chunkedFile.close()
+    downloadPiecesDao.update(file, pieceVerifier)
+  }
+
+  companion object {
+    private const val PERSIST_INTERVAL_MILLIS = 5_000L
+  }
+}
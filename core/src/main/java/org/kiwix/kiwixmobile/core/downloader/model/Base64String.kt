@@ -21,8 +21,9 @@ package org.kiwix.kiwixmobile.core.downloader.model
 import android.graphics.Bitmap
 import android.graphics.BitmapFactory
 import android.util.Base64
+import java.security.MessageDigest
 
-inline class Base64String(private val encodedString: String?) {
+inline class Base64String(val encodedString: String?) {
   fun toBitmap(): Bitmap? = try {
     encodedString?.let { nonNullString ->
       Base64.decode(nonNullString, Base64.DEFAULT)
@@ -33,4 +34,10 @@ inline class Base64String(private val encodedString: String?) {
   } catch (illegalArgumentException: IllegalArgumentException) {
     null
   }
+
+  fun contentHash(): String? = encodedString?.let {
+    MessageDigest.getInstance("SHA-1")
+      .digest(it.toByteArray())
+      .joinToString("") { byte -> "%02x".format(byte) }
+  }
 }
@@ -18,10 +18,24 @@
 package org.kiwix.kiwixmobile.core.downloader.model
 
 import android.net.Uri
+import com.tonyodev.fetch2.Priority
+import org.kiwix.kiwixmobile.core.downloader.verification.PieceHashes
+import org.kiwix.kiwixmobile.core.entity.MetaLinkNetworkEntity
 import org.kiwix.kiwixmobile.core.utils.SharedPreferenceUtil
 import org.kiwix.kiwixmobile.core.utils.StorageUtils
 
-data class DownloadRequest(val urlString: String) {
+data class DownloadRequest(
+  val urlString: String,
+  val mirrors: List<String> = listOf(urlString),
+  val pieceHashes: PieceHashes? = null,
+  val priority: Priority = Priority.NORMAL
+) {
+
+  constructor(metaLinkNetworkEntity: MetaLinkNetworkEntity) : this(
+    metaLinkNetworkEntity.relevantUrl.value,
+    metaLinkNetworkEntity.urls.sortedBy { it.priority }.map { it.value },
+    PieceHashes.of(metaLinkNetworkEntity.file)
+  )
 
   val uri: Uri get() = Uri.parse(urlString)
 
@@ -0,0 +1,35 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.model
+
+import org.kiwix.kiwixmobile.core.utils.SharedPreferenceUtil
+import javax.inject.Inject
+
+/**
+ * How often download progress is written to the database and to the notification shade.
+ * Progress in between is coalesced so only the latest state is kept; pausing, completing,
+ * failing and cancelling are always delivered straight away.
+ *
+ * The interval is a setting, [millis] reads it every time so a change applies right away.
+ */
+class DownloadUpdateInterval @Inject constructor(
+  private val sharedPreferenceUtil: SharedPreferenceUtil
+) {
+  val millis: Long get() = sharedPreferenceUtil.prefDownloadUpdateInterval.toLong()
+}
@@ -0,0 +1,99 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.scheduler
+
+import org.kiwix.kiwixmobile.core.downloader.scheduler.DownloadPolicy.Companion.UNLIMITED
+import java.io.InterruptedIOException
+import java.util.concurrent.atomic.AtomicLong
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Paces every response stream of every download so that downloads stay within the bandwidth
+ * allowed by [DownloadPolicy], and counts the bytes read so [DownloadScheduler] can measure the
+ * aggregate throughput.
+ */
+@Singleton
+class BandwidthLimiter @Inject constructor() {
+  private val activeDownloads = mutableMapOf<Int, ActiveDownload>()
+  private val bytesTransferred = AtomicLong()
+  @Volatile private var globalBucket: TokenBucket? = null
+  private var perDownloadLimit = UNLIMITED
+
+  val activeDownloadCount: Int get() = synchronized(activeDownloads) { activeDownloads.size }
+
+  fun bytesTransferred() = bytesTransferred.get()
+
+  fun updateLimits(policy: DownloadPolicy, now: Long = System.currentTimeMillis()) {
+    globalBucket = policy.bandwidthLimitBytesPerSecond.toBucket(now)
+    synchronized(activeDownloads) {
+      perDownloadLimit = policy.perDownloadLimitBytesPerSecond
+      activeDownloads.values.forEach { it.bucket = perDownloadLimit.toBucket(now) }
+    }
+  }
+
+  fun streamOpened(downloadId: Int) {
+    synchronized(activeDownloads) {
+      val activeDownload = activeDownloads[downloadId]
+        ?: ActiveDownload(perDownloadLimit.toBucket(System.currentTimeMillis()))
+          .also { activeDownloads[downloadId] = it }
+      activeDownload.streams++
+    }
+  }
+
+  fun streamClosed(downloadId: Int) {
+    synchronized(activeDownloads) {
+      activeDownloads[downloadId]?.let {
+        it.streams--
+        if (it.streams <= 0) {
+          activeDownloads.remove(downloadId)
+        }
+      }
+    }
+  }
+
+  /**
+   * @return how long the read was held back for, in milliseconds
+   */
+  @Throws(InterruptedIOException::class)
+  fun onBytesRead(downloadId: Int, bytes: Int): Long {
+    bytesTransferred.addAndGet(bytes.toLong())
+    val now = System.currentTimeMillis()
+    val downloadBucket = synchronized(activeDownloads) { activeDownloads[downloadId]?.bucket }
+    val wait = maxOf(
+      globalBucket?.reserve(bytes, now) ?: 0L,
+      downloadBucket?.reserve(bytes, now) ?: 0L
+    )
+    if (wait > 0) {
+      try {
+        Thread.sleep(wait)
+      } catch (interruptedException: InterruptedException) {
+        Thread.currentThread().interrupt()
+        throw InterruptedIOException("Interrupted while limiting download $downloadId")
+      }
+    }
+    return wait
+  }
+
+  private fun Long.toBucket(now: Long) = if (this == UNLIMITED) null else TokenBucket(this, now)
+
+  private class ActiveDownload(var bucket: TokenBucket?) {
+    var streams = 0
+  }
+}
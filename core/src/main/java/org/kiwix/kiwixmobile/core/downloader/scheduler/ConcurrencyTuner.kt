@@ -0,0 +1,64 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.scheduler
+
+/**
+ * Finds the number of parallel downloads a link actually benefits from. While every slot is
+ * taken one more download is allowed; if that does not raise the aggregate throughput by
+ * [MIN_GAIN] it is taken back and probing pauses for [HOLD_SAMPLES] samples, so a slow link
+ * settles on few streams instead of thrashing between many.
+ */
+internal class ConcurrencyTuner(
+  private val minLimit: Int = 1,
+  private val maxLimit: Int = DEFAULT_MAX_CONCURRENCY,
+  initialLimit: Int = DEFAULT_INITIAL_CONCURRENCY
+) {
+  var limit = initialLimit.coerceIn(minLimit, maxLimit)
+    private set
+  private var lastBytesPerSecond = 0L
+  private var justProbed = false
+  private var holdSamples = 0
+
+  fun onSample(bytesPerSecond: Long, activeDownloads: Int): Int {
+    val previousBytesPerSecond = lastBytesPerSecond
+    lastBytesPerSecond = bytesPerSecond
+    when {
+      justProbed -> {
+        justProbed = false
+        if (bytesPerSecond < previousBytesPerSecond * MIN_GAIN) {
+          limit = (limit - 1).coerceAtLeast(minLimit)
+          holdSamples = HOLD_SAMPLES
+        }
+      }
+      holdSamples > 0 -> holdSamples--
+      activeDownloads >= limit && limit < maxLimit && bytesPerSecond > 0 -> {
+        limit++
+        justProbed = true
+      }
+    }
+    return limit
+  }
+
+  companion object {
+    const val DEFAULT_MAX_CONCURRENCY = 5
+    const val DEFAULT_INITIAL_CONCURRENCY = 2
+    private const val MIN_GAIN = 1.1
+    private const val HOLD_SAMPLES = 8
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.scheduler
+
+import com.tonyodev.fetch2.Status.DOWNLOADING
+import org.kiwix.kiwixmobile.core.downloader.model.DownloadModel
+
+/**
+ * Fetch estimates every download as if its current rate would last, but running downloads share
+ * one link and whenever one finishes the others speed up. Treating the aggregate rate as shared
+ * evenly between the running downloads gives an estimate that accounts for that.
+ */
+object DownloadEtaEstimator {
+  fun estimate(downloads: List<DownloadModel>): List<DownloadModel> {
+    val running = downloads.filter {
+      it.state == DOWNLOADING && it.bytesRemaining > 0 && it.etaInMilliSeconds > 0
+    }
+    if (running.size < 2) {
+      return downloads
+    }
+    val aggregateBytesPerMilli =
+      running.sumByDouble { it.bytesRemaining.toDouble() / it.etaInMilliSeconds }
+    var elapsedMillis = 0.0
+    var finishedBytes = 0L
+    var remainingDownloads = running.size
+    val etas = running.sortedBy(DownloadModel::bytesRemaining).associate {
+      elapsedMillis +=
+        (it.bytesRemaining - finishedBytes) * remainingDownloads / aggregateBytesPerMilli
+      finishedBytes = it.bytesRemaining
+      remainingDownloads--
+      it.downloadId to elapsedMillis.toLong()
+    }
+    return downloads.map { download ->
+      etas[download.downloadId]?.let { download.copy(etaInMilliSeconds = it) } ?: download
+    }
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.scheduler
+
+import org.kiwix.kiwixmobile.core.utils.SharedPreferenceUtil
+import org.kiwix.kiwixmobile.core.utils.SharedPreferenceUtil.NO_DOWNLOAD_LIMIT
+import org.kiwix.kiwixmobile.core.utils.SharedPreferenceUtil.NO_DOWNLOAD_WINDOW
+
+data class DownloadPolicy(
+  val bandwidthLimitBytesPerSecond: Long = UNLIMITED,
+  val perDownloadLimitBytesPerSecond: Long = UNLIMITED,
+  val windowStartHour: Int = NO_DOWNLOAD_WINDOW,
+  val windowEndHour: Int = NO_DOWNLOAD_WINDOW,
+  val unmeteredOnly: Boolean = false
+) {
+  constructor(sharedPreferenceUtil: SharedPreferenceUtil) : this(
+    sharedPreferenceUtil.prefDownloadBandwidthLimit.kilobytesToBytes(),
+    sharedPreferenceUtil.prefDownloadRateLimit.kilobytesToBytes(),
+    sharedPreferenceUtil.prefDownloadWindowStart,
+    sharedPreferenceUtil.prefDownloadWindowEnd,
+    sharedPreferenceUtil.prefUnmeteredDownloadsOnly
+  )
+
+  /**
+   * A window may wrap around midnight, 22 to 6 allows downloading at night only.
+   */
+  fun allowsDownloadingAt(hourOfDay: Int) = when {
+    windowStartHour == NO_DOWNLOAD_WINDOW ||
+      windowEndHour == NO_DOWNLOAD_WINDOW ||
+      windowStartHour == windowEndHour -> true
+    windowStartHour < windowEndHour -> hourOfDay in windowStartHour until windowEndHour
+    else -> hourOfDay >= windowStartHour || hourOfDay < windowEndHour
+  }
+
+  companion object {
+    const val UNLIMITED = 0L
+  }
+}
+
+private fun Int.kilobytesToBytes() =
+  if (this <= NO_DOWNLOAD_LIMIT) DownloadPolicy.UNLIMITED else this * 1024L
@@ -0,0 +1,116 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.scheduler
+
+import android.net.ConnectivityManager
+import android.net.ConnectivityManager.TYPE_WIFI
+import com.tonyodev.fetch2.Fetch
+import com.tonyodev.fetch2.NetworkType.GLOBAL_OFF
+import com.tonyodev.fetch2.NetworkType.UNMETERED
+import io.reactivex.Observable
+import io.reactivex.disposables.Disposable
+import io.reactivex.schedulers.Schedulers
+import org.kiwix.kiwixmobile.core.downloader.DownloadRequester
+import org.kiwix.kiwixmobile.core.downloader.delta.DeltaUpdateQueue
+import org.kiwix.kiwixmobile.core.downloader.model.DownloadRequest
+import org.kiwix.kiwixmobile.core.utils.SharedPreferenceUtil
+import java.util.Calendar
+import java.util.concurrent.TimeUnit.SECONDS
+
+/**
+ * Sits in front of the Fetch backed [DownloadRequester] and keeps Fetch in line with the user's
+ * [DownloadPolicy]: bandwidth limits are enforced by [BandwidthLimiter], downloads are frozen
+ * outside of the allowed time window or held back on metered networks, and the number of
+ * parallel downloads follows what the link can actually sustain.
+ */
+class DownloadScheduler(
+  private val downloadRequester: DownloadRequester,
+  private val fetch: Fetch,
+  private val sharedPreferenceUtil: SharedPreferenceUtil,
+  private val bandwidthLimiter: BandwidthLimiter,
+  private val connectivityManager: ConnectivityManager,
+  private val deltaUpdateQueue: DeltaUpdateQueue
+) : DownloadRequester {
+  private val concurrencyTuner = ConcurrencyTuner()
+  private var policy: DownloadPolicy? = null
+  private var isFrozen = false
+  private var lastBytesTransferred = 0L
+  private var ticks: Disposable? = null
+
+  fun start() {
+    if (ticks == null) {
+      fetch.setDownloadConcurrentLimit(concurrencyTuner.limit)
+      lastBytesTransferred = bandwidthLimiter.bytesTransferred()
+      ticks = Observable.interval(0L, TICK_SECONDS, SECONDS, Schedulers.io())
+        .subscribe({ tick() }, Throwable::printStackTrace)
+    }
+  }
+
+  override fun enqueue(downloadRequest: DownloadRequest) =
+    downloadRequester.enqueue(downloadRequest)
+
+  override fun cancel(downloadId: Long) {
+    downloadRequester.cancel(downloadId)
+  }
+
+  private fun tick() {
+    val currentPolicy = DownloadPolicy(sharedPreferenceUtil)
+    if (currentPolicy != policy) {
+      bandwidthLimiter.updateLimits(currentPolicy)
+      fetch.setGlobalNetworkType(if (currentPolicy.unmeteredOnly) UNMETERED else GLOBAL_OFF)
+      policy = currentPolicy
+    }
+    val shouldFreeze =
+      !currentPolicy.allowsDownloadingAt(Calendar.getInstance().get(Calendar.HOUR_OF_DAY))
+    if (shouldFreeze != isFrozen) {
+      if (shouldFreeze) fetch.freeze() else fetch.unfreeze()
+      isFrozen = shouldFreeze
+    }
+    deltaUpdateQueue.onPolicyChecked(!shouldFreeze && networkAllowsUpdating(currentPolicy))
+    tuneConcurrency()
+  }
+
+  /**
+   * Fetch holds its own downloads back on the wrong network, delta updates are held back here.
+   */
+  private fun networkAllowsUpdating(policy: DownloadPolicy): Boolean {
+    val network = connectivityManager.activeNetworkInfo
+    return when {
+      network == null || !network.isConnected -> false
+      sharedPreferenceUtil.prefWifiOnly && network.type != TYPE_WIFI -> false
+      else -> !policy.unmeteredOnly || !connectivityManager.isActiveNetworkMetered
+    }
+  }
+
+  private fun tuneConcurrency() {
+    val bytesTransferred = bandwidthLimiter.bytesTransferred()
+    val bytesPerSecond = (bytesTransferred - lastBytesTransferred) / TICK_SECONDS
+    lastBytesTransferred = bytesTransferred
+    val limit = concurrencyTuner.limit
+    if (!isFrozen &&
+      concurrencyTuner.onSample(bytesPerSecond, bandwidthLimiter.activeDownloadCount) != limit
+    ) {
+      fetch.setDownloadConcurrentLimit(concurrencyTuner.limit)
+    }
+  }
+
+  companion object {
+    private const val TICK_SECONDS = 15L
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.scheduler
+
+import kotlin.math.ceil
+
+/**
+ * Allows one second worth of burst, beyond that readers go into debt and are told how long to
+ * wait for it to be paid back.
+ */
+internal class TokenBucket(private val bytesPerSecond: Long, nowMillis: Long) {
+  private var tokens = bytesPerSecond.toDouble()
+  private var lastRefillMillis = nowMillis
+
+  @Synchronized
+  fun reserve(bytes: Int, nowMillis: Long): Long {
+    if (nowMillis > lastRefillMillis) {
+      tokens = minOf(
+        bytesPerSecond.toDouble(),
+        tokens + (nowMillis - lastRefillMillis) * bytesPerSecond / MILLIS_PER_SECOND
+      )
+      lastRefillMillis = nowMillis
+    }
+    tokens -= bytes
+    return if (tokens >= 0) 0L else ceil(-tokens * MILLIS_PER_SECOND / bytesPerSecond).toLong()
+  }
+
+  companion object {
+    private const val MILLIS_PER_SECOND = 1000.0
+  }
+}
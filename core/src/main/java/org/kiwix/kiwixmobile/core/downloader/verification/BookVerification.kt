@@ -0,0 +1,45 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.verification
+
+sealed class BookVerification {
+  data class InProgress(
+    val bytesHashed: Long,
+    val totalBytes: Long,
+    val bytesPerSecond: Long
+  ) : BookVerification() {
+    val progress get() = if (totalBytes == 0L) 0 else (bytesHashed * 100 / totalBytes).toInt()
+  }
+
+  object Verified : BookVerification()
+
+  /**
+   * The parts on disk do not add up to the size the metalink gives for the book.
+   */
+  object WrongSize : BookVerification()
+
+  data class Corrupt(val corruptPieces: Int, val pieceCount: Int) : BookVerification()
+
+  /**
+   * Neither the book nor its catalog entry lead to a metalink with hashes to check against.
+   */
+  object NoHashAvailable : BookVerification()
+
+  override fun toString(): String = javaClass.simpleName
+}
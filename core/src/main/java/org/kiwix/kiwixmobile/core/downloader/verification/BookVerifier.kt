@@ -0,0 +1,187 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.verification
+
+import io.reactivex.Flowable
+import io.reactivex.Maybe
+import io.reactivex.Single
+import io.reactivex.schedulers.Schedulers
+import org.kiwix.kiwixmobile.core.dao.VerifiedBookDao
+import org.kiwix.kiwixmobile.core.data.remote.KiwixService
+import org.kiwix.kiwixmobile.core.downloader.verification.BookVerification.Corrupt
+import org.kiwix.kiwixmobile.core.downloader.verification.BookVerification.InProgress
+import org.kiwix.kiwixmobile.core.downloader.verification.BookVerification.NoHashAvailable
+import org.kiwix.kiwixmobile.core.downloader.verification.BookVerification.Verified
+import org.kiwix.kiwixmobile.core.downloader.verification.BookVerification.WrongSize
+import org.kiwix.kiwixmobile.core.entity.LibraryNetworkEntity.Book
+import org.kiwix.kiwixmobile.core.entity.MetaLinkNetworkEntity.FileElement
+import org.kiwix.kiwixmobile.core.utils.files.FileUtils
+import org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.adapter.BooksOnDiskListItem.BookOnDisk
+import java.io.Closeable
+import java.io.File
+import java.io.RandomAccessFile
+import java.util.concurrent.TimeUnit.MILLISECONDS
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
+import javax.inject.Inject
+
+/**
+ * Checks a book already on disk, however it got there, against the hashes of its metalink.
+ * The pieces are split into one contiguous run per core and every run is hashed on its own
+ * thread with large sequential reads across the book's parts. A book that verified is
+ * remembered by path, size and modification time so it is not hashed again.
+ *
+ * Cancelling the returned [Flowable] stops hashing after the read in flight.
+ */
+class BookVerifier @Inject constructor(
+  private val kiwixService: KiwixService,
+  private val verifiedBookDao: VerifiedBookDao
+) {
+
+  fun verify(bookOnDisk: BookOnDisk): Flowable<BookVerification> =
+    Single.fromCallable { FileUtils.getAllZimParts(bookOnDisk.file) }
+      .flatMapPublisher { parts ->
+        if (verifiedBookDao.isVerified(parts)) Flowable.just<BookVerification>(Verified)
+        else pieceHashesFor(bookOnDisk.book)
+          .toFlowable()
+          .flatMap { verify(parts, it) }
+          .defaultIfEmpty(NoHashAvailable)
+      }
+      .subscribeOn(Schedulers.io())
+
+  private fun verify(parts: List<File>, pieceHashes: PieceHashes): Flowable<BookVerification> {
+    if (parts.fold(0L) { sum, part -> sum + part.length() } != pieceHashes.fileSize) {
+      return Flowable.just(WrongSize)
+    }
+    val bytesHashed = AtomicLong()
+    val cancelled = AtomicBoolean()
+    val startTime = System.currentTimeMillis()
+    val result = Flowable.fromIterable(runsOf(pieceHashes))
+      .parallel(THREADS)
+      .runOn(Schedulers.io())
+      .map { run -> corruptPiecesIn(parts, pieceHashes, run, bytesHashed, cancelled) }
+      .sequential()
+      .reduce(0, Int::plus)
+      .map { corruptPieces ->
+        if (corruptPieces == 0) Verified.also { verifiedBookDao.markVerified(parts) }
+        else Corrupt(corruptPieces, pieceHashes.count)
+      }
+      .toFlowable()
+    return result.publish { verification ->
+      Flowable.merge<BookVerification>(
+        Flowable.interval(PROGRESS_INTERVAL_MILLIS, MILLISECONDS)
+          .map {
+            val elapsed = (System.currentTimeMillis() - startTime).coerceAtLeast(1L)
+            InProgress(bytesHashed.get(), pieceHashes.fileSize, bytesHashed.get() * 1000 / elapsed)
+          }
+          .takeUntil(verification),
+        verification
+      )
+    }.doOnCancel { cancelled.set(true) }
+  }
+
+  private fun runsOf(pieceHashes: PieceHashes): List<IntRange> {
+    val runLength = (pieceHashes.count + THREADS - 1) / THREADS
+    return (0 until pieceHashes.count step runLength.coerceAtLeast(1))
+      .map { it until minOf(it + runLength, pieceHashes.count) }
+  }
+
+  private fun corruptPiecesIn(
+    parts: List<File>,
+    pieceHashes: PieceHashes,
+    run: IntRange,
+    bytesHashed: AtomicLong,
+    cancelled: AtomicBoolean
+  ) = SplitFile(parts).use { splitFile ->
+    val digest = pieceHashes.newDigest()
+    val buffer = ByteArray(READ_BUFFER_SIZE)
+    run.count { piece ->
+      var position = pieceHashes.startOf(piece)
+      while (position < pieceHashes.endOf(piece) && !cancelled.get()) {
+        val length = minOf(buffer.size.toLong(), pieceHashes.endOf(piece) - position).toInt()
+        splitFile.readFully(position, buffer, length)
+        digest.update(buffer, 0, length)
+        position += length
+        bytesHashed.addAndGet(length.toLong())
+      }
+      !pieceHashes.matches(piece, digest.digest())
+    }
+  }
+
+  private fun pieceHashesFor(book: Book): Maybe<PieceHashes> =
+    metaLinkUrlOf(book)
+      .flatMap { kiwixService.getMetaLinks(it).firstElement() }
+      .flatMap { Maybe.fromCallable { pieceHashesOf(it.file) } }
+      .onErrorComplete()
+
+  private fun metaLinkUrlOf(book: Book): Maybe<String> =
+    if (book.url?.endsWith(META_LINK_EXTENSION) == true) Maybe.just(book.url)
+    else kiwixService.library.flatMapMaybe { library ->
+      Maybe.fromCallable {
+        library.books.firstOrNull { it.id == book.id }
+          ?.url
+          ?.takeIf { it.endsWith(META_LINK_EXTENSION) }
+      }
+    }
+
+  /**
+   * A metalink without pieces but with a whole-file hash is checked as a single piece.
+   */
+  private fun pieceHashesOf(fileElement: FileElement): PieceHashes? =
+    if (fileElement.pieces != null) PieceHashes(fileElement)
+    else fileElement.hashes?.get(FILE_HASH_TYPE)
+      ?.let { PieceHashes(fileElement.size, fileElement.size, FILE_HASH_TYPE, listOf(it)) }
+
+  /**
+   * Reads the parts of a split book as one file.
+   */
+  private class SplitFile(parts: List<File>) : Closeable {
+    private val files = parts.map { RandomAccessFile(it, "r") }
+    private val starts = LongArray(parts.size).also { starts ->
+      for (i in 1 until parts.size) {
+        starts[i] = starts[i - 1] + parts[i - 1].length()
+      }
+    }
+
+    fun readFully(position: Long, buffer: ByteArray, length: Int) {
+      var done = 0
+      while (done < length) {
+        val index = starts.indexOfLast { it <= position + done }
+        val file = files[index]
+        val positionInPart = position + done - starts[index]
+        val count = minOf((length - done).toLong(), file.length() - positionInPart).toInt()
+        file.seek(positionInPart)
+        file.readFully(buffer, done, count)
+        done += count
+      }
+    }
+
+    override fun close() {
+      files.forEach(RandomAccessFile::close)
+    }
+  }
+
+  companion object {
+    private val THREADS = Runtime.getRuntime().availableProcessors().coerceAtLeast(1)
+    private const val READ_BUFFER_SIZE = 4 * 1024 * 1024
+    private const val PROGRESS_INTERVAL_MILLIS = 500L
+    private const val META_LINK_EXTENSION = ".meta4"
+    private const val FILE_HASH_TYPE = "sha-256"
+  }
+}
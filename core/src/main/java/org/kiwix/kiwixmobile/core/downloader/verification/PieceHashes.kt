@@ -0,0 +1,80 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.verification
+
+import org.kiwix.kiwixmobile.core.entity.MetaLinkNetworkEntity.FileElement
+import java.security.MessageDigest
+import java.util.Locale
+
+/**
+ * The hashes a metalink gives for the pieces of a file and, as [fileHash], for the file as a
+ * whole. A metalink with only a whole-file hash has no pieces.
+ */
+data class PieceHashes(
+  val fileSize: Long,
+  val pieceLength: Long,
+  val hashType: String,
+  val hashes: List<String>,
+  val fileHash: String? = null
+) {
+  val count get() = hashes.size
+
+  constructor(fileElement: FileElement) : this(
+    fileElement.size,
+    fileElement.pieceLength.toLong(),
+    fileElement.pieceHashType,
+    fileElement.pieceHashes,
+    fileElement.hashes?.get(FILE_HASH_TYPE)
+  )
+
+  fun startOf(piece: Int) = piece * pieceLength
+
+  fun endOf(piece: Int) = minOf(startOf(piece) + pieceLength, fileSize)
+
+  fun lengthOf(piece: Int) = endOf(piece) - startOf(piece)
+
+  fun pieceAt(offset: Long) = (offset / pieceLength).toInt()
+
+  fun newDigest(): MessageDigest = messageDigestFor(hashType)
+
+  fun matches(piece: Int, digest: ByteArray) =
+    hashes[piece].equals(digest.toHexString(), ignoreCase = true)
+
+  fun matchesFile(digest: ByteArray) = fileHash.equals(digest.toHexString(), ignoreCase = true)
+
+  companion object {
+    // the only whole-file digest Sha256 can stream across restarts
+    private const val FILE_HASH_TYPE = "sha-256"
+
+    fun of(fileElement: FileElement): PieceHashes? {
+      val fileHash = fileElement.hashes?.get(FILE_HASH_TYPE)
+      return when {
+        fileElement.pieces != null -> PieceHashes(fileElement)
+        fileHash != null ->
+          PieceHashes(fileElement.size, fileElement.size, FILE_HASH_TYPE, emptyList(), fileHash)
+        else -> null
+      }
+    }
+  }
+}
+
+fun messageDigestFor(metaLinkHashType: String): MessageDigest =
+  MessageDigest.getInstance(metaLinkHashType.toUpperCase(Locale.ROOT))
+
+fun ByteArray.toHexString() = joinToString("") { "%02x".format(it) }
@@ -0,0 +1,144 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.verification
+
+import android.util.Log
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import org.kiwix.kiwixmobile.core.dao.DownloadPiecesDao
+import org.kiwix.kiwixmobile.core.downloader.ChunkedFile
+import org.kiwix.kiwixmobile.core.downloader.MirrorTracker
+import java.io.IOException
+import javax.inject.Inject
+
+/**
+ * Completes piece verification of a finished download: pieces that could not be hashed while
+ * streaming are checked once on disk and pieces that failed are fetched again on their own.
+ * The whole-file hash is checked last; should it not match although every piece did, the file
+ * changed on disk after it was written, so every piece is checked again and repaired.
+ */
+class PieceRepairer @Inject constructor(
+  private val okHttpClient: OkHttpClient,
+  private val downloadPiecesDao: DownloadPiecesDao,
+  private val mirrorTracker: MirrorTracker
+) {
+
+  /**
+   * @return true if every piece of [file] and the file as a whole are verified, or the download
+   * has no metalink hashes
+   */
+  fun repair(file: String): Boolean {
+    val pieceVerifier = downloadPiecesDao.verifierFor(file) ?: return true
+    val mirrors = downloadPiecesDao.mirrorsFor(file)
+    val isVerified = ChunkedFile.open(file).use { chunkedFile ->
+      repairPieces(chunkedFile, pieceVerifier, pieceVerifier.unverifiedPieces, mirrors)
+      pieceVerifier.isComplete &&
+        (pieceVerifier.fileHashMatches(chunkedFile) ||
+          repairAllPieces(file, chunkedFile, pieceVerifier, mirrors))
+    }
+    downloadPiecesDao.update(file, pieceVerifier)
+    return isVerified.also { if (it) downloadPiecesDao.delete(file) }
+  }
+
+  private fun repairAllPieces(
+    file: String,
+    chunkedFile: ChunkedFile,
+    pieceVerifier: PieceVerifier,
+    mirrors: List<String>
+  ): Boolean {
+    Log.w(TAG, "$file does not match its file hash, checking every piece on disk")
+    pieceVerifier.resetFileHash()
+    repairPieces(chunkedFile, pieceVerifier, (0 until pieceVerifier.pieceHashes.count), mirrors)
+    return pieceVerifier.isComplete && pieceVerifier.fileHashMatches(chunkedFile)
+  }
+
+  private fun repairPieces(
+    chunkedFile: ChunkedFile,
+    pieceVerifier: PieceVerifier,
+    pieces: Iterable<Int>,
+    mirrors: List<String>
+  ) {
+    pieces.forEach { piece ->
+      if (!pieceVerifier.failed[piece]) {
+        pieceVerifier.onPieceChecked(piece, isValidOnDisk(chunkedFile, pieceVerifier, piece))
+      }
+      var attempt = 0
+      while (pieceVerifier.failed[piece] && mirrors.isNotEmpty() && attempt++ < MAX_ATTEMPTS) {
+        refetch(chunkedFile, pieceVerifier, piece, mirrors)
+      }
+    }
+  }
+
+  private fun isValidOnDisk(
+    chunkedFile: ChunkedFile,
+    pieceVerifier: PieceVerifier,
+    piece: Int
+  ): Boolean {
+    val pieceHashes = pieceVerifier.pieceHashes
+    if (chunkedFile.length < pieceHashes.endOf(piece)) {
+      return false
+    }
+    val bytes = ByteArray(pieceHashes.lengthOf(piece).toInt())
+    chunkedFile.readFully(pieceHashes.startOf(piece), bytes)
+    return pieceHashes.matches(piece, pieceHashes.newDigest().digest(bytes))
+  }
+
+  private fun refetch(
+    chunkedFile: ChunkedFile,
+    pieceVerifier: PieceVerifier,
+    piece: Int,
+    mirrors: List<String>
+  ) {
+    val pieceHashes = pieceVerifier.pieceHashes
+    val mirror = mirrorTracker.acquire(mirrors)
+    val startTime = System.currentTimeMillis()
+    try {
+      val bytes = download(mirror, pieceHashes.startOf(piece), pieceHashes.endOf(piece) - 1)
+      val matches = bytes.size.toLong() == pieceHashes.lengthOf(piece) &&
+        pieceHashes.matches(piece, pieceHashes.newDigest().digest(bytes))
+      if (matches) {
+        chunkedFile.write(pieceHashes.startOf(piece), bytes, 0, bytes.size)
+        pieceVerifier.onPieceRewritten(piece)
+        mirrorTracker.release(mirror, bytes.size.toLong(), System.currentTimeMillis() - startTime)
+      } else {
+        mirrorTracker.fail(mirror)
+      }
+      pieceVerifier.onPieceChecked(piece, matches)
+    } catch (ioException: IOException) {
+      Log.e(TAG, "Could not fetch piece $piece from $mirror", ioException)
+      mirrorTracker.fail(mirror)
+    }
+  }
+
+  private fun download(mirror: String, firstByte: Long, lastByte: Long): ByteArray =
+    okHttpClient.newCall(
+      Request.Builder().url(mirror).header("Range", "bytes=$firstByte-$lastByte").build()
+    ).execute().use { response ->
+      if (response.code() != HTTP_PARTIAL_CONTENT) {
+        throw IOException("$mirror answered ${response.code()} to a range request")
+      }
+      response.body()?.bytes() ?: ByteArray(0)
+    }
+
+  companion object {
+    private const val TAG = "PieceRepairer"
+    private const val MAX_ATTEMPTS = 3
+    private const val HTTP_PARTIAL_CONTENT = 206
+  }
+}
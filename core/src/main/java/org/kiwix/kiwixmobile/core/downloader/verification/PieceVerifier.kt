@@ -0,0 +1,152 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.verification
+
+import org.kiwix.kiwixmobile.core.downloader.ChunkedFile
+import java.security.MessageDigest
+import java.util.BitSet
+
+/**
+ * Hashes every piece of a metalink download while it is being written, so pieces are checked
+ * without reading them back. Writes may interleave between pieces, as with segmented downloads.
+ * A piece that is not written front to back in one go, because a segment or a resumed download
+ * starts inside it, cannot be streamed and is left for [PieceRepairer] to check once on disk.
+ *
+ * When the metalink has a whole-file hash the file is hashed as well, from its first byte on
+ * for as long as writes continue where the hash has got to. Its state is part of what gets
+ * persisted, so only what was written ahead of it has to be read back when the download ends.
+ * SHA-256 cannot be resumed from the middle of a file, so for a download written in parallel
+ * slices that is everything after the first slice.
+ */
+class PieceVerifier(
+  val pieceHashes: PieceHashes,
+  val verified: BitSet = BitSet(pieceHashes.count),
+  val failed: BitSet = BitSet(pieceHashes.count),
+  fileHashState: ByteArray = ByteArray(0)
+) {
+  private val piecesInProgress = mutableMapOf<Int, PieceInProgress>()
+  private val fileHash = pieceHashes.fileHash?.let { Sha256(fileHashState) }
+
+  val isComplete @Synchronized get() = verified.cardinality() == pieceHashes.count
+
+  val unverifiedPieces: List<Int>
+    @Synchronized get() = (0 until pieceHashes.count).filterNot(verified::get)
+
+  @Synchronized
+  fun onWrite(offset: Long, bytes: ByteArray, start: Int, length: Int) {
+    fileHash?.let { hashFile(it, offset, bytes, start, length) }
+    if (pieceHashes.count == 0) return
+    var position = offset
+    var index = start
+    val end = start + length
+    while (index < end && position < pieceHashes.fileSize) {
+      val piece = pieceHashes.pieceAt(position)
+      val bytesInPiece = minOf(pieceHashes.endOf(piece) - position, (end - index).toLong()).toInt()
+      if (!verified[piece]) {
+        hash(piece, position, bytes, index, bytesInPiece)
+      }
+      position += bytesInPiece
+      index += bytesInPiece
+    }
+  }
+
+  @Synchronized
+  fun onPieceChecked(piece: Int, matches: Boolean) {
+    piecesInProgress.remove(piece)
+    verified[piece] = matches
+    failed[piece] = !matches
+  }
+
+  /**
+   * A rewritten piece invalidates the whole-file hash if the hash has already covered it.
+   */
+  @Synchronized
+  fun onPieceRewritten(piece: Int) {
+    if (fileHash != null && fileHash.byteCount > pieceHashes.startOf(piece)) {
+      fileHash.reset()
+    }
+  }
+
+  /**
+   * @return true if [chunkedFile] matches the whole-file hash or the metalink has none
+   */
+  @Synchronized
+  fun fileHashMatches(chunkedFile: ChunkedFile): Boolean {
+    val fileHash = fileHash ?: return true
+    val buffer = ByteArray(READ_BUFFER_SIZE)
+    while (fileHash.byteCount < pieceHashes.fileSize) {
+      val length = minOf(buffer.size.toLong(), pieceHashes.fileSize - fileHash.byteCount).toInt()
+      val bytes = if (length == buffer.size) buffer else ByteArray(length)
+      chunkedFile.readFully(fileHash.byteCount, bytes)
+      fileHash.update(bytes)
+    }
+    return pieceHashes.matchesFile(fileHash.digest())
+  }
+
+  @Synchronized
+  fun resetFileHash() {
+    fileHash?.reset()
+  }
+
+  @Synchronized
+  fun snapshot() = Snapshot(
+    verified.clone() as BitSet,
+    failed.clone() as BitSet,
+    fileHash?.state() ?: ByteArray(0)
+  )
+
+  private fun hashFile(fileHash: Sha256, offset: Long, bytes: ByteArray, start: Int, length: Int) {
+    val alreadyHashed = fileHash.byteCount - offset
+    if (alreadyHashed in 0 until length) {
+      fileHash.update(bytes, start + alreadyHashed.toInt(), length - alreadyHashed.toInt())
+    }
+  }
+
+  private fun hash(piece: Int, position: Long, bytes: ByteArray, index: Int, length: Int) {
+    if (position == pieceHashes.startOf(piece)) {
+      piecesInProgress[piece] = PieceInProgress(piece)
+    }
+    val pieceInProgress = piecesInProgress[piece]
+    if (pieceInProgress == null || pieceInProgress.hashedUntil != position) {
+      piecesInProgress.remove(piece)
+      failed.clear(piece)
+      return
+    }
+    pieceInProgress.update(bytes, index, length)
+    if (pieceInProgress.hashedUntil == pieceHashes.endOf(piece)) {
+      onPieceChecked(piece, pieceHashes.matches(piece, pieceInProgress.digest.digest()))
+    }
+  }
+
+  class Snapshot(val verified: BitSet, val failed: BitSet, val fileHashState: ByteArray)
+
+  private inner class PieceInProgress(piece: Int) {
+    val digest: MessageDigest = pieceHashes.newDigest()
+    var hashedUntil = pieceHashes.startOf(piece)
+
+    fun update(bytes: ByteArray, index: Int, length: Int) {
+      digest.update(bytes, index, length)
+      hashedUntil += length
+    }
+  }
+
+  companion object {
+    private const val READ_BUFFER_SIZE = 1024 * 1024
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.verification
+
+import java.nio.ByteBuffer
+
+/**
+ * SHA-256 as specified by FIPS 180-4 whose state can be saved and restored, so hashing a
+ * download as a whole survives the download being paused or the app being stopped.
+ * [java.security.MessageDigest] offers no way to persist its state.
+ */
+internal class Sha256(state: ByteArray = ByteArray(0)) {
+  private val hash = IntArray(STATE_SIZE)
+  private val buffer = ByteArray(BLOCK_SIZE)
+  private val words = IntArray(ROUNDS)
+  private var bufferLength = 0
+  var byteCount = 0L
+    private set
+
+  init {
+    if (state.isEmpty()) reset() else restore(state)
+  }
+
+  fun reset() {
+    INITIAL_HASH.copyInto(hash)
+    bufferLength = 0
+    byteCount = 0L
+  }
+
+  fun update(input: ByteArray, offset: Int = 0, length: Int = input.size) {
+    byteCount += length
+    var position = offset
+    val end = offset + length
+    while (position < end) {
+      val count = minOf(BLOCK_SIZE - bufferLength, end - position)
+      System.arraycopy(input, position, buffer, bufferLength, count)
+      bufferLength += count
+      position += count
+      if (bufferLength == BLOCK_SIZE) {
+        transform()
+        bufferLength = 0
+      }
+    }
+  }
+
+  /**
+   * The digest of everything hashed so far, this keeps its state and can be updated further.
+   */
+  fun digest(): ByteArray = Sha256(state()).finish()
+
+  fun state(): ByteArray =
+    ByteBuffer.allocate(STATE_SIZE * Int.SIZE_BYTES + Long.SIZE_BYTES + bufferLength).apply {
+      hash.forEach { putInt(it) }
+      putLong(byteCount)
+      put(buffer, 0, bufferLength)
+    }.array()
+
+  private fun restore(state: ByteArray) {
+    ByteBuffer.wrap(state).run {
+      for (i in hash.indices) {
+        hash[i] = int
+      }
+      byteCount = long
+      bufferLength = remaining()
+      get(buffer, 0, bufferLength)
+    }
+  }
+
+  private fun finish(): ByteArray {
+    val bitLength = byteCount * Byte.SIZE_BITS
+    val padding = ByteArray(
+      if (bufferLength < LENGTH_OFFSET) LENGTH_OFFSET - bufferLength
+      else BLOCK_SIZE + LENGTH_OFFSET - bufferLength
+    )
+    padding[0] = 0x80.toByte()
+    update(padding)
+    update(ByteBuffer.allocate(Long.SIZE_BYTES).putLong(bitLength).array())
+    return ByteBuffer.allocate(STATE_SIZE * Int.SIZE_BYTES).apply {
+      hash.forEach { putInt(it) }
+    }.array()
+  }
+
+  private fun transform() {
+    ByteBuffer.wrap(buffer).asIntBuffer().get(words, 0, WORDS_PER_BLOCK)
+    for (i in WORDS_PER_BLOCK until ROUNDS) {
+      val s0 = rotr(words[i - 15], 7) xor rotr(words[i - 15], 18) xor (words[i - 15] ushr 3)
+      val s1 = rotr(words[i - 2], 17) xor rotr(words[i - 2], 19) xor (words[i - 2] ushr 10)
+      words[i] = words[i - 16] + s0 + words[i - 7] + s1
+    }
+    var a = hash[0]
+    var b = hash[1]
+    var c = hash[2]
+    var d = hash[3]
+    var e = hash[4]
+    var f = hash[5]
+    var g = hash[6]
+    var h = hash[7]
+    for (i in 0 until ROUNDS) {
+      val t1 = h + (rotr(e, 6) xor rotr(e, 11) xor rotr(e, 25)) +
+        ((e and f) xor (e.inv() and g)) + ROUND_CONSTANTS[i] + words[i]
+      val t2 = (rotr(a, 2) xor rotr(a, 13) xor rotr(a, 22)) +
+        ((a and b) xor (a and c) xor (b and c))
+      h = g
+      g = f
+      f = e
+      e = d + t1
+      d = c
+      c = b
+      b = a
+      a = t1 + t2
+    }
+    hash[0] += a
+    hash[1] += b
+    hash[2] += c
+    hash[3] += d
+    hash[4] += e
+    hash[5] += f
+    hash[6] += g
+    hash[7] += h
+  }
+
+  private fun rotr(x: Int, distance: Int) = Integer.rotateRight(x, distance)
+
+  companion object {
+    private const val STATE_SIZE = 8
+    private const val BLOCK_SIZE = 64
+    private const val WORDS_PER_BLOCK = 16
+    private const val ROUNDS = 64
+    private const val LENGTH_OFFSET = 56
+    private val INITIAL_HASH = intArrayOf(
+      0x6a09e667, 0xbb67ae85.toInt(), 0x3c6ef372, 0xa54ff53a.toInt(),
+      0x510e527f, 0x9b05688c.toInt(), 0x1f83d9ab, 0x5be0cd19
+    )
+    private val ROUND_CONSTANTS = longArrayOf(
+      0x428a2f98, 0x71374491, 0xb5c0fbcf, 0xe9b5dba5, 0x3956c25b, 0x59f111f1, 0x923f82a4,
+      0xab1c5ed5, 0xd807aa98, 0x12835b01, 0x243185be, 0x550c7dc3, 0x72be5d74, 0x80deb1fe,
+      0x9bdc06a7, 0xc19bf174, 0xe49b69c1, 0xefbe4786, 0x0fc19dc6, 0x240ca1cc, 0x2de92c6f,
+      0x4a7484aa, 0x5cb0a9dc, 0x76f988da, 0x983e5152, 0xa831c66d, 0xb00327c8, 0xbf597fc7,
+      0xc6e00bf3, 0xd5a79147, 0x06ca6351, 0x14292967, 0x27b70a85, 0x2e1b2138, 0x4d2c6dfc,
+      0x53380d13, 0x650a7354, 0x766a0abb, 0x81c2c92e, 0x92722c85, 0xa2bfe8a1, 0xa81a664b,
+      0xc24b8b70, 0xc76c51a3, 0xd192e819, 0xd6990624, 0xf40e3585, 0x106aa070, 0x19a4c116,
+      0x1e376c08, 0x2748774c, 0x34b0bcb5, 0x391c0cb3, 0x4ed8aa4a, 0x5b9cca4f, 0x682e6ff3,
+      0x748f82ee, 0x78a5636f, 0x84c87814, 0x8cc70208, 0x90befffa, 0xa4506ceb, 0xbef9a3f7,
+      0xc67178f2
+    ).map(Long::toInt).toIntArray()
+  }
+}
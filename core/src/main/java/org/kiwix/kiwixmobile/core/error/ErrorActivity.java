@@ -39,6 +39,7 @@ import org.kiwix.kiwixmobile.core.R;
 import org.kiwix.kiwixmobile.core.R2;
 import org.kiwix.kiwixmobile.core.base.BaseActivity;
 import org.kiwix.kiwixmobile.core.dao.NewBookDao;
+import org.kiwix.kiwixmobile.core.data.remote.HttpMetrics;
 import org.kiwix.kiwixmobile.core.di.components.CoreComponent;
 import org.kiwix.kiwixmobile.core.entity.LibraryNetworkEntity;
 import org.kiwix.kiwixmobile.core.reader.ZimReaderContainer;
@@ -58,6 +59,8 @@ public class ErrorActivity extends BaseActivity {
   ZimReaderContainer zimReaderContainer;
   @Inject
   MountPointProducer mountPointProducer;
+  @Inject
+  HttpMetrics httpMetrics;
 
   @BindView(R2.id.reportButton)
   Button reportButton;
@@ -167,6 +170,7 @@ public class ErrorActivity extends BaseActivity {
           + "]\nTime:[" + Build.TIME
           + "]\nAndroid Version:[" + Build.VERSION.RELEASE
           + "]\nApp Version:[" + getVersionName() + " " + getVersionCode()
+          + "]\nNetwork:[" + httpMetrics.snapshot()
           + "]" +
           "\n\n";
       }
@@ -25,10 +25,18 @@ import androidx.annotation.DrawableRes
 import androidx.core.content.ContextCompat
 import androidx.core.widget.ImageViewCompat
 import org.kiwix.kiwixmobile.core.downloader.model.Base64String
+import org.kiwix.kiwixmobile.core.utils.FaviconBitmapCache
 
-fun ImageView.setBitmap(base64String: Base64String) {
-  base64String.toBitmap()
-    ?.let(::setImageBitmap)
+/**
+ * @param faviconHash the hash [base64String] is stored under, if the item shown has one
+ * @param placeholder shown while the favicon is decoded and when there is none, 0 for nothing
+ */
+fun ImageView.setBitmap(
+  base64String: Base64String,
+  faviconHash: String? = null,
+  @DrawableRes placeholder: Int = 0
+) {
+  FaviconBitmapCache.load(base64String, faviconHash, this, placeholder)
 }
 
 // methods that accept inline classes as parameters are not allowed to be called from java
@@ -38,6 +46,7 @@ fun ImageView.setBitmapFromString(string: String?) {
 }
 
 fun ImageView.setImageDrawableCompat(@DrawableRes id: Int) {
+  FaviconBitmapCache.cancel(this)
   setImageDrawable(ContextCompat.getDrawable(context, id))
 }
 
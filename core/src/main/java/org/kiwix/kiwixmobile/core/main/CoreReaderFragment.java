@@ -161,7 +161,8 @@ public abstract class CoreReaderFragment extends BaseFragment
   MainMenu.MenuClickListener, BaseFragmentActivityExtensions, WebViewProvider {
   public static final String HOME_URL = "file:///android_asset/home.html";
   private static final int CORE_READER_FRAGMENT = 1;
-  protected final List<KiwixWebView> webViewList = new ArrayList<>();
+  private static final int WEB_VIEW_POOL_SIZE = 2;
+  protected final List<KiwixTab> tabs = new ArrayList<>();
   private final BehaviorProcessor<String> webUrlsProcessor = BehaviorProcessor.create();
 
   @BindView(R2.id.toolbar)
@@ -249,10 +250,11 @@ public abstract class CoreReaderFragment extends BaseFragment
   private KiwixTextToSpeech tts;
   private CompatFindActionModeCallback compatCallback;
   private TabsAdapter tabsAdapter;
+  private KiwixWebViewPool webViewPool;
   protected int currentWebViewIndex = 0;
   private File file;
   private ActionMode actionMode = null;
-  private KiwixWebView tempForUndo;
+  private KiwixTab tempForUndo;
   private RateAppCounter visitCounterPref;
   private int tempVisitCount;
   private boolean isFirstRun;
@@ -351,7 +353,7 @@ public abstract class CoreReaderFragment extends BaseFragment
 
       @Override
       public void onSwipeLeft() {
-        if (currentWebViewIndex < webViewList.size() - 1) {
+        if (currentWebViewIndex < tabs.size() - 1) {
           View current = getCurrentWebView();
           startAnimation(current, R.anim.transition_left);
           selectTab(currentWebViewIndex + 1);
@@ -396,6 +398,7 @@ public abstract class CoreReaderFragment extends BaseFragment
     setUpTTS();
 
     setupDocumentParser();
+    webViewPool = new KiwixWebViewPool(this::createWebView, WEB_VIEW_POOL_SIZE);
 
     loadPrefs();
     updateTitle();
@@ -431,7 +434,7 @@ public abstract class CoreReaderFragment extends BaseFragment
 
     if (intent.hasExtra(TAG_FILE_SEARCHED)) {
       searchForTitle(intent.getStringExtra(TAG_FILE_SEARCHED), mainMenu.isInTabSwitcher());
-      selectTab(webViewList.size() - 1);
+      selectTab(tabs.size() - 1);
     }
     if (intent.hasExtra(EXTRA_CHOSE_X_URL)) {
       newMainPageTab();
@@ -511,7 +514,7 @@ public abstract class CoreReaderFragment extends BaseFragment
   }
 
   private void setupTabsAdapter() {
-    tabsAdapter = new TabsAdapter((AppCompatActivity) getActivity(), webViewList, painter);
+    tabsAdapter = new TabsAdapter((AppCompatActivity) getActivity(), tabs, painter);
     tabsAdapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
       @Override
       public void onChanged() {
@@ -560,7 +563,7 @@ public abstract class CoreReaderFragment extends BaseFragment
     backToTopButton.hide();
     tabSwitcherRoot.setVisibility(View.VISIBLE);
     startAnimation(tabSwitcherRoot, R.anim.slide_down);
-    if (tabsAdapter.getSelected() < webViewList.size() &&
+    if (tabsAdapter.getSelected() < tabs.size() &&
       tabRecyclerView.getLayoutManager() != null) {
       tabRecyclerView.getLayoutManager().scrollToPosition(tabsAdapter.getSelected());
     }
@@ -637,8 +640,8 @@ public abstract class CoreReaderFragment extends BaseFragment
 
   @NotNull @Override public Super onBackPressed(@NotNull AppCompatActivity activity) {
     if (tabSwitcherRoot.getVisibility() == View.VISIBLE) {
-      selectTab(currentWebViewIndex < webViewList.size() ? currentWebViewIndex
-        : webViewList.size() - 1);
+      selectTab(currentWebViewIndex < tabs.size() ? currentWebViewIndex
+        : tabs.size() - 1);
       hideTabSwitcher();
     } else if (isInFullScreenMode()) {
       closeFullScreen();
@@ -806,6 +809,7 @@ public abstract class CoreReaderFragment extends BaseFragment
     // TODO create a base Activity class that class this.
     FileUtils.deleteCachedFiles(getActivity());
     tts.shutdown();
+    webViewPool.clear();
   }
 
   private void updateTableOfContents() {
@@ -823,6 +827,12 @@ public abstract class CoreReaderFragment extends BaseFragment
   }
 
   private KiwixWebView getWebView(String url) {
+    KiwixWebView webView = webViewPool.obtain();
+    loadUrl(url, webView);
+    return webView;
+  }
+
+  private KiwixWebView createWebView() {
     AttributeSet attrs = StyleUtils.getAttributes(getActivity(), R.xml.webview);
     KiwixWebView webView;
     if (!isHideToolbar) {
@@ -836,7 +846,8 @@ public abstract class CoreReaderFragment extends BaseFragment
         createWebClient(this, zimReaderContainer),
         sharedPreferenceUtil);
     }
-    loadUrl(url, webView);
+    documentParser.initInterface(webView);
+    tts.initWebView(webView);
     return webView;
   }
 
@@ -850,25 +861,65 @@ public abstract class CoreReaderFragment extends BaseFragment
 
   protected KiwixWebView newTab(String url) {
     KiwixWebView webView = getWebView(url);
-    webViewList.add(webView);
-    selectTab(webViewList.size() - 1);
+    tabs.add(new KiwixTab(webView, url));
+    selectTab(tabs.size() - 1);
     tabsAdapter.notifyDataSetChanged();
     setUpWebViewWithTextToSpeech();
-    documentParser.initInterface(webView);
     return webView;
   }
 
+  /**
+   * Adds a tab of a previous session without a web view, it loads its url once selected.
+   */
+  protected void restoreTab(String url, int scrollY) {
+    tabs.add(KiwixTab.hibernated(url, scrollY));
+    tabsAdapter.notifyDataSetChanged();
+  }
+
   private void newTabInBackground(String url) {
-    KiwixWebView webView = getWebView(url);
-    webViewList.add(webView);
+    tabs.add(new KiwixTab(getWebView(url), url));
+    hibernateBackgroundTabs();
     tabsAdapter.notifyDataSetChanged();
     setUpWebViewWithTextToSpeech();
-    documentParser.initInterface(webView);
+  }
+
+  /**
+   * Destroys the web views of all but the current tab and the most recently selected others, so
+   * the memory the reader holds does not grow with every tab that is opened.
+   */
+  private void hibernateBackgroundTabs() {
+    KiwixTab current = tabs.isEmpty() ? null : tabs.get(safePosition(currentWebViewIndex));
+    for (KiwixTab tab : KiwixTab.tabsToHibernate(tabs, current,
+      sharedPreferenceUtil.getPrefLiveBackgroundTabs())) {
+      tab.hibernate(DimenUtils.getWindowWidth(getActivity()),
+        DimenUtils.getWindowHeight(getActivity()), webView -> {
+          webViewPool.recycle(webView);
+          return Unit.INSTANCE;
+        });
+    }
+  }
+
+  private KiwixWebView wake(KiwixTab tab) {
+    return tab.wake(webViewPool::obtain);
+  }
+
+  private void recycle(KiwixTab tab) {
+    if (tab.getWebView() != null) {
+      webViewPool.recycle(tab.getWebView());
+    }
+  }
+
+  private void clearTabs() {
+    for (KiwixTab tab : tabs) {
+      recycle(tab);
+    }
+    tabs.clear();
   }
 
   private void closeTab(int index) {
-    tempForUndo = webViewList.get(index);
-    webViewList.remove(index);
+    final KiwixTab closedTab = tabs.get(index);
+    tempForUndo = closedTab;
+    tabs.remove(index);
     if (index <= currentWebViewIndex && currentWebViewIndex > 0) {
       currentWebViewIndex--;
     }
@@ -876,12 +927,19 @@ public abstract class CoreReaderFragment extends BaseFragment
     tabsAdapter.notifyDataSetChanged();
     Snackbar.make(tabSwitcherRoot, R.string.tab_closed, Snackbar.LENGTH_LONG)
       .setAction(R.string.undo, v -> {
-        webViewList.add(index, tempForUndo);
+        tabs.add(index, tempForUndo);
         tabsAdapter.notifyItemInserted(index);
         tabsAdapter.notifyDataSetChanged();
         Snackbar.make(snackbarRoot, "Tab restored", Snackbar.LENGTH_SHORT).show();
         setUpWebViewWithTextToSpeech();
       })
+      .addCallback(new Snackbar.Callback() {
+        @Override public void onDismissed(Snackbar snackbar, int event) {
+          if (event != DISMISS_EVENT_ACTION) {
+            recycle(closedTab);
+          }
+        }
+      })
       .show();
     openHomeScreen();
   }
@@ -895,6 +953,8 @@ public abstract class CoreReaderFragment extends BaseFragment
       ((ViewGroup) webView.getParent()).removeView(webView);
     }
     contentFrame.addView(webView);
+    tabs.get(safePosition(currentWebViewIndex)).markSelected();
+    hibernateBackgroundTabs();
     tabsAdapter.setSelected(currentWebViewIndex);
     updateBottomToolbarVisibility();
     loadPrefs();
@@ -908,21 +968,21 @@ public abstract class CoreReaderFragment extends BaseFragment
   }
 
   private KiwixWebView safelyGetWebView(int position) {
-    return webViewList.size() == 0 ? newMainPageTab() : webViewList.get(safePosition(position));
+    return tabs.size() == 0 ? newMainPageTab() : wake(tabs.get(safePosition(position)));
   }
 
   private int safePosition(int position) {
     return position < 0 ? 0
-      : position >= webViewList.size() ? webViewList.size() - 1
+      : position >= tabs.size() ? tabs.size() - 1
         : position;
   }
 
   @NotNull @Override public KiwixWebView getCurrentWebView() {
-    if (webViewList.size() == 0) return newMainPageTab();
-    if (currentWebViewIndex < webViewList.size()) {
-      return webViewList.get(currentWebViewIndex);
+    if (tabs.size() == 0) return newMainPageTab();
+    if (currentWebViewIndex < tabs.size()) {
+      return wake(tabs.get(currentWebViewIndex));
     } else {
-      return webViewList.get(0);
+      return wake(tabs.get(0));
     }
   }
 
@@ -1158,7 +1218,7 @@ public abstract class CoreReaderFragment extends BaseFragment
   private void openAndSetInContainer(File file) {
     try {
       if (isNotPreviouslyOpenZim(file.getCanonicalPath())) {
-        webViewList.clear();
+        clearTabs();
       }
     } catch (IOException e) {
       e.printStackTrace();
@@ -1252,7 +1312,7 @@ public abstract class CoreReaderFragment extends BaseFragment
   @OnClick(R2.id.tab_switcher_close_all_tabs)
   void closeAllTabs() {
     rotate(closeAllTabsButton);
-    webViewList.clear();
+    clearTabs();
     tabsAdapter.notifyDataSetChanged();
     openHomeScreen();
   }
@@ -1260,7 +1320,7 @@ public abstract class CoreReaderFragment extends BaseFragment
 
   private void openHomeScreen() {
     new Handler().postDelayed(() -> {
-      if (webViewList.size() == 0) {
+      if (tabs.size() == 0) {
         createNewTab();
         hideTabSwitcher();
       }
@@ -1303,8 +1363,12 @@ public abstract class CoreReaderFragment extends BaseFragment
     super.onResume();
     if (wasHideToolbar != isHideToolbar) {
       wasHideToolbar = isHideToolbar;
-      for (int i = 0; i < webViewList.size(); i++) {
-        webViewList.set(i, getWebView(webViewList.get(i).getUrl()));
+      webViewPool.clear();
+      for (int i = 0; i < tabs.size(); i++) {
+        KiwixTab tab = tabs.get(i);
+        if (!tab.isHibernated()) {
+          tabs.set(i, new KiwixTab(getWebView(tab.getUrl()), tab.getUrl()));
+        }
       }
       selectTab(currentWebViewIndex);
       setUpWebViewWithTextToSpeech();
@@ -1516,7 +1580,7 @@ public abstract class CoreReaderFragment extends BaseFragment
           getActivity().recreate();
         }
         if (resultCode == RESULT_HISTORY_CLEARED) {
-          webViewList.clear();
+          clearTabs();
           newMainPageTab();
           tabsAdapter.notifyDataSetChanged();
         }
@@ -1529,10 +1593,7 @@ public abstract class CoreReaderFragment extends BaseFragment
         hideTabSwitcher();
         if (resultCode == RESULT_OK) {
           if (data.getBooleanExtra(USER_CLEARED_HISTORY, false)) {
-            for (KiwixWebView kiwixWebView : webViewList) {
-              kiwixWebView.clearHistory();
-            }
-            webViewList.clear();
+            clearTabs();
             createNewTab();
           } else {
             String title = data.getStringExtra(EXTRA_CHOSE_X_TITLE);
@@ -1569,7 +1630,7 @@ public abstract class CoreReaderFragment extends BaseFragment
   }
 
   @NotNull protected MainMenu createMainMenu(Menu menu) {
-    return menuFactory.create(menu, webViewList, !urlIsInvalid(), this, false, false);
+    return menuFactory.create(menu, tabs, !urlIsInvalid(), this, false, false);
   }
 
   protected boolean urlIsInvalid() {
@@ -1615,10 +1676,10 @@ public abstract class CoreReaderFragment extends BaseFragment
 
     JSONArray urls = new JSONArray();
     JSONArray positions = new JSONArray();
-    for (KiwixWebView view : webViewList) {
-      if (view.getUrl() == null) continue;
-      urls.put(view.getUrl());
-      positions.put(view.getScrollY());
+    for (KiwixTab tab : tabs) {
+      if (tab.getUrl() == null) continue;
+      urls.put(tab.getUrl());
+      positions.put(tab.getScrollY());
     }
 
     editor.putString(TAG_CURRENT_FILE, zimReaderContainer.getZimCanonicalPath());
@@ -1743,7 +1804,7 @@ public abstract class CoreReaderFragment extends BaseFragment
           newTabInBackground(url);
           Snackbar.make(snackbarRoot, R.string.new_tab_snack_bar, Snackbar.LENGTH_LONG)
             .setAction(getString(R.string.open), v -> {
-              if (webViewList.size() > 1) selectTab(webViewList.size() - 1);
+              if (tabs.size() > 1) selectTab(tabs.size() - 1);
             })
             .setActionTextColor(getResources().getColor(R.color.white))
             .show();
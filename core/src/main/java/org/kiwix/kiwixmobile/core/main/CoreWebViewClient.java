@@ -134,6 +134,14 @@ public abstract class CoreWebViewClient extends WebViewClient {
     callback.webViewUrlFinishedLoading();
   }
 
+  @Override
+  public void doUpdateVisitedHistory(WebView view, String url, boolean isReload) {
+    super.doUpdateVisitedHistory(view, url, isReload);
+    if (view instanceof KiwixWebView) {
+      ((KiwixWebView) view).onVisitedHistoryUpdated(url);
+    }
+  }
+
   protected abstract void onUrlEqualToHome(WebView view);
 
   protected abstract void onInvalidUrl(WebView view);
@@ -0,0 +1,124 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.main
+
+import android.graphics.Bitmap
+import android.os.Bundle
+import android.view.ViewGroup
+import org.kiwix.kiwixmobile.core.utils.ImageUtils.getBitmapFromView
+
+/**
+ * A tab of the reader.
+ *
+ * A live tab holds its [KiwixWebView]. A hibernated one has released its web view and only
+ * keeps what the tab switcher shows and what [wake] needs to bring it back where it was: its url,
+ * title, scroll position, back and forward list and a small thumbnail. A tab restored from a
+ * previous session starts hibernated with only its url, which stands in for its title, and its
+ * scroll position.
+ */
+class KiwixTab private constructor(
+  webView: KiwixWebView?,
+  private val initialUrl: String?,
+  private var hibernatedTab: HibernatedTab?
+) {
+
+  constructor(webView: KiwixWebView, initialUrl: String?) : this(webView, initialUrl, null)
+
+  var webView: KiwixWebView? = webView
+    private set
+
+  var lastSelected = ++selections
+    private set
+
+  val isHibernated get() = webView == null
+  val url: String? get() = webView?.url ?: hibernatedTab?.url ?: initialUrl
+  val title: String? get() = webView?.title ?: hibernatedTab?.title
+  val scrollY: Int get() = webView?.scrollY ?: hibernatedTab?.scrollY ?: 0
+
+  fun markSelected() {
+    lastSelected = ++selections
+  }
+
+  fun thumbnail(width: Int, height: Int): Bitmap? =
+    webView?.let { getBitmapFromView(it, width, height) } ?: hibernatedTab?.thumbnail
+
+  fun hibernate(width: Int, height: Int, release: (KiwixWebView) -> Unit) {
+    val view = webView ?: return
+    hibernatedTab = HibernatedTab(
+      url,
+      view.title,
+      view.scrollY,
+      Bundle().also { view.saveState(it) },
+      getBitmapFromView(view, width, height)?.let {
+        Bitmap.createScaledBitmap(
+          it,
+          (it.width / THUMBNAIL_SCALE).coerceAtLeast(1),
+          (it.height / THUMBNAIL_SCALE).coerceAtLeast(1),
+          true
+        )
+      }
+    )
+    webView = null
+    (view.parent as? ViewGroup)?.removeView(view)
+    release(view)
+  }
+
+  fun wake(createWebView: () -> KiwixWebView): KiwixWebView {
+    webView?.let { return it }
+    val hibernated = hibernatedTab
+    return createWebView().also { view ->
+      if (hibernated?.state == null || view.restoreState(hibernated.state) == null) {
+        url?.let(view::loadUrl)
+        view.scrollY = hibernated?.scrollY ?: 0
+      } else {
+        view.setClearHistoryOnNextPage(false)
+      }
+      webView = view
+      hibernatedTab = null
+    }
+  }
+
+  private class HibernatedTab(
+    val url: String?,
+    val title: String?,
+    val scrollY: Int,
+    val state: Bundle?,
+    val thumbnail: Bitmap?
+  )
+
+  companion object {
+    private const val THUMBNAIL_SCALE = 4
+    private var selections = 0L
+
+    @JvmStatic fun hibernated(url: String?, scrollY: Int) =
+      KiwixTab(null, url, HibernatedTab(url, url, scrollY, null, null))
+
+    /**
+     * The live tabs to hibernate so only [current] and the [liveBackgroundTabs] most recently
+     * selected other tabs keep their web views.
+     */
+    @JvmStatic fun tabsToHibernate(
+      tabs: List<KiwixTab>,
+      current: KiwixTab?,
+      liveBackgroundTabs: Int
+    ) = tabs.filter { it !== current && !it.isHibernated }
+      .sortedByDescending(KiwixTab::lastSelected)
+      .drop(liveBackgroundTabs)
+  }
+}
@@ -62,6 +62,7 @@ public class KiwixWebView extends VideoEnabledWebView {
   ZimReaderContainer zimReaderContainer;
   private final WebViewCallback callback;
   private CompositeDisposable compositeDisposable = new CompositeDisposable();
+  private boolean clearHistoryOnNextPage;
 
   @SuppressLint("SetJavaScriptEnabled")
   public KiwixWebView(Context context, WebViewCallback callback, AttributeSet attrs,
@@ -92,6 +93,21 @@ public class KiwixWebView extends VideoEnabledWebView {
     setWebChromeClient(client);
   }
 
+  /**
+   * A recycled web view still has the blank page it was reset with in its history, it is dropped
+   * once the next page has been committed.
+   */
+  public void setClearHistoryOnNextPage(boolean clearHistoryOnNextPage) {
+    this.clearHistoryOnNextPage = clearHistoryOnNextPage;
+  }
+
+  void onVisitedHistoryUpdated(String url) {
+    if (clearHistoryOnNextPage && !KiwixWebViewPool.BLANK_URL.equals(url)) {
+      clearHistoryOnNextPage = false;
+      clearHistory();
+    }
+  }
+
   private void setWindowVisibility(int systemUiVisibility) {
     ((Activity) getContext()).getWindow().getDecorView().setSystemUiVisibility(systemUiVisibility);
   }
@@ -0,0 +1,110 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.main
+
+import android.os.Looper
+import android.os.MessageQueue
+import android.os.SystemClock
+import android.view.ViewGroup
+import java.util.ArrayDeque
+
+/**
+ * Keeps a few fully configured [KiwixWebView]s ready so opening a tab does not construct one on
+ * the spot.
+ *
+ * The pool is topped up one web view at a time while the main thread is idle. Web views of
+ * closed tabs are blanked and handed back with [recycle], they are reused once the blank page
+ * has loaded and their history has been cleared. The blank page itself is dropped from their
+ * history when the next page commits, so it can never be navigated back to. A web view that has
+ * not blanked within [BLANKING_TIMEOUT_MILLIS] is destroyed and replaced by a new one.
+ */
+class KiwixWebViewPool @JvmOverloads constructor(
+  private val createWebView: () -> KiwixWebView,
+  private val capacity: Int,
+  private val clock: () -> Long = SystemClock::uptimeMillis
+) : MessageQueue.IdleHandler {
+
+  private val ready = ArrayDeque<KiwixWebView>()
+  private val blanking = LinkedHashMap<KiwixWebView, Long>()
+  private var isScheduled = false
+
+  fun obtain(): KiwixWebView = (ready.pollFirst() ?: createWebView()).also { scheduleRefill() }
+
+  fun recycle(webView: KiwixWebView) {
+    (webView.parent as? ViewGroup)?.removeView(webView)
+    if (ready.size + blanking.size >= capacity) {
+      webView.destroy()
+      return
+    }
+    webView.stopLoading()
+    webView.loadUrl(BLANK_URL)
+    blanking[webView] = clock() + BLANKING_TIMEOUT_MILLIS
+    scheduleRefill()
+  }
+
+  fun clear() {
+    ready.forEach(KiwixWebView::destroy)
+    blanking.keys.forEach(KiwixWebView::destroy)
+    ready.clear()
+    blanking.clear()
+    if (isScheduled) {
+      Looper.myQueue().removeIdleHandler(this)
+      isScheduled = false
+    }
+  }
+
+  override fun queueIdle(): Boolean {
+    val now = clock()
+    blanking.entries.removeAll { (webView, deadline) ->
+      when {
+        isBlank(webView) -> {
+          webView.clearHistory()
+          webView.setClearHistoryOnNextPage(true)
+          ready.add(webView)
+        }
+        now >= deadline -> {
+          webView.destroy()
+          true
+        }
+        else -> false
+      }
+    }
+    if (ready.size + blanking.size < capacity) {
+      ready.add(createWebView())
+    }
+    isScheduled = blanking.isNotEmpty() || ready.size < capacity
+    return isScheduled
+  }
+
+  private fun scheduleRefill() {
+    if (!isScheduled) {
+      isScheduled = true
+      Looper.myQueue().addIdleHandler(this)
+    }
+  }
+
+  private fun isBlank(webView: KiwixWebView) =
+    webView.progress == FULLY_LOADED && webView.url == BLANK_URL
+
+  companion object {
+    const val BLANK_URL = "about:blank"
+    private const val FULLY_LOADED = 100
+    private const val BLANKING_TIMEOUT_MILLIS = 5_000L
+  }
+}
@@ -44,7 +44,7 @@ class MainMenu(
   private val activity: Activity,
   zimFileReader: ZimFileReader?,
   menu: Menu,
-  webViews: MutableList<KiwixWebView>,
+  tabs: MutableList<KiwixTab>,
   urlIsValid: Boolean,
   disableReadAloud: Boolean = false,
   disableTabs: Boolean = false,
@@ -54,7 +54,7 @@ class MainMenu(
   interface Factory {
     fun create(
       menu: Menu,
-      webViews: MutableList<KiwixWebView>,
+      tabs: MutableList<KiwixTab>,
       urlIsValid: Boolean,
       menuClickListener: MenuClickListener,
       disableReadAloud: Boolean,
@@ -147,7 +147,7 @@ class MainMenu(
     zimFileReader?.let {
       onFileOpened(it, urlIsValid)
     }
-    updateTabIcon(webViews.size)
+    updateTabIcon(tabs.size)
   }
 
   fun onOptionsItemSelected(item: MenuItem) =
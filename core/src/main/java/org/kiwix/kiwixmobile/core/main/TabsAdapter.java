@@ -39,20 +39,19 @@ import org.kiwix.kiwixmobile.core.extensions.ImageViewExtensionsKt;
 import static org.kiwix.kiwixmobile.core.utils.DimenUtils.getToolbarHeight;
 import static org.kiwix.kiwixmobile.core.utils.DimenUtils.getWindowHeight;
 import static org.kiwix.kiwixmobile.core.utils.DimenUtils.getWindowWidth;
-import static org.kiwix.kiwixmobile.core.utils.ImageUtils.getBitmapFromView;
 import static org.kiwix.kiwixmobile.core.utils.LanguageUtils.getResourceString;
 import static org.kiwix.kiwixmobile.core.utils.StyleUtils.fromHtml;
 
 public class TabsAdapter extends RecyclerView.Adapter<TabsAdapter.ViewHolder> {
-  private final List<KiwixWebView> webViews;
+  private final List<KiwixTab> tabs;
   private final AppCompatActivity activity;
   private final NightModeViewPainter painter;
   private TabClickListener listener;
   private int selectedPosition = 0;
 
-  TabsAdapter(AppCompatActivity activity, List<KiwixWebView> webViews,
+  TabsAdapter(AppCompatActivity activity, List<KiwixTab> tabs,
     NightModeViewPainter painter) {
-    this.webViews = webViews;
+    this.tabs = tabs;
     this.activity = activity;
     this.painter = painter;
     setHasStableIds(true);
@@ -129,11 +128,12 @@ public class TabsAdapter extends RecyclerView.Adapter<TabsAdapter.ViewHolder> {
 
   @Override
   public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-    KiwixWebView webView = webViews.get(position);
-    if (webView.getParent() != null) {
+    KiwixTab tab = tabs.get(position);
+    KiwixWebView webView = tab.getWebView();
+    if (webView != null && webView.getParent() != null) {
       ((ViewGroup) webView.getParent()).removeView(webView);
     }
-    String webViewTitle = fromHtml(webView.getTitle()).toString();
+    String webViewTitle = fromHtml(tab.getTitle()).toString();
     if (webViewTitle.contains("REPLACE_")) {
       webViewTitle =
         getResourceString(holder.title.getContext().getApplicationContext(), webViewTitle);
@@ -143,7 +143,7 @@ public class TabsAdapter extends RecyclerView.Adapter<TabsAdapter.ViewHolder> {
     holder.title.setText(webViewTitle);
     holder.close.setOnClickListener(v -> listener.onCloseTab(v, holder.getAdapterPosition()));
     holder.content.setImageBitmap(
-      getBitmapFromView(webView, getWindowWidth(activity), getWindowHeight(activity))
+      tab.thumbnail(getWindowWidth(activity), getWindowHeight(activity))
     );
     holder.content.setOnClickListener(v -> {
       selectedPosition = holder.getAdapterPosition();
@@ -157,11 +157,11 @@ public class TabsAdapter extends RecyclerView.Adapter<TabsAdapter.ViewHolder> {
 
   @Override
   public int getItemCount() {
-    return webViews.size();
+    return tabs.size();
   }
 
   @Override public long getItemId(int position) {
-    return webViews.get(position).hashCode();
+    return tabs.get(position).hashCode();
   }
 
   int getSelected() {
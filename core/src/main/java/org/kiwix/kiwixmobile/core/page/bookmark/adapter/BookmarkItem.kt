@@ -31,16 +31,18 @@ data class BookmarkItem(
   val bookmarkTitle: String,
   val favicon: String?,
   var isSelected: Boolean = false,
+  val faviconHash: String? = null,
   override val url: String = bookmarkUrl
 ) : Page {
-  constructor(entity: BookmarkEntity) : this(
+  constructor(entity: BookmarkEntity, favicon: String? = entity.favicon) : this(
     entity.id,
     entity.zimId,
     entity.zimName,
     entity.zimFilePath,
     entity.bookmarkUrl,
     entity.bookmarkTitle,
-    entity.favicon
+    favicon,
+    faviconHash = entity.faviconHash
   )
 
   constructor(
@@ -19,7 +19,7 @@ class BookmarkViewHolder(
     if (item.isSelected) {
       favicon.setImageDrawableCompat(R.drawable.ic_check_circle_blue_24dp)
     } else {
-      favicon.setBitmap(Base64String(item.favicon))
+      favicon.setBitmap(Base64String(item.favicon), item.faviconHash)
     }
     itemView.setOnClickListener { itemClickListener.onItemClick(item) }
     itemView.setOnLongClickListener { itemClickListener.onItemLongClick(item) }
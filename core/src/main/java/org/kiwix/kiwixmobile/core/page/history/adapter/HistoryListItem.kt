@@ -36,7 +36,8 @@ sealed class HistoryListItem {
     val timeStamp: Long,
     var isSelected: Boolean = false,
     override val id: Long = databaseId,
-    override val url: String = historyUrl
+    override val url: String = historyUrl,
+    val faviconHash: String? = null
   ) : HistoryListItem(), Page {
 
     constructor(
@@ -56,17 +57,21 @@ sealed class HistoryListItem {
       timeStamp = timeStamp
     )
 
-    constructor(historyEntity: HistoryEntity) : this(
+    constructor(
+      historyEntity: HistoryEntity,
+      favicon: String? = historyEntity.favicon
+    ) : this(
       historyEntity.id,
       historyEntity.zimId,
       historyEntity.zimName,
       historyEntity.zimFilePath,
-      historyEntity.favicon,
+      favicon,
       historyEntity.historyUrl,
       historyEntity.historyTitle,
       historyEntity.dateString,
       historyEntity.timeStamp,
-      false
+      false,
+      faviconHash = historyEntity.faviconHash
     )
   }
 
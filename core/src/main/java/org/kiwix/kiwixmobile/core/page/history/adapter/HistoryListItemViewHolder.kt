@@ -28,7 +28,7 @@ sealed class HistoryListItemViewHolder<in T : HistoryListItem>(containerView: Vi
       if (item.isSelected) {
         favicon.setImageDrawableCompat(R.drawable.ic_check_circle_blue_24dp)
       } else {
-        favicon.setBitmap(Base64String(item.favicon))
+        favicon.setBitmap(Base64String(item.favicon), item.faviconHash)
       }
       itemView.setOnClickListener { itemClickListener.onItemClick(favicon, item) }
       itemView.setOnLongClickListener { itemClickListener.onItemLongClick(favicon, item) }
@@ -0,0 +1,55 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.reader
+
+import org.kiwix.kiwixmobile.core.dao.NewBookDao
+import org.kiwix.kiwixmobile.core.entity.LibraryNetworkEntity.Book
+import java.io.File
+import java.util.concurrent.ConcurrentHashMap
+import javax.inject.Inject
+import javax.inject.Singleton
+
+data class FileStamp(val length: Long, val lastModified: Long) {
+  constructor(file: File) : this(file.length(), file.lastModified())
+}
+
+/**
+ * The book metadata of ZIM files by canonical path, length and modification time, so a rescan
+ * only opens a [ZimFileReader] for files that are new or changed. It starts out with the books
+ * in [NewBookDao] whose file was stamped when they were added.
+ */
+@Singleton
+class ZimMetadataCache @Inject constructor(private val newBookDao: NewBookDao) {
+
+  private val books by lazy {
+    ConcurrentHashMap<Pair<String, FileStamp>, Book>().apply {
+      newBookDao.booksWithFileStamps().forEach { (bookOnDisk, fileStamp) ->
+        put(keyOf(bookOnDisk.file, fileStamp), bookOnDisk.book)
+      }
+    }
+  }
+
+  fun bookFor(file: File, read: (File) -> Book?): Book? {
+    val key = keyOf(file)
+    return books[key] ?: read(file)?.also { books[key] = it }
+  }
+
+  private fun keyOf(file: File, fileStamp: FileStamp = FileStamp(file)) =
+    file.canonicalPath to fileStamp
+}
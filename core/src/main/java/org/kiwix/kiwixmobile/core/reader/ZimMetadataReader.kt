@@ -0,0 +1,252 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.reader
+
+import android.util.Base64
+import org.kiwix.kiwixmobile.core.entity.LibraryNetworkEntity.Book
+import org.kiwix.kiwixmobile.core.utils.files.FileUtils
+import java.io.Closeable
+import java.io.EOFException
+import java.io.File
+import java.io.IOException
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.nio.ByteOrder.LITTLE_ENDIAN
+import java.nio.channels.FileChannel
+import javax.inject.Inject
+
+private const val MAGIC_NUMBER = 72173914
+private const val HEADER_SIZE = 80
+private const val POINTER_SIZE = 8
+private const val REDIRECT = 0xffff
+private const val LINK_TARGET = 0xfffe
+private const val DELETED = 0xfffd
+private const val MAX_DIRENT_SIZE = 4096L
+private const val MAX_BLOB_SIZE = 1L shl 20
+private const val MAX_REDIRECTS = 5
+private const val COMPRESSION_MASK = 0x0f
+private const val UNCOMPRESSED = 1
+private const val EXTENDED_CLUSTER = 0x10
+private val FAVICON_URLS =
+  listOf('M' to "Illustration_48x48@1", '-' to "favicon", 'I' to "favicon.png")
+private val UUID_DASHES_AFTER = setOf(11, 13, 15, 17)
+private val MEDIA_TYPES = listOf("image/", "video/", "audio/")
+
+/**
+ * Reads the header and the `M/` metadata of a ZIM file straight from its bytes, which is all
+ * listing a book needs and much cheaper than opening it with [ZimFileReader]. Only metadata in
+ * uncompressed clusters can be read this way; for a file whose metadata is compressed [read]
+ * returns null and the caller falls back to [ZimFileReader].
+ */
+class ZimMetadataReader @Inject constructor() {
+
+  fun isZimFile(file: File) =
+    try {
+      ZimArchive(file).use(ZimArchive::hasZimHeader)
+    } catch (ioException: IOException) {
+      false
+    }
+
+  fun read(file: File): Book? =
+    try {
+      ZimArchive(file).use { it.takeIf(ZimArchive::hasZimHeader)?.toBook(file) }
+    } catch (ioException: IOException) {
+      null
+    }
+}
+
+private class CompressedContentException : IOException()
+
+private class Dirent(
+  val mimeType: Int,
+  val path: ByteArray,
+  val clusterOrRedirect: Long,
+  val blob: Int
+) {
+  val isRedirect get() = mimeType == REDIRECT
+  val hasContent get() = mimeType < DELETED
+}
+
+/**
+ * Positional reads over all parts of a possibly split ZIM file, laid out as one byte range.
+ */
+private class ZimArchive(file: File) : Closeable {
+  private val channels = ArrayList<FileChannel>()
+  private val partStarts: LongArray
+  private val length: Long
+
+  init {
+    val parts = FileUtils.getAllZimParts(file).takeIf(List<File>::isNotEmpty) ?: listOf(file)
+    try {
+      parts.forEach { channels.add(RandomAccessFile(it, "r").channel) }
+    } catch (ioException: IOException) {
+      close()
+      throw ioException
+    }
+    partStarts = LongArray(channels.size)
+    var start = 0L
+    channels.forEachIndexed { index, channel ->
+      partStarts[index] = start
+      start += channel.size()
+    }
+    length = start
+  }
+
+  private val header by lazy { read(0, HEADER_SIZE) }
+  private val entryCount get() = header.getInt(24).toLong() and 0xffffffffL
+  private val urlPointerPosition get() = header.getLong(32)
+  private val clusterPointerPosition get() = header.getLong(48)
+
+  val hasZimHeader get() = length >= HEADER_SIZE && header.getInt(0) == MAGIC_NUMBER
+
+  fun toBook(file: File) = Book().apply {
+    val counts = counts(metadata("Counter"))
+    id = uuid()
+    title = metadata("Title")?.takeIf(String::isNotEmpty) ?: titleFrom(file)
+    size = "${length / 1024}"
+    favicon = favicon()?.let { Base64.encodeToString(it, Base64.NO_WRAP) }
+    creator = metadata("Creator").orEmpty()
+    publisher = metadata("Publisher").orEmpty()
+    date = metadata("Date").orEmpty()
+    description = metadata("Description").orEmpty()
+    language = metadata("Language").orEmpty()
+    articleCount = "${counts?.sumFor { it.startsWith("text/html") } ?: entryCount}"
+    mediaCount = "${counts?.sumFor { type -> MEDIA_TYPES.any(type::startsWith) } ?: 0}"
+    bookName = metadata("Name")?.takeIf(String::isNotEmpty) ?: id
+    tags = "${metadata("Tags")}"
+  }
+
+  private fun uuid() = (8 until 24).joinToString("") { index ->
+    "%02x".format(header.get(index)) + if (index in UUID_DASHES_AFTER) "-" else ""
+  }
+
+  private fun titleFrom(file: File) = file.name.replace('_', ' ').substringBefore(".zim")
+
+  private fun counts(counter: String?) = counter?.split(";")
+    ?.mapNotNull { it.split("=").takeIf { pair -> pair.size == 2 } }
+    ?.associate { (mimeType, count) -> mimeType to (count.toIntOrNull() ?: 0) }
+
+  private fun Map<String, Int>.sumFor(isCounted: (String) -> Boolean) =
+    filterKeys(isCounted).values.sum()
+
+  private fun favicon() = FAVICON_URLS.asSequence()
+    .mapNotNull { (namespace, url) -> content(namespace, url) }
+    .firstOrNull()
+
+  private fun metadata(name: String) = content('M', name)?.toString(Charsets.UTF_8)
+
+  private fun content(namespace: Char, url: String): ByteArray? {
+    var dirent = find("$namespace$url".toByteArray(Charsets.UTF_8)) ?: return null
+    repeat(MAX_REDIRECTS) {
+      if (!dirent.isRedirect) {
+        return dirent.takeIf(Dirent::hasContent)?.let { blob(it.clusterOrRedirect, it.blob) }
+      }
+      dirent = direntAt(dirent.clusterOrRedirect)
+    }
+    return null
+  }
+
+  private fun find(path: ByteArray): Dirent? {
+    var low = 0L
+    var high = entryCount - 1
+    while (low <= high) {
+      val middle = (low + high) ushr 1
+      val dirent = direntAt(middle)
+      val comparison = compareUnsigned(dirent.path, path)
+      when {
+        comparison < 0 -> low = middle + 1
+        comparison > 0 -> high = middle - 1
+        else -> return dirent
+      }
+    }
+    return null
+  }
+
+  private fun direntAt(index: Long): Dirent {
+    val position = read(urlPointerPosition + index * POINTER_SIZE, POINTER_SIZE).long
+    val buffer = read(position, minOf(MAX_DIRENT_SIZE, length - position).toInt())
+    val mimeType = buffer.short.toInt() and 0xffff
+    buffer.get() // parameter length
+    val namespace = buffer.get()
+    buffer.int // revision
+    val clusterOrRedirect =
+      if (mimeType == LINK_TARGET || mimeType == DELETED) -1L
+      else buffer.int.toLong() and 0xffffffffL
+    val blob = if (mimeType < DELETED) buffer.int else -1
+    return Dirent(mimeType, byteArrayOf(namespace) + buffer.cString(), clusterOrRedirect, blob)
+  }
+
+  private fun blob(cluster: Long, blob: Int): ByteArray? {
+    val clusterPosition =
+      read(clusterPointerPosition + cluster * POINTER_SIZE, POINTER_SIZE).long
+    val info = read(clusterPosition, 1).get().toInt()
+    if (info and COMPRESSION_MASK > UNCOMPRESSED) throw CompressedContentException()
+    val offsetSize = if (info and EXTENDED_CLUSTER != 0) 8 else 4
+    val dataPosition = clusterPosition + 1
+    val blobCount = offset(read(dataPosition, offsetSize), offsetSize) / offsetSize - 1
+    if (blob < 0 || blob >= blobCount) return null
+    val offsets = read(dataPosition + blob.toLong() * offsetSize, 2 * offsetSize)
+    val start = offset(offsets, offsetSize)
+    val size = offset(offsets, offsetSize) - start
+    if (size < 0 || size > MAX_BLOB_SIZE) return null
+    return read(dataPosition + start, size.toInt()).array()
+  }
+
+  private fun offset(buffer: ByteBuffer, offsetSize: Int) =
+    if (offsetSize == 8) buffer.long else buffer.int.toLong() and 0xffffffffL
+
+  private fun read(position: Long, size: Int): ByteBuffer {
+    if (position < 0 || size < 0 || position + size > length) throw EOFException()
+    val buffer = ByteBuffer.allocate(size).order(LITTLE_ENDIAN)
+    var offset = position
+    while (buffer.hasRemaining()) {
+      val part = partStarts.indexOfLast { it <= offset }
+      val read = channels[part].read(buffer, offset - partStarts[part])
+      if (read < 0) throw EOFException()
+      offset += read
+    }
+    return buffer.apply { flip() }
+  }
+
+  override fun close() {
+    channels.forEach(FileChannel::close)
+  }
+}
+
+private fun ByteBuffer.cString(): ByteArray {
+  val start = position()
+  while (hasRemaining()) {
+    if (get() == 0.toByte()) {
+      return ByteArray(position() - start - 1).also { bytes ->
+        position(start)
+        get(bytes)
+        get()
+      }
+    }
+  }
+  throw IOException("Unterminated string in dirent")
+}
+
+private fun compareUnsigned(first: ByteArray, second: ByteArray): Int {
+  for (index in 0 until minOf(first.size, second.size)) {
+    val comparison = (first[index].toInt() and 0xff) - (second[index].toInt() and 0xff)
+    if (comparison != 0) return comparison
+  }
+  return first.size - second.size
+}
@@ -24,6 +24,8 @@ import android.content.Intent;
 import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
+import android.text.format.DateFormat;
+import android.text.format.Formatter;
 import android.view.LayoutInflater;
 import android.webkit.WebView;
 import androidx.appcompat.app.AppCompatActivity;
@@ -36,6 +38,7 @@ import com.google.android.material.snackbar.Snackbar;
 import eu.mhutti1.utils.storage.StorageDevice;
 import eu.mhutti1.utils.storage.StorageSelectDialog;
 import java.io.File;
+import java.util.Calendar;
 import java.util.List;
 import java.util.Locale;
 import javax.inject.Inject;
@@ -52,6 +55,12 @@ import org.kiwix.kiwixmobile.core.utils.LanguageUtils;
 import org.kiwix.kiwixmobile.core.utils.SharedPreferenceUtil;
 
 import static org.kiwix.kiwixmobile.core.utils.ConstantsKt.RESULT_RESTART;
+import static org.kiwix.kiwixmobile.core.utils.SharedPreferenceUtil.NO_DOWNLOAD_LIMIT;
+import static org.kiwix.kiwixmobile.core.utils.SharedPreferenceUtil.NO_DOWNLOAD_WINDOW;
+import static org.kiwix.kiwixmobile.core.utils.SharedPreferenceUtil.PREF_DOWNLOAD_BANDWIDTH_LIMIT;
+import static org.kiwix.kiwixmobile.core.utils.SharedPreferenceUtil.PREF_DOWNLOAD_RATE_LIMIT;
+import static org.kiwix.kiwixmobile.core.utils.SharedPreferenceUtil.PREF_DOWNLOAD_WINDOW_END;
+import static org.kiwix.kiwixmobile.core.utils.SharedPreferenceUtil.PREF_DOWNLOAD_WINDOW_START;
 import static org.kiwix.kiwixmobile.core.utils.SharedPreferenceUtil.PREF_NIGHT_MODE;
 import static org.kiwix.kiwixmobile.core.utils.SharedPreferenceUtil.PREF_STORAGE;
 
@@ -66,6 +75,9 @@ public abstract class CorePrefsFragment extends PreferenceFragmentCompat impleme
   private static final int ZOOM_OFFSET = 2;
   private static final int ZOOM_SCALE = 25;
   private static final String INTERNAL_TEXT_ZOOM = "text_zoom";
+  private static final int[] DOWNLOAD_LIMITS_KILOBYTES =
+    { NO_DOWNLOAD_LIMIT, 128, 256, 512, 1024, 2048, 5120 };
+  private static final int HOURS_PER_DAY = 24;
   @Inject
   SettingsPresenter presenter;
   @Inject
@@ -88,6 +100,7 @@ public abstract class CorePrefsFragment extends PreferenceFragmentCompat impleme
     setStorage();
     setUpSettings();
     setupZoom();
+    setUpDownloads();
     new LanguageUtils(getActivity()).changeFont(getActivity().getLayoutInflater(),
       sharedPreferenceUtil);
   }
@@ -107,6 +120,51 @@ public abstract class CorePrefsFragment extends PreferenceFragmentCompat impleme
     textZoom.setSummary(getString(R.string.percentage, sharedPreferenceUtil.getTextZoom()));
   }
 
+  private void setUpDownloads() {
+    setUpDownloadLimit(PREF_DOWNLOAD_BANDWIDTH_LIMIT);
+    setUpDownloadLimit(PREF_DOWNLOAD_RATE_LIMIT);
+    setUpDownloadWindow(PREF_DOWNLOAD_WINDOW_START);
+    setUpDownloadWindow(PREF_DOWNLOAD_WINDOW_END);
+  }
+
+  private void setUpDownloadLimit(String preferenceId) {
+    String[] entries = new String[DOWNLOAD_LIMITS_KILOBYTES.length];
+    String[] values = new String[DOWNLOAD_LIMITS_KILOBYTES.length];
+    for (int i = 0; i < DOWNLOAD_LIMITS_KILOBYTES.length; i++) {
+      int kilobytes = DOWNLOAD_LIMITS_KILOBYTES[i];
+      entries[i] = kilobytes == NO_DOWNLOAD_LIMIT
+        ? getString(R.string.pref_download_no_limit)
+        : getString(R.string.pref_download_limit_value,
+          Formatter.formatShortFileSize(getActivity(), kilobytes * 1024L));
+      values[i] = "" + kilobytes;
+    }
+    ListPreference limitPref = findPreference(preferenceId);
+    limitPref.setEntries(entries);
+    limitPref.setEntryValues(values);
+  }
+
+  /**
+   * Lists the hours of the day in the user's time format, downloads are allowed from the start
+   * hour up to the end hour and may wrap around midnight.
+   */
+  private void setUpDownloadWindow(String preferenceId) {
+    String[] entries = new String[HOURS_PER_DAY + 1];
+    String[] values = new String[HOURS_PER_DAY + 1];
+    entries[0] = getString(R.string.pref_download_window_any_time);
+    values[0] = "" + NO_DOWNLOAD_WINDOW;
+    java.text.DateFormat timeFormat = DateFormat.getTimeFormat(getActivity());
+    Calendar calendar = Calendar.getInstance();
+    calendar.set(Calendar.MINUTE, 0);
+    for (int hour = 0; hour < HOURS_PER_DAY; hour++) {
+      calendar.set(Calendar.HOUR_OF_DAY, hour);
+      entries[hour + 1] = timeFormat.format(calendar.getTime());
+      values[hour + 1] = "" + hour;
+    }
+    ListPreference windowPref = findPreference(preferenceId);
+    windowPref.setEntries(entries);
+    windowPref.setEntryValues(values);
+  }
+
   protected abstract void setStorage();
 
   @Override
@@ -0,0 +1,92 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.utils
+
+import android.graphics.Bitmap
+import android.util.LruCache
+import android.widget.ImageView
+import androidx.annotation.DrawableRes
+import io.reactivex.Maybe
+import io.reactivex.android.schedulers.AndroidSchedulers
+import io.reactivex.schedulers.Schedulers
+import org.kiwix.kiwixmobile.core.R
+import org.kiwix.kiwixmobile.core.downloader.model.Base64String
+
+/**
+ * Decoded favicons shared by every list screen, keyed by the hash favicons are stored under
+ * when the list item carries it and by the base64 string itself otherwise, so binding never
+ * hashes a favicon. The view shows its placeholder until the favicon is decoded on the
+ * computation scheduler, the result is only applied if the view has not been rebound
+ * meanwhile and a favicon that cannot be decoded leaves the placeholder.
+ */
+object FaviconBitmapCache {
+  private const val FRACTION_OF_HEAP = 32
+
+  private val maxSizeInBytes = (Runtime.getRuntime().maxMemory() / FRACTION_OF_HEAP).toInt()
+
+  private val bitmaps = object : LruCache<String, Bitmap>(maxSizeInBytes) {
+    override fun sizeOf(key: String, value: Bitmap) = value.byteCount
+  }
+
+  private val decodesInFlight = mutableMapOf<String, Maybe<Bitmap>>()
+
+  fun load(
+    base64String: Base64String,
+    faviconHash: String?,
+    imageView: ImageView,
+    @DrawableRes placeholder: Int
+  ) {
+    val key = base64String.encodedString?.let { faviconHash ?: it }
+    imageView.setTag(R.id.favicon_key, key)
+    val cachedBitmap = key?.let(bitmaps::get)
+    if (cachedBitmap != null) {
+      imageView.setImageBitmap(cachedBitmap)
+      return
+    }
+    imageView.setImageResource(placeholder)
+    if (key == null) {
+      return
+    }
+    decode(key, base64String).subscribe(
+      { bitmap ->
+        if (imageView.getTag(R.id.favicon_key) == key) {
+          imageView.setImageBitmap(bitmap)
+        }
+      },
+      Throwable::printStackTrace
+    )
+  }
+
+  /**
+   * Stops a decode still running for [imageView] from replacing what is shown in it now.
+   */
+  fun cancel(imageView: ImageView) {
+    imageView.setTag(R.id.favicon_key, null)
+  }
+
+  private fun decode(key: String, base64String: Base64String) =
+    decodesInFlight.getOrPut(key) {
+      Maybe.fromCallable { base64String.toBitmap() }
+        .subscribeOn(Schedulers.computation())
+        .observeOn(AndroidSchedulers.mainThread())
+        .doOnSuccess { bitmaps.put(key, it) }
+        .doFinally { decodesInFlight.remove(key) }
+        .cache()
+    }
+}
@@ -22,6 +22,7 @@ import android.content.Context;
 import android.content.SharedPreferences;
 import android.preference.PreferenceManager;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatDelegate;
 import androidx.core.content.ContextCompat;
 import io.reactivex.Flowable;
@@ -59,6 +60,19 @@ public class SharedPreferenceUtil {
   private static final String PREF_HOSTED_BOOKS = "hosted_books";
   public static final String PREF_NIGHT_MODE = "pref_night_mode";
   private static final String TEXT_ZOOM = "true_text_zoom";
+  public static final String PREF_DOWNLOAD_BANDWIDTH_LIMIT = "pref_download_bandwidth_limit";
+  public static final String PREF_DOWNLOAD_RATE_LIMIT = "pref_download_rate_limit";
+  public static final String PREF_DOWNLOAD_WINDOW_START = "pref_download_window_start";
+  public static final String PREF_DOWNLOAD_WINDOW_END = "pref_download_window_end";
+  private static final String PREF_UNMETERED_DOWNLOADS_ONLY = "pref_unmetered_downloads_only";
+  private static final String PREF_DOWNLOAD_UPDATE_INTERVAL = "pref_download_update_interval";
+  private static final String PREF_VOLUME_CAPABILITIES = "pref_volume_capabilities";
+  private static final String PREF_VALIDATED_CUSTOM_FILES = "pref_validated_custom_files";
+  private static final String PREF_LIVE_BACKGROUND_TABS = "pref_live_background_tabs";
+  public static final int NO_DOWNLOAD_LIMIT = 0;
+  public static final int NO_DOWNLOAD_WINDOW = -1;
+  public static final int DEFAULT_DOWNLOAD_UPDATE_INTERVAL_MILLIS = 1000;
+  public static final int DEFAULT_LIVE_BACKGROUND_TABS = 2;
   private SharedPreferences sharedPreferences;
   private final PublishProcessor<String> prefStorages = PublishProcessor.create();
   private final PublishProcessor<Integer> textZooms = PublishProcessor.create();
@@ -73,6 +87,76 @@ public class SharedPreferenceUtil {
     return sharedPreferences.getBoolean(PREF_WIFI_ONLY, true);
   }
 
+  /**
+   * @return the bandwidth all downloads may use together in KB/s, or {@link #NO_DOWNLOAD_LIMIT}
+   */
+  public int getPrefDownloadBandwidthLimit() {
+    return getListPreferenceInt(PREF_DOWNLOAD_BANDWIDTH_LIMIT, NO_DOWNLOAD_LIMIT);
+  }
+
+  public void putPrefDownloadBandwidthLimit(int kilobytesPerSecond) {
+    sharedPreferences.edit()
+      .putString(PREF_DOWNLOAD_BANDWIDTH_LIMIT, "" + kilobytesPerSecond)
+      .apply();
+  }
+
+  /**
+   * @return the bandwidth a single download may use in KB/s, or {@link #NO_DOWNLOAD_LIMIT}
+   */
+  public int getPrefDownloadRateLimit() {
+    return getListPreferenceInt(PREF_DOWNLOAD_RATE_LIMIT, NO_DOWNLOAD_LIMIT);
+  }
+
+  public void putPrefDownloadRateLimit(int kilobytesPerSecond) {
+    sharedPreferences.edit().putString(PREF_DOWNLOAD_RATE_LIMIT, "" + kilobytesPerSecond).apply();
+  }
+
+  /**
+   * @return the hour of day downloads may start at, or {@link #NO_DOWNLOAD_WINDOW}
+   */
+  public int getPrefDownloadWindowStart() {
+    return getListPreferenceInt(PREF_DOWNLOAD_WINDOW_START, NO_DOWNLOAD_WINDOW);
+  }
+
+  /**
+   * @return the hour of day downloads have to stop at, or {@link #NO_DOWNLOAD_WINDOW}
+   */
+  public int getPrefDownloadWindowEnd() {
+    return getListPreferenceInt(PREF_DOWNLOAD_WINDOW_END, NO_DOWNLOAD_WINDOW);
+  }
+
+  public void putPrefDownloadWindow(int startHour, int endHour) {
+    sharedPreferences.edit()
+      .putString(PREF_DOWNLOAD_WINDOW_START, "" + startHour)
+      .putString(PREF_DOWNLOAD_WINDOW_END, "" + endHour)
+      .apply();
+  }
+
+  /**
+   * @return how often download progress is written and shown, in milliseconds
+   */
+  public int getPrefDownloadUpdateInterval() {
+    return getListPreferenceInt(
+      PREF_DOWNLOAD_UPDATE_INTERVAL,
+      DEFAULT_DOWNLOAD_UPDATE_INTERVAL_MILLIS
+    );
+  }
+
+  /**
+   * List preferences keep their values as strings, like {@link #PREF_NIGHT_MODE}.
+   */
+  private int getListPreferenceInt(String key, int defaultValue) {
+    return Integer.parseInt(sharedPreferences.getString(key, "" + defaultValue));
+  }
+
+  public boolean getPrefUnmeteredDownloadsOnly() {
+    return sharedPreferences.getBoolean(PREF_UNMETERED_DOWNLOADS_ONLY, false);
+  }
+
+  public void putPrefUnmeteredDownloadsOnly(boolean unmeteredOnly) {
+    sharedPreferences.edit().putBoolean(PREF_UNMETERED_DOWNLOADS_ONLY, unmeteredOnly).apply();
+  }
+
   public boolean getPrefHideToolbar() {
     return sharedPreferences.getBoolean(PREF_HIDE_TOOLBAR, true);
   }
@@ -215,11 +299,40 @@ public class SharedPreferenceUtil {
       .apply();
   }
 
+  public Set<String> getVolumeCapabilities() {
+    return sharedPreferences.getStringSet(PREF_VOLUME_CAPABILITIES, new HashSet<>());
+  }
+
+  public void setVolumeCapabilities(Set<String> volumeCapabilities) {
+    sharedPreferences.edit()
+      .putStringSet(PREF_VOLUME_CAPABILITIES, volumeCapabilities)
+      .apply();
+  }
+
+  public @Nullable String getPrefValidatedCustomFiles() {
+    return sharedPreferences.getString(PREF_VALIDATED_CUSTOM_FILES, null);
+  }
+
+  public void putPrefValidatedCustomFiles(@Nullable String validatedCustomFiles) {
+    sharedPreferences.edit().putString(PREF_VALIDATED_CUSTOM_FILES, validatedCustomFiles).apply();
+  }
+
   public void setTextZoom(int textZoom) {
     sharedPreferences.edit().putInt(TEXT_ZOOM, textZoom).apply();
     textZooms.offer(textZoom);
   }
 
+  /**
+   * @return how many tabs besides the current one keep a live web view, the others hibernate
+   */
+  public int getPrefLiveBackgroundTabs() {
+    return sharedPreferences.getInt(PREF_LIVE_BACKGROUND_TABS, DEFAULT_LIVE_BACKGROUND_TABS);
+  }
+
+  public void putPrefLiveBackgroundTabs(int tabs) {
+    sharedPreferences.edit().putInt(PREF_LIVE_BACKGROUND_TABS, tabs).apply();
+  }
+
   public int getTextZoom() {
     return sharedPreferences.getInt(TEXT_ZOOM, 100);
   }
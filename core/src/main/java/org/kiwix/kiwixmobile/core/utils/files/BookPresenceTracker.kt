@@ -0,0 +1,137 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.utils.files
+
+import android.content.BroadcastReceiver
+import android.content.Context
+import android.content.Intent
+import android.content.IntentFilter
+import android.os.FileObserver
+import io.reactivex.disposables.Disposable
+import io.reactivex.schedulers.Schedulers
+import org.kiwix.kiwixmobile.core.dao.NewBookDao
+import java.io.File
+import java.util.Collections
+import java.util.concurrent.ConcurrentHashMap
+import javax.inject.Inject
+import javax.inject.Singleton
+
+private const val WATCHED_EVENTS =
+  FileObserver.DELETE or FileObserver.MOVED_FROM or FileObserver.DELETE_SELF or
+    FileObserver.MOVE_SELF
+// always sent when a watch goes away, e.g. because its storage was unmounted
+private const val IGNORED = 0x8000
+
+/**
+ * Keeps the books in [NewBookDao] in line with their files without polling them. Every
+ * directory holding a book is watched with a [FileObserver] and storage is followed through
+ * the media broadcasts; books whose file goes away are removed from the dao. A book's file is
+ * only checked with [File.exists] when it first shows up in the dao or its storage comes back.
+ */
+@Singleton
+class BookPresenceTracker @Inject constructor(
+  private val context: Context,
+  private val newBookDao: NewBookDao
+) {
+  private val presentFiles: MutableSet<String> = Collections.newSetFromMap(ConcurrentHashMap())
+  private val observers = ConcurrentHashMap<String, DirectoryObserver>()
+  private var bookFiles: List<File> = emptyList()
+  private var bookFilesDisposable: Disposable? = null
+
+  private val storageReceiver = object : BroadcastReceiver() {
+    override fun onReceive(context: Context, intent: Intent) {
+      val root = intent.data?.path ?: return
+      Schedulers.io().scheduleDirect { onStorageChanged(root) }
+    }
+  }
+
+  fun start() {
+    if (bookFilesDisposable == null) {
+      context.registerReceiver(storageReceiver, storageIntentFilter())
+      bookFilesDisposable = newBookDao.bookFiles()
+        .observeOn(Schedulers.io())
+        .subscribe(::track, Throwable::printStackTrace)
+    }
+  }
+
+  @Synchronized
+  private fun track(files: List<File>) {
+    bookFiles = files
+    presentFiles.retainAll(files.map(File::getPath).toSet())
+    watch(files.mapNotNull(File::getParent).toSet())
+    val (present, missing) = files.filterNot { it.path in presentFiles }.partition(File::exists)
+    presentFiles.addAll(present.map(File::getPath))
+    remove(missing.map(File::getPath))
+  }
+
+  private fun watch(directories: Set<String>) {
+    (observers.keys - directories).forEach { observers.remove(it)?.stopWatching() }
+    (directories - observers.keys).forEach { directory ->
+      observers[directory] = DirectoryObserver(directory).apply { startWatching() }
+    }
+  }
+
+  /**
+   * Whether storage went away or came back, files under it are checked again; watches on it
+   * are restarted as they do not survive an unmount.
+   */
+  @Synchronized
+  private fun onStorageChanged(root: String) {
+    val isUnder = { path: String -> path == root || path.startsWith("$root/") }
+    observers.keys.filter(isUnder).forEach { observers.remove(it)?.stopWatching() }
+    presentFiles.removeAll(presentFiles.filter(isUnder))
+    track(bookFiles)
+  }
+
+  @Synchronized
+  private fun onDirectoryEvent(observer: DirectoryObserver, event: Int, name: String?) {
+    when (event and FileObserver.ALL_EVENTS) {
+      FileObserver.DELETE, FileObserver.MOVED_FROM ->
+        name?.let { remove(listOf(File(observer.directory, it).path)) }
+      FileObserver.DELETE_SELF, FileObserver.MOVE_SELF ->
+        remove(presentFiles.filter { File(it).parent == observer.directory })
+    }
+    if (event and (FileObserver.DELETE_SELF or FileObserver.MOVE_SELF or IGNORED) != 0) {
+      observers.remove(observer.directory, observer)
+    }
+  }
+
+  private fun remove(paths: List<String>) {
+    if (paths.isNotEmpty()) {
+      presentFiles.removeAll(paths)
+      newBookDao.deleteBooksWithFiles(paths)
+    }
+  }
+
+  private fun storageIntentFilter() = IntentFilter().apply {
+    addAction(Intent.ACTION_MEDIA_MOUNTED)
+    addAction(Intent.ACTION_MEDIA_UNMOUNTED)
+    addAction(Intent.ACTION_MEDIA_EJECT)
+    addAction(Intent.ACTION_MEDIA_REMOVED)
+    addAction(Intent.ACTION_MEDIA_BAD_REMOVAL)
+    addDataScheme("file")
+  }
+
+  private inner class DirectoryObserver(val directory: String) :
+    FileObserver(directory, WATCHED_EVENTS) {
+    override fun onEvent(event: Int, path: String?) {
+      onDirectoryEvent(this, event, path)
+    }
+  }
+}
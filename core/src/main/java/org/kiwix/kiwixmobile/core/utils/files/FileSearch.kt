@@ -23,33 +23,88 @@ import android.provider.MediaStore.Files
 import android.provider.MediaStore.MediaColumns
 import eu.mhutti1.utils.storage.StorageDevice
 import eu.mhutti1.utils.storage.StorageDeviceUtils
+import io.reactivex.BackpressureStrategy
 import io.reactivex.Flowable
-import io.reactivex.functions.BiFunction
+import io.reactivex.FlowableEmitter
 import io.reactivex.schedulers.Schedulers
+import org.kiwix.kiwixmobile.core.dao.ScannedDirectoryDao
 import org.kiwix.kiwixmobile.core.extensions.forEachRow
 import org.kiwix.kiwixmobile.core.extensions.get
+import org.kiwix.kiwixmobile.core.utils.files.IndexedWalk.Companion.zimFileExtensions
+import org.kiwix.kiwixmobile.core.utils.files.IndexedWalk.Companion.zimFilesIn
 import java.io.File
 import javax.inject.Inject
+import javax.inject.Singleton
 
-class FileSearch @Inject constructor(private val context: Context) {
+/**
+ * The files [added] and [removed] since the previous scan, and the files it found [unchanged].
+ */
+data class FileChanges(
+  val added: List<File>,
+  val removed: List<File>,
+  val unchanged: List<File> = emptyList()
+) {
+  operator fun plus(other: FileChanges) =
+    FileChanges(added + other.added, removed + other.removed, unchanged + other.unchanged)
 
-  private val zimFileExtensions = arrayOf("zim", "zimaa")
+  companion object {
+    fun between(before: Set<File>, after: Set<File>) =
+      FileChanges(
+        (after - before).toList(),
+        (before - after).toList(),
+        after.intersect(before).toList()
+      )
+  }
+}
 
-  fun scan(): Flowable<List<File>> =
-    Flowable.combineLatest(
-      Flowable.fromCallable(::scanFileSystem).subscribeOn(Schedulers.io()),
-      Flowable.fromCallable(::scanMediaStore).subscribeOn(Schedulers.io()),
-      BiFunction<List<File>, List<File>, List<File>> { filesSystemFiles, mediaStoreFiles ->
-        filesSystemFiles + mediaStoreFiles
-      }
-    )
+/**
+ * Finds the ZIM files that were added or removed since the previous scan. The file system walk
+ * keeps an index of directory listings in [ScannedDirectoryDao] so a rescan only lists the
+ * directories that changed, even after the app restarted.
+ */
+@Singleton
+class FileSearch @Inject constructor(
+  private val context: Context,
+  private val scannedDirectoryDao: ScannedDirectoryDao
+) {
 
-  private fun scanMediaStore() = mutableListOf<File>().apply {
-    queryMediaStore()
-      ?.forEachRow { cursor ->
-        File(cursor.get<String>(MediaColumns.DATA)).takeIf(File::canRead)
-          ?.also { add(it) }
-      }
+  private var mediaStoreFiles = emptySet<File>()
+
+  /**
+   * Emits files as they are found, the unchanged files follow once the walk is complete. A file
+   * found both by the walk and in the MediaStore is emitted once. The removed files are emitted
+   * last, once both sources are complete, and only if neither of them still found the file.
+   */
+  fun scan(): Flowable<FileChanges> =
+    Flowable.defer {
+      val canonicalPaths = HashSet<String>()
+      val removed = LinkedHashMap<String, File>()
+      Flowable.merge(
+        Flowable.create(::scanFileSystem, BackpressureStrategy.BUFFER)
+          .subscribeOn(Schedulers.io()),
+        Flowable.fromCallable(::scanMediaStore).subscribeOn(Schedulers.io())
+      ).map { changes ->
+        changes.removed.forEach { removed[it.canonicalPath] = it }
+        FileChanges(
+          added = changes.added.filter { canonicalPaths.add(it.canonicalPath) },
+          removed = emptyList(),
+          unchanged = changes.unchanged.filter { canonicalPaths.add(it.canonicalPath) }
+        )
+      }.concatWith(Flowable.fromCallable {
+        FileChanges(emptyList(), removed.filterKeys { it !in canonicalPaths }.values.toList())
+      }).filter { it.added.isNotEmpty() || it.removed.isNotEmpty() || it.unchanged.isNotEmpty() }
+    }
+
+  @Synchronized
+  private fun scanMediaStore(): FileChanges {
+    val files = mutableSetOf<File>().apply {
+      queryMediaStore()
+        ?.forEachRow { cursor ->
+          File(cursor.get<String>(MediaColumns.DATA)).takeIf(File::canRead)
+            ?.also { add(it) }
+        }
+    }
+    return FileChanges.between(mediaStoreFiles, files).also { mediaStoreFiles = files }
   }
 
   private fun queryMediaStore() = context.contentResolver
@@ -61,18 +116,44 @@ class FileSearch @Inject constructor(private val context: Context) {
       null
     )
 
-  private fun scanFileSystem() =
-    directoryRoots()
-      .fold(mutableListOf<File>(), { acc, root ->
-        acc.apply { addAll(scanDirectory(root)) }
-      })
-      .distinctBy { it.canonicalPath }
+  /**
+   * Directories that were not reached, because they were removed or their storage is not
+   * mounted, leave the index and their files count as removed. They are listed again once
+   * they are back.
+   */
+  private fun scanFileSystem(emitter: FlowableEmitter<FileChanges>) {
+    val serializedEmitter = emitter.serialize()
+    try {
+      synchronized(scannedDirectoryDao) {
+        val index = scannedDirectoryDao.directories()
+        val walk = IndexedWalk(
+          index,
+          { serializedEmitter.onNext(FileChanges(it, emptyList())) },
+          serializedEmitter::isCancelled
+        )
+        walk.walk(directoryRoots().map(::File).filter(File::canRead))
+        if (serializedEmitter.isCancelled) return
+        scannedDirectoryDao.update(
+          walk.relisted.toList(),
+          index.values.filterNot { it.path in walk.visited }
+        )
+        val indexedZimFiles = zimFilesIn(index.values)
+        serializedEmitter.onNext(
+          FileChanges(
+            emptyList(),
+            (indexedZimFiles - walk.zimFiles).toList(),
+            walk.zimFiles.intersect(indexedZimFiles).toList()
+          )
+        )
+      }
+      serializedEmitter.onComplete()
+    } catch (exception: Exception) {
+      serializedEmitter.tryOnError(exception)
+    }
+  }
 
   private fun directoryRoots() =
     StorageDeviceUtils.getReadableStorage(context).map(StorageDevice::name)
-
-  private fun scanDirectory(directory: String): List<File> =
-    File(directory).walk().filter { it.extension.isAny(*zimFileExtensions) }.toList()
 }
 
 internal fun String.isAny(vararg suffixes: String) =
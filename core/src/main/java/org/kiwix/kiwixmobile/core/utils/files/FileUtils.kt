@@ -25,8 +25,6 @@ import android.os.Build
 import android.os.Build.VERSION_CODES
 import android.os.Environment
 import android.provider.DocumentsContract
-import android.util.Log
-import org.kiwix.kiwixmobile.core.downloader.ChunkUtils
 import org.kiwix.kiwixmobile.core.entity.LibraryNetworkEntity.Book
 import org.kiwix.kiwixmobile.core.extensions.get
 import java.io.File
@@ -46,49 +44,6 @@ object FileUtils {
     getFileCacheDir(context)?.deleteRecursively()
   }
 
-  @JvmStatic @Synchronized fun deleteZimFile(path: String) {
-    var path = path
-    if (path.substring(path.length - ChunkUtils.PART.length) == ChunkUtils.PART) {
-      path = path.substring(0, path.length - ChunkUtils.PART.length)
-    }
-    Log.i("kiwix", "Deleting file: $path")
-    val file = File(path)
-    if (file.path.substring(file.path.length - 3) != "zim") {
-      var alphabetFirst = 'a'
-      fileloop@ while (alphabetFirst <= 'z') {
-        var alphabetSecond = 'a'
-        while (alphabetSecond <= 'z') {
-          val chunkPath = path.substring(0, path.length - 2) + alphabetFirst + alphabetSecond
-          val fileChunk = File(chunkPath)
-          if (fileChunk.exists()) {
-            fileChunk.delete()
-          } else if (!deleteZimFileParts(chunkPath)) {
-            break@fileloop
-          }
-          alphabetSecond++
-        }
-        alphabetFirst++
-      }
-    } else {
-      file.delete()
-      deleteZimFileParts(path)
-    }
-  }
-
-  @Synchronized private fun deleteZimFileParts(path: String): Boolean {
-    val file = File(path + ChunkUtils.PART)
-    if (file.exists()) {
-      file.delete()
-      return true
-    }
-    val singlePart = File("$path.part")
-    if (singlePart.exists()) {
-      singlePart.delete()
-      return true
-    }
-    return false
-  }
-
   @JvmStatic fun getLocalFilePathByUri(
     context: Context,
     uri: Uri
@@ -165,52 +120,28 @@ object FileUtils {
     }
   }
 
-  @JvmStatic fun getAllZimParts(book: Book): List<File> {
+  @JvmStatic fun getAllZimParts(book: Book): List<File> = getAllZimParts(book.file)
+
+  @JvmStatic fun getAllZimParts(file: File): List<File> {
     val files = ArrayList<File>()
-    if (book.file.path.endsWith(".zim") || book.file.path.endsWith(".zim.part")) {
-      if (book.file.exists()) {
-        files.add(book.file)
+    if (file.path.endsWith(".zim") || file.path.endsWith(".zim.part")) {
+      if (file.exists()) {
+        files.add(file)
       } else {
-        files.add(File(book.file.toString() + ".part"))
+        files.add(File("$file.part"))
       }
       return files
     }
-    var path = book.file.path
-    for (firstCharacter in 'a'..'z') {
-      for (secondCharacter in 'a'..'z') {
-        path = path.substring(0, path.length - 2) + firstCharacter + secondCharacter
-        when {
-          File(path).exists() -> files.add(File(path))
-          File("$path.part").exists() -> files.add(File("$path.part"))
-          else -> return files
-        }
-      }
-    }
-    return files
+    return ZimChunkSet.of(file).parts
   }
 
   @JvmStatic fun hasPart(file: File): Boolean {
-    var file = file
-    file = File(getFileName(file.path))
-    if (file.path.endsWith(".zim")) {
-      return false
-    }
-    if (file.path.endsWith(".part")) {
-      return true
-    }
-    val path = file.path
-    for (firstCharacter in 'a'..'z') {
-      for (secondCharacter in 'a'..'z') {
-        val chunkPath = path.substring(0, path.length - 2) + firstCharacter + secondCharacter
-        val fileChunk = File("$chunkPath.part")
-        if (fileChunk.exists()) {
-          return true
-        } else if (!File(chunkPath).exists()) {
-          return false
-        }
-      }
+    val fileName = getFileName(file.path)
+    return when {
+      fileName.endsWith(".zim") -> false
+      fileName.endsWith(".part") -> true
+      else -> ZimChunkSet.of(File(fileName)).isInProgress
     }
-    return false
   }
 
   @JvmStatic fun getFileName(fileName: String) =
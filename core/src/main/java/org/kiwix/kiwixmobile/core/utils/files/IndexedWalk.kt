@@ -0,0 +1,145 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.utils.files
+
+import org.kiwix.kiwixmobile.core.dao.entities.ScannedDirectoryEntity
+import java.io.File
+import java.io.IOException
+import java.util.Collections
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicReference
+
+/**
+ * One pass over storage roots that trusts the indexed listing of every directory whose
+ * modification time has not changed since it was listed. Adding, removing or renaming an
+ * entry changes the modification time of its directory only, so every indexed directory is
+ * still checked, but that costs a single stat instead of one per entry; only directories
+ * that changed are listed again.
+ *
+ * Every directory is a task on a pool with one thread per core sharing a single queue, so
+ * idle threads pick up subtrees of whichever root is largest. Symbolic links to directories
+ * are not followed and roots are walked by their canonical path, which keeps links and
+ * aliased mount points from looping or being walked twice. Files in directories that were
+ * listed again and did not have them before are passed to [onAdded] straight away.
+ */
+internal class IndexedWalk(
+  private val index: Map<String, ScannedDirectoryEntity>,
+  private val onAdded: (List<File>) -> Unit = {},
+  private val isCancelled: () -> Boolean = { false }
+) {
+  val visited: MutableMap<String, ScannedDirectoryEntity> = ConcurrentHashMap()
+  val relisted: MutableCollection<ScannedDirectoryEntity> = ConcurrentLinkedQueue()
+
+  val zimFiles get() = zimFilesIn(visited.values)
+
+  fun walk(roots: List<File>, threads: Int = Runtime.getRuntime().availableProcessors()) {
+    val canonicalRoots = roots.map(File::getCanonicalFile).distinct()
+    if (canonicalRoots.isEmpty()) return
+    val executor = Executors.newFixedThreadPool(threads.coerceAtLeast(1))
+    // held by this thread until every root is submitted, so a walk that submits nothing (or
+    // whose first root finishes before the next is submitted) still finishes exactly once
+    val pending = AtomicInteger(1)
+    val finished = CountDownLatch(1)
+    val failure = AtomicReference<Throwable>()
+    val claimed = Collections.newSetFromMap(ConcurrentHashMap<String, Boolean>())
+
+    fun release() {
+      if (pending.decrementAndGet() == 0) finished.countDown()
+    }
+
+    fun submit(directory: File, depth: Int) {
+      if (depth > MAX_DEPTH || isCancelled() || !claimed.add(directory.path)) return
+      pending.incrementAndGet()
+      executor.execute {
+        try {
+          visit(directory).forEach { submit(File(directory, it), depth + 1) }
+        } catch (throwable: Throwable) {
+          failure.compareAndSet(null, throwable)
+        } finally {
+          release()
+        }
+      }
+    }
+
+    try {
+      canonicalRoots.forEach { submit(it, 0) }
+      release()
+      finished.await()
+    } finally {
+      executor.shutdownNow()
+    }
+    failure.get()?.let { throw it }
+  }
+
+  private fun visit(directory: File): List<String> {
+    val known = index[directory.path]
+    val lastModified = directory.lastModified()
+    val entry = known?.takeIf { it.lastModified == lastModified }
+      ?: list(directory, lastModified, known?.id ?: 0L).also { listed ->
+        relisted.add(listed)
+        (listed.zimFileNames - known?.zimFileNames.orEmpty())
+          .takeIf(List<String>::isNotEmpty)
+          ?.let { names -> onAdded(names.map { File(directory, it) }) }
+      }
+    visited[directory.path] = entry
+    return entry.directoryNames
+  }
+
+  private fun list(directory: File, lastModified: Long, id: Long): ScannedDirectoryEntity {
+    val directories = mutableListOf<String>()
+    val zimFiles = mutableListOf<String>()
+    directory.listFiles()?.forEach { file ->
+      when {
+        file.isDirectory ->
+          if (file.name !in skippedDirectories && !file.isSymbolicLink) directories.add(file.name)
+        file.extension.isAny(*zimFileExtensions) -> zimFiles.add(file.name)
+      }
+    }
+    return ScannedDirectoryEntity(id, directory.path, lastModified, directories, zimFiles)
+  }
+
+  // directories are walked by canonical path, so a child resolving elsewhere is a link
+  private val File.isSymbolicLink
+    get() = try {
+      canonicalPath != path
+    } catch (ioException: IOException) {
+      true
+    }
+
+  companion object {
+    val zimFileExtensions = arrayOf("zim", "zimaa")
+    private const val MAX_DEPTH = 16
+
+    /**
+     * Trees that hold thumbnails, caches and trash on most devices and never ZIM files.
+     */
+    private val skippedDirectories = setOf(
+      ".thumbnails", ".cache", "cache", "code_cache", ".Trash", ".trashed", "LOST.DIR"
+    )
+
+    fun zimFilesIn(directories: Collection<ScannedDirectoryEntity>) =
+      directories.flatMap { directory ->
+        directory.zimFileNames.map { File(directory.path, it) }
+      }.toSet()
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.utils.files
+
+import android.content.Context
+import android.os.Build
+import android.os.storage.StorageManager
+import android.util.Log
+import org.kiwix.kiwixmobile.core.utils.SharedPreferenceUtil
+import org.kiwix.kiwixmobile.zim_manager.MountPointProducer
+import java.io.File
+import java.io.IOException
+import java.io.RandomAccessFile
+import java.util.concurrent.ConcurrentHashMap
+import javax.inject.Inject
+import javax.inject.Singleton
+
+private const val TAG = "VolumeCapabilities"
+private const val FOUR_GIGABYTES_IN_BYTES = 4L * 1024L * 1024L * 1024L
+private const val SEPARATOR = "\t"
+
+data class VolumeCapabilities(
+  val volumeId: String,
+  val supports4GbFiles: Boolean,
+  val supportsSparseFiles: Boolean
+) {
+  fun encode() = listOf(volumeId, supports4GbFiles, supportsSparseFiles).joinToString(SEPARATOR)
+
+  companion object {
+    fun decode(encoded: String) = encoded.split(SEPARATOR)
+      .takeIf { it.size == 3 }
+      ?.let { (volumeId, supports4GbFiles, supportsSparseFiles) ->
+        VolumeCapabilities(volumeId, supports4GbFiles.toBoolean(), supportsSparseFiles.toBoolean())
+      }
+  }
+}
+
+/**
+ * What a storage volume's file system can do, found out by writing a 4GB file to it. That probe
+ * is real I/O on file systems without sparse files so it runs once per volume, identified by its
+ * uuid where Android knows it and its mount point, and the result is kept in preferences.
+ */
+@Singleton
+class VolumeCapabilityCache @Inject constructor(
+  private val context: Context,
+  private val sharedPreferenceUtil: SharedPreferenceUtil,
+  private val mountPointProducer: MountPointProducer
+) {
+  private val capabilities by lazy {
+    ConcurrentHashMap<String, VolumeCapabilities>().apply {
+      sharedPreferenceUtil.volumeCapabilities
+        .mapNotNull(VolumeCapabilities.Companion::decode)
+        .forEach { put(it.volumeId, it) }
+    }
+  }
+  private val volumeIdsByPath = ConcurrentHashMap<String, String>()
+
+  /**
+   * Probes the volume [path] is on unless it is known already. Null when the probe cannot tell,
+   * because [path] is not writable or the volume has no room for a 4GB file.
+   */
+  @Synchronized
+  fun capabilitiesOf(path: String): VolumeCapabilities? {
+    val volumeId = volumeIdOf(path).also { volumeIdsByPath[path] = it }
+    return capabilities[volumeId] ?: probe(volumeId, File(path))?.also { probed ->
+      capabilities[volumeId] = probed
+      sharedPreferenceUtil.volumeCapabilities =
+        capabilities.values.map(VolumeCapabilities::encode).toSet()
+    }
+  }
+
+  /**
+   * Capabilities [capabilitiesOf] found for [path] before, without touching the file system.
+   */
+  fun knownCapabilitiesOf(path: String) = volumeIdsByPath[path]?.let(capabilities::get)
+
+  private fun volumeIdOf(path: String): String {
+    val mountInfo = mountPointProducer.produce()
+      .maxBy { it.matchCount(path) }
+      ?.takeIf { it.matchCount(path) > 0 }
+    val uuid = if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+      (context.getSystemService(Context.STORAGE_SERVICE) as StorageManager?)
+        ?.getStorageVolume(File(path))
+        ?.uuid
+    } else null
+    return "${uuid ?: mountInfo?.device}@${mountInfo?.mountPoint ?: path}"
+  }
+
+  private fun probe(volumeId: String, directory: File): VolumeCapabilities? {
+    if (directory.usableSpace <= FOUR_GIGABYTES_IN_BYTES) {
+      return null
+    }
+    val probeFile = File(directory, "large_file_test.txt").apply { delete() }
+    return try {
+      RandomAccessFile(probeFile, "rw").use {
+        val usableSpace = directory.usableSpace
+        val supports4GbFiles = try {
+          it.setLength(FOUR_GIGABYTES_IN_BYTES)
+          true
+        } catch (ioException: IOException) {
+          Log.d(TAG, "$volumeId cannot hold 4GB files", ioException)
+          false
+        }
+        val supportsSparseFiles =
+          supports4GbFiles && usableSpace - directory.usableSpace < FOUR_GIGABYTES_IN_BYTES / 2
+        VolumeCapabilities(volumeId, supports4GbFiles, supportsSparseFiles)
+      }
+    } catch (ioException: IOException) {
+      Log.d(TAG, "Could not probe $volumeId", ioException)
+      null
+    } finally {
+      probeFile.delete()
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.utils.files
+
+import org.kiwix.kiwixmobile.core.downloader.ChunkUtils
+import java.io.File
+import java.util.concurrent.ConcurrentHashMap
+
+private const val IN_PROGRESS = ".part"
+
+/**
+ * The parts a split ZIM file (`.zimaa`, `.zimab`, ...) is stored in, in order, taken from a
+ * single listing of its directory. A part that is still downloading ends in `.part` or
+ * [ChunkUtils.PART]; the parts stop at the first missing suffix.
+ */
+data class ZimChunkSet(val parts: List<File>) {
+  val isInProgress get() = parts.any { it.name.endsWith(IN_PROGRESS) }
+  val isComplete get() = parts.isNotEmpty() && !isInProgress
+  val totalSize get() = parts.fold(0L) { size, part -> size + part.length() }
+
+  companion object {
+    private val completeChunkSets = ConcurrentHashMap<String, Pair<Long, ZimChunkSet>>()
+
+    /**
+     * Complete chunk sets are kept until their directory changes, sets that are still
+     * downloading are listed again every time.
+     */
+    @JvmStatic fun of(file: File): ZimChunkSet {
+      val basePath = basePathOf(file.path)
+      val directory = File(basePath).parentFile ?: return ZimChunkSet(emptyList())
+      val lastModified = directory.lastModified()
+      completeChunkSets[basePath]
+        ?.takeIf { (listedAt, _) -> listedAt == lastModified }
+        ?.let { (_, chunkSet) -> return chunkSet }
+      return list(directory, File(basePath).name).also {
+        if (it.isComplete) completeChunkSets[basePath] = lastModified to it
+        else completeChunkSets.remove(basePath)
+      }
+    }
+
+    @JvmStatic fun invalidate(file: File) {
+      completeChunkSets.remove(basePathOf(file.path))
+    }
+
+    private fun basePathOf(path: String) =
+      path.removeSuffix(ChunkUtils.PART).removeSuffix(IN_PROGRESS).dropLast(2)
+
+    private fun list(directory: File, baseName: String): ZimChunkSet {
+      val names = directory.list()?.filter { it.startsWith(baseName) }?.toSet().orEmpty()
+      val parts = ArrayList<File>()
+      for (first in 'a'..'z') {
+        for (second in 'a'..'z') {
+          val name = "$baseName$first$second"
+          val part = listOf(name, "$name$IN_PROGRESS", "$name${ChunkUtils.PART}")
+            .firstOrNull(names::contains)
+            ?: return ZimChunkSet(parts)
+          parts.add(File(directory, part))
+        }
+      }
+      return ZimChunkSet(parts)
+    }
+  }
+}
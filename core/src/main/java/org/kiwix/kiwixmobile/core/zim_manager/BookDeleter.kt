@@ -0,0 +1,137 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.zim_manager
+
+import io.reactivex.Flowable
+import io.reactivex.schedulers.Schedulers
+import org.kiwix.kiwixmobile.core.dao.NewBookDao
+import org.kiwix.kiwixmobile.core.dao.PendingDeletionDao
+import org.kiwix.kiwixmobile.core.downloader.ChunkUtils
+import org.kiwix.kiwixmobile.core.utils.files.ZimChunkSet
+import org.kiwix.kiwixmobile.core.zim_manager.BookDeletion.Deleted
+import org.kiwix.kiwixmobile.core.zim_manager.BookDeletion.InProgress
+import org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.adapter.BooksOnDiskListItem.BookOnDisk
+import org.kiwix.kiwixmobile.zim_manager.MountInfo
+import org.kiwix.kiwixmobile.zim_manager.MountPointProducer
+import java.io.File
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Deletes books and all of their parts.
+ *
+ * The database entries go first, in the same transaction that records the files as pending
+ * deletion, so the books leave the list straight away and a deletion the app does not live to
+ * finish is picked up again by [resumePendingDeletions]. Files on different storage devices are
+ * deleted in parallel, the files on one device one after the other.
+ *
+ * A book with parts that could not be deleted goes back into the database, or, when only its
+ * path is known, leaves the pending deletions so the next scan lists it again.
+ */
+@Singleton
+class BookDeleter @Inject constructor(
+  private val newBookDao: NewBookDao,
+  private val pendingDeletionDao: PendingDeletionDao,
+  private val mountPointProducer: MountPointProducer
+) {
+
+  fun delete(booksOnDisk: List<BookOnDisk>): Flowable<BookDeletion> =
+    Flowable.defer<BookDeletion> {
+      pendingDeletionDao.add(booksOnDisk.map { it.file.path }) {
+        booksOnDisk.forEach { newBookDao.delete(it.databaseId) }
+      }
+      deleteFiles(booksOnDisk.map { BookFiles(it.file, partsOf(it.file), it) })
+    }.subscribeOn(Schedulers.io())
+
+  fun resumePendingDeletions() {
+    Flowable.defer {
+      deleteFiles(pendingDeletionDao.paths().map(::File).map { BookFiles(it, partsOf(it)) })
+    }
+      .subscribeOn(Schedulers.io())
+      .ignoreElements()
+      .subscribe({}, Throwable::printStackTrace)
+  }
+
+  private fun deleteFiles(books: List<BookFiles>): Flowable<BookDeletion> {
+    val mountPoints = mountPointProducer.produce()
+    val totalBytes = books.fold(0L) { sum, book -> sum + book.length }
+    return Flowable.fromIterable(books.groupBy { volumeOf(it.file, mountPoints) }.values)
+      .flatMap { booksOnVolume ->
+        Flowable.fromIterable(booksOnVolume)
+          .map(::deleteParts)
+          .subscribeOn(Schedulers.io())
+      }
+      .scan(Tally(totalBytes = totalBytes), Tally::plus)
+      .publish { tallies ->
+        Flowable.merge(
+          tallies.map<BookDeletion> { InProgress(it.freedBytes, it.totalBytes) },
+          tallies.lastElement()
+            .toFlowable()
+            .map<BookDeletion> { Deleted(it.freedBytes, it.failedFiles) }
+        )
+      }
+  }
+
+  private fun deleteParts(book: BookFiles): DeletedBook {
+    val freedBytes = book.parts.fold(0L) { sum, part ->
+      val length = part.length()
+      if (part.delete()) sum + length else sum
+    }
+    ZimChunkSet.invalidate(book.file)
+    val isDeleted = book.parts.none(File::exists)
+    pendingDeletionDao.remove(book.file.path) {
+      if (!isDeleted && book.bookOnDisk != null) newBookDao.insert(listOf(book.bookOnDisk))
+    }
+    return DeletedBook(book.file, freedBytes, isDeleted)
+  }
+
+  private fun partsOf(file: File) =
+    if (file.path.endsWith(".zim")) {
+      listOf(file, File("$file.part"), File("$file${ChunkUtils.PART}")).filter(File::exists)
+    } else {
+      ZimChunkSet.of(file).parts
+    }
+
+  private fun volumeOf(file: File, mountPoints: List<MountInfo>) =
+    mountPoints.maxBy { it.matchCount(file.absolutePath) }
+      ?.takeIf { it.matchCount(file.absolutePath) > 0 }
+      ?.mountPoint
+      ?: file.absoluteFile.parent
+
+  private class BookFiles(
+    val file: File,
+    val parts: List<File>,
+    val bookOnDisk: BookOnDisk? = null
+  ) {
+    val length = parts.fold(0L) { sum, part -> sum + part.length() }
+  }
+
+  private data class DeletedBook(val file: File, val freedBytes: Long, val isDeleted: Boolean)
+
+  private data class Tally(
+    val freedBytes: Long = 0L,
+    val totalBytes: Long,
+    val failedFiles: List<File> = emptyList()
+  ) {
+    operator fun plus(deletedBook: DeletedBook) = copy(
+      freedBytes = freedBytes + deletedBook.freedBytes,
+      failedFiles = if (deletedBook.isDeleted) failedFiles else failedFiles + deletedBook.file
+    )
+  }
+}
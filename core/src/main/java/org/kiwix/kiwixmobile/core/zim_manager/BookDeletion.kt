@@ -0,0 +1,29 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.zim_manager
+
+import java.io.File
+
+sealed class BookDeletion {
+  data class InProgress(val freedBytes: Long, val totalBytes: Long) : BookDeletion() {
+    val progress get() = if (totalBytes == 0L) 0 else (freedBytes * 100 / totalBytes).toInt()
+  }
+
+  data class Deleted(val freedBytes: Long, val failedFiles: List<File>) : BookDeletion()
+}
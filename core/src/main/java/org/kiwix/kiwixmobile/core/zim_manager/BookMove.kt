@@ -0,0 +1,38 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.zim_manager
+
+import org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.adapter.BooksOnDiskListItem.BookOnDisk
+
+sealed class BookMove {
+  data class InProgress(
+    val bytesCopied: Long,
+    val bytesVerified: Long,
+    val totalBytes: Long
+  ) : BookMove() {
+    val progress
+      get() = if (totalBytes == 0L) 0 else ((bytesCopied + bytesVerified) * 50 / totalBytes).toInt()
+  }
+
+  data class Moved(val bookOnDisk: BookOnDisk) : BookMove()
+
+  object StillDownloading : BookMove()
+
+  data class NotEnoughSpace(val requiredBytes: Long, val availableBytes: Long) : BookMove()
+}
@@ -0,0 +1,249 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.zim_manager
+
+import io.objectbox.BoxStore
+import io.reactivex.BackpressureStrategy
+import io.reactivex.Flowable
+import io.reactivex.FlowableEmitter
+import io.reactivex.schedulers.Schedulers
+import org.kiwix.kiwixmobile.core.dao.HistoryDao
+import org.kiwix.kiwixmobile.core.dao.NewBookDao
+import org.kiwix.kiwixmobile.core.dao.NewBookmarksDao
+import org.kiwix.kiwixmobile.core.downloader.ChunkUtils
+import org.kiwix.kiwixmobile.core.settings.StorageCalculator
+import org.kiwix.kiwixmobile.core.utils.files.FileUtils
+import org.kiwix.kiwixmobile.core.utils.files.ZimChunkSet
+import org.kiwix.kiwixmobile.core.zim_manager.BookMove.InProgress
+import org.kiwix.kiwixmobile.core.zim_manager.BookMove.Moved
+import org.kiwix.kiwixmobile.core.zim_manager.BookMove.NotEnoughSpace
+import org.kiwix.kiwixmobile.core.zim_manager.BookMove.StillDownloading
+import org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.adapter.BooksOnDiskListItem.BookOnDisk
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import java.io.IOException
+import java.io.RandomAccessFile
+import java.nio.channels.FileChannel
+import java.util.concurrent.atomic.AtomicBoolean
+import javax.inject.Inject
+
+/**
+ * Moves a book and all of its parts to the Kiwix directory of another storage device.
+ *
+ * Every part is copied to a `.moving` file next to its destination with channel transfers and
+ * a checkpoint of the bytes known to be on disk is kept beside it, so a move that is cancelled
+ * or killed carries on from there the next time. Once every copy reads back identical to its
+ * source they are renamed into place, the book, its history and its bookmarks are pointed at
+ * its new file in one transaction and only then are the sources deleted. Books that are still
+ * downloading are not moved.
+ */
+class BookMover @Inject constructor(
+  private val boxStore: BoxStore,
+  private val newBookDao: NewBookDao,
+  private val historyDao: HistoryDao,
+  private val newBookmarksDao: NewBookmarksDao,
+  private val storageCalculator: StorageCalculator
+) {
+
+  fun move(bookOnDisk: BookOnDisk, storage: File): Flowable<BookMove> =
+    Flowable.create<BookMove>({ emitter ->
+      val cancelled = AtomicBoolean()
+      emitter.setCancellable { cancelled.set(true) }
+      try {
+        move(bookOnDisk, storage, emitter, cancelled)
+      } catch (ioException: IOException) {
+        emitter.tryOnError(ioException)
+      }
+    }, BackpressureStrategy.LATEST).subscribeOn(Schedulers.io())
+
+  private fun move(
+    bookOnDisk: BookOnDisk,
+    storage: File,
+    emitter: FlowableEmitter<BookMove>,
+    cancelled: AtomicBoolean
+  ) {
+    val directory = File(storage, KIWIX_DIRECTORY)
+    if (isDownloading(bookOnDisk.file)) {
+      emitter.onNext(StillDownloading)
+      emitter.onComplete()
+      return
+    }
+    val sources = FileUtils.getAllZimParts(bookOnDisk.file).filter(File::exists)
+    if (sources.isEmpty()) throw IOException("${bookOnDisk.file} does not exist")
+    if (sources.first().parentFile?.canonicalPath == directory.canonicalPath) {
+      emitter.onNext(Moved(bookOnDisk))
+      emitter.onComplete()
+      return
+    }
+    val parts = sources.map { PartMove(it, File(directory, it.name)) }
+    val totalBytes = parts.fold(0L) { sum, part -> sum + part.source.length() }
+    val requiredBytes = parts.fold(0L) { sum, part -> sum + part.remainingBytes }
+    val availableBytes = storageCalculator.availableBytes(storage)
+    if (requiredBytes > availableBytes) {
+      emitter.onNext(NotEnoughSpace(requiredBytes, availableBytes))
+      emitter.onComplete()
+      return
+    }
+    if (!directory.isDirectory && !directory.mkdirs()) throw IOException("Cannot create $directory")
+    var bytesCopied = totalBytes - requiredBytes
+    var bytesVerified = 0L
+    parts.forEach { part ->
+      part.copy(cancelled) {
+        bytesCopied += it
+        emitter.onNext(InProgress(bytesCopied, bytesVerified, totalBytes))
+      }
+      part.verify(cancelled) {
+        bytesVerified += it
+        emitter.onNext(InProgress(bytesCopied, bytesVerified, totalBytes))
+      }
+      if (cancelled.get()) return
+    }
+    parts.forEach(PartMove::commit)
+    val moved = bookOnDisk.copy(file = parts.first().target)
+    val oldPaths = setOf(bookOnDisk.file.path, bookOnDisk.file.canonicalPath)
+    boxStore.runInTx {
+      newBookDao.updateFile(bookOnDisk.databaseId, moved.file)
+      historyDao.updateZimFilePath(oldPaths, moved.file.canonicalPath)
+      newBookmarksDao.updateZimFilePath(oldPaths, moved.file.canonicalPath)
+    }
+    sources.forEach(File::delete)
+    emitter.onNext(Moved(moved))
+    emitter.onComplete()
+  }
+
+  private fun isDownloading(file: File) = when {
+    file.path.endsWith(".part") -> true
+    file.path.endsWith(".zim") ->
+      File("$file.part").exists() || File("$file${ChunkUtils.PART}").exists()
+    else -> ZimChunkSet.of(file).isInProgress
+  }
+
+  private class PartMove(val source: File, val target: File) {
+    private val working =
+      if (target.exists()) target else File(target.parent, "${target.name}$MOVING_EXTENSION")
+    private val checkpoint = File(working.parent, "${working.name}$CHECKPOINT_EXTENSION")
+    private var bytesCopied = 0L
+    private var isVerified = false
+
+    init {
+      if (working == target && target.length() != source.length()) {
+        throw IOException("$target already exists")
+      }
+      if (working == target) {
+        bytesCopied = target.length()
+      } else if (checkpoint.exists() && working.exists()) {
+        DataInputStream(FileInputStream(checkpoint)).use {
+          bytesCopied = it.readLong()
+          isVerified = it.readBoolean()
+        }
+      }
+    }
+
+    val remainingBytes get() = source.length() - bytesCopied
+
+    fun copy(cancelled: AtomicBoolean, onCopied: (Long) -> Unit) {
+      if (bytesCopied == source.length()) return
+      FileInputStream(source).channel.use { input ->
+        RandomAccessFile(working, "rw").use { output ->
+          output.setLength(bytesCopied)
+          val channel = output.channel.position(bytesCopied)
+          var bytesSinceCheckpoint = 0L
+          while (bytesCopied < source.length() && !cancelled.get()) {
+            val count = input.transferTo(
+              bytesCopied, minOf(TRANSFER_SIZE, source.length() - bytesCopied), channel
+            )
+            if (count <= 0L) throw IOException("$source ended early")
+            bytesCopied += count
+            bytesSinceCheckpoint += count
+            if (bytesSinceCheckpoint >= CHECKPOINT_INTERVAL) {
+              saveCheckpoint(channel)
+              bytesSinceCheckpoint = 0L
+            }
+            onCopied(count)
+          }
+          saveCheckpoint(channel)
+        }
+      }
+    }
+
+    fun verify(cancelled: AtomicBoolean, onVerified: (Long) -> Unit) {
+      if (isVerified || bytesCopied < source.length()) {
+        onVerified(if (isVerified) source.length() else 0L)
+        return
+      }
+      val expected = ByteArray(VERIFY_BUFFER_SIZE)
+      val actual = ByteArray(VERIFY_BUFFER_SIZE)
+      RandomAccessFile(source, "r").use { sourceFile ->
+        RandomAccessFile(working, "r").use { copy ->
+          if (copy.length() != sourceFile.length()) discard()
+          var position = 0L
+          while (position < sourceFile.length()) {
+            if (cancelled.get()) return
+            val length = minOf(VERIFY_BUFFER_SIZE.toLong(), sourceFile.length() - position).toInt()
+            sourceFile.readFully(expected, 0, length)
+            copy.readFully(actual, 0, length)
+            if (!expected.contentEquals(actual)) discard()
+            position += length
+            onVerified(length.toLong())
+          }
+        }
+      }
+      isVerified = true
+      saveCheckpoint()
+    }
+
+    fun commit() {
+      if (working != target && !working.renameTo(target)) {
+        throw IOException("Cannot rename $working to $target")
+      }
+      checkpoint.delete()
+    }
+
+    private fun discard(): Nothing {
+      bytesCopied = 0L
+      if (working != target) working.delete()
+      checkpoint.delete()
+      throw IOException("The copy of $source does not match it")
+    }
+
+    private fun saveCheckpoint(channel: FileChannel) {
+      channel.force(false)
+      saveCheckpoint()
+    }
+
+    private fun saveCheckpoint() {
+      DataOutputStream(FileOutputStream(checkpoint)).use {
+        it.writeLong(bytesCopied)
+        it.writeBoolean(isVerified)
+      }
+    }
+  }
+
+  companion object {
+    private const val KIWIX_DIRECTORY = "Kiwix"
+    private const val MOVING_EXTENSION = ".moving"
+    private const val CHECKPOINT_EXTENSION = ".checkpoint"
+    private const val TRANSFER_SIZE = 8L * 1024 * 1024
+    private const val CHECKPOINT_INTERVAL = 64L * 1024 * 1024
+    private const val VERIFY_BUFFER_SIZE = 4 * 1024 * 1024
+  }
+}
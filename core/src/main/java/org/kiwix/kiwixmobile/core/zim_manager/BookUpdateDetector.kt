@@ -0,0 +1,70 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.zim_manager
+
+import org.kiwix.kiwixmobile.core.entity.LibraryNetworkEntity.Book
+import org.kiwix.kiwixmobile.core.utils.StorageUtils
+import org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.adapter.BooksOnDiskListItem.BookOnDisk
+
+data class AvailableUpdate(val installed: BookOnDisk, val update: Book)
+
+/**
+ * Finds books on disk that the catalog has a newer version of. A newer version has the same
+ * name and flavour and a later date; the catalog is indexed by name and flavour once so
+ * matching the whole library is a single pass over each side.
+ */
+object BookUpdateDetector {
+  private val dateSuffix = Regex("_\\d{4}-\\d{2}$")
+  private val chunkSuffix = Regex("\\.zim[a-z]{2}$")
+
+  fun availableUpdates(booksOnDisk: List<BookOnDisk>, catalog: List<Book>): List<AvailableUpdate> {
+    val latestVersions = HashMap<Pair<String, String>, Book>(catalog.size)
+    catalog.forEach { book ->
+      val key = keyOf(book, StorageUtils.getFileNameFromUrl(book.url)) ?: return@forEach
+      val latest = latestVersions[key]
+      if (latest == null || latest.date.orEmpty() < book.date.orEmpty()) {
+        latestVersions[key] = book
+      }
+    }
+    return booksOnDisk.mapNotNull { bookOnDisk ->
+      keyOf(bookOnDisk.book, bookOnDisk.file.name)
+        ?.let(latestVersions::get)
+        ?.takeIf { it.date.orEmpty() > bookOnDisk.book.date.orEmpty() && it != bookOnDisk.book }
+        ?.let { AvailableUpdate(bookOnDisk, it) }
+    }
+  }
+
+  fun totalSize(updates: List<AvailableUpdate>) =
+    KiloByte("${updates.sumByLong { it.update.size?.toLongOrNull() ?: 0L }}")
+
+  private fun keyOf(book: Book, fileName: String): Pair<String, String>? =
+    book.name?.takeIf(String::isNotEmpty)?.let { it to flavourOf(it, fileName) }
+
+  /**
+   * Catalog file names are `<name>_<flavour>_<yyyy-MM>.zim`, the flavour being empty for the
+   * default one.
+   */
+  internal fun flavourOf(name: String, fileName: String): String {
+    val baseName = fileName.replace(chunkSuffix, "").removeSuffix(".zim").replace(dateSuffix, "")
+    return if (baseName.startsWith(name)) baseName.removePrefix(name).removePrefix("_") else ""
+  }
+
+  private inline fun <T> List<T>.sumByLong(selector: (T) -> Long) =
+    fold(0L) { sum, element -> sum + selector(element) }
+}
@@ -0,0 +1,64 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.zim_manager.fileselect_view
+
+import org.kiwix.kiwixmobile.core.extensions.HeaderizableList
+import org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.adapter.BooksOnDiskListItem
+import org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.adapter.BooksOnDiskListItem.BookOnDisk
+import org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.adapter.BooksOnDiskListItem.LanguageItem
+
+/**
+ * The books on disk sorted by language and title with a header before every language.
+ *
+ * [update] keeps the books that did not change where they are and only inserts the ones that
+ * were added or changed, so a new emission from the database does not sort every book again and
+ * an unchanged one returns the same snapshot.
+ */
+class BooksOnDiskSnapshot private constructor(private val sortedBooks: List<BookOnDisk>) {
+
+  val items: List<BooksOnDiskListItem> by lazy {
+    HeaderizableList<BooksOnDiskListItem, BookOnDisk, LanguageItem>(sortedBooks)
+      .foldOverAddingHeaders(
+        { bookOnDisk -> LanguageItem(bookOnDisk.locale) },
+        { current, next -> current.locale.displayName != next.locale.displayName })
+      .toList()
+  }
+
+  fun update(books: List<BookOnDisk>): BooksOnDiskSnapshot {
+    val current = sortedBooks.associateBy(BookOnDisk::databaseId)
+    val changed = books.filter { current[it.databaseId] != it }
+    if (changed.isEmpty() && books.size == sortedBooks.size) {
+      return this
+    }
+    val latest = books.associateBy(BookOnDisk::databaseId)
+    val updated = sortedBooks.filterTo(ArrayList(books.size)) { latest[it.databaseId] == it }
+    changed.forEach { book ->
+      val index = updated.binarySearch(book, ORDER)
+      updated.add(if (index < 0) -index - 1 else index, book)
+    }
+    return BooksOnDiskSnapshot(updated)
+  }
+
+  companion object {
+    @JvmField val EMPTY = BooksOnDiskSnapshot(emptyList())
+
+    private val ORDER =
+      compareBy<BookOnDisk>({ it.book.language + it.book.title }, BookOnDisk::databaseId)
+  }
+}
@@ -18,6 +18,7 @@
 
 package org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.adapter
 
+import androidx.recyclerview.widget.DiffUtil
 import org.kiwix.kiwixmobile.core.base.adapter.AdapterDelegate
 import org.kiwix.kiwixmobile.core.base.adapter.BaseDelegateAdapter
 
@@ -27,4 +28,16 @@ class BooksOnDiskAdapter(
   *delegates
 ) {
   override fun getIdFor(item: BooksOnDiskListItem) = item.id
+
+  fun update(newItems: List<BooksOnDiskListItem>) {
+    updateItems(newItems, BooksOnDiskItemCallback)
+  }
+
+  private object BooksOnDiskItemCallback : DiffUtil.ItemCallback<BooksOnDiskListItem>() {
+    override fun areItemsTheSame(oldItem: BooksOnDiskListItem, newItem: BooksOnDiskListItem) =
+      oldItem.javaClass == newItem.javaClass && oldItem.id == newItem.id
+
+    override fun areContentsTheSame(oldItem: BooksOnDiskListItem, newItem: BooksOnDiskListItem) =
+      oldItem == newItem && oldItem.isSelected == newItem.isSelected
+  }
 }
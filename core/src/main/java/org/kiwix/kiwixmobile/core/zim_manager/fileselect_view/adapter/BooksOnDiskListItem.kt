@@ -22,6 +22,7 @@ import org.kiwix.kiwixmobile.core.dao.entities.BookOnDiskEntity
 import org.kiwix.kiwixmobile.core.dao.entities.FetchDownloadEntity
 import org.kiwix.kiwixmobile.core.entity.LibraryNetworkEntity.Book
 import org.kiwix.kiwixmobile.core.reader.ZimFileReader
+import org.kiwix.kiwixmobile.core.utils.files.FileUtils
 import org.kiwix.kiwixmobile.core.zim_manager.KiwixTag
 import java.io.File
 import java.util.Locale
@@ -45,6 +46,7 @@ sealed class BooksOnDiskListItem {
     val book: Book,
     val file: File,
     val tags: List<KiwixTag> = KiwixTag.from(book.tags),
+    val faviconHash: String? = null,
     override val id: Long = databaseId
   ) : BooksOnDiskListItem() {
 
@@ -52,15 +54,19 @@ sealed class BooksOnDiskListItem {
       Locale(book.language)
     }
 
-    constructor(bookOnDiskEntity: BookOnDiskEntity) : this(
+    constructor(
+      bookOnDiskEntity: BookOnDiskEntity,
+      favicon: String? = bookOnDiskEntity.favIcon
+    ) : this(
       bookOnDiskEntity.id,
-      bookOnDiskEntity.toBook(),
-      bookOnDiskEntity.file
+      bookOnDiskEntity.toBook(favicon),
+      bookOnDiskEntity.file,
+      faviconHash = bookOnDiskEntity.faviconHash
     )
 
     constructor(fetchDownloadEntity: FetchDownloadEntity) : this(
       book = fetchDownloadEntity.toBook(),
-      file = File(fetchDownloadEntity.file)
+      file = File(FileUtils.getFileName(fetchDownloadEntity.file))
     )
 
     constructor(file: File, zimFileReader: ZimFileReader) : this(
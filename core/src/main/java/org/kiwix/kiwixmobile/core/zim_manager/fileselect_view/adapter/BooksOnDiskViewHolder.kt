@@ -67,7 +67,7 @@ sealed class BookOnDiskViewHolder<in T : BooksOnDiskListItem>(containerView: Vie
           ArticleCount(it).toHumanReadable(containerView.context)
       }
 
-      item_book_icon.setBitmap(Base64String(book.favicon))
+      item_book_icon.setBitmap(Base64String(book.favicon), item.faviconHash)
 
       tags.visibility = if (item.tags.isEmpty()) View.GONE else View.VISIBLE
       tags.render(item.tags)
@@ -183,8 +183,9 @@ fun bookOnDiskEntity(
   mediaCount: String = "",
   size: String = "",
   name: String? = "",
-  favIcon: String = "",
-  tags: String? = ""
+  favIcon: String? = "",
+  tags: String? = "",
+  faviconHash: String? = null
 ) =
   BookOnDiskEntity(
     id,
@@ -202,5 +203,6 @@ fun bookOnDiskEntity(
     size,
     name,
     favIcon,
-    tags
+    tags,
+    faviconHash
   )
@@ -28,10 +28,16 @@ import org.junit.jupiter.api.AfterAll
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
 import org.kiwix.kiwixmobile.core.dao.FetchDownloadDao
+import org.kiwix.kiwixmobile.core.dao.NewBookDao
+import org.kiwix.kiwixmobile.core.dao.PendingDeletionDao
 import org.kiwix.kiwixmobile.core.downloader.model.DownloadModel
+import org.kiwix.kiwixmobile.core.entity.LibraryNetworkEntity.Book
 import org.kiwix.kiwixmobile.core.reader.ZimFileReader
 import org.kiwix.kiwixmobile.core.reader.ZimFileReader.Factory
+import org.kiwix.kiwixmobile.core.reader.ZimMetadataCache
+import org.kiwix.kiwixmobile.core.reader.ZimMetadataReader
 import org.kiwix.kiwixmobile.core.utils.SharedPreferenceUtil
+import org.kiwix.kiwixmobile.core.utils.files.FileChanges
 import org.kiwix.kiwixmobile.core.utils.files.FileSearch
 import org.kiwix.sharedFunctions.book
 import org.kiwix.sharedFunctions.bookOnDisk
@@ -48,8 +54,12 @@ class StorageObserverTest {
   private val file: File = mockk()
   private val readerFactory: Factory = mockk()
   private val zimFileReader: ZimFileReader = mockk()
+  private val zimMetadataCache: ZimMetadataCache = mockk()
+  private val zimMetadataReader: ZimMetadataReader = mockk()
+  private val pendingDeletionDao: PendingDeletionDao = mockk()
+  private val newBookDao: NewBookDao = mockk()
 
-  private val files: PublishProcessor<List<File>> = PublishProcessor.create()
+  private val files: PublishProcessor<FileChanges> = PublishProcessor.create()
   private val downloads: PublishProcessor<List<DownloadModel>> = PublishProcessor.create()
 
   private lateinit var storageObserver: StorageObserver
@@ -69,7 +79,17 @@ class StorageObserverTest {
     every { fileSearch.scan() } returns files
     every { downloadDao.downloads() } returns downloads
     every { readerFactory.create(file) } returns zimFileReader
-    storageObserver = StorageObserver(downloadDao, fileSearch, readerFactory)
+    every { zimMetadataCache.bookFor(file, any()) } answers {
+      secondArg<(File) -> Book?>().invoke(file)
+    }
+    every { zimMetadataReader.read(file) } returns null
+    every { pendingDeletionDao.paths() } returns listOf()
+    every { newBookDao.filePaths() } returns hashSetOf()
+    every { file.path } returns "/storage/book.zim"
+    storageObserver = StorageObserver(
+      downloadDao, fileSearch, readerFactory, zimMetadataCache, zimMetadataReader,
+      pendingDeletionDao, newBookDao
+    )
   }
 
   @Test
@@ -92,12 +112,61 @@ class StorageObserverTest {
     verify { zimFileReader.dispose() }
   }
 
-  private fun booksOnFileSystem() = storageObserver.booksOnFileSystem
-    .test()
-    .also {
-      downloads.offer(listOf(downloadModel))
-      files.offer(listOf(file))
-    }
+  @Test
+  fun `zim files are listed from their metadata without the file reader`() {
+    val expectedBook = book()
+    withNoFiltering()
+    every { zimMetadataReader.read(file) } returns expectedBook
+    booksOnFileSystem().assertValues(
+      listOf(bookOnDisk(book = expectedBook, file = file))
+    )
+    verify(exactly = 0) { readerFactory.create(any()) }
+  }
+
+  @Test
+  fun `cached zim files are not read again`() {
+    val cachedBook = book()
+    withNoFiltering()
+    every { zimMetadataCache.bookFor(file, any()) } returns cachedBook
+    booksOnFileSystem().assertValues(
+      listOf(bookOnDisk(book = cachedBook, file = file))
+    )
+    verify(exactly = 0) { readerFactory.create(any()) }
+  }
+
+  @Test
+  fun `files that are being deleted are not read`() {
+    withNoFiltering()
+    every { pendingDeletionDao.paths() } returns listOf("/storage/book.zim")
+    booksOnFileSystem().assertValues(listOf())
+    verify(exactly = 0) { zimMetadataCache.bookFor(any(), any()) }
+  }
+
+  @Test
+  fun `files that already have a book are not read`() {
+    withNoFiltering()
+    every { newBookDao.filePaths() } returns hashSetOf("/storage/book.zim")
+    booksOnFileSystem(FileChanges(listOf(), listOf(), listOf(file))).assertValues(listOf())
+    verify(exactly = 0) { zimMetadataCache.bookFor(any(), any()) }
+  }
+
+  @Test
+  fun `unchanged files without a book are read again`() {
+    val expectedBook = book()
+    withNoFiltering()
+    every { zimMetadataReader.read(file) } returns expectedBook
+    booksOnFileSystem(FileChanges(listOf(), listOf(), listOf(file))).assertValues(
+      listOf(bookOnDisk(book = expectedBook, file = file))
+    )
+  }
+
+  private fun booksOnFileSystem(changes: FileChanges = FileChanges(listOf(file), listOf())) =
+    storageObserver.booksOnFileSystem
+      .test()
+      .also {
+        downloads.offer(listOf(downloadModel))
+        files.offer(changes)
+      }
 
   private fun withFiltering() {
     every { downloadModel.fileNameFromUrl } returns "test"
@@ -48,46 +48,54 @@ import java.util.concurrent.Callable
 internal class NewBookDaoTest {
 
   private val box: Box<BookOnDiskEntity> = mockk(relaxed = true)
-  private val newBookDao = NewBookDao(box)
+  private val faviconDao: FaviconDao = mockk()
+  private val newBookDao = NewBookDao(box, faviconDao)
 
   @BeforeEach
   internal fun setUp() {
     clearAllMocks()
+    every { faviconDao.favicon(any()) } returns null
+    every { faviconDao.saveFavicon(any()) } returns "faviconHash"
   }
 
   @Nested
   inner class BooksTests {
     @Test
-    fun `books emits entities whose file exists`() {
-      val (expectedEntity, _) = expectEmissionOfExistingAndNotExistingBook()
-      newBookDao.books().test().assertValues(listOf(BookOnDisk(expectedEntity)))
+    fun `books emits all entities without checking their files`() {
+      val file = mockk<File>()
+      val entity = bookOnDiskEntity(file = file)
+      expectEmissionOf(entity)
+      newBookDao.books().test().assertValues(listOf(BookOnDisk(entity)))
+      verify(exactly = 0) { file.exists() }
     }
 
     @Test
-    fun `books deletes entities whose file does not exist`() {
-      val (_, deletedEntity) = expectEmissionOfExistingAndNotExistingBook()
-      newBookDao.books().test()
-      verify { box.remove(listOf(deletedEntity)) }
+    fun `bookFiles emits the file of every entity`() {
+      val entity = bookOnDiskEntity(file = File("test.zim"))
+      expectEmissionOf(entity)
+      newBookDao.bookFiles().test().assertValues(listOf(File("test.zim")))
     }
 
-    private fun expectEmissionOfExistingAndNotExistingBook():
-      Pair<BookOnDiskEntity, BookOnDiskEntity> {
+    private fun expectEmissionOf(entity: BookOnDiskEntity) {
       val query: Query<BookOnDiskEntity> = mockk()
       every { box.query().build() } returns query
-      val fileThatExists = mockk<File>()
-      val fileThatDoesNotExist = mockk<File>()
-      every { fileThatExists.exists() } returns true
-      every { fileThatDoesNotExist.exists() } returns false
-      val entityThatExists = bookOnDiskEntity(file = fileThatExists)
-      val entityThatDoesNotExist = bookOnDiskEntity(file = fileThatDoesNotExist)
       mockkStatic(RxQuery::class)
-      every { RxQuery.observable(query) } returns Observable.just(
-        listOf(entityThatExists, entityThatDoesNotExist)
-      )
-      return Pair(entityThatExists, entityThatDoesNotExist)
+      every { RxQuery.observable(query) } returns Observable.just(listOf(entity))
     }
   }
 
+  @Test
+  fun deleteBooksWithFiles() {
+    val queryBuilder: QueryBuilder<BookOnDiskEntity> = mockk()
+    every { box.query() } returns queryBuilder
+    every { queryBuilder.`in`(BookOnDiskEntity_.file, arrayOf("test.zim")) } returns queryBuilder
+    val query: Query<BookOnDiskEntity> = mockk()
+    every { queryBuilder.build() } returns query
+    every { query.remove() } returns 1L
+    newBookDao.deleteBooksWithFiles(listOf("test.zim"))
+    verify { query.remove() }
+  }
+
   @Test
   fun getBooks() {
     val entity = bookOnDiskEntity()
@@ -114,7 +122,7 @@ internal class NewBookDaoTest {
       every { queryBuilder.build() } returns query
       every { query.find() } returns listOf(bookOnDiskEntity(file = File("matches_nothing")))
       slot.captured.call()
-      verify { box.put(listOf(BookOnDiskEntity(distinctBook))) }
+      verify { box.put(listOf(BookOnDiskEntity(distinctBook, "faviconHash"))) }
     }
 
     @Test
@@ -154,7 +162,7 @@ internal class NewBookDaoTest {
       } returns queryBuilder
       every { query.remove() } returns 0L
       slot.captured.call()
-      verify { box.put(listOf(BookOnDiskEntity(distinctBook))) }
+      verify { box.put(listOf(BookOnDiskEntity(distinctBook, "faviconHash"))) }
     }
   }
 
@@ -171,23 +179,35 @@ internal class NewBookDaoTest {
     every { box.store.callInTx(capture(slot)) } returns Unit
     newBookDao.migrationInsert(listOf(book))
     slot.captured.call()
-    verify { box.put(listOf(BookOnDiskEntity(BookOnDisk(book = book, file = book.file)))) }
+    verify {
+      box.put(listOf(BookOnDiskEntity(BookOnDisk(book = book, file = book.file), "faviconHash")))
+    }
   }
 
   @Test
-  fun `getFavIconAndZimFile with no result returns pair with null values`() {
+  fun `getFavIconHashAndZimFile with no result returns pair with null values`() {
     val bookmark: Bookmark = mockk()
     expectGetFavIconAndZimFileWith(bookmark, listOf())
-    assertThat(newBookDao.getFavIconAndZimFile(bookmark)).isEqualTo(Pair(null, null))
+    assertThat(newBookDao.getFavIconHashAndZimFile(bookmark)).isEqualTo(Pair(null, null))
   }
 
   @Test
-  fun `getFavIconAndZimFile with result returns valid pair`() {
+  fun `getFavIconHashAndZimFile with result returns valid pair`() {
     val bookmark: Bookmark = mockk()
-    val bookOnDiskEntity: BookOnDiskEntity = bookOnDiskEntity()
+    val bookOnDiskEntity: BookOnDiskEntity = bookOnDiskEntity(faviconHash = "hash")
+    expectGetFavIconAndZimFileWith(bookmark, listOf(bookOnDiskEntity))
+    assertThat(newBookDao.getFavIconHashAndZimFile(bookmark))
+      .isEqualTo(Pair("hash", bookOnDiskEntity.file.path))
+  }
+
+  @Test
+  fun `getFavIconHashAndZimFile stores legacy favicons`() {
+    val bookmark: Bookmark = mockk()
+    val bookOnDiskEntity: BookOnDiskEntity = bookOnDiskEntity(favIcon = "favIcon")
     expectGetFavIconAndZimFileWith(bookmark, listOf(bookOnDiskEntity))
-    assertThat(newBookDao.getFavIconAndZimFile(bookmark))
-      .isEqualTo(Pair(bookOnDiskEntity.favIcon, bookOnDiskEntity.file.path))
+    assertThat(newBookDao.getFavIconHashAndZimFile(bookmark))
+      .isEqualTo(Pair("faviconHash", bookOnDiskEntity.file.path))
+    verify { faviconDao.saveFavicon("favIcon") }
   }
 
   private fun expectGetFavIconAndZimFileWith(
@@ -0,0 +1,92 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.dao
+
+import io.mockk.every
+import io.mockk.mockk
+import io.objectbox.Box
+import io.objectbox.query.Query
+import io.objectbox.query.QueryBuilder
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import org.kiwix.kiwixmobile.core.dao.entities.VerifiedBookEntity
+import java.io.File
+
+internal class VerifiedBookDaoTest {
+
+  @TempDir lateinit var directory: File
+
+  private val box: Box<VerifiedBookEntity> = mockk(relaxed = true)
+  private val queryBuilder: QueryBuilder<VerifiedBookEntity> = mockk(relaxed = true)
+  private val query: Query<VerifiedBookEntity> = mockk()
+  private val verifiedBookDao = VerifiedBookDao(box)
+
+  init {
+    every { box.query() } returns queryBuilder
+    every { queryBuilder.build() } returns query
+  }
+
+  @Test
+  fun `a book unchanged since it was verified is still verified`() {
+    val parts = parts()
+    expectEntity(parts, size = 10L)
+    assertThat(verifiedBookDao.isVerified(parts)).isTrue()
+  }
+
+  @Test
+  fun `a book whose size changed is not verified`() {
+    val parts = parts()
+    expectEntity(parts, size = 9L)
+    assertThat(verifiedBookDao.isVerified(parts)).isFalse()
+  }
+
+  @Test
+  fun `a book touched since it was verified is not verified`() {
+    val parts = parts()
+    expectEntity(parts, size = 10L)
+    parts.last().setLastModified(3_000L)
+    assertThat(verifiedBookDao.isVerified(parts)).isFalse()
+  }
+
+  @Test
+  fun `a book never verified is not verified`() {
+    every { query.findFirst() } returns null
+    assertThat(verifiedBookDao.isVerified(parts())).isFalse()
+  }
+
+  @Test
+  fun `no parts are never verified`() {
+    assertThat(verifiedBookDao.isVerified(emptyList())).isFalse()
+  }
+
+  private fun parts() = listOf(
+    File(directory, "book.zimaa").apply { writeBytes(ByteArray(4)); setLastModified(1_000L) },
+    File(directory, "book.zimab").apply { writeBytes(ByteArray(6)); setLastModified(2_000L) }
+  )
+
+  private fun expectEntity(parts: List<File>, size: Long) {
+    every { query.findFirst() } returns VerifiedBookEntity(
+      path = parts.first().path,
+      size = size,
+      lastModified = 2_000L,
+      verifiedAt = 0L
+    )
+  }
+}
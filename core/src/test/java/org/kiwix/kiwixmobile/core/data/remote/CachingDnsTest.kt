@@ -0,0 +1,71 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.data.remote
+
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import okhttp3.Dns
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+import java.net.InetAddress
+import java.net.UnknownHostException
+
+class CachingDnsTest {
+
+  private val addresses = listOf(InetAddress.getByAddress(byteArrayOf(10, 0, 0, 1)))
+  private val delegate: Dns = mockk()
+  private val httpMetrics = HttpMetrics()
+  private var now = 0L
+  private val cachingDns = CachingDns(delegate, httpMetrics, ttlMillis = 100L) { now }
+
+  @Test
+  fun `host names are resolved once while fresh`() {
+    every { delegate.lookup("mirror") } returns addresses
+    cachingDns.lookup("mirror")
+    now = 99L
+    assertThat(cachingDns.lookup("mirror")).isEqualTo(addresses)
+    verify(exactly = 1) { delegate.lookup("mirror") }
+    assertThat(httpMetrics.snapshot().dnsCacheHitRate).isEqualTo(0.5)
+  }
+
+  @Test
+  fun `expired host names are resolved again`() {
+    every { delegate.lookup("mirror") } returns addresses
+    cachingDns.lookup("mirror")
+    now = 100L
+    cachingDns.lookup("mirror")
+    verify(exactly = 2) { delegate.lookup("mirror") }
+  }
+
+  @Test
+  fun `the last known addresses are used when a lookup fails`() {
+    every { delegate.lookup("mirror") } returns addresses andThenThrows UnknownHostException()
+    cachingDns.lookup("mirror")
+    now = 200L
+    assertThat(cachingDns.lookup("mirror")).isEqualTo(addresses)
+  }
+
+  @Test
+  fun `failures of unknown hosts are passed on`() {
+    every { delegate.lookup("mirror") } throws UnknownHostException()
+    assertThrows(UnknownHostException::class.java) { cachingDns.lookup("mirror") }
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import org.kiwix.kiwixmobile.core.downloader.ChunkUtils.CHUNK_SIZE
+import org.kiwix.kiwixmobile.core.downloader.ChunkUtils.PART
+import java.io.File
+import java.io.IOException
+import java.io.RandomAccessFile
+
+class ChunkedFileTest {
+
+  @TempDir
+  lateinit var directory: File
+
+  private val file get() = File(directory, "book.zim")
+
+  @Test
+  fun `create reserves the whole download up front`() {
+    ChunkedFile.create(file.path, 1024L).use { assertThat(it.length).isEqualTo(1024L) }
+    assertThat(file.length()).isEqualTo(1024L)
+  }
+
+  @Test
+  fun `create fails fast when the download does not fit`() {
+    val exception = assertThrows(IOException::class.java) {
+      ChunkedFile.create(file.path, Long.MAX_VALUE)
+    }
+    assertThat(exception.message).startsWith("No space left on device")
+  }
+
+  @Test
+  fun `writes across a chunk boundary land in both chunks`() {
+    val firstChunk = File(directory, "book.zimaa$PART").apply { createNewFile() }
+    val secondChunk = File(directory, "book.zimab$PART").apply { createNewFile() }
+    ChunkedFile.open(file.path).use {
+      it.write(CHUNK_SIZE + 1, byteArrayOf(1, 2, 3), 0, 3)
+      val bytes = ByteArray(2)
+      it.readFully(CHUNK_SIZE + 2, bytes)
+      assertThat(bytes).containsExactly(2, 3)
+    }
+    assertThat(firstChunk.length()).isEqualTo(0L)
+    assertThat(secondChunk.readBytes()).containsExactly(1, 2, 3)
+  }
+
+  @Test
+  fun `chunks that would start past the end of the download are not created`() {
+    val contentLength = 2 * CHUNK_SIZE + 1
+    // sparse, so they do not take up the space they are reserved with
+    RandomAccessFile(File(directory, "book.zimaa$PART"), "rw").use { it.setLength(CHUNK_SIZE + 1) }
+    RandomAccessFile(File(directory, "book.zimab$PART"), "rw").use { it.setLength(CHUNK_SIZE) }
+    ChunkedFile.create(file.path, contentLength).use {
+      assertThat(it.length).isEqualTo(contentLength)
+    }
+    assertThat(directory.list()).containsExactlyInAnyOrder("book.zimaa$PART", "book.zimab$PART")
+  }
+
+  @Test
+  fun `complete renames chunks and removes the placeholder`() {
+    file.createNewFile()
+    File(directory, "book.zimaa$PART").createNewFile()
+    File(directory, "book.zimab$PART").createNewFile()
+    assertThat(ChunkedFile.complete(file.path)).isEqualTo(File(directory, "book.zimaa"))
+    assertThat(directory.list()).containsExactlyInAnyOrder("book.zimaa", "book.zimab")
+  }
+
+  @Test
+  fun `complete leaves a download written whole in place`() {
+    file.writeBytes(byteArrayOf(1))
+    assertThat(ChunkedFile.complete(file.path)).isEqualTo(file)
+    assertThat(file.exists()).isTrue()
+  }
+
+  @Test
+  fun `delete removes every chunk`() {
+    File(directory, "book.zimaa$PART").createNewFile()
+    File(directory, "book.zimab$PART").createNewFile()
+    ChunkedFile.delete(file.path)
+    assertThat(directory.list()).isEmpty()
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader
+
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.kiwix.kiwixmobile.core.dao.MirrorRankingDao
+import org.kiwix.kiwixmobile.core.dao.entities.MirrorRankingEntity
+
+class MirrorSelectorTest {
+
+  private val mirrorRankingDao: MirrorRankingDao = mockk(relaxed = true)
+  private val mirrorProber: MirrorProber = mockk()
+  private val mirrorTracker: MirrorTracker = mockk(relaxed = true)
+  private val mirrorSelector = MirrorSelector(mirrorRankingDao, mirrorProber, mirrorTracker)
+  private val near = "http://near.org/book.zim"
+  private val far = "http://far.org/book.zim"
+  private val now = 1_000_000_000L
+
+  @Test
+  fun `fresh rankings order mirrors without probing`() {
+    every { mirrorRankingDao.rankings(any()) } returns mapOf(
+      "near.org" to ranking("near.org", 1_000_000.0),
+      "far.org" to ranking("far.org", 10_000.0)
+    )
+    assertThat(mirrorSelector.rank(listOf(far, near), now).blockingGet())
+      .containsExactly(near, far)
+    verify(exactly = 0) { mirrorProber.probe(any()) }
+    verify { mirrorTracker.seed(near, 1_000_000.0) }
+  }
+
+  @Test
+  fun `unranked mirrors are probed and recorded`() {
+    every { mirrorRankingDao.rankings(any()) } returns mapOf(
+      "far.org" to ranking("far.org", 10_000.0)
+    )
+    every { mirrorProber.probe(near) } returns MirrorProbe(near, 50L, 500_000.0)
+    mirrorSelector.rank(listOf(far, near), now).blockingGet()
+    verify { mirrorRankingDao.record("near.org", 500_000.0, 50L, any()) }
+  }
+
+  @Test
+  fun `short transfers are not fed back`() {
+    mirrorSelector.onTransfer(near, 1024L, 10L)
+    verify(exactly = 0) { mirrorRankingDao.record(any(), any(), any(), any()) }
+  }
+
+  private fun ranking(host: String, bytesPerSecond: Double) =
+    MirrorRankingEntity(
+      host = host,
+      bytesPerSecond = bytesPerSecond,
+      timeToFirstByteMillis = 100L,
+      updatedAt = now
+    )
+}
@@ -0,0 +1,86 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+
+class MirrorTrackerTest {
+
+  private val mirrorTracker = MirrorTracker()
+  private val fast = "http://fast.org/book.zim"
+  private val slow = "http://slow.org/book.zim"
+  private val mirrors = listOf(slow, fast)
+
+  @Test
+  fun `unmeasured mirrors are tried in priority order`() {
+    assertThat(mirrorTracker.acquire(mirrors)).isEqualTo(slow)
+    assertThat(mirrorTracker.acquire(mirrors)).isEqualTo(fast)
+  }
+
+  @Test
+  fun `measured mirrors are chosen by throughput`() {
+    measure(slow, 1_000L)
+    measure(fast, 100_000L)
+    assertThat(mirrorTracker.acquire(mirrors)).isEqualTo(fast)
+  }
+
+  @Test
+  fun `throughput is shared between segments of the same mirror`() {
+    measure(slow, 60_000L)
+    measure(fast, 100_000L)
+    assertThat(mirrorTracker.acquire(mirrors)).isEqualTo(fast)
+    assertThat(mirrorTracker.acquire(mirrors)).isEqualTo(slow)
+  }
+
+  @Test
+  fun `failing mirrors back off`() {
+    measure(slow, 1_000L)
+    measure(fast, 100_000L)
+    mirrorTracker.acquire(mirrors, 0L)
+    mirrorTracker.fail(fast, 0L)
+    assertThat(mirrorTracker.acquire(mirrors, 1L)).isEqualTo(slow)
+  }
+
+  @Test
+  fun `failing mirrors are used again once the back off passed`() {
+    measure(slow, 1_000L)
+    measure(fast, 100_000L)
+    mirrorTracker.acquire(mirrors, 0L)
+    mirrorTracker.fail(fast, 0L)
+    assertThat(mirrorTracker.acquire(mirrors, Long.MAX_VALUE)).isEqualTo(fast)
+  }
+
+  @Test
+  fun `segments are too slow when much slower than the best other mirror`() {
+    measure(fast, 100_000L)
+    assertThat(mirrorTracker.isTooSlow(slow, 1_000L, 60_000L, mirrors)).isTrue()
+  }
+
+  @Test
+  fun `segments are not judged during warm up`() {
+    measure(fast, 100_000L)
+    assertThat(mirrorTracker.isTooSlow(slow, 1L, 1_000L, mirrors)).isFalse()
+  }
+
+  private fun measure(mirror: String, bytesPerSecond: Long) {
+    mirrorTracker.acquire(listOf(mirror))
+    mirrorTracker.release(mirror, bytesPerSecond, 1_000L)
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.delta
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+import org.kiwix.kiwixmobile.core.downloader.delta.BlockMatcher.Companion.NOT_FOUND
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import kotlin.random.Random
+
+class BlockMatcherTest {
+
+  private val random = Random(1)
+  private val blockSize = 2048
+  private val newVersion = random.nextBytes(100 * blockSize + 123)
+
+  @Test
+  fun `md4 matches the reference digests`() {
+    assertThat(md4("")).isEqualTo("31d6cfe0d16ae931b73c59d7e0c089c0")
+    assertThat(md4("abc")).isEqualTo("a448017aaf21d8525fc10ae87aa6729d")
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = [1, 2])
+  fun `finds shifted blocks and only misses changed ones`(sequenceMatches: Int) {
+    val oldVersion = ByteArrayOutputStream().apply {
+      write(random.nextBytes(777))
+      write(newVersion, 0, 30 * blockSize)
+      write(random.nextBytes(blockSize))
+      write(newVersion, 31 * blockSize, newVersion.size - 31 * blockSize)
+    }.toByteArray()
+    val controlFile = ZsyncControlFile.parse(
+      ByteArrayInputStream(zsyncControlFile(newVersion, blockSize, sequenceMatches, "new.zim"))
+    )
+
+    val offsets = BlockMatcher(controlFile).match(ByteArrayInputStream(oldVersion))
+
+    assertThat(offsets.indices.filter { offsets[it] == NOT_FOUND })
+      .containsExactly(30, controlFile.blockCount - 1)
+    offsets.forEachIndexed { block, offset ->
+      if (offset != NOT_FOUND) {
+        assertThat(oldVersion.copyOfRange(offset.toInt(), offset.toInt() + blockSize))
+          .isEqualTo(newVersion.copyOfRange(block * blockSize, (block + 1) * blockSize))
+      }
+    }
+  }
+
+  private fun md4(text: String) =
+    Md4().apply { update(text.toByteArray()) }.digest().joinToString("") { "%02x".format(it) }
+}
@@ -0,0 +1,138 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.delta
+
+import com.tonyodev.fetch2.Priority
+import dagger.Lazy
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import io.reactivex.schedulers.Schedulers
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.kiwix.kiwixmobile.core.dao.DeltaUpdateDao
+import org.kiwix.kiwixmobile.core.dao.NewBookDao
+import org.kiwix.kiwixmobile.core.dao.entities.DeltaUpdateEntity
+import org.kiwix.kiwixmobile.core.downloader.Downloader
+import org.kiwix.kiwixmobile.core.downloader.model.BookUpdate
+import org.kiwix.sharedFunctions.book
+import org.kiwix.sharedFunctions.bookOnDisk
+import org.kiwix.sharedFunctions.resetSchedulers
+import org.kiwix.sharedFunctions.setScheduler
+import java.io.File
+import java.io.InterruptedIOException
+
+class DeltaUpdateQueueTest {
+
+  private val bookOnDisk = bookOnDisk(databaseId = 1L, file = File("book_2020-01.zim"))
+  private val book = book()
+  private val downloadUrl = "http://mirror.org/zim/book_2020-02.zim"
+  private val deltaUpdate = DeltaUpdateEntity(bookOnDisk.databaseId, downloadUrl, book, null)
+  private val bookUpdate = BookUpdate(File("book_2020-02.zim"), 1L, 1L)
+
+  private lateinit var deltaUpdater: DeltaUpdater
+  private lateinit var deltaUpdateDao: DeltaUpdateDao
+  private lateinit var downloader: Downloader
+  private lateinit var notifier: DeltaUpdateNotifier
+  private lateinit var deltaUpdateQueue: DeltaUpdateQueue
+  // what the box holds, it outlives any one queue like the database does
+  private lateinit var queued: MutableList<DeltaUpdateEntity>
+
+  init {
+    setScheduler(Schedulers.trampoline())
+  }
+
+  @AfterAll
+  fun teardown() {
+    resetSchedulers()
+  }
+
+  @BeforeEach
+  fun init() {
+    deltaUpdater = mockk()
+    downloader = mockk(relaxed = true)
+    notifier = mockk(relaxed = true)
+    queued = mutableListOf()
+    deltaUpdateDao = mockk()
+    every { deltaUpdateDao.add(bookOnDisk, book, downloadUrl) } answers { queued.add(deltaUpdate) }
+    every { deltaUpdateDao.next() } answers { queued.firstOrNull() }
+    every { deltaUpdateDao.remove(any()) } answers { queued.remove(firstArg()) }
+    every { deltaUpdateDao.book(deltaUpdate) } returns book
+    deltaUpdateQueue = createQueue()
+  }
+
+  @Test
+  fun `updates wait while the download policy stops them and resume once it allows them`() {
+    every { deltaUpdater.update(bookOnDisk, book, downloadUrl, any()) } answers {
+      deltaUpdateQueue.onPolicyChecked(false)
+      throw InterruptedIOException("Delta update paused")
+    } andThen bookUpdate
+
+    deltaUpdateQueue.enqueue(bookOnDisk, book, downloadUrl)
+    verify(exactly = 0) { deltaUpdater.update(any(), any(), any(), any()) }
+
+    deltaUpdateQueue.onPolicyChecked(true)
+    verify { notifier.onPaused(deltaUpdate) }
+    verify(exactly = 0) { deltaUpdateDao.remove(any()) }
+
+    deltaUpdateQueue.onPolicyChecked(true)
+    verify(exactly = 2) { deltaUpdater.update(bookOnDisk, book, downloadUrl, any()) }
+    verify { notifier.onUpdated(deltaUpdate, bookUpdate) }
+    verify(exactly = 0) { downloader.download(any(), any()) }
+  }
+
+  @Test
+  fun `an update no delta can be used for is downloaded in full at low priority`() {
+    every { deltaUpdater.update(bookOnDisk, book, downloadUrl, any()) } throws
+      DeltaUpdater.Unavailable("no block map")
+
+    deltaUpdateQueue.onPolicyChecked(true)
+    deltaUpdateQueue.enqueue(bookOnDisk, book, downloadUrl)
+
+    verify { deltaUpdateDao.remove(deltaUpdate) }
+    verify { notifier.cancel(deltaUpdate) }
+    verify { downloader.download(book, Priority.LOW) }
+  }
+
+  @Test
+  fun `updates queued before a restart run once the policy allows them`() {
+    deltaUpdateQueue.enqueue(bookOnDisk, book, downloadUrl)
+    every { deltaUpdater.update(bookOnDisk, book, downloadUrl, any()) } returns bookUpdate
+
+    val restartedQueue = createQueue()
+    restartedQueue.onPolicyChecked(true)
+
+    verify(exactly = 1) { deltaUpdater.update(bookOnDisk, book, downloadUrl, any()) }
+    verify { notifier.onUpdated(deltaUpdate, bookUpdate) }
+    verify { deltaUpdateDao.remove(deltaUpdate) }
+  }
+
+  private fun createQueue(): DeltaUpdateQueue {
+    val newBookDao: NewBookDao = mockk()
+    every { newBookDao.getBook(bookOnDisk.databaseId) } returns bookOnDisk
+    return DeltaUpdateQueue(
+      deltaUpdater,
+      deltaUpdateDao,
+      newBookDao,
+      Lazy { downloader },
+      notifier
+    )
+  }
+}
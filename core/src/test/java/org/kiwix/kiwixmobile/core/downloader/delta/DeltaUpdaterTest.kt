@@ -0,0 +1,156 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.delta
+
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import okhttp3.Call
+import okhttp3.OkHttpClient
+import okhttp3.Protocol
+import okhttp3.Request
+import okhttp3.Response
+import okhttp3.ResponseBody
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import org.kiwix.kiwixmobile.core.dao.NewBookDao
+import org.kiwix.kiwixmobile.core.downloader.verification.messageDigestFor
+import org.kiwix.kiwixmobile.core.downloader.verification.toHexString
+import org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.adapter.BooksOnDiskListItem.BookOnDisk
+import org.kiwix.sharedFunctions.book
+import org.kiwix.sharedFunctions.bookOnDisk
+import java.io.File
+import kotlin.random.Random
+
+class DeltaUpdaterTest {
+
+  @TempDir lateinit var directory: File
+
+  private val blockSize = 2048
+  private val changedBlock = 30
+  private val url = "http://mirror.org/zim/book_2020-02.zim"
+  private val random = Random(1)
+  private val newVersion = random.nextBytes(40 * blockSize)
+  private val oldVersion = newVersion.copyOf().also {
+    random.nextBytes(it, changedBlock * blockSize, (changedBlock + 1) * blockSize)
+  }
+  private val book = book()
+  private val listener = object : DeltaUpdater.Listener {
+    override val isPaused = false
+    override fun onProgress(bytesDone: Long, bytesTotal: Long) {}
+  }
+
+  private lateinit var okHttpClient: OkHttpClient
+  private lateinit var newBookDao: NewBookDao
+  private lateinit var deltaUpdater: DeltaUpdater
+  private lateinit var oldFile: File
+  private lateinit var oldBookOnDisk: BookOnDisk
+  private lateinit var newFile: File
+  private lateinit var partFile: File
+  private lateinit var requestedRanges: MutableList<String>
+
+  @BeforeEach
+  fun init() {
+    okHttpClient = mockk()
+    newBookDao = mockk(relaxed = true)
+    deltaUpdater = DeltaUpdater(okHttpClient, newBookDao, mockk(relaxed = true))
+    directory.listFiles()?.forEach { it.delete() }
+    oldFile = File(directory, "book_2020-01.zim").apply { writeBytes(oldVersion) }
+    oldBookOnDisk = bookOnDisk(file = oldFile)
+    newFile = File(directory, "book_2020-02.zim")
+    partFile = File(directory, "book_2020-02.zim.part")
+    requestedRanges = mutableListOf()
+    serve(sha1(newVersion))
+  }
+
+  @Test
+  fun `an update fetches only changed blocks and replaces the old file`() {
+    val update = deltaUpdater.update(oldBookOnDisk, book, url, listener)
+
+    assertThat(newFile.readBytes()).isEqualTo(newVersion)
+    assertThat(oldFile).doesNotExist()
+    assertThat(partFile).doesNotExist()
+    assertThat(requestedRanges)
+      .containsExactly("bytes=${changedBlock * blockSize}-${(changedBlock + 1) * blockSize - 1}")
+    assertThat(update.bytesDownloaded).isEqualTo(blockSize.toLong())
+    assertThat(update.bytesReused).isEqualTo(newVersion.size.toLong() - blockSize)
+    verify { newBookDao.replace(oldBookOnDisk, BookOnDisk(book = book, file = newFile)) }
+  }
+
+  @Test
+  fun `an interrupted update resumes from the blocks already in its part file`() {
+    val changedBlockStart = changedBlock * blockSize
+    partFile.writeBytes(
+      ByteArray(newVersion.size).also {
+        newVersion.copyInto(it, changedBlockStart, changedBlockStart, changedBlockStart + blockSize)
+      }
+    )
+
+    val update = deltaUpdater.update(oldBookOnDisk, book, url, listener)
+
+    assertThat(newFile.readBytes()).isEqualTo(newVersion)
+    assertThat(requestedRanges).isEmpty()
+    assertThat(update.bytesDownloaded).isEqualTo(0L)
+  }
+
+  @Test
+  fun `a SHA-1 mismatch keeps the old book and deletes the part file`() {
+    serve(sha1(oldVersion))
+
+    assertThrows(DeltaUpdater.Unavailable::class.java) {
+      deltaUpdater.update(oldBookOnDisk, book, url, listener)
+    }
+
+    assertThat(oldFile.readBytes()).isEqualTo(oldVersion)
+    assertThat(partFile).doesNotExist()
+    assertThat(newFile).doesNotExist()
+    verify(exactly = 0) { newBookDao.replace(any(), any()) }
+  }
+
+  private fun serve(sha1: String) {
+    val controlFile = zsyncControlFile(newVersion, blockSize, sha1 = sha1)
+    every { okHttpClient.newCall(any()) } answers {
+      val request = firstArg<Request>()
+      mockk<Call>().also { every { it.execute() } returns respond(request, controlFile) }
+    }
+  }
+
+  private fun respond(request: Request, controlFile: ByteArray): Response {
+    val range = request.header("Range")
+    val body = if (range == null) {
+      controlFile
+    } else {
+      requestedRanges.add(range)
+      val (first, last) = range.removePrefix("bytes=").split("-").map(String::toInt)
+      newVersion.copyOfRange(first, last + 1)
+    }
+    return Response.Builder()
+      .request(request)
+      .protocol(Protocol.HTTP_1_1)
+      .code(if (range == null) 200 else 206)
+      .message("")
+      .body(ResponseBody.create(null, body))
+      .build()
+  }
+
+  private fun sha1(data: ByteArray) = messageDigestFor("sha-1").digest(data).toHexString()
+}
@@ -0,0 +1,59 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.delta
+
+import java.io.ByteArrayOutputStream
+
+/**
+ * Builds the block map zsyncmake would publish for [data].
+ */
+fun zsyncControlFile(
+  data: ByteArray,
+  blockSize: Int,
+  sequenceMatches: Int = 1,
+  url: String? = null,
+  sha1: String? = null
+): ByteArray {
+  val rsumBytes = if (sequenceMatches == 2) 2 else 4
+  val checksumBytes = if (sequenceMatches == 2) 4 else 8
+  return ByteArrayOutputStream().apply {
+    write(
+      ("zsync: 0.6.2\nBlocksize: $blockSize\nLength: ${data.size}\n" +
+        "Hash-Lengths: $sequenceMatches,$rsumBytes,$checksumBytes\n" +
+        (url?.let { "URL: $it\n" } ?: "") +
+        (sha1?.let { "SHA-1: $it\n" } ?: "") +
+        "\n").toByteArray()
+    )
+    for (start in data.indices step blockSize) {
+      val block = data.copyOfRange(start, minOf(start + blockSize, data.size))
+        .copyOf(blockSize)
+      var a = 0
+      var b = 0
+      block.forEachIndexed { index, byte ->
+        a += byte.toInt() and 0xff
+        b += (blockSize - index) * (byte.toInt() and 0xff)
+      }
+      val rsum = (a and 0xffff shl 16) or (b and 0xffff)
+      for (shift in rsumBytes - 1 downTo 0) {
+        write(rsum ushr (8 * shift) and 0xff)
+      }
+      write(Md4().apply { update(block) }.digest(), 0, checksumBytes)
+    }
+  }.toByteArray()
+}
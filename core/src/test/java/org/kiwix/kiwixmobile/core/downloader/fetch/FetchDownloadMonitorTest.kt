@@ -0,0 +1,111 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.fetch
+
+import com.tonyodev.fetch2.Download
+import com.tonyodev.fetch2.Fetch
+import com.tonyodev.fetch2.FetchListener
+import com.tonyodev.fetch2.Status
+import com.tonyodev.fetch2.Status.DOWNLOADING
+import com.tonyodev.fetch2.Status.PAUSED
+import io.mockk.CapturingSlot
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.slot
+import io.mockk.verify
+import io.reactivex.schedulers.TestScheduler
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.kiwix.kiwixmobile.core.dao.FetchDownloadDao
+import org.kiwix.kiwixmobile.core.downloader.model.DownloadUpdateInterval
+import org.kiwix.sharedFunctions.resetSchedulers
+import org.kiwix.sharedFunctions.setScheduler
+import java.util.concurrent.TimeUnit.MILLISECONDS
+
+class FetchDownloadMonitorTest {
+
+  private val updateIntervalMillis = 1000L
+
+  private lateinit var testScheduler: TestScheduler
+  private lateinit var fetchDownloadDao: FetchDownloadDao
+  private lateinit var fetchListener: FetchListener
+
+  @AfterAll
+  fun teardown() {
+    resetSchedulers()
+  }
+
+  @BeforeEach
+  fun init() {
+    testScheduler = TestScheduler()
+    setScheduler(testScheduler)
+    fetchDownloadDao = mockk(relaxed = true)
+    val listener: CapturingSlot<FetchListener> = slot()
+    val fetch: Fetch = mockk()
+    every { fetch.addListener(capture(listener), true) } returns fetch
+    val updateInterval: DownloadUpdateInterval = mockk()
+    every { updateInterval.millis } returns updateIntervalMillis
+    FetchDownloadMonitor(fetch, fetchDownloadDao, mockk(), mockk(), updateInterval)
+    fetchListener = listener.captured
+  }
+
+  @Test
+  fun `progress is written once per interval with the latest state of each download`() {
+    val first = download(1, DOWNLOADING)
+    val second = download(2, DOWNLOADING)
+    val firstAgain = download(1, DOWNLOADING)
+    fetchListener.onProgress(first, 0L, 0L)
+    fetchListener.onProgress(second, 0L, 0L)
+    fetchListener.onProgress(firstAgain, 0L, 0L)
+    testScheduler.advanceTimeBy(updateIntervalMillis - 1, MILLISECONDS)
+    verify(exactly = 0) { fetchDownloadDao.update(any(), any()) }
+    testScheduler.advanceTimeBy(1, MILLISECONDS)
+    verify(exactly = 1) { fetchDownloadDao.update(listOf(firstAgain, second), emptySet()) }
+  }
+
+  @Test
+  fun `a change of state writes the pending progress straight away`() {
+    val downloading = download(1, DOWNLOADING)
+    val paused = download(2, PAUSED)
+    fetchListener.onProgress(downloading, 0L, 0L)
+    fetchListener.onPaused(paused)
+    testScheduler.triggerActions()
+    verify(exactly = 1) { fetchDownloadDao.update(listOf(downloading, paused), emptySet()) }
+    testScheduler.advanceTimeBy(updateIntervalMillis, MILLISECONDS)
+    verify(exactly = 1) { fetchDownloadDao.update(any(), any()) }
+  }
+
+  @Test
+  fun `progress after a flush is written by the next interval`() {
+    val before = download(1, DOWNLOADING)
+    val after = download(1, DOWNLOADING)
+    fetchListener.onProgress(before, 0L, 0L)
+    testScheduler.advanceTimeBy(updateIntervalMillis, MILLISECONDS)
+    fetchListener.onProgress(after, 0L, 0L)
+    testScheduler.advanceTimeBy(updateIntervalMillis, MILLISECONDS)
+    verify { fetchDownloadDao.update(listOf(before), emptySet()) }
+    verify { fetchDownloadDao.update(listOf(after), emptySet()) }
+  }
+
+  private fun download(id: Int, status: Status): Download = mockk<Download>().also {
+    every { it.id } returns id
+    every { it.status } returns status
+  }
+}
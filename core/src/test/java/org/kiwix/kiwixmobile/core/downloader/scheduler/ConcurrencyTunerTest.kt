@@ -0,0 +1,57 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.scheduler
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+
+class ConcurrencyTunerTest {
+
+  private val concurrencyTuner = ConcurrencyTuner(initialLimit = 2)
+
+  @Test
+  fun `probes one more download while every slot is taken`() {
+    assertThat(concurrencyTuner.onSample(100_000L, 2)).isEqualTo(3)
+  }
+
+  @Test
+  fun `does not probe while slots are free`() {
+    assertThat(concurrencyTuner.onSample(100_000L, 1)).isEqualTo(2)
+  }
+
+  @Test
+  fun `keeps a probe that raises throughput`() {
+    concurrencyTuner.onSample(100_000L, 2)
+    assertThat(concurrencyTuner.onSample(150_000L, 3)).isEqualTo(3)
+    assertThat(concurrencyTuner.onSample(150_000L, 3)).isEqualTo(4)
+  }
+
+  @Test
+  fun `takes back a probe that does not pay off and holds`() {
+    concurrencyTuner.onSample(100_000L, 2)
+    assertThat(concurrencyTuner.onSample(100_000L, 3)).isEqualTo(2)
+    assertThat(concurrencyTuner.onSample(100_000L, 2)).isEqualTo(2)
+  }
+
+  @Test
+  fun `never exceeds the maximum`() {
+    val tuner = ConcurrencyTuner(maxLimit = 2, initialLimit = 2)
+    assertThat(tuner.onSample(100_000L, 2)).isEqualTo(2)
+  }
+}
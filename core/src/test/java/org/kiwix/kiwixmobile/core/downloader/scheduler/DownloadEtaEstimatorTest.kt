@@ -0,0 +1,54 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.scheduler
+
+import com.tonyodev.fetch2.Status.DOWNLOADING
+import com.tonyodev.fetch2.Status.QUEUED
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.kiwix.sharedFunctions.downloadModel
+
+class DownloadEtaEstimatorTest {
+
+  @Test
+  fun `a single download keeps its own estimate`() {
+    val downloads = listOf(running(1L, remaining = 1000L, eta = 10L))
+    assertThat(DownloadEtaEstimator.estimate(downloads)).isEqualTo(downloads)
+  }
+
+  @Test
+  fun `running downloads share the aggregate rate`() {
+    val estimates = DownloadEtaEstimator.estimate(
+      listOf(
+        running(1L, remaining = 1000L, eta = 20L),
+        running(2L, remaining = 3000L, eta = 60L),
+        downloadModel(downloadId = 3L, status = QUEUED)
+      )
+    )
+    assertThat(estimates.map { it.etaInMilliSeconds }).containsExactly(20L, 40L, 0L)
+  }
+
+  private fun running(downloadId: Long, remaining: Long, eta: Long) = downloadModel(
+    downloadId = downloadId,
+    bytesDownloaded = 0L,
+    totalSizeOfDownload = remaining,
+    etaInMilliSeconds = eta,
+    status = DOWNLOADING
+  )
+}
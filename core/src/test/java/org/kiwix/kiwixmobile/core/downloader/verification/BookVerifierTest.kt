@@ -0,0 +1,157 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.verification
+
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import io.reactivex.Observable
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import org.kiwix.kiwixmobile.core.dao.VerifiedBookDao
+import org.kiwix.kiwixmobile.core.data.remote.KiwixService
+import org.kiwix.kiwixmobile.core.downloader.verification.BookVerification.Corrupt
+import org.kiwix.kiwixmobile.core.downloader.verification.BookVerification.NoHashAvailable
+import org.kiwix.kiwixmobile.core.downloader.verification.BookVerification.Verified
+import org.kiwix.kiwixmobile.core.downloader.verification.BookVerification.WrongSize
+import org.kiwix.kiwixmobile.core.entity.MetaLinkNetworkEntity
+import org.kiwix.sharedFunctions.book
+import org.kiwix.sharedFunctions.bookOnDisk
+import org.kiwix.sharedFunctions.fileElement
+import org.kiwix.sharedFunctions.pieces
+import java.io.File
+import java.security.MessageDigest
+
+class BookVerifierTest {
+
+  @TempDir lateinit var directory: File
+
+  private val content = ByteArray(10) { it.toByte() }
+  private val kiwixService: KiwixService = mockk()
+  private val verifiedBookDao: VerifiedBookDao = mockk(relaxed = true)
+  private val bookVerifier = BookVerifier(kiwixService, verifiedBookDao)
+
+  init {
+    every { verifiedBookDao.isVerified(any()) } returns false
+    every { kiwixService.getMetaLinks("url.meta4") } returns Observable.just(metaLink())
+  }
+
+  @Test
+  fun `a book matching its pieces is verified and remembered`() {
+    val file = File(directory, "book.zim").apply { writeBytes(content) }
+    assertThat(verify(file)).isEqualTo(Verified)
+    verify { verifiedBookDao.markVerified(listOf(file)) }
+  }
+
+  @Test
+  fun `a book split into parts is read across them`() {
+    File(directory, "book.zimaa").writeBytes(content.copyOfRange(0, 5))
+    File(directory, "book.zimab").writeBytes(content.copyOfRange(5, 10))
+    assertThat(verify(File(directory, "book.zimaa"))).isEqualTo(Verified)
+  }
+
+  @Test
+  fun `a piece straddling two parts is hashed across them`() {
+    File(directory, "book.zimaa").writeBytes(content.copyOfRange(0, 3))
+    File(directory, "book.zimab").writeBytes(content.copyOfRange(3, 6).apply { this[2] = 0 })
+    File(directory, "book.zimac").writeBytes(content.copyOfRange(6, 10))
+    assertThat(verify(File(directory, "book.zimaa"))).isEqualTo(Corrupt(1, 3))
+  }
+
+  @Test
+  fun `damaged pieces are counted`() {
+    val file = File(directory, "book.zim")
+      .apply { writeBytes(content.copyOf().apply { this[5] = 0 }) }
+    assertThat(verify(file)).isEqualTo(Corrupt(1, 3))
+  }
+
+  @Test
+  fun `every damaged piece is counted once`() {
+    val file = File(directory, "book.zim").apply {
+      writeBytes(content.copyOf().apply { this[0] = 1; this[1] = 0; this[9] = 0 })
+    }
+    assertThat(verify(file)).isEqualTo(Corrupt(2, 3))
+  }
+
+  @Test
+  fun `a metalink without pieces is checked against its sha-256`() {
+    every { kiwixService.getMetaLinks("url.meta4") } returns Observable.just(
+      metaLink().apply {
+        file.pieces = null
+        file.hashes = mapOf("sha-256" to sha256Of(content))
+      }
+    )
+    val file = File(directory, "book.zim").apply { writeBytes(content) }
+    assertThat(verify(file)).isEqualTo(Verified)
+    file.writeBytes(content.copyOf().apply { this[9] = 0 })
+    assertThat(verify(file)).isEqualTo(Corrupt(1, 1))
+  }
+
+  @Test
+  fun `a metalink without pieces or sha-256 cannot be checked`() {
+    every { kiwixService.getMetaLinks("url.meta4") } returns Observable.just(
+      metaLink().apply {
+        file.pieces = null
+        file.hashes = mapOf("md5" to "hash")
+      }
+    )
+    val file = File(directory, "book.zim").apply { writeBytes(content) }
+    assertThat(verify(file)).isEqualTo(NoHashAvailable)
+  }
+
+  @Test
+  fun `a book of the wrong size is not hashed`() {
+    val file = File(directory, "book.zim").apply { writeBytes(content.copyOf(9)) }
+    assertThat(verify(file)).isEqualTo(WrongSize)
+  }
+
+  @Test
+  fun `a book verified before is not hashed again`() {
+    val file = File(directory, "book.zim").apply { writeBytes(content) }
+    every { verifiedBookDao.isVerified(listOf(file)) } returns true
+    assertThat(verify(file)).isEqualTo(Verified)
+    verify(exactly = 0) { kiwixService.getMetaLinks(any()) }
+  }
+
+  private fun verify(file: File) =
+    bookVerifier.verify(bookOnDisk(book = book(url = "url.meta4"), file = file)).blockingLast()
+
+  private fun metaLink() = MetaLinkNetworkEntity().apply {
+    file = fileElement(
+      pieces = pieces(
+        hashType = "sha-1",
+        pieceHashes = listOf(hashOf(0, 4), hashOf(4, 8), hashOf(8, 10))
+      )
+    ).also {
+      it.setPrivate("size", 10L)
+      it.pieces.setPrivate("length", 4)
+    }
+  }
+
+  private fun Any.setPrivate(name: String, value: Any) {
+    javaClass.getDeclaredField(name).apply { isAccessible = true }.set(this, value)
+  }
+
+  private fun hashOf(from: Int, to: Int) =
+    MessageDigest.getInstance("SHA-1").digest(content.copyOfRange(from, to)).toHexString()
+
+  private fun sha256Of(bytes: ByteArray) =
+    MessageDigest.getInstance("SHA-256").digest(bytes).toHexString()
+}
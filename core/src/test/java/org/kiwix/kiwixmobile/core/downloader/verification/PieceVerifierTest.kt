@@ -0,0 +1,118 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.verification
+
+import io.mockk.every
+import io.mockk.mockk
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.kiwix.kiwixmobile.core.downloader.ChunkedFile
+import java.security.MessageDigest
+
+class PieceVerifierTest {
+
+  private val content = ByteArray(10) { it.toByte() }
+  private val pieceHashes = PieceHashes(
+    fileSize = 10L,
+    pieceLength = 4L,
+    hashType = "sha-1",
+    hashes = listOf(hashOf(0, 4), hashOf(4, 8), hashOf(8, 10)),
+    fileHash = MessageDigest.getInstance("SHA-256").digest(content).toHexString()
+  )
+  private val pieceVerifier = PieceVerifier(pieceHashes)
+  private val chunkedFile: ChunkedFile = mockk()
+
+  @Test
+  fun `pieces written front to back are verified`() {
+    pieceVerifier.onWrite(0L, content, 0, 10)
+    assertThat(pieceVerifier.isComplete).isTrue()
+  }
+
+  @Test
+  fun `writes interleaved between pieces are verified`() {
+    pieceVerifier.onWrite(4L, content, 4, 2)
+    pieceVerifier.onWrite(0L, content, 0, 3)
+    pieceVerifier.onWrite(6L, content, 6, 4)
+    pieceVerifier.onWrite(3L, content, 3, 1)
+    assertThat(pieceVerifier.isComplete).isTrue()
+  }
+
+  @Test
+  fun `corrupt pieces fail`() {
+    pieceVerifier.onWrite(0L, content.copyOf().apply { this[5] = 0 }, 0, 10)
+    assertThat(pieceVerifier.unverifiedPieces).containsExactly(1)
+    assertThat(pieceVerifier.failed[1]).isTrue()
+  }
+
+  @Test
+  fun `pieces written from their middle are left unverified without failing`() {
+    pieceVerifier.onWrite(2L, content, 2, 8)
+    assertThat(pieceVerifier.unverifiedPieces).containsExactly(0)
+    assertThat(pieceVerifier.failed[0]).isFalse()
+  }
+
+  @Test
+  fun `a piece restarted from its beginning is verified`() {
+    pieceVerifier.onWrite(0L, content.copyOf().apply { this[1] = 0 }, 0, 2)
+    pieceVerifier.onWrite(0L, content, 0, 10)
+    assertThat(pieceVerifier.isComplete).isTrue()
+  }
+
+  @Test
+  fun `checked pieces are recorded`() {
+    pieceVerifier.onPieceChecked(2, true)
+    assertThat(pieceVerifier.unverifiedPieces).containsExactly(0, 1)
+  }
+
+  @Test
+  fun `file hash streamed across a restart matches without reading the file`() {
+    pieceVerifier.onWrite(0L, content, 0, 6)
+    val resumed = PieceVerifier(pieceHashes, fileHashState = pieceVerifier.snapshot().fileHashState)
+    resumed.onWrite(4L, content, 4, 6)
+    assertThat(resumed.fileHashMatches(chunkedFile)).isTrue()
+  }
+
+  @Test
+  fun `bytes written ahead of the file hash are read from disk`() {
+    every { chunkedFile.readFully(4L, any()) } answers {
+      content.copyInto(secondArg<ByteArray>(), 0, 4, 10)
+      Unit
+    }
+    pieceVerifier.onWrite(4L, content, 4, 6)
+    pieceVerifier.onWrite(0L, content, 0, 4)
+    assertThat(pieceVerifier.fileHashMatches(chunkedFile)).isTrue()
+  }
+
+  @Test
+  fun `a corrupt file fails its file hash`() {
+    pieceVerifier.onWrite(0L, content.copyOf().apply { this[9] = 0 }, 0, 10)
+    assertThat(pieceVerifier.fileHashMatches(chunkedFile)).isFalse()
+  }
+
+  @Test
+  fun `a file with only a file hash is verified by it`() {
+    val fileHashOnly = PieceVerifier(pieceHashes.copy(pieceLength = 10L, hashes = emptyList()))
+    fileHashOnly.onWrite(0L, content, 0, 10)
+    assertThat(fileHashOnly.isComplete).isTrue()
+    assertThat(fileHashOnly.fileHashMatches(chunkedFile)).isTrue()
+  }
+
+  private fun hashOf(from: Int, to: Int) =
+    MessageDigest.getInstance("SHA-1").digest(content.copyOfRange(from, to)).toHexString()
+}
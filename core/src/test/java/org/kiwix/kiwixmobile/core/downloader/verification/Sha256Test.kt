@@ -0,0 +1,80 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.downloader.verification
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import java.security.MessageDigest
+import kotlin.random.Random
+
+class Sha256Test {
+
+  private val content = Random(0).nextBytes(1000)
+
+  @Test
+  fun `digests match MessageDigest around the padding boundaries`() {
+    listOf(0, 1, 55, 56, 57, 63, 64, 65, 119, 120, 128, 1000).forEach { length ->
+      assertThat(Sha256().apply { update(content, 0, length) }.digest())
+        .describedAs("$length bytes")
+        .isEqualTo(expectedDigest(length))
+    }
+  }
+
+  @Test
+  fun `updates of any size make up the same digest`() {
+    val sha256 = Sha256()
+    var position = 0
+    listOf(1, 63, 64, 65, 7, 300, 500).forEach { length ->
+      sha256.update(content, position, length)
+      position += length
+    }
+    assertThat(sha256.byteCount).isEqualTo(1000L)
+    assertThat(sha256.digest()).isEqualTo(expectedDigest(1000))
+  }
+
+  @Test
+  fun `a digest does not end the hash`() {
+    val sha256 = Sha256().apply { update(content, 0, 100) }
+    sha256.digest()
+    sha256.update(content, 100, 900)
+    assertThat(sha256.digest()).isEqualTo(expectedDigest(1000))
+  }
+
+  @Test
+  fun `a restored state continues where it was saved`() {
+    listOf(0, 55, 56, 64, 100, 999).forEach { savedAt ->
+      val restored = Sha256(Sha256().apply { update(content, 0, savedAt) }.state())
+      restored.update(content, savedAt, content.size - savedAt)
+      assertThat(restored.digest())
+        .describedAs("saved after $savedAt bytes")
+        .isEqualTo(expectedDigest(1000))
+    }
+  }
+
+  @Test
+  fun `a reset hash starts over`() {
+    val sha256 = Sha256().apply { update(content) }
+    sha256.reset()
+    sha256.update(content, 0, 56)
+    assertThat(sha256.digest()).isEqualTo(expectedDigest(56))
+  }
+
+  private fun expectedDigest(length: Int) =
+    MessageDigest.getInstance("SHA-256").digest(content.copyOf(length))
+}
@@ -0,0 +1,63 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.main
+
+import io.mockk.mockk
+import io.mockk.verify
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+
+class KiwixTabTest {
+
+  private val first = tab()
+  private val second = tab()
+  private val third = tab()
+  private val fourth = tab()
+  private val tabs = listOf(first, second, third, fourth)
+
+  @Test
+  fun `the least recently selected tabs beyond the limit are hibernated`() {
+    second.markSelected()
+    assertThat(KiwixTab.tabsToHibernate(tabs, fourth, 2)).containsExactly(first)
+  }
+
+  @Test
+  fun `the current tab is never hibernated`() {
+    assertThat(KiwixTab.tabsToHibernate(tabs, first, 0))
+      .containsExactlyInAnyOrder(second, third, fourth)
+  }
+
+  @Test
+  fun `a restored tab has no web view until it is woken`() {
+    val restored = KiwixTab.hibernated("restored", 42)
+    assertThat(restored.isHibernated).isTrue()
+    assertThat(restored.url).isEqualTo("restored")
+    assertThat(restored.scrollY).isEqualTo(42)
+    val webView: KiwixWebView = mockk(relaxed = true)
+    assertThat(restored.wake { webView }).isSameAs(webView)
+    assertThat(restored.isHibernated).isFalse()
+    verify {
+      webView.loadUrl("restored")
+      webView.scrollY = 42
+    }
+    verify(exactly = 0) { webView.restoreState(any()) }
+  }
+
+  private fun tab() = KiwixTab(mockk(relaxed = true), "url")
+}
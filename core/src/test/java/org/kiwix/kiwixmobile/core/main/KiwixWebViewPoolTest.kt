@@ -0,0 +1,109 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.main
+
+import android.os.Looper
+import android.os.MessageQueue
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.mockkStatic
+import io.mockk.verify
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+
+class KiwixWebViewPoolTest {
+
+  private val queue: MessageQueue = mockk(relaxed = true)
+  private val created = mutableListOf<KiwixWebView>()
+  private var now = 0L
+  private val pool = KiwixWebViewPool({ webView().also { created.add(it) } }, 2, { now })
+
+  init {
+    mockkStatic(Looper::class)
+    every { Looper.myQueue() } returns queue
+  }
+
+  @Test
+  fun `the pool is filled one web view per idle pass`() {
+    assertThat(pool.queueIdle()).isTrue()
+    assertThat(pool.queueIdle()).isFalse()
+    assertThat(created).hasSize(2)
+    assertThat(pool.obtain()).isSameAs(created[0])
+    verify { queue.addIdleHandler(pool) }
+  }
+
+  @Test
+  fun `a recycled web view is reused once blanked and forgets the blank page`() {
+    val recycled = webView()
+    pool.recycle(recycled)
+    verify { recycled.loadUrl("about:blank") }
+    pool.queueIdle()
+    assertThat(pool.obtain()).isNotSameAs(recycled)
+    every { recycled.progress } returns 100
+    every { recycled.url } returns "about:blank"
+    pool.queueIdle()
+    assertThat(pool.obtain()).isSameAs(recycled)
+    verify {
+      recycled.clearHistory()
+      recycled.setClearHistoryOnNextPage(true)
+    }
+  }
+
+  @Test
+  fun `a recycled web view that does not blank in time is destroyed and replaced`() {
+    val recycled = webView()
+    pool.recycle(recycled)
+    pool.queueIdle()
+    now += 4_999L
+    pool.queueIdle()
+    verify(exactly = 0) { recycled.destroy() }
+    now += 1L
+    assertThat(pool.queueIdle()).isFalse()
+    verify { recycled.destroy() }
+    assertThat(created).hasSize(2)
+    assertThat(pool.obtain()).isNotSameAs(recycled)
+  }
+
+  @Test
+  fun `web views beyond the capacity are destroyed`() {
+    pool.queueIdle()
+    pool.queueIdle()
+    val recycled = webView()
+    pool.recycle(recycled)
+    verify { recycled.destroy() }
+  }
+
+  @Test
+  fun `clearing destroys every pooled web view`() {
+    pool.queueIdle()
+    val blanking = webView()
+    pool.recycle(blanking)
+    pool.clear()
+    verify {
+      created[0].destroy()
+      blanking.destroy()
+      queue.removeIdleHandler(pool)
+    }
+  }
+
+  private fun webView(): KiwixWebView = mockk(relaxed = true) {
+    every { progress } returns 0
+    every { url } returns null
+  }
+}
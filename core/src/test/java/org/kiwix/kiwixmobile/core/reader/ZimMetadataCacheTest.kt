@@ -0,0 +1,63 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.reader
+
+import io.mockk.every
+import io.mockk.mockk
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import org.kiwix.kiwixmobile.core.dao.NewBookDao
+import org.kiwix.sharedFunctions.book
+import org.kiwix.sharedFunctions.bookOnDisk
+import java.io.File
+
+class ZimMetadataCacheTest {
+
+  @TempDir lateinit var directory: File
+
+  private val newBookDao: NewBookDao = mockk()
+  private val zimMetadataCache = ZimMetadataCache(newBookDao)
+  private val file by lazy { File(directory, "book.zim").apply { writeText("zim") } }
+
+  init {
+    every { newBookDao.booksWithFileStamps() } returns listOf()
+  }
+
+  @Test
+  fun `an unchanged file is only read once`() {
+    var reads = 0
+    repeat(2) { zimMetadataCache.bookFor(file) { reads++; book() } }
+    assertThat(reads).isEqualTo(1)
+  }
+
+  @Test
+  fun `a changed file is read again`() {
+    zimMetadataCache.bookFor(file) { book(id = "old") }
+    file.appendText(" changed")
+    assertThat(zimMetadataCache.bookFor(file) { book(id = "new") }).isEqualTo(book(id = "new"))
+  }
+
+  @Test
+  fun `books in the database are used for their stamped files`() {
+    every { newBookDao.booksWithFileStamps() } returns
+      listOf(bookOnDisk(book = book(id = "stored"), file = file) to FileStamp(file))
+    assertThat(zimMetadataCache.bookFor(file) { null }).isEqualTo(book(id = "stored"))
+  }
+}
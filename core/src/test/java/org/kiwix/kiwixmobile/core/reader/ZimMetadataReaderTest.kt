@@ -0,0 +1,122 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.reader
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.io.File
+import java.nio.ByteBuffer
+import java.nio.ByteOrder.LITTLE_ENDIAN
+
+class ZimMetadataReaderTest {
+
+  @TempDir lateinit var directory: File
+
+  private val zimMetadataReader = ZimMetadataReader()
+  private val metadata = mapOf(
+    "Counter" to "text/html=12;image/png=3;video/webm=1",
+    "Creator" to "Wikipedia",
+    "Date" to "2020-06-01",
+    "Language" to "eng",
+    "Name" to "wikipedia_en_ray_charles",
+    "Title" to "Ray Charles"
+  )
+
+  @Test
+  fun `metadata is read from the header and M entries`() {
+    val book = zimMetadataReader.read(zimFile(metadata))!!
+    assertThat(book.id).isEqualTo("00010203-0405-0607-0809-0a0b0c0d0e0f")
+    assertThat(book.title).isEqualTo("Ray Charles")
+    assertThat(book.creator).isEqualTo("Wikipedia")
+    assertThat(book.date).isEqualTo("2020-06-01")
+    assertThat(book.language).isEqualTo("eng")
+    assertThat(book.bookName).isEqualTo("wikipedia_en_ray_charles")
+    assertThat(book.articleCount).isEqualTo("12")
+    assertThat(book.mediaCount).isEqualTo("4")
+  }
+
+  @Test
+  fun `missing metadata falls back like the full reader`() {
+    val book = zimMetadataReader.read(zimFile(mapOf(), "ray_charles.zim"))!!
+    assertThat(book.title).isEqualTo("ray charles")
+    assertThat(book.bookName).isEqualTo(book.id)
+    assertThat(book.description).isEmpty()
+  }
+
+  @Test
+  fun `compressed metadata is left to the full reader`() {
+    assertThat(zimMetadataReader.read(zimFile(metadata, compressed = true))).isNull()
+  }
+
+  @Test
+  fun `other files are not zim files`() {
+    val file = File(directory, "fake.zim").apply { writeBytes(ByteArray(100)) }
+    assertThat(zimMetadataReader.isZimFile(file)).isFalse()
+    assertThat(zimMetadataReader.read(file)).isNull()
+    assertThat(zimMetadataReader.isZimFile(zimFile(metadata))).isTrue()
+  }
+
+  private fun zimFile(
+    metadata: Map<String, String>,
+    name: String = "test.zim",
+    compressed: Boolean = false
+  ): File {
+    val entries = (metadata.mapKeys { (key, _) -> "M$key" } + ("Aindex" to "<html/>"))
+      .toSortedMap()
+      .map { (path, content) -> path to content.toByteArray() }
+    val mimeList = "text/plain".toByteArray() + byteArrayOf(0, 0)
+    val dirents = entries.mapIndexed { blob, (path, _) ->
+      val url = path.substring(1).toByteArray()
+      ByteBuffer.allocate(16 + url.size + 2).order(LITTLE_ENDIAN)
+        .putShort(0).put(0).put(path[0].toByte()).putInt(0).putInt(0).putInt(blob)
+        .put(url).put(0).put(0)
+        .array()
+    }
+    val urlPointerPosition = 80L + mimeList.size
+    val direntsPosition = urlPointerPosition + 8 * entries.size
+    val clusterPointerPosition = direntsPosition + dirents.sumBy(ByteArray::size)
+    val clusterPosition = clusterPointerPosition + 8
+    val cluster = ByteBuffer.allocate(1 + 4 * (entries.size + 1) + entries.sumBy { it.second.size })
+      .order(LITTLE_ENDIAN)
+      .put((if (compressed) 4 else 1).toByte())
+      .apply {
+        var offset = 4 * (entries.size + 1)
+        putInt(offset)
+        entries.forEach { (_, content) -> offset += content.size; putInt(offset) }
+        entries.forEach { (_, content) -> put(content) }
+      }
+    val header = ByteBuffer.allocate(80).order(LITTLE_ENDIAN)
+      .putInt(72173914).putShort(5).putShort(0)
+      .put(ByteArray(16) { it.toByte() })
+      .putInt(entries.size).putInt(1)
+      .putLong(urlPointerPosition).putLong(urlPointerPosition).putLong(clusterPointerPosition)
+      .putLong(80).putInt(0).putInt(-1).putLong(0)
+    var direntPosition = direntsPosition
+    val urlPointers = ByteBuffer.allocate(8 * entries.size).order(LITTLE_ENDIAN)
+      .apply { dirents.forEach { putLong(direntPosition); direntPosition += it.size } }
+    return File(directory, name).apply {
+      writeBytes(
+        header.array() + mimeList + urlPointers.array() + dirents.reduce(ByteArray::plus) +
+          ByteBuffer.allocate(8).order(LITTLE_ENDIAN).putLong(clusterPosition).array() +
+          cluster.array()
+      )
+    }
+  }
+}
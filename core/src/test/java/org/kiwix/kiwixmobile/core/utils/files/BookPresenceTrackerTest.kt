@@ -0,0 +1,77 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.utils.files
+
+import android.content.Context
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import io.reactivex.processors.PublishProcessor
+import io.reactivex.schedulers.Schedulers
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import org.kiwix.kiwixmobile.core.dao.NewBookDao
+import org.kiwix.sharedFunctions.resetSchedulers
+import org.kiwix.sharedFunctions.setScheduler
+import java.io.File
+
+class BookPresenceTrackerTest {
+
+  @TempDir lateinit var directory: File
+
+  private val context: Context = mockk(relaxed = true)
+  private val newBookDao: NewBookDao = mockk(relaxed = true)
+  private val bookFiles: PublishProcessor<List<File>> = PublishProcessor.create()
+  private val bookPresenceTracker = BookPresenceTracker(context, newBookDao)
+
+  init {
+    setScheduler(Schedulers.trampoline())
+  }
+
+  @AfterAll
+  fun teardown() {
+    resetSchedulers()
+  }
+
+  @BeforeEach
+  fun init() {
+    every { newBookDao.bookFiles() } returns bookFiles
+    bookPresenceTracker.start()
+  }
+
+  @Test
+  fun `books whose file is missing are removed from the dao`() {
+    val existing = File(directory, "existing.zim").apply { createNewFile() }
+    val missing = File(directory, "missing.zim")
+    bookFiles.offer(listOf(existing, missing))
+    verify { newBookDao.deleteBooksWithFiles(listOf(missing.path)) }
+    verify(exactly = 0) { newBookDao.deleteBooksWithFiles(listOf(existing.path)) }
+  }
+
+  @Test
+  fun `files are only checked when they first show up`() {
+    val file = File(directory, "book.zim").apply { createNewFile() }
+    bookFiles.offer(listOf(file))
+    file.delete()
+    bookFiles.offer(listOf(file))
+    verify(exactly = 0) { newBookDao.deleteBooksWithFiles(any()) }
+  }
+}
@@ -25,8 +25,10 @@ import android.os.Environment
 import android.provider.MediaStore.MediaColumns
 import eu.mhutti1.utils.storage.StorageDevice
 import eu.mhutti1.utils.storage.StorageDeviceUtils
+import io.mockk.Runs
 import io.mockk.clearMocks
 import io.mockk.every
+import io.mockk.just
 import io.mockk.mockk
 import io.mockk.mockkStatic
 import io.reactivex.schedulers.Schedulers
@@ -35,9 +37,12 @@ import org.junit.jupiter.api.AfterAll
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Nested
 import org.junit.jupiter.api.Test
+import org.kiwix.kiwixmobile.core.dao.ScannedDirectoryDao
+import org.kiwix.kiwixmobile.core.dao.entities.ScannedDirectoryEntity
 import org.kiwix.sharedFunctions.resetSchedulers
 import org.kiwix.sharedFunctions.setScheduler
 import java.io.File
+import java.nio.file.Files
 
 class FileSearchTest {
 
@@ -47,6 +52,8 @@ class FileSearchTest {
   private val externalStorageDirectory: File = mockk()
   private val contentResolver: ContentResolver = mockk()
   private val storageDevice: StorageDevice = mockk()
+  private val scannedDirectoryDao: ScannedDirectoryDao = mockk()
+  private val index = mutableMapOf<String, ScannedDirectoryEntity>()
 
   init {
     setScheduler(Schedulers.trampoline())
@@ -55,6 +62,12 @@ class FileSearchTest {
   @BeforeEach
   fun init() {
     clearMocks(context, externalStorageDirectory, contentResolver, storageDevice)
+    index.clear()
+    every { scannedDirectoryDao.directories() } answers { index.toMap() }
+    every { scannedDirectoryDao.update(any(), any()) } answers {
+      secondArg<List<ScannedDirectoryEntity>>().forEach { index.remove(it.path) }
+      firstArg<List<ScannedDirectoryEntity>>().forEach { index[it.path] = it }
+    }
     deleteTempDirectory()
     mockkStatic(StorageDeviceUtils::class)
     mockkStatic(Environment::class)
@@ -65,7 +78,7 @@ class FileSearchTest {
       storageDevice
     )
     every { storageDevice.name } returns "/deviceDir"
-    fileSearch = FileSearch(context)
+    fileSearch = FileSearch(context, scannedDirectoryDao)
   }
 
   @AfterAll
@@ -82,7 +95,8 @@ class FileSearchTest {
       every { contentResolver.query(any(), any(), any(), any(), any()) } returns null
       fileSearch.scan()
         .test()
-        .assertValue(listOf())
+        .assertNoValues()
+        .assertComplete()
     }
 
     @Test
@@ -95,6 +109,7 @@ class FileSearchTest {
       val fileList = fileSearch.scan()
         .test()
         .values()[0]
+        .added
       assertThat(fileList).containsExactlyInAnyOrder(zimFile, zimaaFile)
     }
 
@@ -111,10 +126,72 @@ class FileSearchTest {
       val fileList = fileSearch.scan()
         .test()
         .values()[0]
+        .added
       assertThat(fileList).containsExactlyInAnyOrder(zimFile)
     }
   }
 
+  @Nested
+  inner class Index {
+    private lateinit var directory: File
+
+    @BeforeEach
+    fun createDirectory() {
+      every { contentResolver.query(any(), any(), any(), any(), any()) } returns null
+      val root = File(File.createTempFile("root", "").parentFile, "root")
+      directory = File(root, "directory").apply { mkdirs() }
+      every { storageDevice.name } returns root.path
+    }
+
+    @Test
+    fun `unchanged directories are not listed again`() {
+      val zimFile = File(directory, "a.zim").apply { createNewFile() }
+      val lastModified = directory.lastModified()
+      assertThat(added()).containsExactly(zimFile)
+      val unseenFile = File(directory, "b.zim").apply { createNewFile() }
+      directory.setLastModified(lastModified)
+      assertThat(added()).isEmpty()
+      directory.setLastModified(lastModified + 1000L)
+      assertThat(added()).containsExactly(unseenFile)
+    }
+
+    @Test
+    fun `files removed since the last scan are reported`() {
+      val zimFile = File(directory, "a.zim").apply { createNewFile() }
+      val lastModified = directory.lastModified()
+      fileSearch.scan().test()
+      zimFile.delete()
+      directory.setLastModified(lastModified + 1000L)
+      fileSearch.scan()
+        .test()
+        .assertValue(FileChanges(listOf(), listOf(zimFile)))
+    }
+
+    @Test
+    fun `files found again are reported unchanged`() {
+      val zimFile = File(directory, "a.zim").apply { createNewFile() }
+      fileSearch.scan().test()
+      fileSearch.scan()
+        .test()
+        .assertValue(FileChanges(listOf(), listOf(), listOf(zimFile)))
+    }
+
+    @Test
+    fun `skipped trees are not walked`() {
+      File(directory, ".thumbnails").apply { mkdir() }.let { File(it, "a.zim").createNewFile() }
+      assertThat(added()).isEmpty()
+    }
+
+    @Test
+    fun `symbolic links to directories are not followed`() {
+      val zimFile = File(directory, "a.zim").apply { createNewFile() }
+      Files.createSymbolicLink(File(directory, "link").toPath(), directory.parentFile.toPath())
+      assertThat(added()).containsExactly(zimFile)
+    }
+
+    private fun added() = fileSearch.scan().test().values().flatMap(FileChanges::added)
+  }
+
   @Nested
   inner class MediaStore {
 
@@ -124,7 +201,7 @@ class FileSearchTest {
       expectFromMediaStore(fileToFind)
       fileSearch.scan()
         .test()
-        .assertValue(listOf(fileToFind))
+        .assertValue(FileChanges(listOf(fileToFind), listOf()))
     }
 
     @Test
@@ -134,10 +211,51 @@ class FileSearchTest {
       unreadableFile.delete()
       fileSearch.scan()
         .test()
-        .assertValue(listOf())
+        .assertNoValues()
+    }
+
+    @Test
+    fun `a file the MediaStore no longer lists is not removed while the walk finds it`() {
+      val zimFile = File(directory(), "a.zim").apply { createNewFile() }
+      every { storageDevice.name } returns zimFile.parent
+      expectFromMediaStore(zimFile)
+      fileSearch.scan().test()
+      expectFromMediaStore()
+      fileSearch.scan()
+        .test()
+        .assertValue(FileChanges(listOf(), listOf(), listOf(zimFile)))
     }
 
-    private fun expectFromMediaStore(fileToFind: File) {
+    @Test
+    fun `a file the walk no longer reaches is not removed while the MediaStore lists it`() {
+      val zimFile = File(directory(), "a.zim").apply { createNewFile() }
+      every { storageDevice.name } returns zimFile.parent
+      expectFromMediaStore(zimFile)
+      fileSearch.scan().test()
+      every { storageDevice.name } returns "/deviceDir"
+      expectFromMediaStore(zimFile)
+      fileSearch.scan()
+        .test()
+        .assertValue(FileChanges(listOf(), listOf(), listOf(zimFile)))
+    }
+
+    @Test
+    fun `a file neither source finds is removed once`() {
+      val zimFile = File(directory(), "a.zim").apply { createNewFile() }
+      every { storageDevice.name } returns zimFile.parent
+      expectFromMediaStore(zimFile)
+      fileSearch.scan().test()
+      every { storageDevice.name } returns "/deviceDir"
+      expectFromMediaStore()
+      fileSearch.scan()
+        .test()
+        .assertValue(FileChanges(listOf(), listOf(zimFile)))
+    }
+
+    private fun directory() =
+      File(File.createTempFile("root", "").parentFile, "mediaStore").apply { mkdirs() }
+
+    private fun expectFromMediaStore(vararg filesToFind: File) {
       val cursor = mockk<Cursor>()
       every {
         contentResolver.query(
@@ -148,10 +266,11 @@ class FileSearchTest {
           null
         )
       } returns cursor
-      every { cursor.moveToNext() } returnsMany listOf(true, false)
+      every { cursor.moveToNext() } returnsMany filesToFind.map { true } + false
       every { cursor.columnNames } returns arrayOf(MediaColumns.DATA)
       every { cursor.getColumnIndex(MediaColumns.DATA) } returns 0
-      every { cursor.getString(0) } returns fileToFind.absolutePath
+      every { cursor.getString(0) } returnsMany filesToFind.map(File::getAbsolutePath)
+      every { cursor.close() } just Runs
     }
   }
 
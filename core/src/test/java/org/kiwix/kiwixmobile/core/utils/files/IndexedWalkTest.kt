@@ -0,0 +1,51 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.utils.files
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Assertions.assertTimeoutPreemptively
+import org.junit.jupiter.api.Test
+import java.io.File
+import java.nio.file.Files
+import java.time.Duration
+
+class IndexedWalkTest {
+
+  private val timeout = Duration.ofSeconds(5)
+
+  @Test
+  fun `a walk cancelled before it starts returns`() {
+    val root = Files.createTempDirectory("root").toFile()
+    File(root, "a.zim").createNewFile()
+    val walk = IndexedWalk(emptyMap(), isCancelled = { true })
+    assertTimeoutPreemptively(timeout) { walk.walk(listOf(root)) }
+    assertThat(walk.zimFiles).isEmpty()
+    root.deleteRecursively()
+  }
+
+  @Test
+  fun `every root is walked`() {
+    val roots = (1..8).map { Files.createTempDirectory("root").toFile().canonicalFile }
+    val zimFiles = roots.map { File(it, "a.zim").apply { createNewFile() } }
+    val walk = IndexedWalk(emptyMap())
+    assertTimeoutPreemptively(timeout) { walk.walk(roots, threads = 2) }
+    assertThat(walk.zimFiles).containsExactlyInAnyOrderElementsOf(zimFiles)
+    roots.forEach { it.deleteRecursively() }
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.utils.files
+
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.kiwix.kiwixmobile.core.utils.SharedPreferenceUtil
+import org.kiwix.kiwixmobile.zim_manager.MountInfo
+import org.kiwix.kiwixmobile.zim_manager.MountPointProducer
+
+class VolumeCapabilityCacheTest {
+
+  private val sharedPreferenceUtil: SharedPreferenceUtil = mockk(relaxed = true)
+  private val mountPointProducer: MountPointProducer = mockk()
+  private val volumeCapabilityCache =
+    VolumeCapabilityCache(mockk(), sharedPreferenceUtil, mountPointProducer)
+  private val fat32Card = VolumeCapabilities("/dev/block/vold/179:65@/storage/card", false, false)
+
+  init {
+    every { mountPointProducer.produce() } returns listOf(
+      MountInfo("/dev/block/vold/179:65", "/storage/card", "vfat"),
+      MountInfo("/dev/block/dm-2", "/data", "ext4")
+    )
+  }
+
+  @Test
+  fun `capabilities survive being encoded`() {
+    assertThat(VolumeCapabilities.decode(fat32Card.encode())).isEqualTo(fat32Card)
+  }
+
+  @Test
+  fun `a volume probed before is not probed again`() {
+    every { sharedPreferenceUtil.volumeCapabilities } returns setOf(fat32Card.encode())
+    assertThat(volumeCapabilityCache.capabilitiesOf("/storage/card/Kiwix")).isEqualTo(fat32Card)
+    assertThat(volumeCapabilityCache.knownCapabilitiesOf("/storage/card/Kiwix"))
+      .isEqualTo(fat32Card)
+    verify(exactly = 0) { sharedPreferenceUtil.volumeCapabilities = any() }
+  }
+
+  @Test
+  fun `a volume that cannot be probed is not remembered`() {
+    every { sharedPreferenceUtil.volumeCapabilities } returns setOf()
+    assertThat(volumeCapabilityCache.capabilitiesOf("/data/does_not_exist")).isNull()
+    verify(exactly = 0) { sharedPreferenceUtil.volumeCapabilities = any() }
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.utils.files
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.io.File
+
+class ZimChunkSetTest {
+
+  @TempDir lateinit var directory: File
+
+  @Test
+  fun `parts are listed in order up to the first missing one`() {
+    createParts("book.zimaa", "book.zimab", "book.zimac").forEach { it.writeText("12") }
+    createParts("book.zimae", "other.zimad")
+    val chunkSet = ZimChunkSet.of(File(directory, "book.zimaa"))
+    assertThat(chunkSet.parts).containsExactly(
+      File(directory, "book.zimaa"), File(directory, "book.zimab"), File(directory, "book.zimac")
+    )
+    assertThat(chunkSet.isComplete).isTrue()
+    assertThat(chunkSet.totalSize).isEqualTo(6L)
+  }
+
+  @Test
+  fun `parts that are still downloading are in progress`() {
+    createParts("book.zimaa", "book.zimab.part", "book.zimac.part.part")
+    val chunkSet = ZimChunkSet.of(File(directory, "book.zimaa"))
+    assertThat(chunkSet.parts.map(File::getName))
+      .containsExactly("book.zimaa", "book.zimab.part", "book.zimac.part.part")
+    assertThat(chunkSet.isInProgress).isTrue()
+    assertThat(chunkSet.isComplete).isFalse()
+  }
+
+  @Test
+  fun `an invalidated chunk set is listed again`() {
+    createParts("book.zimaa")
+    assertThat(ZimChunkSet.of(File(directory, "book.zimaa")).parts).hasSize(1)
+    File(directory, "book.zimaa").delete()
+    ZimChunkSet.invalidate(File(directory, "book.zimaa"))
+    assertThat(ZimChunkSet.of(File(directory, "book.zimaa")).parts).isEmpty()
+  }
+
+  private fun createParts(vararg names: String) =
+    names.map { File(directory, it).apply { createNewFile() } }
+}
@@ -0,0 +1,98 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.zim_manager
+
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import org.kiwix.kiwixmobile.core.dao.NewBookDao
+import org.kiwix.kiwixmobile.core.dao.PendingDeletionDao
+import org.kiwix.kiwixmobile.core.zim_manager.BookDeletion.Deleted
+import org.kiwix.kiwixmobile.core.zim_manager.BookDeletion.InProgress
+import org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.adapter.BooksOnDiskListItem.BookOnDisk
+import org.kiwix.kiwixmobile.zim_manager.MountPointProducer
+import org.kiwix.sharedFunctions.bookOnDisk
+import java.io.File
+import java.util.concurrent.TimeUnit.SECONDS
+
+class BookDeleterTest {
+
+  @TempDir lateinit var directory: File
+
+  private val newBookDao: NewBookDao = mockk(relaxed = true)
+  private val pendingDeletionDao: PendingDeletionDao = mockk(relaxed = true)
+  private val mountPointProducer: MountPointProducer = mockk()
+  private val bookDeleter = BookDeleter(newBookDao, pendingDeletionDao, mountPointProducer)
+
+  init {
+    every { mountPointProducer.produce() } returns emptyList()
+    every { pendingDeletionDao.add(any(), any()) } answers { secondArg<() -> Unit>().invoke() }
+    every { pendingDeletionDao.remove(any(), any()) } answers {
+      secondArg<() -> Unit>().invoke()
+    }
+  }
+
+  @Test
+  fun `books leave the database and all of their parts are deleted`() {
+    File(directory, "book.zimaa").writeBytes(ByteArray(600))
+    File(directory, "book.zimab").writeBytes(ByteArray(400))
+    File(directory, "other.zim").writeBytes(ByteArray(1000))
+    val books = listOf(
+      bookOnDisk(1L, file = File(directory, "book.zimaa")),
+      bookOnDisk(2L, file = File(directory, "other.zim"))
+    )
+    val deletions = delete(books)
+    assertThat(deletions.first()).isEqualTo(InProgress(0L, 2000L))
+    assertThat(deletions.last()).isEqualTo(Deleted(2000L, emptyList()))
+    assertThat(directory.list()).isEmpty()
+    verify {
+      pendingDeletionDao.add(books.map { it.file.path }, any())
+      newBookDao.delete(1L)
+      newBookDao.delete(2L)
+      pendingDeletionDao.remove(books[0].file.path, any())
+      pendingDeletionDao.remove(books[1].file.path, any())
+    }
+    verify(exactly = 0) { newBookDao.insert(any()) }
+  }
+
+  @Test
+  fun `books that could not be deleted are reported and go back into the database`() {
+    val undeletable = File(directory, "book.zim").apply { mkdir() }
+    File(undeletable, "content").writeText("content")
+    val book = bookOnDisk(1L, file = undeletable)
+    assertThat(delete(listOf(book)).last())
+      .isEqualTo(Deleted(0L, listOf(undeletable)))
+    verify { newBookDao.insert(listOf(book)) }
+  }
+
+  @Test
+  fun `deletions the app did not finish are resumed`() {
+    val file = File(directory, "book.zim").apply { writeBytes(ByteArray(100)) }
+    every { pendingDeletionDao.paths() } returns listOf(file.path)
+    bookDeleter.resumePendingDeletions()
+    verify(timeout = 5000) { pendingDeletionDao.remove(file.path, any()) }
+    assertThat(file.exists()).isFalse()
+  }
+
+  private fun delete(books: List<BookOnDisk>) =
+    bookDeleter.delete(books).test().awaitDone(5, SECONDS).assertComplete().values()
+}
@@ -0,0 +1,147 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.zim_manager
+
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import io.objectbox.BoxStore
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import org.kiwix.kiwixmobile.core.dao.HistoryDao
+import org.kiwix.kiwixmobile.core.dao.NewBookDao
+import org.kiwix.kiwixmobile.core.dao.NewBookmarksDao
+import org.kiwix.kiwixmobile.core.settings.StorageCalculator
+import org.kiwix.kiwixmobile.core.zim_manager.BookMove.Moved
+import org.kiwix.kiwixmobile.core.zim_manager.BookMove.NotEnoughSpace
+import org.kiwix.kiwixmobile.core.zim_manager.BookMove.StillDownloading
+import org.kiwix.sharedFunctions.bookOnDisk
+import java.io.DataOutputStream
+import java.io.File
+import java.io.FileOutputStream
+import java.io.IOException
+import java.util.concurrent.TimeUnit.SECONDS
+
+class BookMoverTest {
+
+  @TempDir lateinit var directory: File
+
+  private val content = ByteArray(1000) { it.toByte() }
+  private val boxStore: BoxStore = mockk()
+  private val newBookDao: NewBookDao = mockk(relaxed = true)
+  private val historyDao: HistoryDao = mockk(relaxed = true)
+  private val newBookmarksDao: NewBookmarksDao = mockk(relaxed = true)
+  private val storageCalculator: StorageCalculator = mockk()
+  private val bookMover =
+    BookMover(boxStore, newBookDao, historyDao, newBookmarksDao, storageCalculator)
+  private val source by lazy { File(directory, "source").apply { mkdir() } }
+  private val storage by lazy { File(directory, "storage").apply { mkdir() } }
+
+  init {
+    every { storageCalculator.availableBytes(any()) } returns Long.MAX_VALUE
+    every { boxStore.runInTx(any()) } answers { firstArg<Runnable>().run() }
+  }
+
+  @Test
+  fun `all parts are moved and the book points at its new file`() {
+    File(source, "book.zimaa").writeBytes(content.copyOfRange(0, 600))
+    File(source, "book.zimab").writeBytes(content.copyOfRange(600, 1000))
+    val moved = File(storage, "Kiwix/book.zimaa")
+    assertThat(move(File(source, "book.zimaa"))).isEqualTo(Moved(bookOnDisk(1L, file = moved)))
+    assertThat(moved.readBytes() + File(storage, "Kiwix/book.zimab").readBytes())
+      .isEqualTo(content)
+    assertThat(source.listFiles()).isEmpty()
+    assertThat(File(storage, "Kiwix").list()).containsExactlyInAnyOrder("book.zimaa", "book.zimab")
+    verify {
+      boxStore.runInTx(any())
+      newBookDao.updateFile(1L, moved)
+    }
+  }
+
+  @Test
+  fun `history and bookmarks are pointed at the new file`() {
+    val file = File(source, "book.zim").apply { writeBytes(content) }
+    val moved = File(storage, "Kiwix/book.zim")
+    move(file)
+    val oldPaths = setOf(file.path, file.canonicalPath)
+    verify {
+      historyDao.updateZimFilePath(oldPaths, moved.canonicalPath)
+      newBookmarksDao.updateZimFilePath(oldPaths, moved.canonicalPath)
+    }
+  }
+
+  @Test
+  fun `a book that is still downloading is not moved`() {
+    val file = File(source, "book.zim").apply { writeBytes(content) }
+    File(source, "book.zim.part.part").writeBytes(content)
+    assertThat(move(file)).isEqualTo(StillDownloading)
+    assertThat(file.exists()).isTrue()
+    assertThat(File(storage, "Kiwix").exists()).isFalse()
+  }
+
+  @Test
+  fun `a split book with a part still downloading is not moved`() {
+    File(source, "book.zimaa").writeBytes(content)
+    File(source, "book.zimab.part").writeBytes(content)
+    assertThat(move(File(source, "book.zimaa"))).isEqualTo(StillDownloading)
+    assertThat(File(storage, "Kiwix").exists()).isFalse()
+  }
+
+  @Test
+  fun `an interrupted move carries on from its checkpoint`() {
+    File(source, "book.zim").writeBytes(content)
+    val kiwix = File(storage, "Kiwix").apply { mkdir() }
+    File(kiwix, "book.zim.moving").writeBytes(content.copyOf(500) + ByteArray(100))
+    DataOutputStream(FileOutputStream(File(kiwix, "book.zim.moving.checkpoint"))).use {
+      it.writeLong(500L)
+      it.writeBoolean(false)
+    }
+    every { storageCalculator.availableBytes(storage) } returns 500L
+    assertThat(move(File(source, "book.zim"))).isInstanceOf(Moved::class.java)
+    assertThat(File(kiwix, "book.zim").readBytes()).isEqualTo(content)
+  }
+
+  @Test
+  fun `a move without enough space is not started`() {
+    val file = File(source, "book.zim").apply { writeBytes(content) }
+    every { storageCalculator.availableBytes(storage) } returns 999L
+    assertThat(move(file)).isEqualTo(NotEnoughSpace(1000L, 999L))
+    assertThat(file.exists()).isTrue()
+    assertThat(File(storage, "Kiwix").exists()).isFalse()
+  }
+
+  @Test
+  fun `a copy that does not match its source fails and keeps the source`() {
+    val file = File(source, "book.zim").apply { writeBytes(content) }
+    val kiwix = File(storage, "Kiwix").apply { mkdir() }
+    File(kiwix, "book.zim.moving").writeBytes(ByteArray(1000))
+    DataOutputStream(FileOutputStream(File(kiwix, "book.zim.moving.checkpoint"))).use {
+      it.writeLong(1000L)
+      it.writeBoolean(false)
+    }
+    bookMover.move(bookOnDisk(1L, file = file), storage).test().awaitDone(5, SECONDS)
+      .assertError(IOException::class.java)
+    assertThat(file.exists()).isTrue()
+    assertThat(kiwix.list()).isEmpty()
+  }
+
+  private fun move(file: File) =
+    bookMover.move(bookOnDisk(1L, file = file), storage).blockingLast()
+}
@@ -0,0 +1,86 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.zim_manager
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.kiwix.sharedFunctions.book
+import org.kiwix.sharedFunctions.bookOnDisk
+import java.io.File
+
+class BookUpdateDetectorTest {
+
+  private val installed = bookOnDisk(
+    book = book(id = "old", name = "wikipedia_en_all", date = "2020-01-01"),
+    file = File("wikipedia_en_all_maxi_2020-01.zim")
+  )
+
+  @Test
+  fun `newer version of the same flavour is an update`() {
+    val newer = catalogBook("new", "maxi", "2020-04-01")
+    assertThat(BookUpdateDetector.availableUpdates(listOf(installed), listOf(newer)))
+      .containsExactly(AvailableUpdate(installed, newer))
+  }
+
+  @Test
+  fun `only the latest catalog version is offered`() {
+    val newer = catalogBook("new", "maxi", "2020-04-01")
+    val newest = catalogBook("newest", "maxi", "2020-06-01")
+    assertThat(BookUpdateDetector.availableUpdates(listOf(installed), listOf(newest, newer)))
+      .containsExactly(AvailableUpdate(installed, newest))
+  }
+
+  @Test
+  fun `newer version of another flavour is not an update`() {
+    val otherFlavour = catalogBook("new", "nopic", "2020-04-01")
+    assertThat(BookUpdateDetector.availableUpdates(listOf(installed), listOf(otherFlavour)))
+      .isEmpty()
+  }
+
+  @Test
+  fun `older or identical versions are not updates`() {
+    val older = catalogBook("older", "maxi", "2019-10-01")
+    assertThat(
+      BookUpdateDetector.availableUpdates(listOf(installed), listOf(older, installed.book))
+    ).isEmpty()
+  }
+
+  @Test
+  fun `flavour ignores date and chunk suffixes`() {
+    assertThat(BookUpdateDetector.flavourOf("wikipedia_en_all", "wikipedia_en_all_2020-01.zimaa"))
+      .isEmpty()
+    assertThat(
+      BookUpdateDetector.flavourOf("wikipedia_en_all", "wikipedia_en_all_mini_2020-01.zim")
+    ).isEqualTo("mini")
+  }
+
+  @Test
+  fun `total size sums the updates`() {
+    val update = AvailableUpdate(installed, book(size = "2048"))
+    assertThat(BookUpdateDetector.totalSize(listOf(update, update)))
+      .isEqualTo(KiloByte("4096"))
+  }
+
+  private fun catalogBook(id: String, flavour: String, date: String) = book(
+    id = id,
+    name = "wikipedia_en_all",
+    date = date,
+    url = "http://download.kiwix.org/zim/wikipedia_en_all_${flavour}_${date.take(7)}.zim.meta4"
+  )
+}
@@ -0,0 +1,55 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.core.zim_manager.fileselect_view
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.kiwix.kiwixmobile.core.zim_manager.fileselect_view.adapter.BooksOnDiskListItem.LanguageItem
+import org.kiwix.sharedFunctions.book
+import org.kiwix.sharedFunctions.bookOnDisk
+import java.util.Locale
+
+class BooksOnDiskSnapshotTest {
+
+  private val englishB = bookOnDisk(1L, book(id = "1", title = "b", language = "en"))
+  private val englishA = bookOnDisk(2L, book(id = "2", title = "a", language = "en"))
+  private val french = bookOnDisk(3L, book(id = "3", title = "a", language = "fr"))
+
+  @Test
+  fun `books are sorted by language and title with a header per language`() {
+    assertThat(BooksOnDiskSnapshot.EMPTY.update(listOf(french, englishB, englishA)).items)
+      .containsExactly(
+        LanguageItem(Locale("en")), englishA, englishB,
+        LanguageItem(Locale("fr")), french
+      )
+  }
+
+  @Test
+  fun `added and removed books update the sorted list`() {
+    val snapshot = BooksOnDiskSnapshot.EMPTY.update(listOf(englishB, french))
+    assertThat(snapshot.update(listOf(englishA, englishB)).items)
+      .containsExactly(LanguageItem(Locale("en")), englishA, englishB)
+  }
+
+  @Test
+  fun `an unchanged emission keeps the same snapshot`() {
+    val snapshot = BooksOnDiskSnapshot.EMPTY.update(listOf(englishB, french))
+    assertThat(snapshot.update(listOf(french, englishB))).isSameAs(snapshot)
+  }
+}
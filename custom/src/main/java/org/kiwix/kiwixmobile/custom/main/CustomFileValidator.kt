@@ -20,44 +20,175 @@ package org.kiwix.kiwixmobile.custom.main
 
 import android.content.Context
 import androidx.core.content.ContextCompat
+import io.reactivex.Single
+import io.reactivex.android.schedulers.AndroidSchedulers
+import io.reactivex.disposables.Disposable
+import io.reactivex.disposables.Disposables
+import io.reactivex.schedulers.Schedulers
+import org.kiwix.kiwixmobile.core.reader.ZimMetadataReader
+import org.kiwix.kiwixmobile.core.utils.SharedPreferenceUtil
 import org.kiwix.kiwixmobile.custom.main.ValidationState.HasBothFiles
 import org.kiwix.kiwixmobile.custom.main.ValidationState.HasFile
 import org.kiwix.kiwixmobile.custom.main.ValidationState.HasNothing
 import java.io.File
+import java.util.concurrent.TimeUnit.SECONDS
 import javax.inject.Inject
 
-class CustomFileValidator @Inject constructor(private val context: Context) {
+private const val VERIFICATION_DELAY_SECONDS = 5L
 
-  fun validate(onFilesFound: (ValidationState) -> Unit, onNoFilesFound: () -> Unit) =
-    when (val installationState = detectInstallationState()) {
+/**
+ * Finds the obb or zim file a custom app reads. The files found last time are used again as long
+ * as their directories and sizes are unchanged, otherwise only the top level of each directory
+ * is looked at. Either way the full recursive scan runs in the background once the reader is
+ * showing; if it finds something else it is applied straight away and it is what the next launch
+ * starts from. The scan only runs up front when the quick lookups find nothing.
+ */
+class CustomFileValidator @Inject constructor(
+  private val context: Context,
+  private val zimMetadataReader: ZimMetadataReader,
+  private val sharedPreferenceUtil: SharedPreferenceUtil
+) {
+
+  /**
+   * @return the background verification, to be disposed of with the screen that validates
+   */
+  fun validate(
+    onFilesFound: (ValidationState) -> Unit,
+    onNoFilesFound: () -> Unit
+  ): Disposable {
+    val quickState = rememberedState() ?: topLevelState()
+    val installationState = quickState ?: detectInstallationState().also(::remember)
+    deliver(installationState, onFilesFound, onNoFilesFound)
+    return if (quickState != null) {
+      verifyInBackground(quickState, onFilesFound, onNoFilesFound)
+    } else {
+      Disposables.disposed()
+    }
+  }
+
+  private fun verifyInBackground(
+    quickState: ValidationState,
+    onFilesFound: (ValidationState) -> Unit,
+    onNoFilesFound: () -> Unit
+  ) = Single.timer(VERIFICATION_DELAY_SECONDS, SECONDS, Schedulers.io())
+    .map { detectInstallationState().also(::remember) }
+    .filter { it != quickState }
+    .observeOn(AndroidSchedulers.mainThread())
+    .subscribe({ deliver(it, onFilesFound, onNoFilesFound) }, Throwable::printStackTrace)
+
+  private fun deliver(
+    state: ValidationState,
+    onFilesFound: (ValidationState) -> Unit,
+    onNoFilesFound: () -> Unit
+  ) {
+    when (state) {
       is HasBothFiles,
-      is HasFile -> onFilesFound(installationState)
+      is HasFile -> onFilesFound(state)
       HasNothing -> onNoFilesFound()
     }
+  }
+
+  private fun detectInstallationState() = stateOf(
+    scanDirs(obbDirs(), "obb").firstOrNull(),
+    scanDirs(zimDirs(), "zim").firstOrNull()
+  )
+
+  private fun topLevelState() = stateOf(
+    topLevelFiles(obbDirs(), "obb").firstOrNull(),
+    topLevelFiles(zimDirs(), "zim").firstOrNull()
+  ).takeIf { it != HasNothing }
 
-  private fun detectInstallationState(
-    obbFiles: List<File> = obbFiles(),
-    zimFiles: List<File> = zimFiles()
-  ): ValidationState {
-    return when {
-      obbFiles.isNotEmpty() && zimFiles().isNotEmpty() -> HasBothFiles(obbFiles[0], zimFiles[0])
-      obbFiles.isNotEmpty() -> HasFile(obbFiles[0])
-      zimFiles.isNotEmpty() -> HasFile(zimFiles[0])
+  private fun stateOf(obbFile: File?, zimFile: File?) =
+    when {
+      obbFile != null && zimFile != null -> HasBothFiles(obbFile, zimFile)
+      obbFile != null -> HasFile(obbFile)
+      zimFile != null -> HasFile(zimFile)
       else -> HasNothing
     }
+
+  private fun obbDirs() = ContextCompat.getObbDirs(context).filterNotNull()
+
+  private fun zimDirs() = ContextCompat.getExternalFilesDirs(context, null).filterNotNull()
+
+  private fun scanDirs(dirs: List<File>, extensionToMatch: String) =
+    dirs.asSequence()
+      .flatMap { it.walk() }
+      .filter { isValid(it, extensionToMatch) }
+
+  private fun topLevelFiles(dirs: List<File>, extensionToMatch: String) =
+    dirs.asSequence()
+      .flatMap { it.listFiles().orEmpty().asSequence() }
+      .filter { isValid(it, extensionToMatch) }
+
+  private fun isValid(file: File, extensionToMatch: String) =
+    file.extension.startsWith(extensionToMatch) && zimMetadataReader.isZimFile(file)
+
+  private fun rememberedState() =
+    sharedPreferenceUtil.prefValidatedCustomFiles
+      ?.let(ValidatedFiles.Companion::decode)
+      ?.takeIf { it == ValidatedFiles(it.state, obbDirs() + zimDirs()) }
+      ?.state
+
+  private fun remember(state: ValidationState) {
+    sharedPreferenceUtil.putPrefValidatedCustomFiles(
+      state.takeIf { it != HasNothing }
+        ?.let { ValidatedFiles(it, obbDirs() + zimDirs()).encode() }
+    )
   }
+}
+
+/**
+ * A [ValidationState] together with the modification times of the directories it was found in
+ * and the lengths of its files, so a stored state can be checked against the disk cheaply.
+ */
+internal data class ValidatedFiles(
+  val state: ValidationState,
+  val directories: Map<String, Long>,
+  val fileLengths: Map<String, Long>
+) {
+  constructor(state: ValidationState, directories: List<File>) : this(
+    state,
+    directories.associate { it.path to it.lastModified() },
+    state.files.associate { it.path to it.length() }
+  )
+
+  fun encode() =
+    (directories.map { (path, lastModified) -> entry(DIRECTORY, path, lastModified) } +
+      fileLengths.map { (path, length) -> entry(FILE, path, length) })
+      .joinToString("\n")
 
-  private fun obbFiles() = scanDirs(ContextCompat.getObbDirs(context), "obb")
+  private fun entry(type: String, path: String, value: Long) =
+    listOf(type, path, value).joinToString(SEPARATOR)
 
-  private fun zimFiles() =
-    scanDirs(ContextCompat.getExternalFilesDirs(context, null), "zim")
+  companion object {
+    private const val SEPARATOR = "\t"
+    private const val DIRECTORY = "d"
+    private const val FILE = "f"
 
-  private fun scanDirs(dirs: Array<out File?>?, extensionToMatch: String): List<File> =
-    dirs?.filterNotNull()?.fold(listOf()) { acc, dir ->
-      acc + dir.walk().filter { it.extension.startsWith(extensionToMatch) }.toList()
-    } ?: emptyList()
+    fun decode(encoded: String): ValidatedFiles? {
+      val entries = encoded.lines()
+        .map { it.split(SEPARATOR) }
+        .filter { it.size == 3 && it[2].toLongOrNull() != null }
+        .groupBy({ it[0] }, { it[1] to it[2].toLong() })
+      val fileLengths = entries[FILE].orEmpty()
+      val files = fileLengths.map { (path, _) -> File(path) }
+      val state = when (files.size) {
+        1 -> HasFile(files[0])
+        2 -> HasBothFiles(files[0], files[1])
+        else -> return null
+      }
+      return ValidatedFiles(state, entries[DIRECTORY].orEmpty().toMap(), fileLengths.toMap())
+    }
+  }
 }
 
+private val ValidationState.files
+  get() = when (this) {
+    is HasBothFiles -> listOf(obbFile, zimFile)
+    is HasFile -> listOf(file)
+    HasNothing -> emptyList()
+  }
+
 sealed class ValidationState {
   data class HasBothFiles(val obbFile: File, val zimFile: File) : ValidationState()
   data class HasFile(val file: File) : ValidationState()
@@ -39,6 +39,7 @@ import androidx.appcompat.app.AppCompatActivity
 import androidx.core.app.ActivityCompat
 import androidx.core.content.ContextCompat
 import androidx.drawerlayout.widget.DrawerLayout
+import io.reactivex.disposables.Disposable
 import org.kiwix.kiwixmobile.core.base.BaseActivity
 import org.kiwix.kiwixmobile.core.base.BaseFragmentActivityExtensions.Super
 import org.kiwix.kiwixmobile.core.base.BaseFragmentActivityExtensions.Super.ShouldCall
@@ -68,6 +69,7 @@ class CustomReaderFragment : CoreReaderFragment() {
   @Inject lateinit var customFileValidator: CustomFileValidator
   @Inject lateinit var sharedPreferenceUtil: SharedPreferenceUtil
   @Inject lateinit var dialogShower: DialogShower
+  private var validationDisposable: Disposable? = null
 
   override fun onCreateView(
     inflater: LayoutInflater,
@@ -97,7 +99,8 @@ class CustomReaderFragment : CoreReaderFragment() {
 
   @TargetApi(Build.VERSION_CODES.M)
   private fun openObbOrZim() {
-    customFileValidator.validate(
+    validationDisposable?.dispose()
+    validationDisposable = customFileValidator.validate(
       onFilesFound = {
         when (it) {
           is ValidationState.HasFile -> openZimFile(it.file)
@@ -122,6 +125,11 @@ class CustomReaderFragment : CoreReaderFragment() {
     )
   }
 
+  override fun onDestroyView() {
+    super.onDestroyView()
+    validationDisposable?.dispose()
+  }
+
   override fun onBackPressed(activity: AppCompatActivity): Super {
     val result = super.onBackPressed(activity)
     if (zimReaderContainer.mainPage == getCurrentWebView().url.substringAfter(CONTENT_PREFIX)) {
@@ -192,7 +200,7 @@ class CustomReaderFragment : CoreReaderFragment() {
   override fun createMainMenu(menu: Menu?): MainMenu {
     return menuFactory.create(
       menu!!,
-      webViewList,
+      tabs,
       !urlIsInvalid(),
       this,
       BuildConfig.DISABLE_READ_ALOUD,
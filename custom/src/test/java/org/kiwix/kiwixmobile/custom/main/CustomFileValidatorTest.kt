@@ -0,0 +1,181 @@
+/*
+ * Kiwix Android
+ * Copyright (c) 2020 Kiwix <android.kiwix.org>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.kiwix.kiwixmobile.custom.main
+
+import android.content.Context
+import androidx.core.content.ContextCompat
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.mockkStatic
+import io.mockk.verify
+import io.reactivex.schedulers.TestScheduler
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import org.kiwix.kiwixmobile.core.reader.ZimMetadataReader
+import org.kiwix.kiwixmobile.core.utils.SharedPreferenceUtil
+import org.kiwix.kiwixmobile.custom.main.ValidationState.HasBothFiles
+import org.kiwix.kiwixmobile.custom.main.ValidationState.HasFile
+import org.kiwix.kiwixmobile.custom.main.ValidationState.HasNothing
+import org.kiwix.sharedFunctions.resetSchedulers
+import org.kiwix.sharedFunctions.setScheduler
+import java.io.File
+import java.util.concurrent.TimeUnit.SECONDS
+
+internal class CustomFileValidatorTest {
+
+  @TempDir lateinit var directory: File
+
+  private val context: Context = mockk()
+  private val zimMetadataReader: ZimMetadataReader = mockk()
+  private val sharedPreferenceUtil: SharedPreferenceUtil = mockk(relaxed = true)
+  private val testScheduler = TestScheduler()
+  private val customFileValidator =
+    CustomFileValidator(context, zimMetadataReader, sharedPreferenceUtil)
+  private val obbDir by lazy { File(directory, "obb").apply { mkdir() } }
+  private val filesDir by lazy { File(directory, "files").apply { mkdir() } }
+  private val found = mutableListOf<ValidationState>()
+
+  init {
+    setScheduler(testScheduler)
+    mockkStatic(ContextCompat::class)
+    every { ContextCompat.getObbDirs(context) } answers { arrayOf(obbDir) }
+    every { ContextCompat.getExternalFilesDirs(context, null) } answers { arrayOf(filesDir, null) }
+    every { zimMetadataReader.isZimFile(any()) } returns true
+    every { sharedPreferenceUtil.prefValidatedCustomFiles } returns null
+  }
+
+  @AfterEach
+  fun tearDown() {
+    resetSchedulers()
+  }
+
+  @Test
+  fun `validated files survive encoding`() {
+    val obb = File(obbDir, "main.obb").apply { writeBytes(ByteArray(3)) }
+    val zim = File(filesDir, "book.zim").apply { writeBytes(ByteArray(5)) }
+    listOf(HasFile(zim), HasBothFiles(obb, zim)).forEach { state ->
+      val validatedFiles = ValidatedFiles(state, listOf(obbDir, filesDir))
+      assertThat(ValidatedFiles.decode(validatedFiles.encode())).isEqualTo(validatedFiles)
+    }
+  }
+
+  @Test
+  fun `encodings without files are not decoded`() {
+    assertThat(ValidatedFiles.decode("")).isNull()
+    assertThat(ValidatedFiles.decode("d\t/obb\tnot a time")).isNull()
+  }
+
+  @Test
+  fun `remembered files are used without looking at the disk`() {
+    val zim = File(filesDir, "book.zim").apply { writeBytes(ByteArray(5)) }
+    remember(HasFile(zim))
+    every { zimMetadataReader.isZimFile(any()) } returns false
+    validate()
+    assertThat(found).containsExactly(HasFile(zim))
+  }
+
+  @Test
+  fun `remembered files are not used once their length changed`() {
+    val zim = File(filesDir, "book.zim").apply { writeBytes(ByteArray(5)) }
+    every { sharedPreferenceUtil.prefValidatedCustomFiles } returns
+      ValidatedFiles(HasFile(zim), listOf(obbDir, filesDir))
+        .copy(fileLengths = mapOf(zim.path to 4L))
+        .encode()
+    every { zimMetadataReader.isZimFile(any()) } returns false
+    validate()
+    assertThat(found).containsExactly(HasNothing)
+  }
+
+  @Test
+  fun `remembered files are not used once their directory changed`() {
+    val zim = File(filesDir, "book.zim").apply { writeBytes(ByteArray(5)) }
+    remember(HasFile(zim))
+    File(filesDir, "other.zim").writeBytes(ByteArray(5))
+    filesDir.setLastModified(filesDir.lastModified() + 2_000L)
+    every { zimMetadataReader.isZimFile(zim) } returns false
+    validate()
+    assertThat(found).containsExactly(HasFile(File(filesDir, "other.zim")))
+  }
+
+  @Test
+  fun `files at the top level are found without a full scan up front`() {
+    val zim = File(filesDir, "book.zim").apply { writeBytes(ByteArray(5)) }
+    File(filesDir, "nested").mkdir()
+    File(filesDir, "nested/other.zim").writeBytes(ByteArray(5))
+    validate()
+    assertThat(found).containsExactly(HasFile(zim))
+    verify(exactly = 0) { zimMetadataReader.isZimFile(File(filesDir, "nested/other.zim")) }
+  }
+
+  @Test
+  fun `nested files are found by a full scan when the top level has none`() {
+    val zim = File(filesDir, "nested").run {
+      mkdir()
+      File(this, "book.zim").apply { writeBytes(ByteArray(5)) }
+    }
+    val disposable = validate()
+    assertThat(found).containsExactly(HasFile(zim))
+    assertThat(disposable.isDisposed).isTrue()
+    verify {
+      sharedPreferenceUtil.putPrefValidatedCustomFiles(match { it?.contains(zim.path) == true })
+    }
+  }
+
+  @Test
+  fun `nothing found is reported and forgotten`() {
+    validate()
+    assertThat(found).containsExactly(HasNothing)
+    verify { sharedPreferenceUtil.putPrefValidatedCustomFiles(null) }
+  }
+
+  @Test
+  fun `the background scan applies files the quick lookup missed`() {
+    val zim = File(filesDir, "book.zim").apply { writeBytes(ByteArray(5)) }
+    val obb = File(obbDir, "nested").run {
+      mkdir()
+      File(this, "main.obb").apply { writeBytes(ByteArray(3)) }
+    }
+    validate()
+    assertThat(found).containsExactly(HasFile(zim))
+    testScheduler.advanceTimeBy(5, SECONDS)
+    assertThat(found).containsExactly(HasFile(zim), HasBothFiles(obb, zim))
+  }
+
+  @Test
+  fun `the background scan is not applied when it agrees or is disposed`() {
+    val zim = File(filesDir, "book.zim").apply { writeBytes(ByteArray(5)) }
+    validate()
+    testScheduler.advanceTimeBy(5, SECONDS)
+    assertThat(found).containsExactly(HasFile(zim))
+    val obb = File(obbDir, "main.obb").apply { writeBytes(ByteArray(3)) }
+    validate().dispose()
+    testScheduler.advanceTimeBy(5, SECONDS)
+    assertThat(found).containsExactly(HasFile(zim), HasBothFiles(obb, zim))
+  }
+
+  private fun validate() =
+    customFileValidator.validate({ found.add(it) }, { found.add(HasNothing) })
+
+  private fun remember(state: ValidationState) {
+    every { sharedPreferenceUtil.prefValidatedCustomFiles } returns
+      ValidatedFiles(state, listOf(obbDir, filesDir)).encode()
+  }
+}